@@ -0,0 +1,101 @@
+package benchmark;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * A small JMH-style measurement loop: timed warmup iterations followed by
+ * timed measurement iterations, reporting throughput (ops/s with the spread
+ * across iterations) and the bytes allocated per operation on the measuring
+ * thread, as JMH's gc profiler does.
+ * 
+ * Results of each operation are folded into a volatile sink so the JIT
+ * cannot discard the work.
+ */
+public class BenchmarkRunner
+{
+	/**
+	 * One benchmarked operation; the returned value is consumed by the sink.
+	 */
+	public interface Operation
+	{
+		Object run() throws Exception;
+	}
+
+	public static volatile int sink;
+
+	private static final com.sun.management.ThreadMXBean THREADS =
+			(com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+
+	protected int _warmupIterations;
+	protected int _measuredIterations;
+	protected long _iterationNanos;
+
+	public BenchmarkRunner()
+	{
+		this(3, 5, 1000);
+	}
+
+	/**
+	 * @param warmupIterations -- iterations run before measuring
+	 * @param measuredIterations -- iterations measured
+	 * @param iterationMillis -- minimum length of each iteration
+	 */
+	public BenchmarkRunner(int warmupIterations, int measuredIterations, long iterationMillis)
+	{
+		_warmupIterations = warmupIterations;
+		_measuredIterations = measuredIterations;
+		_iterationNanos = iterationMillis * 1_000_000;
+	}
+
+	public static void printHeader()
+	{
+		System.out.printf("%-48s %14s %12s %16s%n", "benchmark", "ops/s", "+-", "bytes/op");
+	}
+
+	public void measure(String name, Operation operation) throws Exception
+	{
+		for (int i = 0; i < _warmupIterations; i++) iteration(operation);
+
+		double[] throughput = new double[_measuredIterations];
+		long allocated = 0;
+		long operations = 0;
+		for (int i = 0; i < _measuredIterations; i++)
+		{
+			long allocatedBefore = THREADS.getCurrentThreadAllocatedBytes();
+			long[] result = iteration(operation);
+			allocated += THREADS.getCurrentThreadAllocatedBytes() - allocatedBefore;
+			operations += result[0];
+			throughput[i] = result[0] * 1e9 / result[1];
+		}
+
+		double mean = 0;
+		for (double t : throughput) mean += t;
+		mean /= throughput.length;
+
+		double variance = 0;
+		for (double t : throughput) variance += (t - mean) * (t - mean);
+		double spread = throughput.length > 1 ? Math.sqrt(variance / (throughput.length - 1)) : 0;
+
+		System.out.printf("%-48s %14.2f %12.2f %16.0f%n", name, mean, spread, (double)allocated / operations);
+	}
+
+	/*
+	 * @return { operations run, nanoseconds taken }
+	 */
+	private long[] iteration(Operation operation) throws Exception
+	{
+		long operations = 0;
+		long start = System.nanoTime();
+		long elapsed;
+		do
+		{
+			Object result = operation.run();
+			sink += result == null ? 0 : System.identityHashCode(result);
+			operations++;
+			elapsed = System.nanoTime() - start;
+		}
+		while (elapsed < _iterationNanos);
+
+		return new long[] { operations, elapsed };
+	}
+}
@@ -0,0 +1,53 @@
+package benchmark;
+
+import java.io.ByteArrayOutputStream;
+
+import builder.GeometryBuilder;
+import input.components.FigureNode;
+import input.parser.BinaryFigureReader;
+import input.parser.JSONParser;
+import visitor.ToBinaryVisitor;
+
+/**
+ * Compares reloading a figure from JSON with reloading it from the binary
+ * figure format.
+ */
+public class BinaryReloadBenchmark
+{
+	private static final int WARMUP_ROUNDS = 5;
+	private static final int MEASURED_ROUNDS = 10;
+
+	public static void main(String[] args)
+	{
+		int numPoints = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+
+		String json = FigureGenerator.generateJSON(numPoints);
+		FigureNode figure = (FigureNode)new JSONParser(new GeometryBuilder()).parse(json);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new ToBinaryVisitor().visitFigureNode(figure, out);
+		byte[] binary = out.toByteArray();
+
+		long jsonNanos = best(() -> new JSONParser(new GeometryBuilder()).parse(json));
+		long binaryNanos = best(() -> new BinaryFigureReader(new GeometryBuilder()).read(binary));
+
+		System.out.printf("points:        %d%n", numPoints);
+		System.out.printf("JSON:          %8.2f ms  (%d chars)%n", jsonNanos / 1e6, json.length());
+		System.out.printf("binary:        %8.2f ms  (%d bytes)%n", binaryNanos / 1e6, binary.length);
+		System.out.printf("speedup:       %.1fx%n", (double)jsonNanos / binaryNanos);
+	}
+
+	private static long best(Runnable load)
+	{
+		for (int i = 0; i < WARMUP_ROUNDS; i++) load.run();
+
+		long best = Long.MAX_VALUE;
+		for (int i = 0; i < MEASURED_ROUNDS; i++)
+		{
+			long start = System.nanoTime();
+			load.run();
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		return best;
+	}
+}
@@ -0,0 +1,121 @@
+package benchmark;
+
+import java.util.concurrent.CountDownLatch;
+
+import input.components.point.ConcurrentPointNodeDatabase;
+import input.components.point.PointNode;
+import input.components.point.PointNodeDatabase;
+import input.components.segments.ConcurrentSegmentNodeDatabase;
+import input.components.segments.SegmentNodeDatabase;
+
+/**
+ * Multi-threaded ingestion into the point and segment databases at 1 to 64
+ * threads: each thread puts its share of a fixed set of grid points and joins
+ * each new point to its left neighbor with addUndirectedEdge.
+ * 
+ * The plain databases need one global lock around every edit; the concurrent
+ * ones take none. Throughput is edits (puts plus undirected edges) per second,
+ * best of several rounds. Scaling is bounded by the number of available cores.
+ */
+public class ContentionBenchmark
+{
+	private static final int WARMUP_ROUNDS = 2;
+	private static final int MEASURED_ROUNDS = 3;
+
+	/*
+	 * One ingestion target: put a point and add an edge.
+	 */
+	private interface Target
+	{
+		void put(PointNode point);
+		void addEdge(PointNode from, PointNode to);
+	}
+
+	public static void main(String[] args) throws InterruptedException
+	{
+		int points = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+		int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+
+		System.out.printf("%d points, %d available processors%n", points, Runtime.getRuntime().availableProcessors());
+		System.out.printf("%8s %22s %22s%n", "threads", "global lock (edits/s)", "concurrent (edits/s)");
+		for (int threads = 1; threads <= maxThreads; threads *= 2)
+		{
+			double locked = best(threads, points, false);
+			double concurrent = best(threads, points, true);
+			System.out.printf("%8d %22.0f %22.0f%n", threads, locked, concurrent);
+		}
+	}
+
+	private static double best(int threads, int points, boolean concurrent) throws InterruptedException
+	{
+		for (int i = 0; i < WARMUP_ROUNDS; i++) run(threads, points, concurrent);
+
+		double best = 0;
+		for (int i = 0; i < MEASURED_ROUNDS; i++)
+		{
+			best = Math.max(best, run(threads, points, concurrent));
+		}
+		return best;
+	}
+
+	/*
+	 * @return edits per second
+	 */
+	private static double run(int threads, int points, boolean concurrent) throws InterruptedException
+	{
+		Target target = concurrent ? concurrentTarget() : lockedTarget();
+		int width = (int)Math.ceil(Math.sqrt(points));
+
+		CountDownLatch start = new CountDownLatch(1);
+		Thread[] workers = new Thread[threads];
+		for (int t = 0; t < threads; t++)
+		{
+			int first = (int)((long)points * t / threads);
+			int last = (int)((long)points * (t + 1) / threads);
+			workers[t] = new Thread(() -> {
+				try { start.await(); }
+				catch (InterruptedException e) { return; }
+
+				PointNode previous = null;
+				for (int i = first; i < last; i++)
+				{
+					PointNode point = new PointNode(FigureGenerator.pointName(i), i % width, i / width);
+					target.put(point);
+					if (previous != null) target.addEdge(previous, point);
+					previous = point;
+				}
+			});
+			workers[t].start();
+		}
+
+		long begin = System.nanoTime();
+		start.countDown();
+		for (Thread worker : workers) worker.join();
+		long elapsed = System.nanoTime() - begin;
+
+		return (2.0 * points - threads) * 1e9 / elapsed;
+	}
+
+	private static Target lockedTarget()
+	{
+		PointNodeDatabase points = new PointNodeDatabase();
+		SegmentNodeDatabase segments = new SegmentNodeDatabase();
+		Object lock = new Object();
+
+		return new Target() {
+			@Override public void put(PointNode point) { synchronized (lock) { points.put(point); } }
+			@Override public void addEdge(PointNode from, PointNode to) { synchronized (lock) { segments.addUndirectedEdge(from, to); } }
+		};
+	}
+
+	private static Target concurrentTarget()
+	{
+		ConcurrentPointNodeDatabase points = new ConcurrentPointNodeDatabase();
+		ConcurrentSegmentNodeDatabase segments = new ConcurrentSegmentNodeDatabase();
+
+		return new Target() {
+			@Override public void put(PointNode point) { points.put(point); }
+			@Override public void addEdge(PointNode from, PointNode to) { segments.addUndirectedEdge(from, to); }
+		};
+	}
+}
@@ -0,0 +1,88 @@
+package benchmark;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import builder.GeometryBuilder;
+import input.components.FigureNode;
+import input.components.point.PointNode;
+import input.components.point.PointNodeDatabase;
+import input.components.segments.SegmentNodeDatabase;
+import input.parser.JSONParser;
+import utilities.io.FileUtilities;
+import visitor.ToJSONVisitor;
+import visitor.UnparseVisitor;
+
+/**
+ * Benchmark suite covering the main stages of the figure pipeline:
+ * 
+ *   parse    JSONParser.parse on the figure text
+ *   build    constructing PointNodeDatabase and SegmentNodeDatabase from parsed nodes
+ *   visit    ToJSONVisitor over the figure
+ *   unparse  UnparseVisitor over the figure
+ * 
+ * each for a synthetic figure and for the sample figures at the top of the project.
+ * 
+ * Usage: FigureBenchmarks [points [averageDegree [nameLength]]]
+ * Defaults to 10000 points, average degree 4 and 8-character names.
+ */
+public class FigureBenchmarks
+{
+	private static final String[] SAMPLE_FIGURES = { "catWithTriangles.json", "octogonSnowman.json",
+			                                         "fully_connected_irregular_polygon.json", "pacmanGhost.json" };
+
+	public static void main(String[] args) throws Exception
+	{
+		int numPoints = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+		int averageDegree = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+		int nameLength = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+
+		BenchmarkRunner runner = new BenchmarkRunner();
+		BenchmarkRunner.printHeader();
+
+		String synthetic = FigureGenerator.generateJSON(numPoints, averageDegree, nameLength);
+		run(runner, "synthetic(" + numPoints + "," + averageDegree + "," + nameLength + ")", synthetic);
+
+		for (String figure : SAMPLE_FIGURES)
+		{
+			run(runner, figure, FileUtilities.readFileFilterComments(figure));
+		}
+	}
+
+	private static void run(BenchmarkRunner runner, String label, String json) throws Exception
+	{
+		FigureNode figure = (FigureNode)new JSONParser(new GeometryBuilder()).parse(json);
+		List<PointNode> points = figure.getPointsDatabase().getAllNodes();
+		List<PointNode[]> edges = directedEdges(figure.getSegments());
+
+		runner.measure(label + " parse", () -> new JSONParser(new GeometryBuilder()).parse(json));
+
+		runner.measure(label + " build", () -> {
+			PointNodeDatabase pointDatabase = new PointNodeDatabase(points);
+			SegmentNodeDatabase segmentDatabase = new SegmentNodeDatabase();
+			for (PointNode[] edge : edges) segmentDatabase.addDirectedEdge(edge[0], edge[1]);
+			return new FigureNode(figure.getDescription(), pointDatabase, segmentDatabase);
+		});
+
+		runner.measure(label + " visit", () -> new ToJSONVisitor().visitFigureNode(figure, null));
+
+		runner.measure(label + " unparse", () -> {
+			StringBuilder sb = new StringBuilder();
+			new UnparseVisitor().visitFigureNode(figure, new AbstractMap.SimpleEntry<StringBuilder, Integer>(sb, 0));
+			return sb;
+		});
+	}
+
+	private static List<PointNode[]> directedEdges(SegmentNodeDatabase segments)
+	{
+		List<PointNode[]> edges = new ArrayList<PointNode[]>();
+		for (Map.Entry<PointNode, Set<PointNode>> entry : segments.getAdjLists().entrySet())
+		{
+			for (PointNode neighbor : entry.getValue()) edges.add(new PointNode[] { entry.getKey(), neighbor });
+		}
+		return edges;
+	}
+}
@@ -0,0 +1,59 @@
+package benchmark;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import builder.GeometryBuilder;
+import input.parser.FigureCache;
+import input.parser.FigureCache.Validation;
+
+/**
+ * Compares a cold parse through FigureCache with warm hits validated by
+ * modification time and by content hash.
+ */
+public class FigureCacheBenchmark
+{
+	private static final int WARMUP_ROUNDS = 5;
+	private static final int MEASURED_ROUNDS = 10;
+
+	public static void main(String[] args) throws Exception
+	{
+		int numPoints = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+
+		Path path = Files.createTempFile("figure", ".json");
+		try
+		{
+			Files.writeString(path, FigureGenerator.generateJSON(numPoints));
+
+			long parseNanos = best(() -> new FigureCache(GeometryBuilder::new, Long.MAX_VALUE).get(path));
+
+			FigureCache byTime = new FigureCache(GeometryBuilder::new, Long.MAX_VALUE);
+			FigureCache byHash = new FigureCache(GeometryBuilder::new, Long.MAX_VALUE, Validation.CONTENT_HASH, false, null);
+			long timeHitNanos = best(() -> byTime.get(path));
+			long hashHitNanos = best(() -> byHash.get(path));
+
+			System.out.printf("points:        %d  (%d bytes)%n", numPoints, Files.size(path));
+			System.out.printf("miss (parse):  %10.3f ms%n", parseNanos / 1e6);
+			System.out.printf("hit (mtime):   %10.3f ms%n", timeHitNanos / 1e6);
+			System.out.printf("hit (SHA-256): %10.3f ms%n", hashHitNanos / 1e6);
+		}
+		finally
+		{
+			Files.deleteIfExists(path);
+		}
+	}
+
+	private static long best(Runnable load)
+	{
+		for (int i = 0; i < WARMUP_ROUNDS; i++) load.run();
+
+		long best = Long.MAX_VALUE;
+		for (int i = 0; i < MEASURED_ROUNDS; i++)
+		{
+			long start = System.nanoTime();
+			load.run();
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		return best;
+	}
+}
@@ -0,0 +1,76 @@
+package benchmark;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import builder.GeometryBuilder;
+import input.parser.FigureDiskCache;
+
+/**
+ * Simulates process start over a directory of figure files: a cold start that
+ * parses every JSON file and writes the cache entries, then a warm start from
+ * a fresh FigureDiskCache that maps the entries instead.
+ */
+public class FigureDiskCacheBenchmark
+{
+	public static void main(String[] args) throws Exception
+	{
+		int numFigures = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+		int numPoints = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+		Path directory = Files.createTempDirectory("figures");
+		try
+		{
+			String json = FigureGenerator.generateJSON(numPoints);
+			List<Path> sources = new ArrayList<Path>(numFigures);
+			for (int i = 0; i < numFigures; i++)
+			{
+				Path source = directory.resolve("figure" + i + ".json");
+				Files.writeString(source, json);
+				sources.add(source);
+			}
+			Path entries = directory.resolve("cache");
+
+			long start = System.nanoTime();
+			long cold;
+			try (FigureDiskCache cache = new FigureDiskCache(entries, GeometryBuilder::new))
+			{
+				cold = loadEach(cache, sources);
+			}
+			long coldWithWrites = System.nanoTime() - start;
+
+			long warm;
+			try (FigureDiskCache cache = new FigureDiskCache(entries, GeometryBuilder::new))
+			{
+				warm = loadEach(cache, sources);
+				if (cache.getHitCount() != numFigures) throw new IllegalStateException("warm start parsed JSON");
+			}
+
+			System.out.printf("figures:       %d x %d points (%d bytes each)%n", numFigures, numPoints, json.length());
+			System.out.printf("cold (JSON):   %10.1f ms  (%.1f ms until entries are written)%n", cold / 1e6, coldWithWrites / 1e6);
+			System.out.printf("warm (mapped): %10.1f ms%n", warm / 1e6);
+			System.out.printf("speedup:       %.1fx%n", (double)cold / warm);
+		}
+		finally
+		{
+			try (Stream<Path> files = Files.walk(directory))
+			{
+				files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+			}
+		}
+	}
+
+	/*
+	 * Figures are dropped as soon as they are loaded, so the heap holds one at a time.
+	 */
+	private static long loadEach(FigureDiskCache cache, List<Path> sources)
+	{
+		long start = System.nanoTime();
+		for (Path source : sources) cache.load(source);
+		return System.nanoTime() - start;
+	}
+}
@@ -0,0 +1,122 @@
+package benchmark;
+
+import java.util.Random;
+
+/**
+ * Generates synthetic figures in the JSON format read by JSONParser.
+ * 
+ * generateJSON(numPoints) lays points out on a square grid and connects each
+ * point to its right and upper neighbors, so the number of segments grows
+ * linearly with the number of points. generateJSON(numPoints, averageDegree,
+ * nameLength) scatters points randomly and joins random pairs, with a fixed
+ * seed so runs are comparable.
+ */
+public class FigureGenerator
+{
+	private static final long SEED = 223;
+
+	/**
+	 * @param numPoints -- number of points in the generated figure
+	 * @return a complete JSON figure as a String
+	 */
+	public static String generateJSON(int numPoints)
+	{
+		int side = (int)Math.ceil(Math.sqrt(numPoints));
+		StringBuilder sb = new StringBuilder(numPoints * 64);
+
+		sb.append("{\n  \"Figure\" :\n  {\n");
+		sb.append("    \"Description\" : \"Synthetic grid with ").append(numPoints).append(" points.\",\n");
+
+		sb.append("    \"Points\" :\n    [\n");
+		for (int i = 0; i < numPoints; i++)
+		{
+			sb.append("      { \"name\" : \"").append(pointName(i)).append("\", \"x\" : ")
+			  .append(i % side).append(", \"y\" : ").append(i / side).append(" }");
+			sb.append(i + 1 < numPoints ? ",\n" : "\n");
+		}
+		sb.append("    ],\n");
+
+		sb.append("    \"Segments\" :\n    [\n");
+		for (int i = 0; i < numPoints; i++)
+		{
+			sb.append("      { \"").append(pointName(i)).append("\" : [");
+			boolean first = true;
+			if (i % side + 1 < side && i + 1 < numPoints)
+			{
+				sb.append('"').append(pointName(i + 1)).append('"');
+				first = false;
+			}
+			if (i + side < numPoints)
+			{
+				if (!first) sb.append(", ");
+				sb.append('"').append(pointName(i + side)).append('"');
+			}
+			sb.append("] }");
+			sb.append(i + 1 < numPoints ? ",\n" : "\n");
+		}
+		sb.append("    ]\n  }\n}\n");
+
+		return sb.toString();
+	}
+
+	/**
+	 * @param numPoints -- number of points in the generated figure
+	 * @param averageDegree -- average number of segments meeting at a point
+	 * @param nameLength -- length of every point name (at least enough to keep names unique)
+	 * @return a complete JSON figure as a String
+	 */
+	public static String generateJSON(int numPoints, int averageDegree, int nameLength)
+	{
+		Random random = new Random(SEED);
+		StringBuilder sb = new StringBuilder(numPoints * (48 + 2 * nameLength + averageDegree * (nameLength + 4)));
+
+		sb.append("{\n  \"Figure\" :\n  {\n");
+		sb.append("    \"Description\" : \"Random figure with ").append(numPoints).append(" points, average degree ")
+		  .append(averageDegree).append(".\",\n");
+
+		sb.append("    \"Points\" :\n    [\n");
+		for (int i = 0; i < numPoints; i++)
+		{
+			sb.append("      { \"name\" : \"").append(pointName(i, nameLength)).append("\", \"x\" : ")
+			  .append(random.nextInt(1_000_000) / 100.0).append(", \"y\" : ").append(random.nextInt(1_000_000) / 100.0).append(" }");
+			sb.append(i + 1 < numPoints ? ",\n" : "\n");
+		}
+		sb.append("    ],\n");
+
+		// each undirected segment adds one to the degree of both of its endpoints
+		sb.append("    \"Segments\" :\n    [\n");
+		for (int i = 0; i < numPoints; i++)
+		{
+			int segments = averageDegree / 2 + (random.nextInt(2) < averageDegree % 2 ? 1 : 0);
+			sb.append("      { \"").append(pointName(i, nameLength)).append("\" : [");
+			for (int s = 0; s < segments && numPoints > 1; s++)
+			{
+				int other = random.nextInt(numPoints - 1);
+				if (other >= i) other++;
+				if (s > 0) sb.append(", ");
+				sb.append('"').append(pointName(other, nameLength)).append('"');
+			}
+			sb.append("] }");
+			sb.append(i + 1 < numPoints ? ",\n" : "\n");
+		}
+		sb.append("    ]\n  }\n}\n");
+
+		return sb.toString();
+	}
+
+	public static String pointName(int index)
+	{
+		return "P" + index;
+	}
+
+	/**
+	 * @return "P" followed by the index, zero-padded to nameLength characters
+	 */
+	public static String pointName(int index, int nameLength)
+	{
+		String digits = Integer.toString(index);
+		StringBuilder sb = new StringBuilder(Math.max(nameLength, digits.length() + 1)).append('P');
+		for (int i = digits.length() + 1; i < nameLength; i++) sb.append('0');
+		return sb.append(digits).toString();
+	}
+}
@@ -0,0 +1,101 @@
+package benchmark;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import graph.ConnectedComponents;
+import graph.CycleDetection;
+import graph.GraphSearch;
+import graph.IndexedGraph;
+import graph.ShortestPaths;
+import input.components.point.PointNode;
+import input.components.segments.CompactSegmentNodeDatabase;
+import input.components.segments.SegmentNodeDatabase;
+
+/**
+ * The graph package on a side x side grid (10^6 vertices by default) with a
+ * diagonal in about half the cells, so edge lengths vary and the graph is full of
+ * cycles, and on a comb-shaped spanning tree of the same points, where cycle
+ * detection has to look at every edge; the tree is held in a CompactSegmentNodeDatabase.
+ * A breadth-first search over the PointNode-keyed adjacency lists is measured
+ * alongside as the baseline.
+ * 
+ * Usage: GraphAlgorithmsBenchmark [side]
+ */
+public class GraphAlgorithmsBenchmark
+{
+	public static void main(String[] args) throws Exception
+	{
+		int side = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+
+		PointNode[] points = new PointNode[side * side];
+		for (int i = 0; i < points.length; i++) points[i] = new PointNode(FigureGenerator.pointName(i), i % side, i / side);
+
+		Random random = new Random(42);
+		SegmentNodeDatabase grid = new SegmentNodeDatabase();
+		CompactSegmentNodeDatabase comb = new CompactSegmentNodeDatabase();
+		for (int y = 0; y < side; y++)
+		{
+			for (int x = 0; x < side; x++)
+			{
+				PointNode p = points[y * side + x];
+				if (x + 1 < side)
+				{
+					grid.addUndirectedEdge(p, points[y * side + x + 1]);
+					comb.addUndirectedEdge(p, points[y * side + x + 1]);
+				}
+				if (y + 1 < side)
+				{
+					grid.addUndirectedEdge(p, points[(y + 1) * side + x]);
+					if (x == 0) comb.addUndirectedEdge(p, points[(y + 1) * side + x]);
+				}
+				if (x + 1 < side && y + 1 < side && random.nextBoolean()) grid.addUndirectedEdge(p, points[(y + 1) * side + x + 1]);
+			}
+		}
+
+		long start = System.nanoTime();
+		IndexedGraph graph = new IndexedGraph(grid);
+		IndexedGraph tree = new IndexedGraph(comb);
+		System.out.printf("indexed %d vertices, %d + %d edges: %.1f ms%n", graph.getVertexCount(), graph.getEdgeCount(), tree.getEdgeCount(), (System.nanoTime() - start) / 1e6);
+
+		BenchmarkRunner runner = new BenchmarkRunner(2, 5, 2000);
+		BenchmarkRunner.printHeader();
+
+		runner.measure("IndexedGraph build (grid)", () -> new IndexedGraph(grid));
+		runner.measure("IndexedGraph build (tree, compact)", () -> new IndexedGraph(comb));
+		runner.measure("breadth-first (grid)", () -> GraphSearch.breadthFirst(graph, 0));
+		runner.measure("breadth-first over adjacency map (grid)", () -> mapBreadthFirst(grid, points[0]));
+		runner.measure("depth-first (grid)", () -> GraphSearch.depthFirst(graph, 0));
+		runner.measure("connected components (grid)", () -> new ConnectedComponents(graph));
+		runner.measure("dijkstra, all vertices (grid)", () -> ShortestPaths.from(graph, 0));
+		runner.measure("dijkstra, corner to center (grid)", () -> ShortestPaths.between(graph, 0, graph.getId(points[side / 2 * side + side / 2])));
+		runner.measure("hasCycle (grid)", () -> CycleDetection.hasCycle(graph));
+		runner.measure("findCycle (grid)", () -> CycleDetection.findCycle(graph));
+		runner.measure("hasCycle (tree)", () -> CycleDetection.hasCycle(tree));
+		runner.measure("findCycle (tree)", () -> CycleDetection.findCycle(tree));
+	}
+
+	/*
+	 * Breadth-first search as it would be written against getAdjLists.
+	 * @return the number of vertices reached
+	 */
+	private static Integer mapBreadthFirst(SegmentNodeDatabase segments, PointNode source)
+	{
+		Map<PointNode, Set<PointNode>> adjLists = segments.getAdjLists();
+		Set<PointNode> seen = new HashSet<PointNode>();
+		ArrayDeque<PointNode> queue = new ArrayDeque<PointNode>();
+		seen.add(source);
+		queue.add(source);
+		while (!queue.isEmpty())
+		{
+			for (PointNode neighbor : adjLists.get(queue.poll()))
+			{
+				if (seen.add(neighbor)) queue.add(neighbor);
+			}
+		}
+		return seen.size();
+	}
+}
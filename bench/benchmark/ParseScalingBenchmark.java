@@ -0,0 +1,45 @@
+package benchmark;
+
+import builder.GeometryBuilder;
+import input.parser.JSONParser;
+
+/**
+ * Measures JSONParser.parse on synthetic figures of doubling size.
+ * 
+ * With constant-time name lookups the time per point should stay roughly
+ * flat as the figure grows; a linear name scan shows up as time per point
+ * doubling along with the figure size.
+ */
+public class ParseScalingBenchmark
+{
+	private static final int WARMUP_ROUNDS = 3;
+	private static final int MEASURED_ROUNDS = 5;
+
+	public static void main(String[] args)
+	{
+		int maxPoints = args.length > 0 ? Integer.parseInt(args[0]) : 256_000;
+
+		System.out.printf("%10s %12s %14s%n", "points", "parse (ms)", "ns / point");
+		for (int numPoints = 1_000; numPoints <= maxPoints; numPoints *= 2)
+		{
+			String json = FigureGenerator.generateJSON(numPoints);
+
+			for (int i = 0; i < WARMUP_ROUNDS; i++) parse(json);
+
+			long best = Long.MAX_VALUE;
+			for (int i = 0; i < MEASURED_ROUNDS; i++)
+			{
+				long start = System.nanoTime();
+				parse(json);
+				best = Math.min(best, System.nanoTime() - start);
+			}
+
+			System.out.printf("%10d %12.2f %14.1f%n", numPoints, best / 1e6, (double)best / numPoints);
+		}
+	}
+
+	private static Object parse(String json)
+	{
+		return new JSONParser(new GeometryBuilder()).parse(json);
+	}
+}
@@ -0,0 +1,63 @@
+package benchmark;
+
+import java.util.Random;
+
+import graph.IndexedGraph;
+import graph.PlanarFaces;
+import input.components.point.PointNode;
+import input.components.segments.CompactSegmentNodeDatabase;
+
+/**
+ * Face extraction on side x side grids with a diagonal in about half the cells,
+ * doubling the side up to the given size (1500 by default, 2.25 * 10^6 vertices
+ * and about 5.6 * 10^6 edges), to show the time per edge staying flat.
+ * 
+ * Usage: PlanarFacesBenchmark [largest side]
+ */
+public class PlanarFacesBenchmark
+{
+	public static void main(String[] args)
+	{
+		int maxSide = args.length > 0 ? Integer.parseInt(args[0]) : 1500;
+
+		System.out.printf("%8s %10s %10s %10s %14s %14s %10s%n", "side", "vertices", "edges", "faces", "index (ms)", "faces (ms)", "ns/edge");
+		for (int side = maxSide / 8; side <= maxSide; side *= 2)
+		{
+			CompactSegmentNodeDatabase segments = grid(side);
+			segments.numUndirectedEdges();
+
+			long start = System.nanoTime();
+			IndexedGraph graph = new IndexedGraph(segments);
+			long indexed = System.nanoTime() - start;
+
+			// the first extraction warms up the JIT
+			new PlanarFaces(graph);
+			start = System.nanoTime();
+			PlanarFaces faces = new PlanarFaces(graph);
+			long elapsed = System.nanoTime() - start;
+
+			System.out.printf("%8d %10d %10d %10d %14.1f %14.1f %10.1f%n", side, graph.getVertexCount(), graph.getEdgeCount(), faces.getFaceCount(),
+			                  indexed / 1e6, elapsed / 1e6, (double)elapsed / graph.getEdgeCount());
+		}
+	}
+
+	private static CompactSegmentNodeDatabase grid(int side)
+	{
+		Random random = new Random(42);
+		PointNode[] points = new PointNode[side * side];
+		for (int i = 0; i < points.length; i++) points[i] = new PointNode(FigureGenerator.pointName(i), i % side, i / side);
+
+		CompactSegmentNodeDatabase segments = new CompactSegmentNodeDatabase();
+		for (int y = 0; y < side; y++)
+		{
+			for (int x = 0; x < side; x++)
+			{
+				PointNode p = points[y * side + x];
+				if (x + 1 < side) segments.addUndirectedEdge(p, points[y * side + x + 1]);
+				if (y + 1 < side) segments.addUndirectedEdge(p, points[(y + 1) * side + x]);
+				if (x + 1 < side && y + 1 < side && random.nextBoolean()) segments.addUndirectedEdge(p, points[(y + 1) * side + x + 1]);
+			}
+		}
+		return segments;
+	}
+}
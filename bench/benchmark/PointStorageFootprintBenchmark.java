@@ -0,0 +1,99 @@
+package benchmark;
+
+import builder.GeometryBuilder;
+import input.components.FigureNode;
+import input.components.point.PointNode;
+import input.components.point.PointNodeDatabase;
+import input.components.point.PrimitivePointNodeDatabase;
+import input.parser.JSONParser;
+
+/**
+ * Compares the retained heap per point of PointNodeDatabase and
+ * PrimitivePointNodeDatabase, first for the databases on their own and then for
+ * whole parsed figures, whose segment databases hold the PointNodes of every point
+ * they reach.
+ * 
+ * Each database or figure is built from the same points and then measured as the
+ * difference in used heap after a full collection. Run with a fixed heap
+ * (e.g. -Xms2g -Xmx2g) for stable numbers.
+ */
+public class PointStorageFootprintBenchmark
+{
+	public static void main(String[] args)
+	{
+		int numPoints = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+		double objectBytes = bytesPerPoint(numPoints, false);
+		double primitiveBytes = bytesPerPoint(numPoints, true);
+
+		System.out.printf("points:                      %d%n", numPoints);
+		System.out.printf("PointNodeDatabase:           %.1f bytes / point%n", objectBytes);
+		System.out.printf("PrimitivePointNodeDatabase:  %.1f bytes / point%n", primitiveBytes);
+		System.out.printf("reduction:                   %.2fx%n", objectBytes / primitiveBytes);
+
+		// a tenth as many points, each in about 6 segments
+		int figurePoints = numPoints / 10;
+		String json = FigureGenerator.generateJSON(figurePoints, 6, 8);
+
+		System.out.printf("%nparsed figure points:        %d%n", figurePoints);
+		double defaultBytes = 0;
+		for (boolean compact : new boolean[] { false, true })
+		{
+			for (boolean primitive : new boolean[] { false, true })
+			{
+				double bytes = figureBytesPerPoint(json, figurePoints, primitive, compact);
+				if (!primitive && !compact) defaultBytes = bytes;
+				System.out.printf("%-29s%.1f bytes / point (%.2fx)%n",
+						          (primitive ? "primitive" : "object") + " points, " + (compact ? "compact:" : "default:"),
+						          bytes, defaultBytes / bytes);
+			}
+		}
+	}
+
+	private static double figureBytesPerPoint(String json, int numPoints, boolean primitive, boolean compact)
+	{
+		long before = usedHeap();
+
+		FigureNode figure = (FigureNode)new JSONParser(new GeometryBuilder(primitive, compact)).parse(json);
+		if (primitive) ((PrimitivePointNodeDatabase)figure.getPointsDatabase()).trimToSize();
+
+		long after = usedHeap();
+		if (figure.getPointsDatabase().size() != numPoints) throw new IllegalStateException("expected " + numPoints + " points");
+
+		return (double)(after - before) / numPoints;
+	}
+
+	private static double bytesPerPoint(int numPoints, boolean primitive)
+	{
+		long before = usedHeap();
+
+		PointNodeDatabase db;
+		if (primitive)
+		{
+			PrimitivePointNodeDatabase columns = new PrimitivePointNodeDatabase();
+			for (int i = 0; i < numPoints; i++) columns.put(FigureGenerator.pointName(i), x(i), y(i));
+			columns.trimToSize();
+			db = columns;
+		}
+		else
+		{
+			db = new PointNodeDatabase();
+			for (int i = 0; i < numPoints; i++) db.put(new PointNode(FigureGenerator.pointName(i), x(i), y(i)));
+		}
+
+		long after = usedHeap();
+		if (db.size() != numPoints) throw new IllegalStateException("expected " + numPoints + " points");
+
+		return (double)(after - before) / numPoints;
+	}
+
+	private static double x(int i) { return (i * 7919L % 100_003) * 0.5; }
+	private static double y(int i) { return i * 0.25; }
+
+	private static long usedHeap()
+	{
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 4; i++) System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,91 @@
+package benchmark;
+
+import java.util.List;
+
+import builder.GeometryBuilder;
+import input.components.FigureNode;
+import input.components.point.PointNode;
+import input.components.segments.SegmentNode;
+import input.components.segments.SegmentNodeDatabase;
+import input.parser.JSONParser;
+import spatial.SegmentIndex;
+import utilities.io.FileUtilities;
+import utilities.math.GeometryUtilities;
+
+/**
+ * Collision checks on crossing_symmetric_triangle.json tiled into a grid of copies:
+ * building a SegmentIndex, finding all crossing pairs with its sweep, and (for the
+ * smaller tilings) the pairwise test over asSegmentList it replaces.
+ * 
+ * Usage: SegmentIndexBenchmark [largest number of copies]
+ */
+public class SegmentIndexBenchmark
+{
+	private static final int BRUTE_FORCE_LIMIT = 1_000;
+
+	public static void main(String[] args)
+	{
+		int maxCopies = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+		FigureNode figure = (FigureNode)new JSONParser(new GeometryBuilder()).parse(FileUtilities.readFileFilterComments("crossing_symmetric_triangle.json"));
+
+		System.out.printf("%10s %10s %12s %14s %10s %16s%n", "copies", "segments", "build (ms)", "sweep (ms)", "crossings", "pairwise (ms)");
+		for (int copies = 10; copies <= maxCopies; copies *= 10)
+		{
+			SegmentNodeDatabase tiled = tile(figure.getSegments(), copies);
+
+			long start = System.nanoTime();
+			SegmentIndex index = new SegmentIndex(tiled);
+			long built = System.nanoTime();
+			int crossings = index.crossingPairs().size();
+			long swept = System.nanoTime();
+
+			String pairwise = copies <= BRUTE_FORCE_LIMIT ? String.format("%.1f", pairwise(tiled) / 1e6) : "-";
+			System.out.printf("%10d %10d %12.1f %14.1f %10d %16s%n", copies, index.size(), (built - start) / 1e6, (swept - built) / 1e6, crossings, pairwise);
+		}
+	}
+
+	/*
+	 * Copies of the figure side by side, overlapping slightly so neighbors touch.
+	 */
+	private static SegmentNodeDatabase tile(SegmentNodeDatabase segments, int copies)
+	{
+		int columns = (int)Math.ceil(Math.sqrt(copies));
+		SegmentNodeDatabase tiled = new SegmentNodeDatabase();
+		for (int c = 0; c < copies; c++)
+		{
+			double dx = (c % columns) * 5.5;
+			double dy = (c / columns) * 5.5;
+			for (SegmentNode segment : segments.asSegmentList())
+			{
+				tiled.addDirectedEdge(shift(segment.getPoint1(), c, dx, dy), shift(segment.getPoint2(), c, dx, dy));
+			}
+		}
+		return tiled;
+	}
+
+	private static PointNode shift(PointNode point, int copy, double dx, double dy)
+	{
+		return new PointNode(point.getName() + copy, point.getX() + dx, point.getY() + dy);
+	}
+
+	/*
+	 * @return nanoseconds taken to test every pair of directed edges
+	 */
+	private static long pairwise(SegmentNodeDatabase segments)
+	{
+		long start = System.nanoTime();
+		List<SegmentNode> all = segments.asSegmentList();
+		int hits = 0;
+		for (int i = 0; i < all.size(); i++)
+		{
+			for (int j = i + 1; j < all.size(); j++)
+			{
+				SegmentNode s = all.get(i), t = all.get(j);
+				if (GeometryUtilities.segmentsIntersect(s.getPoint1().getX(), s.getPoint1().getY(), s.getPoint2().getX(), s.getPoint2().getY(),
+						                               t.getPoint1().getX(), t.getPoint1().getY(), t.getPoint2().getX(), t.getPoint2().getY())) hits++;
+			}
+		}
+		BenchmarkRunner.sink += hits;
+		return System.nanoTime() - start;
+	}
+}
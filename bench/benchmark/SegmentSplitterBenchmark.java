@@ -0,0 +1,54 @@
+package benchmark;
+
+import java.util.Random;
+
+import input.components.point.PointNode;
+import input.components.point.PointNodeDatabase;
+import input.components.segments.SegmentNodeDatabase;
+import spatial.SegmentSplitter;
+
+/**
+ * The Bentley-Ottmann sweep of SegmentSplitter on n random segments of random
+ * direction and length up to LENGTH in a square sized so that each segment
+ * crosses about two others, for n up to the given size (10^6 by default).
+ * Reports the sweep and the split separately, and the sweep time per segment
+ * plus split point, which O((n + k) log n) keeps growing only logarithmically.
+ * 
+ * Usage: SegmentSplitterBenchmark [largest number of segments]
+ */
+public class SegmentSplitterBenchmark
+{
+	private static final double LENGTH = 1;
+
+	public static void main(String[] args)
+	{
+		int maxSegments = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+		System.out.printf("%10s %12s %12s %12s %14s%n", "segments", "split points", "sweep (ms)", "apply (ms)", "ns/(n + k)");
+		for (int n = 1000; n <= maxSegments; n *= 10)
+		{
+			double side = Math.sqrt(n * LENGTH * LENGTH / 4);
+			Random random = new Random(42);
+			PointNodeDatabase points = new PointNodeDatabase();
+			SegmentNodeDatabase segments = new SegmentNodeDatabase();
+			for (int i = 0; i < n; i++)
+			{
+				double x = random.nextDouble() * side, y = random.nextDouble() * side;
+				double angle = random.nextDouble() * Math.PI, length = random.nextDouble() * LENGTH;
+				PointNode a = new PointNode(FigureGenerator.pointName(2 * i), x, y);
+				PointNode b = new PointNode(FigureGenerator.pointName(2 * i + 1), x + length * Math.cos(angle), y + length * Math.sin(angle));
+				if (!points.put(a) || !points.put(b)) continue;
+				segments.addUndirectedEdge(a, b);
+			}
+
+			long start = System.nanoTime();
+			SegmentSplitter splitter = new SegmentSplitter(points, segments);
+			long swept = System.nanoTime();
+			splitter.apply();
+			long applied = System.nanoTime();
+
+			int k = splitter.getSplitPoints().size();
+			System.out.printf("%10d %12d %12.1f %12.1f %14.1f%n", n, k, (swept - start) / 1e6, (applied - swept) / 1e6, (double)(swept - start) / (n + k));
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import input.components.point.PointNode;
+import spatial.PointKDTree;
+
+/**
+ * Rectangle, radius and k-nearest queries on PointKDTree against a linear scan
+ * of the same points, at 10^6 uniformly random points by default. Each query is
+ * centered on a fresh random location.
+ * 
+ * Usage: SpatialQueryBenchmark [points]
+ */
+public class SpatialQueryBenchmark
+{
+	private static final double SIDE = 1000;
+
+	// the rectangle and the circle each hold about 100 points at 10^6 points
+	private static final double RANGE = 10;
+	private static final double RADIUS = 5.64;
+	private static final int K = 8;
+
+	public static void main(String[] args) throws Exception
+	{
+		int numPoints = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+		Random random = new Random(42);
+		List<PointNode> points = new ArrayList<PointNode>(numPoints);
+		for (int i = 0; i < numPoints; i++)
+		{
+			points.add(new PointNode(FigureGenerator.pointName(i), random.nextDouble() * SIDE, random.nextDouble() * SIDE));
+		}
+
+		long start = System.nanoTime();
+		PointKDTree tree = new PointKDTree(points);
+		System.out.printf("bulk build of %d points: %.1f ms%n", numPoints, (System.nanoTime() - start) / 1e6);
+
+		BenchmarkRunner runner = new BenchmarkRunner();
+		BenchmarkRunner.printHeader();
+
+		runner.measure("range      kd-tree", () -> { double x = random.nextDouble() * SIDE; double y = random.nextDouble() * SIDE;
+		                                             return tree.range(x, y, x + RANGE, y + RANGE); });
+		runner.measure("range      linear scan", () -> { double x = random.nextDouble() * SIDE; double y = random.nextDouble() * SIDE;
+		                                                 return scanRange(points, x, y, x + RANGE, y + RANGE); });
+		runner.measure("radius     kd-tree", () -> tree.withinRadius(random.nextDouble() * SIDE, random.nextDouble() * SIDE, RADIUS));
+		runner.measure("radius     linear scan", () -> scanRadius(points, random.nextDouble() * SIDE, random.nextDouble() * SIDE, RADIUS));
+		runner.measure("nearest    kd-tree", () -> tree.nearest(random.nextDouble() * SIDE, random.nextDouble() * SIDE));
+		runner.measure("nearest    linear scan", () -> scanNearest(points, random.nextDouble() * SIDE, random.nextDouble() * SIDE));
+		runner.measure("k-nearest  kd-tree (k=" + K + ")", () -> tree.nearest(random.nextDouble() * SIDE, random.nextDouble() * SIDE, K));
+	}
+
+	private static List<PointNode> scanRange(List<PointNode> points, double minX, double minY, double maxX, double maxY)
+	{
+		List<PointNode> found = new ArrayList<PointNode>();
+		for (PointNode p : points)
+		{
+			if (p.getX() >= minX && p.getX() <= maxX && p.getY() >= minY && p.getY() <= maxY) found.add(p);
+		}
+		return found;
+	}
+
+	private static List<PointNode> scanRadius(List<PointNode> points, double x, double y, double radius)
+	{
+		List<PointNode> found = new ArrayList<PointNode>();
+		for (PointNode p : points)
+		{
+			double dx = p.getX() - x;
+			double dy = p.getY() - y;
+			if (dx * dx + dy * dy <= radius * radius) found.add(p);
+		}
+		return found;
+	}
+
+	private static PointNode scanNearest(List<PointNode> points, double x, double y)
+	{
+		PointNode best = null;
+		double bestDistance = Double.POSITIVE_INFINITY;
+		for (PointNode p : points)
+		{
+			double dx = p.getX() - x;
+			double dy = p.getY() - y;
+			if (dx * dx + dy * dy < bestDistance)
+			{
+				bestDistance = dx * dx + dy * dy;
+				best = p;
+			}
+		}
+		return best;
+	}
+}
@@ -4,12 +4,40 @@ import java.util.List;
 import input.components.FigureNode;
 import input.components.point.PointNode;
 import input.components.point.PointNodeDatabase;
+import input.components.point.PrimitivePointNodeDatabase;
+import input.components.segments.CompactSegmentNodeDatabase;
 import input.components.segments.SegmentNode;
 import input.components.segments.SegmentNodeDatabase;
 
 public class GeometryBuilder extends DefaultBuilder {
 
-	public GeometryBuilder() { }
+	/**
+	 * When set, point databases are built as PrimitivePointNodeDatabase
+	 * (columnar storage) rather than PointNodeDatabase.
+	 */
+	protected boolean _primitivePoints;
+
+	/**
+	 * When set, segment databases are built as CompactSegmentNodeDatabase
+	 * (CSR adjacency) rather than SegmentNodeDatabase.
+	 */
+	protected boolean _compactSegments;
+
+	public GeometryBuilder() { this(false, false); }
+
+	/**
+	 * @param primitivePoints -- build PrimitivePointNodeDatabase instances for point databases
+	 */
+	public GeometryBuilder(boolean primitivePoints) { this(primitivePoints, false); }
+
+	/**
+	 * @param primitivePoints -- build PrimitivePointNodeDatabase instances for point databases
+	 * @param compactSegments -- build CompactSegmentNodeDatabase instances for segment databases
+	 */
+	public GeometryBuilder(boolean primitivePoints, boolean compactSegments) {
+		_primitivePoints = primitivePoints;
+		_compactSegments = compactSegments;
+	}
 
 	@Override
     public FigureNode buildFigureNode(String description,
@@ -20,6 +48,7 @@ public class GeometryBuilder extends DefaultBuilder {
     
 	@Override
     public SegmentNodeDatabase buildSegmentNodeDatabase() {
+		if (_compactSegments) return new CompactSegmentNodeDatabase();
         return new SegmentNodeDatabase();
     }
     
@@ -35,6 +64,7 @@ public class GeometryBuilder extends DefaultBuilder {
     
 	@Override
     public PointNodeDatabase buildPointDatabaseNode(List<PointNode> points) {
+		if (_primitivePoints) return new PrimitivePointNodeDatabase(points);
 		return new PointNodeDatabase(points);
     }
 	
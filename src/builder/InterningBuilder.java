@@ -0,0 +1,30 @@
+package builder;
+
+import input.components.point.PointNode;
+
+/**
+ * A GeometryBuilder that builds points through a PointNodePool, so figures
+ * loaded with the same pool share one PointNode for each distinct
+ * (name, epsilon-equal coordinates) instead of allocating a node per occurrence.
+ * 
+ * The pool is thread-safe, so one pool can serve builders on many threads
+ * (for example a BatchParser).
+ */
+public class InterningBuilder extends GeometryBuilder {
+
+	protected PointNodePool _pool;
+
+	public InterningBuilder() { this(PointNodePool.getDefault()); }
+
+	public InterningBuilder(PointNodePool pool) {
+		super();
+		_pool = pool;
+	}
+
+	public PointNodePool getPool() { return _pool; }
+
+	@Override
+	public PointNode buildPointNode(String name, double x, double y) {
+		return _pool.intern(name, x, y);
+	}
+}
@@ -0,0 +1,135 @@
+package builder;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import input.components.point.PointNode;
+import input.components.point.PointSpatialHash;
+import utilities.math.MathUtilities;
+
+/**
+ * A bounded, thread-safe pool of canonical PointNodes.
+ * 
+ * intern(name, x, y) returns a pooled node with the same name whose coordinates
+ * are epsilon-equal to (x, y) if there is one; otherwise it creates a node and,
+ * while the pool is below capacity, admits it as the canonical node. Once the
+ * pool is full, new points are still returned but no longer pooled.
+ * 
+ * Nodes are keyed on (name, grid cell) using the PointSpatialHash grid, and a
+ * lookup probes every cell overlapped by the query's epsilon box. Under
+ * contention two threads may each admit a node for nearly the same point in
+ * neighboring cells; both are valid, so the pool only loses some sharing.
+ */
+public class PointNodePool
+{
+	public static final int DEFAULT_CAPACITY = 1 << 20;
+
+	private static final PointNodePool DEFAULT = new PointNodePool(DEFAULT_CAPACITY);
+
+	protected ConcurrentHashMap<Key, PointNode> _pool = new ConcurrentHashMap<Key, PointNode>();
+	protected int _capacity;
+
+	protected LongAdder _hits = new LongAdder();
+	protected LongAdder _misses = new LongAdder();
+
+	/**
+	 * @param capacity -- maximum number of canonical nodes held
+	 */
+	public PointNodePool(int capacity)
+	{
+		_capacity = capacity;
+	}
+
+	/**
+	 * @return the process-wide pool used by InterningBuilder by default
+	 */
+	public static PointNodePool getDefault() { return DEFAULT; }
+
+	public PointNode intern(String name, double x, double y)
+	{
+		long minX = PointSpatialHash.firstCell(x), minY = PointSpatialHash.firstCell(y);
+		int spanX = PointSpatialHash.cellSpan(x), spanY = PointSpatialHash.cellSpan(y);
+
+		for (int i = 0; i < spanX; i++)
+		{
+			for (int j = 0; j < spanY; j++)
+			{
+				PointNode pooled = _pool.get(new Key(name, minX + i, minY + j));
+				if (matches(pooled, x, y))
+				{
+					_hits.increment();
+					return pooled;
+				}
+			}
+		}
+
+		PointNode node = new PointNode(name, x, y);
+		_misses.increment();
+		if (_pool.size() >= _capacity) return node;
+
+		PointNode raced = _pool.putIfAbsent(new Key(name, PointSpatialHash.cell(x), PointSpatialHash.cell(y)), node);
+		return matches(raced, x, y) ? raced : node;
+	}
+
+	public long getHitCount()  { return _hits.sum(); }
+	public long getMissCount() { return _misses.sum(); }
+
+	public double getHitRate()
+	{
+		long hits = getHitCount();
+		long total = hits + getMissCount();
+		return total == 0 ? 0 : (double)hits / total;
+	}
+
+	/**
+	 * @return number of canonical nodes currently pooled
+	 */
+	public int size() { return _pool.size(); }
+
+	public int getCapacity() { return _capacity; }
+
+	/**
+	 * Drop every pooled node and reset the counters.
+	 */
+	public void clear()
+	{
+		_pool.clear();
+		_hits.reset();
+		_misses.reset();
+	}
+
+	private static boolean matches(PointNode pooled, double x, double y)
+	{
+		return pooled != null &&
+			   MathUtilities.doubleEquals(pooled.getX(), x) &&
+			   MathUtilities.doubleEquals(pooled.getY(), y);
+	}
+
+	private static final class Key
+	{
+		private final String _name;
+		private final long _cx;
+		private final long _cy;
+		private final int _hash;
+
+		Key(String name, long cx, long cy)
+		{
+			_name = name;
+			_cx = cx;
+			_cy = cy;
+			_hash = 31 * (31 * (name == null ? 0 : name.hashCode()) + Long.hashCode(cx)) + Long.hashCode(cy);
+		}
+
+		@Override
+		public int hashCode() { return _hash; }
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (!(obj instanceof Key)) return false;
+			Key that = (Key)obj;
+			return _cx == that._cx && _cy == that._cy &&
+				   (_name == null ? that._name == null : _name.equals(that._name));
+		}
+	}
+}
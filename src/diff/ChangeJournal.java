@@ -0,0 +1,240 @@
+package diff;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import input.components.ChangeListener;
+import input.components.FigureNode;
+import input.components.point.PointNode;
+import input.components.segments.SegmentNode;
+import input.components.segments.SegmentNodeDatabase;
+
+/**
+ * An append-only log of the edits made to a figure, started with
+ * ChangeJournal.attach. Every put or removed point and every added or
+ * removed (directed) edge is one Entry with the next version number, so
+ * recording an edit is a constant-time append.
+ * 
+ * The changes since a version are netted out on request: an edge added and then
+ * removed again is not reported. addedSegmentsSince and removedSegmentsSince
+ * return ordinary SegmentNodeDatabases, so any existing visitor can serialize
+ * just the changed segments; patchSince returns the same changes as a FigurePatch.
+ * 
+ * A journal is not thread-safe; it is meant to be driven by one editing thread.
+ */
+public class ChangeJournal implements ChangeListener
+{
+	public enum Operation { PUT_POINT, REMOVE_POINT, ADD_EDGE, REMOVE_EDGE }
+
+	public static class Entry
+	{
+		private final long      _version;
+		private final Operation _operation;
+		private final PointNode _point1;
+		private final PointNode _point2;
+
+		public Entry(long version, Operation operation, PointNode point1, PointNode point2)
+		{
+			_version = version;
+			_operation = operation;
+			_point1 = point1;
+			_point2 = point2;
+		}
+
+		public long      getVersion()   { return _version; }
+		public Operation getOperation() { return _operation; }
+		public PointNode getPoint1()    { return _point1; }
+
+		/**
+		 * @return the edge's second endpoint, or null for point operations
+		 */
+		public PointNode getPoint2()    { return _point2; }
+	}
+
+	protected List<Entry> _entries = new ArrayList<Entry>();
+
+	// version of _entries.get(0); entries before it have been discarded
+	protected long _firstVersion = 1;
+
+	/**
+	 * @return the version of the latest entry, 0 if nothing has been recorded
+	 */
+	public long getVersion() { return _firstVersion + _entries.size() - 1; }
+
+	/**
+	 * Start recording every later edit to figure's points and segments.
+	 * Journaling is opt-in; figures without a journal pay nothing per edit.
+	 */
+	public static ChangeJournal attach(FigureNode figure)
+	{
+		ChangeJournal journal = new ChangeJournal();
+		figure.getPointsDatabase().addChangeListener(journal);
+		figure.getSegments().addChangeListener(journal);
+		return journal;
+	}
+
+	/**
+	 * Stop recording figure's edits; the entries recorded so far are kept.
+	 */
+	public void detach(FigureNode figure)
+	{
+		figure.getPointsDatabase().removeChangeListener(this);
+		figure.getSegments().removeChangeListener(this);
+	}
+
+	@Override
+	public void pointPut(PointNode point) { append(Operation.PUT_POINT, point, null); }
+
+	@Override
+	public void pointRemoved(PointNode point) { append(Operation.REMOVE_POINT, point, null); }
+
+	@Override
+	public void edgeAdded(PointNode from, PointNode to) { append(Operation.ADD_EDGE, from, to); }
+
+	@Override
+	public void edgeRemoved(PointNode from, PointNode to) { append(Operation.REMOVE_EDGE, from, to); }
+
+	private void append(Operation operation, PointNode point1, PointNode point2)
+	{
+		_entries.add(new Entry(getVersion() + 1, operation, point1, point2));
+	}
+
+	/**
+	 * @return the entries recorded after version, oldest first
+	 * @throws IllegalArgumentException if some of those entries have been discarded
+	 */
+	public List<Entry> entriesSince(long version)
+	{
+		if (version < _firstVersion - 1) throw new IllegalArgumentException("Entries before version " + _firstVersion + " have been discarded");
+		if (version >= getVersion()) return Collections.emptyList();
+
+		return Collections.unmodifiableList(_entries.subList((int)(version - _firstVersion + 1), _entries.size()));
+	}
+
+	/**
+	 * Drop the entries up to and including version once no consumer needs them.
+	 */
+	public void discardThrough(long version)
+	{
+		int count = (int)Math.min(_entries.size(), Math.max(0, version - _firstVersion + 1));
+		_entries.subList(0, count).clear();
+		_firstVersion += count;
+	}
+
+	/**
+	 * @return the edges present now that were not present at version
+	 */
+	public SegmentNodeDatabase addedSegmentsSince(long version)
+	{
+		return segments(netEdges(version), true);
+	}
+
+	/**
+	 * @return the edges present at version that are no longer present
+	 */
+	public SegmentNodeDatabase removedSegmentsSince(long version)
+	{
+		return segments(netEdges(version), false);
+	}
+
+	/**
+	 * @return the net changes since version as a patch for another copy of the figure;
+	 *         a moved point appears as removed and added again
+	 */
+	public FigurePatch patchSince(long version)
+	{
+		FigurePatch patch = new FigurePatch();
+
+		for (Map.Entry<Object, Net> point : net(version, Operation.PUT_POINT, Operation.REMOVE_POINT).entrySet())
+		{
+			if (point.getValue().isAdded()) patch.addPoint(point.getValue()._entry.getPoint1());
+			if (point.getValue().isRemoved()) patch.removePoint(point.getValue()._entry.getPoint1());
+		}
+
+		Map<Object, Net> edges = netEdges(version);
+		for (Map.Entry<Object, Net> edge : edges.entrySet())
+		{
+			Entry entry = edge.getValue()._entry;
+			Net reverse = edges.get(new AbstractMap.SimpleImmutableEntry<PointNode, PointNode>(entry.getPoint2(), entry.getPoint1()));
+			// undirected edges are patched once, under whichever direction was recorded first
+			if (reverse != null && reverse._order < edge.getValue()._order && reverse.isAdded() == edge.getValue().isAdded()) continue;
+
+			if (edge.getValue().isAdded()) patch.addEdge(new SegmentNode(entry.getPoint1(), entry.getPoint2()));
+			if (edge.getValue().isRemoved()) patch.removeEdge(new SegmentNode(entry.getPoint1(), entry.getPoint2()));
+		}
+
+		return patch;
+	}
+
+	/*
+	 * Whether a point or edge existed before the first and after the last entry
+	 * that touched it.
+	 */
+	private static class Net
+	{
+		private final boolean _before;
+		private boolean _after;
+		private Entry _entry;
+		private final int _order;
+
+		Net(boolean before, int order) { _before = before; _order = order; }
+
+		boolean isAdded()   { return !_before && _after; }
+		boolean isRemoved() { return _before && !_after; }
+	}
+
+	private Map<Object, Net> netEdges(long version)
+	{
+		return net(version, Operation.ADD_EDGE, Operation.REMOVE_EDGE);
+	}
+
+	private Map<Object, Net> net(long version, Operation add, Operation remove)
+	{
+		Map<Object, Net> net = new LinkedHashMap<Object, Net>();
+		for (Entry entry : entriesSince(version))
+		{
+			if (entry.getOperation() != add && entry.getOperation() != remove) continue;
+
+			Object key = key(entry);
+			Net state = net.get(key);
+			if (state == null)
+			{
+				// the first entry for a key tells whether it existed at version
+				state = new Net(entry.getOperation() == remove, net.size());
+				net.put(key, state);
+			}
+			state._after = entry.getOperation() == add;
+			state._entry = entry;
+		}
+		return net;
+	}
+
+	/*
+	 * Points are identified by name and coordinates, edges by their ordered endpoints.
+	 */
+	private static Object key(Entry entry)
+	{
+		if (entry.getPoint2() == null)
+		{
+			return new AbstractMap.SimpleImmutableEntry<String, PointNode>(entry.getPoint1().getName(), entry.getPoint1());
+		}
+		return new AbstractMap.SimpleImmutableEntry<PointNode, PointNode>(entry.getPoint1(), entry.getPoint2());
+	}
+
+	private static SegmentNodeDatabase segments(Map<Object, Net> edges, boolean added)
+	{
+		SegmentNodeDatabase segments = new SegmentNodeDatabase();
+		for (Net edge : edges.values())
+		{
+			if (added ? edge.isAdded() : edge.isRemoved())
+			{
+				segments.addDirectedEdge(edge._entry.getPoint1(), edge._entry.getPoint2());
+			}
+		}
+		return segments;
+	}
+}
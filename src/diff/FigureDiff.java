@@ -0,0 +1,117 @@
+package diff;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import input.components.FigureNode;
+import input.components.point.PointNode;
+import input.components.segments.SegmentNode;
+import input.components.segments.SegmentNodeDatabase;
+
+/**
+ * Computes the difference between two versions of a figure as a FigurePatch.
+ * 
+ * Points are matched by name: a name present only in the new figure is an added
+ * point, a name present only in the old figure a removed point, and a name whose
+ * coordinates are no longer epsilon-equal a moved point. Edges are compared as
+ * unordered pairs of point names, so moving a point does not change its edges.
+ * 
+ * Both figures are indexed once in hash maps, so the diff is linear in the number
+ * of points and edges. Names are expected to be unique within a figure.
+ */
+public class FigureDiff
+{
+	public static FigurePatch diff(FigureNode from, FigureNode to)
+	{
+		FigurePatch patch = new FigurePatch();
+
+		diffPoints(from, to, patch);
+		diffEdges(from.getSegments(), to.getSegments(), patch);
+
+		return patch;
+	}
+
+	private static void diffPoints(FigureNode from, FigureNode to, FigurePatch patch)
+	{
+		Map<String, PointNode> before = new HashMap<String, PointNode>();
+		for (PointNode point : from.getPointsDatabase().getAllNodes())
+		{
+			before.putIfAbsent(point.getName(), point);
+		}
+
+		for (PointNode point : to.getPointsDatabase().getAllNodes())
+		{
+			PointNode old = before.remove(point.getName());
+
+			if (old == null) patch.addPoint(point);
+			else if (!old.equals(point)) patch.movePoint(old, point);
+		}
+
+		// whatever was not matched by name is gone
+		for (PointNode point : from.getPointsDatabase().getAllNodes())
+		{
+			if (before.remove(point.getName()) != null) patch.removePoint(point);
+		}
+	}
+
+	private static void diffEdges(SegmentNodeDatabase from, SegmentNodeDatabase to, FigurePatch patch)
+	{
+		Map<Edge, SegmentNode> before = undirectedEdges(from);
+		Map<Edge, SegmentNode> after = undirectedEdges(to);
+
+		for (Map.Entry<Edge, SegmentNode> edge : after.entrySet())
+		{
+			if (before.remove(edge.getKey()) == null) patch.addEdge(edge.getValue());
+		}
+		for (SegmentNode edge : before.values())
+		{
+			patch.removeEdge(edge);
+		}
+	}
+
+	/*
+	 * Each undirected edge once, keyed by its endpoint names, in adjacency order.
+	 */
+	private static Map<Edge, SegmentNode> undirectedEdges(SegmentNodeDatabase segments)
+	{
+		Map<Edge, SegmentNode> edges = new LinkedHashMap<Edge, SegmentNode>();
+		for (Map.Entry<PointNode, Set<PointNode>> adjList : segments.getAdjLists().entrySet())
+		{
+			for (PointNode neighbor : adjList.getValue())
+			{
+				Edge edge = new Edge(adjList.getKey().getName(), neighbor.getName());
+				if (!edges.containsKey(edge)) edges.put(edge, new SegmentNode(adjList.getKey(), neighbor));
+			}
+		}
+		return edges;
+	}
+
+	/*
+	 * An unordered pair of point names.
+	 */
+	private static final class Edge
+	{
+		private final String _low;
+		private final String _high;
+
+		Edge(String a, String b)
+		{
+			boolean ordered = a.compareTo(b) <= 0;
+			_low = ordered ? a : b;
+			_high = ordered ? b : a;
+		}
+
+		@Override
+		public int hashCode() { return 31 * _low.hashCode() + _high.hashCode(); }
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (!(obj instanceof Edge)) return false;
+			Edge that = (Edge)obj;
+			return _low.equals(that._low) && _high.equals(that._high);
+		}
+	}
+}
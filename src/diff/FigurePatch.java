@@ -0,0 +1,235 @@
+package diff;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import input.components.FigureNode;
+import input.components.point.PointNode;
+import input.components.point.PointNodeDatabase;
+import input.components.segments.SegmentNode;
+import input.components.segments.SegmentNodeDatabase;
+
+/**
+ * The changes that turn one version of a figure into another, as produced by
+ * FigureDiff: points added, removed and moved, and undirected edges added and
+ * removed. Only the changed points and edges are held, so a patch is small when
+ * an edit is small.
+ * 
+ * Edges name their endpoints; when the patch is applied each endpoint is resolved
+ * by name in the figure being patched, so an edge to a moved point follows it.
+ */
+public class FigurePatch
+{
+	/**
+	 * A point that kept its name but changed coordinates.
+	 */
+	public static class PointMove
+	{
+		private final PointNode _from;
+		private final PointNode _to;
+
+		public PointMove(PointNode from, PointNode to)
+		{
+			_from = from;
+			_to = to;
+		}
+
+		public PointNode getFrom() { return _from; }
+		public PointNode getTo()   { return _to; }
+	}
+
+	protected List<PointNode>   _addedPoints   = new ArrayList<PointNode>();
+	protected List<PointNode>   _removedPoints = new ArrayList<PointNode>();
+	protected List<PointMove>   _movedPoints   = new ArrayList<PointMove>();
+	protected List<SegmentNode> _addedEdges    = new ArrayList<SegmentNode>();
+	protected List<SegmentNode> _removedEdges  = new ArrayList<SegmentNode>();
+
+	public List<PointNode>   getAddedPoints()   { return Collections.unmodifiableList(_addedPoints); }
+	public List<PointNode>   getRemovedPoints() { return Collections.unmodifiableList(_removedPoints); }
+	public List<PointMove>   getMovedPoints()   { return Collections.unmodifiableList(_movedPoints); }
+	public List<SegmentNode> getAddedEdges()    { return Collections.unmodifiableList(_addedEdges); }
+	public List<SegmentNode> getRemovedEdges()  { return Collections.unmodifiableList(_removedEdges); }
+
+	public void addPoint(PointNode point)              { _addedPoints.add(point); }
+	public void removePoint(PointNode point)           { _removedPoints.add(point); }
+	public void movePoint(PointNode from, PointNode to) { _movedPoints.add(new PointMove(from, to)); }
+	public void addEdge(SegmentNode edge)              { _addedEdges.add(edge); }
+	public void removeEdge(SegmentNode edge)           { _removedEdges.add(edge); }
+
+	/**
+	 * @return the number of individual changes in this patch
+	 */
+	public int size()
+	{
+		return _addedPoints.size() + _removedPoints.size() + _movedPoints.size() +
+			   _addedEdges.size() + _removedEdges.size();
+	}
+
+	public boolean isEmpty() { return size() == 0; }
+
+	/**
+	 * Apply this patch to a live figure, in time linear in the size of the patch
+	 * plus one pass over the points database.
+	 * 
+	 * Moved points are detached (with their edges) before any of them is reinserted,
+	 * so a point may move onto coordinates another moved or removed point is leaving.
+	 * Moved and added points are appended to the points database, and re-attached
+	 * edges to the end of their adjacency lists.
+	 * 
+	 * The patch is checked against the figure before anything is changed, so it
+	 * either applies in full or leaves the figure as it was.
+	 * 
+	 * @throws IllegalArgumentException if an edge or moved point names a point the
+	 *         figure does not contain, or a moved or added point lands where a point
+	 *         that stays, or another arriving point, already is
+	 */
+	public void apply(FigureNode figure)
+	{
+		PointNodeDatabase points = figure.getPointsDatabase();
+		SegmentNodeDatabase segments = figure.getSegments();
+
+		check(points, segments);
+
+		for (SegmentNode edge : _removedEdges)
+		{
+			segments.removeUndirectedEdge(resolve(points, edge.getPoint1()), resolve(points, edge.getPoint2()));
+		}
+
+		// detach every moved point, remembering its neighbors by name
+		List<List<String>> neighborsOfMoved = new ArrayList<List<String>>(_movedPoints.size());
+		List<PointNode> leaving = new ArrayList<PointNode>(_removedPoints.size() + _movedPoints.size());
+		for (PointMove move : _movedPoints)
+		{
+			PointNode current = resolve(points, move.getFrom());
+			List<String> neighbors = segments.edgesAsList(current);
+			for (String neighbor : neighbors)
+			{
+				segments.removeUndirectedEdge(current, points.getNodeByName(neighbor));
+			}
+			neighborsOfMoved.add(neighbors);
+			leaving.add(current);
+		}
+		leaving.addAll(_removedPoints);
+		points.removeAll(leaving);
+
+		for (PointMove move : _movedPoints) points.put(move.getTo());
+		for (PointNode point : _addedPoints) points.put(point);
+
+		for (int m = 0; m < _movedPoints.size(); m++)
+		{
+			PointNode moved = resolve(points, _movedPoints.get(m).getTo());
+			for (String neighbor : neighborsOfMoved.get(m))
+			{
+				segments.addUndirectedEdge(moved, resolve(points, neighbor));
+			}
+		}
+
+		for (SegmentNode edge : _addedEdges)
+		{
+			segments.addUndirectedEdge(resolve(points, edge.getPoint1()), resolve(points, edge.getPoint2()));
+		}
+	}
+
+	/*
+	 * Walk through apply without changing the figure: every name must resolve when
+	 * apply looks it up, and every moved or added point must land on a location that
+	 * is free once the removed and moved points have left.
+	 */
+	private void check(PointNodeDatabase points, SegmentNodeDatabase segments)
+	{
+		// a name resolves to one point, so the removed edges can be grouped by endpoint name
+		Map<String, List<String>> removedNeighbors = new HashMap<String, List<String>>();
+		for (SegmentNode edge : _removedEdges)
+		{
+			String name1 = resolve(points, edge.getPoint1()).getName();
+			String name2 = resolve(points, edge.getPoint2()).getName();
+			removedNeighbors.computeIfAbsent(name1, k -> new ArrayList<String>()).add(name2);
+			removedNeighbors.computeIfAbsent(name2, k -> new ArrayList<String>()).add(name1);
+		}
+
+		// points are told apart by coordinates, since a database may hand out a new PointNode per lookup
+		PointNodeDatabase leaving = new PointNodeDatabase();
+		List<String> neighborsOfMoved = new ArrayList<String>();
+		for (PointMove move : _movedPoints)
+		{
+			PointNode current = resolve(points, move.getFrom());
+
+			// the neighbors it has once the removed edges are gone
+			List<String> neighbors = new ArrayList<String>(segments.edgesAsList(current));
+			List<String> removed = removedNeighbors.get(current.getName());
+			if (removed != null) neighbors.removeAll(removed);
+			neighborsOfMoved.addAll(neighbors);
+			leaving.put(current);
+		}
+		for (PointNode point : _removedPoints)
+		{
+			PointNode current = points.getPoint(point.getX(), point.getY());
+			if (current != null) leaving.put(current);
+		}
+
+		List<PointNode> arriving = new ArrayList<PointNode>(_movedPoints.size() + _addedPoints.size());
+		for (PointMove move : _movedPoints) arriving.add(move.getTo());
+		arriving.addAll(_addedPoints);
+
+		PointNodeDatabase arrived = new PointNodeDatabase();
+		Set<String> names = new HashSet<String>();
+		for (PointNode point : arriving)
+		{
+			PointNode occupant = points.getPoint(point.getX(), point.getY());
+			if ((occupant != null && !leaving.contains(occupant)) || !arrived.put(point))
+			{
+				throw new IllegalArgumentException("Patch puts point " + point.getName() + " on an occupied location");
+			}
+			names.add(point.getName());
+		}
+
+		// a name a leaving point owns may still resolve to another point that stays
+		for (PointNode point : leaving.getAllNodes())
+		{
+			PointNode owner = points.getNodeByName(point.getName());
+			if (owner == null || !owner.equals(point)) continue;
+
+			for (PointNode staying : points.getAllNodes())
+			{
+				if (!leaving.contains(staying)) names.add(staying.getName());
+			}
+			break;
+		}
+
+		for (String name : neighborsOfMoved) resolveAfter(points, leaving, names, name);
+		for (SegmentNode edge : _addedEdges)
+		{
+			resolveAfter(points, leaving, names, edge.getPoint1().getName());
+			resolveAfter(points, leaving, names, edge.getPoint2().getName());
+		}
+	}
+
+	/*
+	 * Throw as resolve will once the leaving points are gone and the arriving ones,
+	 * together with any staying point whose name a leaving point owns now, are named.
+	 */
+	private static void resolveAfter(PointNodeDatabase points, PointNodeDatabase leaving, Set<String> names, String name)
+	{
+		if (names.contains(name)) return;
+
+		PointNode owner = points.getNodeByName(name);
+		if (owner == null || leaving.contains(owner)) throw new IllegalArgumentException("Patch refers to unknown point " + name);
+	}
+
+	private static PointNode resolve(PointNodeDatabase points, PointNode point)
+	{
+		return resolve(points, point.getName());
+	}
+
+	private static PointNode resolve(PointNodeDatabase points, String name)
+	{
+		PointNode point = points.getNodeByName(name);
+		if (point == null) throw new IllegalArgumentException("Patch refers to unknown point " + name);
+		return point;
+	}
+}
@@ -0,0 +1,50 @@
+package graph;
+
+/**
+ * The connected components of an IndexedGraph, found with a UnionFind over its
+ * edges. Components are labeled 0 .. getCount() - 1 in order of their lowest
+ * vertex.
+ */
+public class ConnectedComponents
+{
+	protected final int[] _label;
+	protected final int[] _sizes;
+
+	public ConnectedComponents(IndexedGraph graph)
+	{
+		int[] offsets = graph.getOffsets(), neighbors = graph.getNeighbors();
+		int n = graph.getVertexCount();
+		UnionFind sets = new UnionFind(n);
+		for (int v = 0; v < n; v++)
+		{
+			for (int e = offsets[v]; e < offsets[v + 1]; e++)
+			{
+				if (neighbors[e] > v) sets.union(v, neighbors[e]);
+			}
+		}
+
+		// a root's label is set when its lowest vertex is reached
+		_label = new int[n];
+		_sizes = new int[sets.getSetCount()];
+		int[] rootLabel = new int[n];
+		int labels = 0;
+		for (int v = 0; v < n; v++)
+		{
+			int root = sets.find(v);
+			if (rootLabel[root] == 0) rootLabel[root] = ++labels;
+			_label[v] = rootLabel[root] - 1;
+			_sizes[_label[v]]++;
+		}
+	}
+
+	public int getCount() { return _sizes.length; }
+
+	/**
+	 * @return the label of v's component
+	 */
+	public int componentOf(int v) { return _label[v]; }
+
+	public int size(int component) { return _sizes[component]; }
+
+	public boolean connected(int u, int v) { return _label[u] == _label[v]; }
+}
@@ -0,0 +1,81 @@
+package graph;
+
+import java.util.Arrays;
+
+/**
+ * Cycles in the undirected graph of an IndexedGraph. A self-loop is a cycle of
+ * one vertex; since edges are not repeated, every other cycle has at least three.
+ */
+public class CycleDetection
+{
+	private CycleDetection() {}
+
+	/**
+	 * A graph is acyclic exactly when no edge joins two vertices a UnionFind has
+	 * already connected; O(E) with no search.
+	 */
+	public static boolean hasCycle(IndexedGraph graph)
+	{
+		int[] offsets = graph.getOffsets(), neighbors = graph.getNeighbors();
+		int n = graph.getVertexCount();
+		UnionFind sets = new UnionFind(n);
+		for (int v = 0; v < n; v++)
+		{
+			for (int e = offsets[v]; e < offsets[v + 1]; e++)
+			{
+				int w = neighbors[e];
+				if (w == v) return true;
+				if (w > v && !sets.union(v, w)) return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Find one cycle with an iterative depth-first search: the first edge that
+	 * leads back to a vertex on the search path (other than the one just left)
+	 * closes a cycle.
+	 * @return the vertices of a cycle in order, or null if the graph is acyclic
+	 */
+	public static int[] findCycle(IndexedGraph graph)
+	{
+		int[] offsets = graph.getOffsets(), neighbors = graph.getNeighbors();
+		int n = graph.getVertexCount();
+
+		// index of each vertex on the search path, -1 when off it, -2 once finished
+		int[] onPath = new int[n];
+		Arrays.fill(onPath, -1);
+		int[] stack = new int[n];
+		int[] next = new int[n];
+
+		for (int source = 0; source < n; source++)
+		{
+			if (onPath[source] != -1) continue;
+
+			int top = 0;
+			stack[0] = source;
+			next[0] = offsets[source];
+			onPath[source] = 0;
+			while (top >= 0)
+			{
+				int v = stack[top];
+				if (next[top] == offsets[v + 1])
+				{
+					onPath[v] = -2;
+					top--;
+					continue;
+				}
+				int w = neighbors[next[top]++];
+				if (w == v) return new int[] { v };
+				if (top > 0 && w == stack[top - 1]) continue;
+				if (onPath[w] >= 0) return Arrays.copyOfRange(stack, onPath[w], top + 1);
+				if (onPath[w] == -2) continue;
+
+				stack[++top] = w;
+				next[top] = offsets[w];
+				onPath[w] = top;
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,89 @@
+package graph;
+
+import java.util.Arrays;
+
+/**
+ * Breadth- and depth-first search over an IndexedGraph. Both run in O(V + E)
+ * with an int array as the queue or stack; neither recurses, so million-vertex
+ * paths do not overflow the call stack.
+ */
+public class GraphSearch
+{
+	private GraphSearch() {}
+
+	/**
+	 * Visit vertices in order of their distance in edges from source; each
+	 * vertex's depth is that distance.
+	 */
+	public static Traversal breadthFirst(IndexedGraph graph, int source)
+	{
+		int[] offsets = graph.getOffsets(), neighbors = graph.getNeighbors();
+		int n = graph.getVertexCount();
+		int[] parent = new int[n];
+		int[] depth = new int[n];
+		Arrays.fill(parent, -1);
+		Arrays.fill(depth, -1);
+
+		int[] queue = new int[n];
+		int head = 0, tail = 0;
+		queue[tail++] = source;
+		depth[source] = 0;
+		while (head < tail)
+		{
+			int v = queue[head++];
+			for (int e = offsets[v]; e < offsets[v + 1]; e++)
+			{
+				int w = neighbors[e];
+				if (depth[w] >= 0) continue;
+				depth[w] = depth[v] + 1;
+				parent[w] = v;
+				queue[tail++] = w;
+			}
+		}
+		return new Traversal(graph, Arrays.copyOf(queue, tail), parent, depth);
+	}
+
+	/**
+	 * Visit vertices in depth-first preorder, taking each vertex's neighbors in
+	 * stored order, as the recursive search would.
+	 */
+	public static Traversal depthFirst(IndexedGraph graph, int source)
+	{
+		int[] offsets = graph.getOffsets(), neighbors = graph.getNeighbors();
+		int n = graph.getVertexCount();
+		int[] parent = new int[n];
+		int[] depth = new int[n];
+		Arrays.fill(parent, -1);
+		Arrays.fill(depth, -1);
+
+		int[] order = new int[n];
+		int visited = 0;
+
+		// the path from source, and for each vertex on it the next edge to try
+		int[] stack = new int[n];
+		int[] next = new int[n];
+		int top = 0;
+		stack[0] = source;
+		next[0] = offsets[source];
+		depth[source] = 0;
+		order[visited++] = source;
+		while (top >= 0)
+		{
+			int v = stack[top];
+			if (next[top] == offsets[v + 1])
+			{
+				top--;
+				continue;
+			}
+			int w = neighbors[next[top]++];
+			if (depth[w] >= 0) continue;
+
+			depth[w] = top + 1;
+			parent[w] = v;
+			order[visited++] = w;
+			stack[++top] = w;
+			next[top] = offsets[w];
+		}
+		return new Traversal(graph, Arrays.copyOf(order, visited), parent, depth);
+	}
+}
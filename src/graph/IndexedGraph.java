@@ -0,0 +1,202 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import input.components.point.PointNode;
+import input.components.segments.CompactSegmentNodeDatabase;
+import input.components.segments.SegmentNodeDatabase;
+
+/**
+ * The undirected graph of a SegmentNodeDatabase with vertices numbered 0 .. n - 1,
+ * for algorithms that work on int arrays instead of PointNode-keyed maps.
+ * 
+ * Every endpoint of an edge is a vertex: the keys of getAdjLists are numbered
+ * first, in key order, then any endpoint that is not a key. A
+ * CompactSegmentNodeDatabase keeps its own vertex ids, and its CSR arrays are
+ * read without any map lookups. A directed edge in
+ * either direction is an undirected edge, stored in both directions in compressed
+ * sparse row form: the neighbors of v are neighbors[offsets[v]] ..
+ * neighbors[offsets[v + 1] - 1], without repeats. A self-loop is stored once.
+ * Building is O(V + E) with one map lookup per stored edge; coordinates are copied
+ * into flat arrays for the Euclidean weights.
+ * 
+ * The graph is a snapshot; build a new one after editing the database.
+ */
+public class IndexedGraph
+{
+	// vertex ids: a map of our own, or the ids of the CompactSegmentNodeDatabase built from
+	protected Map<PointNode, Integer> _ids = null;
+	protected CompactSegmentNodeDatabase _compact = null;
+
+	protected PointNode[] _vertices;
+	protected double[] _x;
+	protected double[] _y;
+	protected int[] _offsets;
+	protected int[] _neighbors;
+	protected int _edgeCount;
+
+	public IndexedGraph(SegmentNodeDatabase segments)
+	{
+		// once an edge is removed, a compact database may number vertices that no longer have one
+		if (segments instanceof CompactSegmentNodeDatabase && !((CompactSegmentNodeDatabase)segments).hasRemovedEdges())
+		{
+			fromCompact((CompactSegmentNodeDatabase)segments);
+			return;
+		}
+
+		Map<PointNode, Set<PointNode>> adjLists = segments.getAdjLists();
+		_ids = new HashMap<PointNode, Integer>(Math.max(16, adjLists.size() * 4 / 3 + 1));
+		List<PointNode> vertices = new ArrayList<PointNode>(adjLists.size());
+
+		// directed edges as id pairs; keys are numbered first, in key order
+		for (PointNode key : adjLists.keySet()) id(key, vertices);
+		int directed = 0;
+		for (Set<PointNode> neighbors : adjLists.values()) directed += neighbors.size();
+		int[] from = new int[directed];
+		int[] to = new int[directed];
+		int edge = 0;
+		for (Map.Entry<PointNode, Set<PointNode>> entry : adjLists.entrySet())
+		{
+			int v = _ids.get(entry.getKey());
+			for (PointNode neighbor : entry.getValue())
+			{
+				from[edge] = v;
+				to[edge++] = id(neighbor, vertices);
+			}
+		}
+
+		setVertices(vertices.toArray(new PointNode[vertices.size()]));
+		setEdges(from, to, directed);
+	}
+
+	/*
+	 * A compact database is already numbered: its CSR rows are the directed edges.
+	 */
+	private void fromCompact(CompactSegmentNodeDatabase segments)
+	{
+		int n = segments.getVertexCount();
+		int[] offsets = segments.getOffsets(), neighbors = segments.getNeighbors();
+		int[] from = new int[neighbors.length];
+		for (int v = 0; v < n; v++) Arrays.fill(from, offsets[v], offsets[v + 1], v);
+
+		PointNode[] vertices = new PointNode[n];
+		for (int v = 0; v < n; v++) vertices[v] = segments.getVertex(v);
+
+		_compact = segments;
+		setVertices(vertices);
+		setEdges(from, neighbors, neighbors.length);
+	}
+
+	private void setVertices(PointNode[] vertices)
+	{
+		int n = vertices.length;
+		_vertices = vertices;
+		_x = new double[n];
+		_y = new double[n];
+		for (int v = 0; v < n; v++)
+		{
+			_x[v] = _vertices[v].getX();
+			_y[v] = _vertices[v].getY();
+		}
+	}
+
+	private void setEdges(int[] from, int[] to, int directed)
+	{
+		int n = _vertices.length;
+
+		// both directions of every edge, then repeats dropped within each row
+		int[] offsets = new int[n + 1];
+		for (int e = 0; e < directed; e++)
+		{
+			offsets[from[e] + 1]++;
+			if (from[e] != to[e]) offsets[to[e] + 1]++;
+		}
+		for (int v = 0; v < n; v++) offsets[v + 1] += offsets[v];
+
+		int[] neighbors = new int[offsets[n]];
+		int[] fill = Arrays.copyOf(offsets, n);
+		for (int e = 0; e < directed; e++)
+		{
+			neighbors[fill[from[e]]++] = to[e];
+			if (from[e] != to[e]) neighbors[fill[to[e]]++] = from[e];
+		}
+
+		int[] seenBy = fill;
+		Arrays.fill(seenBy, -1);
+		int write = 0, selfLoops = 0;
+		int start = 0;
+		for (int v = 0; v < n; v++)
+		{
+			int end = offsets[v + 1];
+			offsets[v] = write;
+			for (int e = start; e < end; e++)
+			{
+				int w = neighbors[e];
+				if (seenBy[w] == v) continue;
+				seenBy[w] = v;
+				neighbors[write++] = w;
+				if (w == v) selfLoops++;
+			}
+			start = end;
+		}
+		offsets[n] = write;
+
+		_offsets = offsets;
+		_neighbors = write == neighbors.length ? neighbors : Arrays.copyOf(neighbors, write);
+		_edgeCount = (write - selfLoops) / 2 + selfLoops;
+	}
+
+	private int id(PointNode point, List<PointNode> vertices)
+	{
+		Integer id = _ids.get(point);
+		if (id != null) return id;
+
+		_ids.put(point, vertices.size());
+		vertices.add(point);
+		return vertices.size() - 1;
+	}
+
+	public int getVertexCount() { return _vertices.length; }
+
+	/**
+	 * @return the number of undirected edges, self-loops included
+	 */
+	public int getEdgeCount()   { return _edgeCount; }
+
+	public PointNode getVertex(int v) { return _vertices[v]; }
+
+	/**
+	 * @return the id of point, or -1 if it is not the endpoint of any edge
+	 */
+	public int getId(PointNode point)
+	{
+		if (_compact != null) return _compact.getVertexId(point);
+		Integer id = _ids.get(point);
+		return id == null ? -1 : id;
+	}
+
+	public double getX(int v) { return _x[v]; }
+	public double getY(int v) { return _y[v]; }
+
+	public int degree(int v) { return _offsets[v + 1] - _offsets[v]; }
+
+	/*
+	 * The CSR arrays themselves; callers must not modify them.
+	 */
+	public int[] getOffsets()   { return _offsets; }
+	public int[] getNeighbors() { return _neighbors; }
+
+	/**
+	 * @return the Euclidean length of the edge between u and v
+	 */
+	public double weight(int u, int v)
+	{
+		double dx = _x[u] - _x[v], dy = _y[u] - _y[v];
+		return Math.sqrt(dx * dx + dy * dy);
+	}
+}
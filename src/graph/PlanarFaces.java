@@ -0,0 +1,243 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import input.components.point.PointNode;
+
+/**
+ * The faces of an IndexedGraph drawn in the plane with straight edges, found with
+ * a half-edge (DCEL) structure. The graph must be a plane graph: edges may meet
+ * only at shared endpoints, so crossings have to be split into vertices first.
+ * 
+ * Every undirected edge u - v is two half-edges, u -> v and v -> u. Each vertex's
+ * outgoing half-edges are sorted counterclockwise by direction; the half-edge
+ * after u -> v around its face is the outgoing half-edge of v that comes just
+ * before v -> u in that order. Following these links from every unvisited
+ * half-edge traces each face exactly once with the face on the left, so bounded
+ * (minimal) faces come out counterclockwise with positive area and the outer
+ * boundary of each connected component clockwise with negative or zero area.
+ * 
+ * The half-edges are the slots of the graph's CSR rows, so every link is an int
+ * array. Sorting is O(E log E); everything else is O(E). A dangling edge inside a
+ * face appears on its boundary in both directions, and a component nested inside
+ * a face is reported as its own outer boundary, not as a hole of that face.
+ * Self-loops are ignored.
+ */
+public class PlanarFaces
+{
+	protected final IndexedGraph _graph;
+
+	// half-edges: CSR over vertices, each row sorted counterclockwise
+	protected final int[] _offsets;
+	protected final int[] _target;
+	protected final int[] _twin;
+
+	// faces: the origins of each face's half-edges, in boundary order
+	protected final int[] _faceOffsets;
+	protected final int[] _faceVertices;
+	protected final double[] _area;
+
+	public PlanarFaces(IndexedGraph graph)
+	{
+		_graph = graph;
+		int n = graph.getVertexCount();
+		int[] offsets = graph.getOffsets(), neighbors = graph.getNeighbors();
+
+		// copy the rows without self-loops, each sorted by angle
+		_offsets = new int[n + 1];
+		for (int v = 0; v < n; v++)
+		{
+			int degree = 0;
+			for (int e = offsets[v]; e < offsets[v + 1]; e++) if (neighbors[e] != v) degree++;
+			_offsets[v + 1] = _offsets[v] + degree;
+		}
+		int halfEdges = _offsets[n];
+		_target = new int[halfEdges];
+		double[] angle = new double[halfEdges];
+		for (int v = 0; v < n; v++)
+		{
+			int h = _offsets[v];
+			for (int e = offsets[v]; e < offsets[v + 1]; e++)
+			{
+				int w = neighbors[e];
+				if (w == v) continue;
+				_target[h] = w;
+				angle[h++] = pseudoAngle(graph.getX(w) - graph.getX(v), graph.getY(w) - graph.getY(v));
+			}
+			sort(angle, _target, _offsets[v], _offsets[v + 1] - 1);
+		}
+
+		int[] origin = new int[halfEdges];
+		for (int v = 0; v < n; v++) Arrays.fill(origin, _offsets[v], _offsets[v + 1], v);
+
+		// twins: group the half-edges by target, then u -> v pairs with the slot of u in v's row
+		_twin = new int[halfEdges];
+		int[] incoming = new int[halfEdges];
+		int[] fill = Arrays.copyOf(_offsets, n);
+		for (int h = 0; h < halfEdges; h++) incoming[fill[_target[h]]++] = h;
+		int[] slotOf = new int[n];
+		for (int v = 0; v < n; v++)
+		{
+			for (int h = _offsets[v]; h < _offsets[v + 1]; h++) slotOf[_target[h]] = h;
+			for (int i = _offsets[v]; i < _offsets[v + 1]; i++) _twin[incoming[i]] = slotOf[origin[incoming[i]]];
+		}
+
+		// trace the faces
+		boolean[] visited = new boolean[halfEdges];
+		_faceVertices = new int[halfEdges];
+		int[] faceOffsets = new int[halfEdges + 1];
+		double[] area = new double[halfEdges];
+		int faces = 0, written = 0;
+		for (int start = 0; start < halfEdges; start++)
+		{
+			if (visited[start]) continue;
+
+			double twiceArea = 0;
+			int h = start;
+			do
+			{
+				visited[h] = true;
+				int u = origin[h], w = _target[h];
+				_faceVertices[written++] = u;
+				twiceArea += graph.getX(u) * graph.getY(w) - graph.getX(w) * graph.getY(u);
+				h = next(h);
+			}
+			while (h != start);
+
+			area[faces] = twiceArea / 2;
+			faceOffsets[++faces] = written;
+		}
+		_faceOffsets = Arrays.copyOf(faceOffsets, faces + 1);
+		_area = Arrays.copyOf(area, faces);
+	}
+
+	public int getFaceCount() { return _area.length; }
+
+	/**
+	 * @return the number of half-edges on the boundary of face f
+	 */
+	public int size(int f) { return _faceOffsets[f + 1] - _faceOffsets[f]; }
+
+	/**
+	 * @return the vertices around face f, counterclockwise for a bounded face
+	 */
+	public int[] getFace(int f)
+	{
+		return Arrays.copyOfRange(_faceVertices, _faceOffsets[f], _faceOffsets[f + 1]);
+	}
+
+	/**
+	 * @return the area of face f by the shoelace formula: positive for a bounded face
+	 */
+	public double getSignedArea(int f) { return _area[f]; }
+
+	public boolean isBounded(int f) { return _area[f] > 0; }
+
+	public boolean isTriangle(int f) { return isBounded(f) && size(f) == 3; }
+
+	/**
+	 * @return the points around face f, in boundary order
+	 */
+	public List<PointNode> polygon(int f)
+	{
+		List<PointNode> points = new ArrayList<PointNode>(size(f));
+		for (int i = _faceOffsets[f]; i < _faceOffsets[f + 1]; i++) points.add(_graph.getVertex(_faceVertices[i]));
+		return points;
+	}
+
+	/**
+	 * @return the boundary of every bounded face, each counterclockwise
+	 */
+	public List<List<PointNode>> boundedFaces()
+	{
+		List<List<PointNode>> polygons = new ArrayList<List<PointNode>>();
+		for (int f = 0; f < getFaceCount(); f++) if (isBounded(f)) polygons.add(polygon(f));
+		return polygons;
+	}
+
+	/**
+	 * @return the bounded faces with three sides
+	 */
+	public List<List<PointNode>> triangles()
+	{
+		List<List<PointNode>> triangles = new ArrayList<List<PointNode>>();
+		for (int f = 0; f < getFaceCount(); f++) if (isTriangle(f)) triangles.add(polygon(f));
+		return triangles;
+	}
+
+	/**
+	 * @return the half-edge following h around its face
+	 */
+	private int next(int h)
+	{
+		int twin = _twin[h];
+		int v = _target[h];
+		return twin == _offsets[v] ? _offsets[v + 1] - 1 : twin - 1;
+	}
+
+	/*
+	 * A number in [0, 4) increasing with the counterclockwise angle of (dx, dy)
+	 * from the positive x axis, without trigonometry.
+	 */
+	private static double pseudoAngle(double dx, double dy)
+	{
+		double p = dy / (Math.abs(dx) + Math.abs(dy));
+		if (dx < 0) return 2 - p;
+		return dy < 0 ? 4 + p : p;
+	}
+
+	/*
+	 * Sort keys[lo .. hi], carrying values along.
+	 */
+	private static void sort(double[] keys, int[] values, int lo, int hi)
+	{
+		while (hi - lo > 12)
+		{
+			int mid = (lo + hi) >>> 1;
+			if (keys[mid] < keys[lo]) swap(keys, values, mid, lo);
+			if (keys[hi] < keys[lo]) swap(keys, values, hi, lo);
+			if (keys[hi] < keys[mid]) swap(keys, values, hi, mid);
+			double pivot = keys[mid];
+			int i = lo, j = hi;
+			while (i <= j)
+			{
+				while (keys[i] < pivot) i++;
+				while (keys[j] > pivot) j--;
+				if (i <= j) swap(keys, values, i++, j--);
+			}
+			// recurse into the smaller part so the stack stays O(log n)
+			if (j - lo < hi - i)
+			{
+				sort(keys, values, lo, j);
+				lo = i;
+			}
+			else
+			{
+				sort(keys, values, i, hi);
+				hi = j;
+			}
+		}
+		for (int i = lo + 1; i <= hi; i++)
+		{
+			double key = keys[i];
+			int value = values[i];
+			int j = i - 1;
+			while (j >= lo && keys[j] > key)
+			{
+				keys[j + 1] = keys[j];
+				values[j + 1] = values[j];
+				j--;
+			}
+			keys[j + 1] = key;
+			values[j + 1] = value;
+		}
+	}
+
+	private static void swap(double[] keys, int[] values, int i, int j)
+	{
+		double key = keys[i]; keys[i] = keys[j]; keys[j] = key;
+		int value = values[i]; values[i] = values[j]; values[j] = value;
+	}
+}
@@ -0,0 +1,158 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import input.components.point.PointNode;
+
+/**
+ * Dijkstra's algorithm over an IndexedGraph, weighting each edge by the Euclidean
+ * distance between its endpoints. The frontier is a binary heap of vertex ids with
+ * decrease-key through a position array, so a search is O((V + E) log V) and
+ * allocates only its per-vertex arrays.
+ */
+public class ShortestPaths
+{
+	protected final IndexedGraph _graph;
+	protected final int _source;
+	protected final double[] _distance;
+	protected final int[] _parent;
+
+	private ShortestPaths(IndexedGraph graph, int source)
+	{
+		_graph = graph;
+		_source = source;
+		_distance = new double[graph.getVertexCount()];
+		_parent = new int[graph.getVertexCount()];
+		Arrays.fill(_distance, Double.POSITIVE_INFINITY);
+		Arrays.fill(_parent, -1);
+	}
+
+	/**
+	 * @return the shortest paths from source to every vertex
+	 */
+	public static ShortestPaths from(IndexedGraph graph, int source)
+	{
+		ShortestPaths paths = new ShortestPaths(graph, source);
+		paths.search(-1);
+		return paths;
+	}
+
+	/**
+	 * Search only until target is settled; distances are final for target and
+	 * for every vertex closer to source than it.
+	 */
+	public static ShortestPaths between(IndexedGraph graph, int source, int target)
+	{
+		ShortestPaths paths = new ShortestPaths(graph, source);
+		paths.search(target);
+		return paths;
+	}
+
+	public int getSource() { return _source; }
+
+	/**
+	 * @return the length of the shortest path from the source to v, infinite if v is unreachable
+	 */
+	public double getDistance(int v) { return _distance[v]; }
+
+	/**
+	 * @return the vertex before v on its shortest path, -1 for the source or an unreachable vertex
+	 */
+	public int getParent(int v) { return _parent[v]; }
+
+	/**
+	 * @return the vertices of the shortest path from the source to v, or an empty list if there is none
+	 */
+	public List<PointNode> pathTo(int v)
+	{
+		List<PointNode> path = new ArrayList<PointNode>();
+		if (_distance[v] == Double.POSITIVE_INFINITY) return path;
+
+		for (int u = v; u != -1; u = _parent[u]) path.add(_graph.getVertex(u));
+		Collections.reverse(path);
+		return path;
+	}
+
+	private void search(int target)
+	{
+		int[] offsets = _graph.getOffsets(), neighbors = _graph.getNeighbors();
+		int n = _graph.getVertexCount();
+
+		// heap of vertex ids ordered by _distance; position[v] is v's heap slot, -1 if absent
+		int[] heap = new int[n];
+		int[] position = new int[n];
+		Arrays.fill(position, -1);
+		int size = 0;
+
+		_distance[_source] = 0;
+		heap[size] = _source;
+		position[_source] = size++;
+		while (size > 0)
+		{
+			int v = heap[0];
+			position[v] = -1;
+			if (--size > 0)
+			{
+				heap[0] = heap[size];
+				position[heap[0]] = 0;
+				siftDown(heap, position, size, 0);
+			}
+			if (v == target) return;
+
+			for (int e = offsets[v]; e < offsets[v + 1]; e++)
+			{
+				int w = neighbors[e];
+				double distance = _distance[v] + _graph.weight(v, w);
+				if (distance >= _distance[w]) continue;
+
+				// settled already; guards against rounding in the comparison above
+				if (position[w] < 0 && _distance[w] != Double.POSITIVE_INFINITY) continue;
+				_distance[w] = distance;
+				_parent[w] = v;
+				if (position[w] < 0)
+				{
+					heap[size] = w;
+					position[w] = size++;
+				}
+				siftUp(heap, position, position[w]);
+			}
+		}
+	}
+
+	private void siftUp(int[] heap, int[] position, int slot)
+	{
+		int v = heap[slot];
+		double key = _distance[v];
+		while (slot > 0)
+		{
+			int up = (slot - 1) >>> 1;
+			if (_distance[heap[up]] <= key) break;
+			heap[slot] = heap[up];
+			position[heap[slot]] = slot;
+			slot = up;
+		}
+		heap[slot] = v;
+		position[v] = slot;
+	}
+
+	private void siftDown(int[] heap, int[] position, int size, int slot)
+	{
+		int v = heap[slot];
+		double key = _distance[v];
+		while (true)
+		{
+			int child = 2 * slot + 1;
+			if (child >= size) break;
+			if (child + 1 < size && _distance[heap[child + 1]] < _distance[heap[child]]) child++;
+			if (_distance[heap[child]] >= key) break;
+			heap[slot] = heap[child];
+			position[heap[slot]] = slot;
+			slot = child;
+		}
+		heap[slot] = v;
+		position[v] = slot;
+	}
+}
@@ -0,0 +1,60 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import input.components.point.PointNode;
+
+/**
+ * The result of a search from one source: the vertices reached in the order they
+ * were visited, and for each vertex its parent in the search tree and its depth
+ * (number of edges from the source along the tree).
+ */
+public class Traversal
+{
+	protected final IndexedGraph _graph;
+	protected final int[] _order;
+	protected final int[] _parent;
+	protected final int[] _depth;
+
+	Traversal(IndexedGraph graph, int[] order, int[] parent, int[] depth)
+	{
+		_graph = graph;
+		_order = order;
+		_parent = parent;
+		_depth = depth;
+	}
+
+	/**
+	 * @return the reached vertices in visiting order; the array must not be modified
+	 */
+	public int[] getOrder() { return _order; }
+
+	public int size() { return _order.length; }
+
+	public boolean isReached(int v) { return _depth[v] >= 0; }
+
+	/**
+	 * @return the parent of v in the search tree, -1 for the source or an unreached vertex
+	 */
+	public int getParent(int v) { return _parent[v]; }
+
+	/**
+	 * @return the depth of v in the search tree, -1 if it was not reached
+	 */
+	public int getDepth(int v) { return _depth[v]; }
+
+	/**
+	 * @return the tree path from the source to v, or an empty list if v was not reached
+	 */
+	public List<PointNode> pathTo(int v)
+	{
+		List<PointNode> path = new ArrayList<PointNode>();
+		if (!isReached(v)) return path;
+
+		for (int u = v; u != -1; u = _parent[u]) path.add(_graph.getVertex(u));
+		Collections.reverse(path);
+		return path;
+	}
+}
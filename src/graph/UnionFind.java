@@ -0,0 +1,55 @@
+package graph;
+
+/**
+ * Disjoint sets over 0 .. n - 1 with union by size and path halving, so any
+ * sequence of operations runs in near-linear time.
+ */
+public class UnionFind
+{
+	protected final int[] _parent;
+	protected final int[] _size;
+	protected int _sets;
+
+	public UnionFind(int n)
+	{
+		_parent = new int[n];
+		_size = new int[n];
+		for (int v = 0; v < n; v++)
+		{
+			_parent[v] = v;
+			_size[v] = 1;
+		}
+		_sets = n;
+	}
+
+	public int find(int v)
+	{
+		while (_parent[v] != v)
+		{
+			_parent[v] = _parent[_parent[v]];
+			v = _parent[v];
+		}
+		return v;
+	}
+
+	/**
+	 * @return true if a and b were in different sets, which are now merged
+	 */
+	public boolean union(int a, int b)
+	{
+		a = find(a);
+		b = find(b);
+		if (a == b) return false;
+		if (_size[a] < _size[b]) { int t = a; a = b; b = t; }
+		_parent[b] = a;
+		_size[a] += _size[b];
+		_sets--;
+		return true;
+	}
+
+	public boolean connected(int a, int b) { return find(a) == find(b); }
+
+	public int setSize(int v) { return _size[find(v)]; }
+
+	public int getSetCount() { return _sets; }
+}
@@ -0,0 +1,21 @@
+package input.components;
+
+import input.components.point.PointNode;
+
+/**
+ * Receives the edits made to a PointNodeDatabase or SegmentNodeDatabase it has been
+ * registered with. Edges are reported one direction at a time, as they are stored,
+ * so an undirected edge arrives as two calls.
+ * 
+ * Listeners are called synchronously on the editing thread and should return quickly.
+ */
+public interface ChangeListener
+{
+	default void pointPut(PointNode point) {}
+
+	default void pointRemoved(PointNode point) {}
+
+	default void edgeAdded(PointNode from, PointNode to) {}
+
+	default void edgeRemoved(PointNode from, PointNode to) {}
+}
@@ -30,6 +30,7 @@ public class FigureNode implements ComponentNode
 	protected String              _description;
 	protected PointNodeDatabase   _points;
 	protected SegmentNodeDatabase _segments;
+	protected FigureStatistics    _statistics;
 
 	/**
 	 * These methods return each instance variable object, which will be helpful in later labs
@@ -39,6 +40,11 @@ public class FigureNode implements ComponentNode
 	public PointNodeDatabase   getPointsDatabase() { return _points; }
 	public SegmentNodeDatabase getSegments()       { return _segments; }
 
+	/**
+	 * @return the statistics kept for this figure, or null if they were never enabled
+	 */
+	public FigureStatistics    getStatistics()     { return _statistics; }
+
 	/**
 	 * FigureNode() constructor 
 	 * @param description contains the description of the figure
@@ -52,6 +58,22 @@ public class FigureNode implements ComponentNode
 		_segments = segments;
 	}
 	
+	/**
+	 * Keep statistics (edge count, degrees, components, bounding box, centroid)
+	 * current through every later edit; they are computed on first read.
+	 * @return the figure's statistics (the existing ones if already enabled)
+	 */
+	public FigureStatistics enableStatistics()
+	{
+		if (_statistics == null)
+		{
+			_statistics = new FigureStatistics(_points, _segments);
+			_points.addChangeListener(_statistics);
+			_segments.addChangeListener(_statistics);
+		}
+		return _statistics;
+	}
+	
 	@Override 
 	public Object accept(ComponentNodeVisitor visitor, Object o) {
 		return visitor.visitFigureNode(this, o);
@@ -0,0 +1,246 @@
+package input.components;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import input.components.point.PointNode;
+import input.components.point.PointNodeDatabase;
+import input.components.segments.SegmentNodeDatabase;
+
+/**
+ * Aggregates over a figure, enabled with FigureNode.enableStatistics and kept
+ * current as the figure is edited, so that reading them is constant time:
+ * the edge count (as numUndirectedEdges counts), a histogram of vertex degrees,
+ * the number of connected components, and the bounding box and centroid of the
+ * points.
+ * 
+ * The vertices are the points of the PointNodeDatabase together with every
+ * endpoint of an edge; a vertex's degree is the size of its adjacency list.
+ * Puts and added edges are folded in as they happen, components through a
+ * union-find. Removals cannot be undone in a union-find, so a removal marks the
+ * graph aggregates stale and they are recomputed in O(V + E) on the next read;
+ * the centroid and, unless the removed point was on it, the bounding box stay
+ * current. invalidate() recomputes everything, for edits made around the
+ * databases, for example through getAdjLists.
+ * 
+ * Like ChangeJournal, statistics are not thread-safe.
+ */
+public class FigureStatistics implements ChangeListener
+{
+	protected final PointNodeDatabase   _points;
+	protected final SegmentNodeDatabase _segments;
+
+	// vertex ids, with per-id degree and union-find parent / component size
+	protected Map<PointNode, Integer> _ids;
+	protected int[] _degree;
+	protected int[] _parent;
+	protected int[] _size;
+	protected int   _vertexCount;
+
+	protected int[] _histogram;
+	protected int   _maxDegree;
+	protected long  _directedEdges;
+	protected int   _components;
+	protected boolean _graphStale = true;
+
+	protected int    _pointCount;
+	protected double _sumX, _sumY;
+	protected double _minX, _minY, _maxX, _maxY;
+	protected boolean _boundsStale = true;
+
+	public FigureStatistics(PointNodeDatabase points, SegmentNodeDatabase segments)
+	{
+		_points = points;
+		_segments = segments;
+	}
+
+	public long getEdgeCount()       { graph(); return _directedEdges / 2; }
+	public int  getVertexCount()     { graph(); return _vertexCount; }
+	public int  getComponentCount()  { graph(); return _components; }
+	public int  getMaxDegree()       { graph(); return _maxDegree; }
+
+	/**
+	 * @return the number of vertices with the given degree
+	 */
+	public int getDegreeCount(int degree)
+	{
+		graph();
+		return degree < 0 || degree > _maxDegree ? 0 : _histogram[degree];
+	}
+
+	/**
+	 * @return the degree histogram, indexed by degree up to getMaxDegree
+	 */
+	public int[] getDegreeHistogram()
+	{
+		graph();
+		return Arrays.copyOf(_histogram, _maxDegree + 1);
+	}
+
+	/*
+	 * Bounding box and centroid of the points; NaN while there are none.
+	 */
+	public double getMinX() { bounds(); return _pointCount == 0 ? Double.NaN : _minX; }
+	public double getMinY() { bounds(); return _pointCount == 0 ? Double.NaN : _minY; }
+	public double getMaxX() { bounds(); return _pointCount == 0 ? Double.NaN : _maxX; }
+	public double getMaxY() { bounds(); return _pointCount == 0 ? Double.NaN : _maxY; }
+
+	public double getCentroidX() { bounds(); return _pointCount == 0 ? Double.NaN : _sumX / _pointCount; }
+	public double getCentroidY() { bounds(); return _pointCount == 0 ? Double.NaN : _sumY / _pointCount; }
+
+	/**
+	 * Discard every aggregate; each is recomputed from the databases when next read.
+	 */
+	public void invalidate()
+	{
+		_graphStale = true;
+		_boundsStale = true;
+	}
+
+	@Override
+	public void pointPut(PointNode point)
+	{
+		if (!_graphStale) vertex(point);
+		if (!_boundsStale) include(point);
+	}
+
+	@Override
+	public void pointRemoved(PointNode point)
+	{
+		_graphStale = true;
+		if (_boundsStale) return;
+
+		_pointCount--;
+		_sumX -= point.getX();
+		_sumY -= point.getY();
+		if (point.getX() == _minX || point.getX() == _maxX || point.getY() == _minY || point.getY() == _maxY) _boundsStale = true;
+	}
+
+	@Override
+	public void edgeAdded(PointNode from, PointNode to)
+	{
+		if (_graphStale) return;
+		int f = vertex(from);
+		union(f, vertex(to));
+		_histogram[_degree[f]]--;
+		_degree[f]++;
+		count(_degree[f]);
+		_directedEdges++;
+	}
+
+	@Override
+	public void edgeRemoved(PointNode from, PointNode to)
+	{
+		_graphStale = true;
+	}
+
+	/*
+	 * Rebuild the graph aggregates if a removal or invalidate made them stale.
+	 */
+	private void graph()
+	{
+		if (!_graphStale) return;
+
+		_ids = new HashMap<PointNode, Integer>();
+		_degree = new int[16];
+		_parent = new int[16];
+		_size = new int[16];
+		_vertexCount = 0;
+		_histogram = new int[4];
+		_maxDegree = 0;
+		_directedEdges = 0;
+		_components = 0;
+		_graphStale = false;
+
+		for (PointNode point : _points.getAllNodes()) vertex(point);
+
+		Map<PointNode, Set<PointNode>> adjLists = _segments.getAdjLists();
+		for (Map.Entry<PointNode, Set<PointNode>> entry : adjLists.entrySet())
+		{
+			int f = vertex(entry.getKey());
+			for (PointNode neighbor : entry.getValue()) union(f, vertex(neighbor));
+
+			_histogram[0]--;
+			_degree[f] = entry.getValue().size();
+			count(_degree[f]);
+			_directedEdges += _degree[f];
+		}
+	}
+
+	private void bounds()
+	{
+		if (!_boundsStale) return;
+
+		_pointCount = 0;
+		_sumX = _sumY = 0;
+		_minX = _minY = Double.POSITIVE_INFINITY;
+		_maxX = _maxY = Double.NEGATIVE_INFINITY;
+		_boundsStale = false;
+
+		for (PointNode point : _points.getAllNodes()) include(point);
+	}
+
+	private void include(PointNode point)
+	{
+		_pointCount++;
+		_sumX += point.getX();
+		_sumY += point.getY();
+		_minX = Math.min(_minX, point.getX());
+		_minY = Math.min(_minY, point.getY());
+		_maxX = Math.max(_maxX, point.getX());
+		_maxY = Math.max(_maxY, point.getY());
+	}
+
+	/**
+	 * @return the id of point, adding it as an isolated vertex of degree 0 if it is new
+	 */
+	private int vertex(PointNode point)
+	{
+		Integer id = _ids.get(point);
+		if (id != null) return id;
+
+		if (_vertexCount == _parent.length)
+		{
+			_degree = Arrays.copyOf(_degree, _vertexCount * 2);
+			_parent = Arrays.copyOf(_parent, _vertexCount * 2);
+			_size = Arrays.copyOf(_size, _vertexCount * 2);
+		}
+		int v = _vertexCount++;
+		_ids.put(point, v);
+		_parent[v] = v;
+		_size[v] = 1;
+		_components++;
+		count(0);
+		return v;
+	}
+
+	private void count(int degree)
+	{
+		if (degree >= _histogram.length) _histogram = Arrays.copyOf(_histogram, Math.max(degree + 1, _histogram.length * 2));
+		_histogram[degree]++;
+		if (degree > _maxDegree) _maxDegree = degree;
+	}
+
+	private int find(int v)
+	{
+		while (_parent[v] != v)
+		{
+			_parent[v] = _parent[_parent[v]];
+			v = _parent[v];
+		}
+		return v;
+	}
+
+	private void union(int a, int b)
+	{
+		a = find(a);
+		b = find(b);
+		if (a == b) return;
+		if (_size[a] < _size[b]) { int t = a; a = b; b = t; }
+		_parent[b] = a;
+		_size[a] += _size[b];
+		_components--;
+	}
+}
@@ -0,0 +1,307 @@
+package input.components.point;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import input.components.ChangeListener;
+
+/**
+ * A thread-safe PointNodeDatabase for parallel ingestion.
+ * 
+ * The plane's PointSpatialHash cells are divided among a fixed number of stripes,
+ * each with its own lock and its own PointSpatialHash over the points whose cell
+ * belongs to it. An operation locks only the stripes of the (at most four) cells
+ * its epsilon box overlaps, in ascending order, so puts in different parts of the
+ * plane proceed in parallel and there is no global lock. Two epsilon-equal points
+ * always have a cell in common in their boxes, so they can never both be inserted.
+ * 
+ * Each successful put takes the next id; getAllNodes and getAllNodeNames return
+ * points in id order, which is the order the puts took effect. Iteration during
+ * concurrent puts is weakly consistent: it may miss puts still in progress.
+ * getNodeByName returns the first point whose put registered the name; when that
+ * point is removed, the name passes to the surviving point with the smallest id.
+ * 
+ * Change listeners are kept in a CopyOnWriteArrayList and called after the edit,
+ * outside the stripe locks. With several editing threads they may be called
+ * concurrently and out of order, so a listener that is not thread-safe, such as
+ * ChangeJournal or FigureStatistics, must only be attached while one thread edits.
+ */
+public class ConcurrentPointNodeDatabase extends PointNodeDatabase {
+
+	private static final int STRIPES = 256;
+	private static final int CHUNK_BITS = 12;
+	private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+	protected final ReentrantLock[] _locks = new ReentrantLock[STRIPES];
+	protected final PointSpatialHash[] _hashes = new PointSpatialHash[STRIPES];
+
+	// points by id in fixed-size chunks; removed ids and ids still being put read as null
+	private volatile AtomicReferenceArray<PointNode>[] _chunks = newChunks(16);
+
+	protected final AtomicInteger _nextId = new AtomicInteger();
+	protected final AtomicInteger _size = new AtomicInteger();
+
+	public ConcurrentPointNodeDatabase() {
+		super();
+		_nameIndex = new ConcurrentHashMap<String, PointNode>();
+		_listeners = new CopyOnWriteArrayList<ChangeListener>();
+
+		PointSpatialHash.Coordinates coordinates = new PointSpatialHash.Coordinates() {
+			@Override public double getX(int id) { return nodeAt(id).getX(); }
+			@Override public double getY(int id) { return nodeAt(id).getY(); }
+		};
+		for (int i = 0; i < STRIPES; i++) {
+			_locks[i] = new ReentrantLock();
+			_hashes[i] = new PointSpatialHash(coordinates);
+		}
+	}
+
+	public ConcurrentPointNodeDatabase(List<PointNode> pointNodeList) {
+		this();
+		for (PointNode node : pointNodeList) {
+			put(node);
+		}
+	}
+
+	@Override
+	public boolean put(PointNode node) {
+		double x = node.getX();
+		double y = node.getY();
+
+		int[] stripes = lock(x, y);
+		try {
+			if (find(x, y) != PointSpatialHash.NOT_FOUND) return false;
+
+			int id = _nextId.getAndIncrement();
+			chunk(id).set(id & (CHUNK_SIZE - 1), node);
+			_hashes[stripe(PointSpatialHash.cell(x), PointSpatialHash.cell(y))].insert(id);
+
+			_nameIndex.putIfAbsent(node.getName(), node);
+			_size.incrementAndGet();
+		}
+		finally {
+			unlock(stripes);
+		}
+
+		for (ChangeListener listener : _listeners) listener.pointPut(node);
+		return true;
+	}
+
+	@Override
+	public int size() {
+		return _size.get();
+	}
+
+	@Override
+	public int removeAll(Collection<PointNode> nodes) {
+		int count = 0;
+		Map<String, PointNode> orphaned = new HashMap<String, PointNode>();
+		for (PointNode node : nodes) {
+			PointNode removed = removeOne(node.getX(), node.getY());
+			if (removed == null) continue;
+
+			count++;
+			if (_nameIndex.get(removed.getName()) == removed) orphaned.put(removed.getName(), removed);
+			for (ChangeListener listener : _listeners) listener.pointRemoved(removed);
+		}
+		if (!orphaned.isEmpty()) renameOrphans(orphaned);
+		return count;
+	}
+
+	/*
+	 * Point each name whose owner was removed at the surviving point with that name
+	 * and the smallest id, as PointNodeDatabase.removeMarked does, with one pass over
+	 * the points per round. A name is only changed while it still maps to the owner
+	 * this round expects (null for none), so a concurrent put that claimed it in the
+	 * meantime is kept. Another round runs for a survivor that a concurrent remove took
+	 * before it was checked here, and for a dropped name that a concurrent put may have
+	 * failed to claim while the removed owner still held it.
+	 */
+	private void renameOrphans(Map<String, PointNode> orphaned) {
+		while (!orphaned.isEmpty()) {
+			Map<String, PointNode> survivors = new HashMap<String, PointNode>();
+			for (PointNode node : getAllNodes()) {
+				if (orphaned.containsKey(node.getName())) survivors.putIfAbsent(node.getName(), node);
+			}
+
+			Map<String, PointNode> again = new HashMap<String, PointNode>();
+			for (Map.Entry<String, PointNode> entry : orphaned.entrySet()) {
+				String name = entry.getKey();
+				PointNode owner = entry.getValue();
+				PointNode survivor = survivors.get(name);
+
+				if (survivor == null) {
+					if (owner != null && _nameIndex.remove(name, owner)) again.put(name, null);
+				}
+				else if (owner == null ? _nameIndex.putIfAbsent(name, survivor) == null : _nameIndex.replace(name, owner, survivor)) {
+					if (getPoint(survivor.getX(), survivor.getY()) != survivor) again.put(name, survivor);
+				}
+			}
+			orphaned = again;
+		}
+	}
+
+	/*
+	 * @return the removed point, or null if there was none at (x, y)
+	 */
+	private PointNode removeOne(double x, double y) {
+		int[] stripes = lock(x, y);
+		try {
+			int id = find(x, y);
+			if (id == PointSpatialHash.NOT_FOUND) return null;
+
+			PointNode node = nodeAt(id);
+			_hashes[stripe(PointSpatialHash.cell(node.getX()), PointSpatialHash.cell(node.getY()))].remove(id);
+			chunk(id).set(id & (CHUNK_SIZE - 1), null);
+			_size.decrementAndGet();
+			return node;
+		}
+		finally {
+			unlock(stripes);
+		}
+	}
+
+	@Override
+	public PointNode getPoint(double x, double y) {
+		int id = indexOf(x, y);
+		return id == PointSpatialHash.NOT_FOUND ? null : nodeAt(id);
+	}
+
+	@Override
+	protected int indexOf(double x, double y) {
+		int[] stripes = lock(x, y);
+		try {
+			return find(x, y);
+		}
+		finally {
+			unlock(stripes);
+		}
+	}
+
+	@Override
+	protected PointNode nodeAt(int id) {
+		AtomicReferenceArray<PointNode>[] chunks = _chunks;
+		int chunk = id >>> CHUNK_BITS;
+		if (chunk >= chunks.length || chunks[chunk] == null) return null;
+		return chunks[chunk].get(id & (CHUNK_SIZE - 1));
+	}
+
+	@Override
+	public List<PointNode> getAllNodes() {
+		List<PointNode> nodes = new ArrayList<PointNode>(size());
+		int end = _nextId.get();
+		for (int id = 0; id < end; id++) {
+			PointNode node = nodeAt(id);
+			if (node != null) nodes.add(node);
+		}
+		return nodes;
+	}
+
+	@Override
+	public List<String> getAllNodeNames() {
+		List<String> names = new ArrayList<String>(size());
+		for (PointNode node : getAllNodes()) {
+			names.add(node.getName());
+		}
+		return names;
+	}
+
+	/*
+	 * The caller holds the locks of the stripes of the box around (x, y).
+	 * @return the smallest epsilon-equal id, or NOT_FOUND
+	 */
+	private int find(double x, double y) {
+		long minX = PointSpatialHash.firstCell(x), minY = PointSpatialHash.firstCell(y);
+		int spanX = PointSpatialHash.cellSpan(x), spanY = PointSpatialHash.cellSpan(y);
+
+		int best = PointSpatialHash.NOT_FOUND;
+		for (int i = 0; i < spanX; i++) {
+			for (int j = 0; j < spanY; j++) {
+				// each cell is searched only in the hash of its own stripe
+				int id = _hashes[stripe(minX + i, minY + j)].findInCell(minX + i, minY + j, x, y);
+				if (id != PointSpatialHash.NOT_FOUND && (best == PointSpatialHash.NOT_FOUND || id < best)) best = id;
+			}
+		}
+		return best;
+	}
+
+	/*
+	 * Lock the stripes of every cell the epsilon box around (x, y) overlaps.
+	 * @return the locked stripes, ascending and distinct
+	 */
+	private int[] lock(double x, double y) {
+		long minX = PointSpatialHash.firstCell(x), minY = PointSpatialHash.firstCell(y);
+		int spanX = PointSpatialHash.cellSpan(x), spanY = PointSpatialHash.cellSpan(y);
+
+		int[] stripes = new int[spanX * spanY];
+		int count = 0;
+		for (int i = 0; i < spanX; i++) {
+			for (int j = 0; j < spanY; j++) {
+				stripes[count++] = stripe(minX + i, minY + j);
+			}
+		}
+
+		if (count > 1) {
+			Arrays.sort(stripes);
+			int distinct = 1;
+			for (int k = 1; k < count; k++) {
+				if (stripes[k] != stripes[distinct - 1]) stripes[distinct++] = stripes[k];
+			}
+			if (distinct < count) stripes = Arrays.copyOf(stripes, distinct);
+		}
+
+		for (int stripe : stripes) _locks[stripe].lock();
+		return stripes;
+	}
+
+	private void unlock(int[] stripes) {
+		for (int k = stripes.length - 1; k >= 0; k--) _locks[stripes[k]].unlock();
+	}
+
+	/*
+	 * Taken from the top bits of a different mix than PointSpatialHash uses for its
+	 * slots, so the points of one stripe still spread over its hash's slots.
+	 */
+	private static int stripe(long cellX, long cellY) {
+		long h = (cellX * 0xC2B2AE3D27D4EB4FL) ^ (cellY * 0x165667B19E3779F9L);
+		h ^= h >>> 31;
+		h *= 0x94D049BB133111EBL;
+		return (int)(h >>> 56) & (STRIPES - 1);
+	}
+
+	/*
+	 * @return the chunk holding id, creating it (and growing the chunk table) if needed
+	 */
+	private AtomicReferenceArray<PointNode> chunk(int id) {
+		int chunk = id >>> CHUNK_BITS;
+		AtomicReferenceArray<PointNode>[] chunks = _chunks;
+		if (chunk < chunks.length && chunks[chunk] != null) return chunks[chunk];
+
+		// only taken once per CHUNK_SIZE puts
+		synchronized (this) {
+			chunks = _chunks;
+			if (chunk >= chunks.length) {
+				chunks = Arrays.copyOf(chunks, Math.max(chunks.length * 2, chunk + 1));
+			}
+			if (chunks[chunk] == null) {
+				chunks[chunk] = new AtomicReferenceArray<PointNode>(CHUNK_SIZE);
+			}
+			_chunks = chunks;
+			return chunks[chunk];
+		}
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static AtomicReferenceArray<PointNode>[] newChunks(int count) {
+		return (AtomicReferenceArray<PointNode>[])new AtomicReferenceArray[count];
+	}
+}
@@ -0,0 +1,152 @@
+package input.components.point;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * An interning table of point names.
+ * 
+ * Each distinct name is stored once as UTF-8 in a single byte array and is
+ * identified by a dense int id. Lookups hash and compare the query String
+ * against the packed bytes directly, so interning an existing name and finding
+ * a name do not allocate.
+ */
+class NameTable
+{
+	public static final int NOT_FOUND = -1;
+
+	private static final int EMPTY = -1;
+
+	private byte[] _bytes = new byte[64];
+	private int _byteCount = 0;
+
+	// _offsets[id] .. _offsets[id + 1] delimits the bytes of name id
+	private int[] _offsets = new int[9];
+	private int _size = 0;
+
+	private int[] _slots = newSlots(16);
+
+	public int size() { return _size; }
+
+	/**
+	 * @return the id of name, adding it to the table if it is new
+	 */
+	public int intern(String name)
+	{
+		int id = find(name);
+		if (id != NOT_FOUND) return id;
+
+		byte[] encoded = name.getBytes(StandardCharsets.UTF_8);
+		if (_byteCount + encoded.length > _bytes.length)
+		{
+			_bytes = Arrays.copyOf(_bytes, Math.max(_bytes.length * 2, _byteCount + encoded.length));
+		}
+		System.arraycopy(encoded, 0, _bytes, _byteCount, encoded.length);
+		_byteCount += encoded.length;
+
+		if (_size + 2 > _offsets.length) _offsets = Arrays.copyOf(_offsets, _offsets.length * 2);
+		id = _size++;
+		_offsets[id + 1] = _byteCount;
+
+		if (_size * 2 > _slots.length) rehash(_slots.length * 2);
+		place(_slots, id, name.hashCode());
+
+		return id;
+	}
+
+	/**
+	 * @return the id of name, or NOT_FOUND
+	 */
+	public int find(String name)
+	{
+		int mask = _slots.length - 1;
+		int slot = spread(name.hashCode()) & mask;
+		while (_slots[slot] != EMPTY)
+		{
+			if (matches(_slots[slot], name)) return _slots[slot];
+			slot = (slot + 1) & mask;
+		}
+		return NOT_FOUND;
+	}
+
+	/**
+	 * @return a new String holding the name stored under id
+	 */
+	public String get(int id)
+	{
+		return new String(_bytes, _offsets[id], _offsets[id + 1] - _offsets[id], StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Shrink the backing arrays to their used length.
+	 */
+	public void trimToSize()
+	{
+		_bytes = Arrays.copyOf(_bytes, _byteCount);
+		_offsets = Arrays.copyOf(_offsets, _size + 1);
+	}
+
+	/*
+	 * Compare the UTF-8 bytes of an entry with the UTF-16 chars of a String.
+	 */
+	private boolean matches(int id, String name)
+	{
+		int pos = _offsets[id];
+		int end = _offsets[id + 1];
+		int index = 0;
+		while (pos < end)
+		{
+			int b = _bytes[pos] & 0xFF;
+			int codePoint;
+			if (b < 0x80)      { codePoint = b;                                                  pos += 1; }
+			else if (b < 0xE0) { codePoint = (b & 0x1F) << 6 | (_bytes[pos + 1] & 0x3F);         pos += 2; }
+			else if (b < 0xF0) { codePoint = (b & 0x0F) << 12 | (_bytes[pos + 1] & 0x3F) << 6 |
+					                          (_bytes[pos + 2] & 0x3F);                           pos += 3; }
+			else               { codePoint = (b & 0x07) << 18 | (_bytes[pos + 1] & 0x3F) << 12 |
+					                          (_bytes[pos + 2] & 0x3F) << 6 | (_bytes[pos + 3] & 0x3F); pos += 4; }
+
+			if (index >= name.length() || name.codePointAt(index) != codePoint) return false;
+			index += Character.charCount(codePoint);
+		}
+		return index == name.length();
+	}
+
+	/*
+	 * String.hashCode of an entry; only needed while rehashing.
+	 */
+	private int hashOf(int id)
+	{
+		return get(id).hashCode();
+	}
+
+	private void place(int[] slots, int id, int hash)
+	{
+		int mask = slots.length - 1;
+		int slot = spread(hash) & mask;
+		while (slots[slot] != EMPTY) slot = (slot + 1) & mask;
+		slots[slot] = id;
+	}
+
+	private void rehash(int capacity)
+	{
+		int[] slots = newSlots(capacity);
+		for (int id = 0; id < _size; id++)
+		{
+			place(slots, id, hashOf(id));
+		}
+		_slots = slots;
+	}
+
+	private static int[] newSlots(int capacity)
+	{
+		int[] slots = new int[capacity];
+		Arrays.fill(slots, EMPTY);
+		return slots;
+	}
+
+	private static int spread(int h)
+	{
+		h *= 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
@@ -46,10 +46,23 @@ public class PointNode implements ComponentNode
 		this._y = y;
 	}
 
+	/**
+	 * Hashes the exact coordinates. Whole-number coordinates differ only in the
+	 * high word of their IEEE representation, so each double is folded to 32 bits
+	 * before the two are combined and finished with the MurmurHash3 mixer; adding
+	 * 0.0 folds -0.0 into 0.0.
+	 */
 	@Override
 	public int hashCode()
 	{
-		return Double.valueOf(_x).hashCode() + Double.valueOf(_y).hashCode();
+		long x = Double.doubleToLongBits(_x + 0.0);
+		long y = Double.doubleToLongBits(_y + 0.0);
+		long h = (x ^ (x >>> 32)) * 0x9E3779B97F4A7C15L + (y ^ (y >>> 32));
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		h *= 0xC4CEB9FE1A85EC53L;
+		return (int)(h ^ (h >>> 33));
 	}
 
 	@Override
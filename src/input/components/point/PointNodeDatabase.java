@@ -1,10 +1,13 @@
 package input.components.point;
 
 import java.util.ArrayList;
-import java.util.LinkedHashSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 
+import input.components.ChangeListener;
 import input.components.ComponentNode;
 import visitor.ComponentNodeVisitor;
 
@@ -12,61 +15,176 @@ import visitor.ComponentNodeVisitor;
 
 public class PointNodeDatabase implements ComponentNode {
 	
-	protected Set<PointNode> database = new LinkedHashSet<PointNode>();
+	/**
+	 * Points in insertion order; a point's index in this list is its id
+	 * in the spatial hash.
+	 */
+	protected List<PointNode> database = new ArrayList<PointNode>();
+	
+	/**
+	 * Name-keyed index over database; maps each name to the first point
+	 * inserted with that name so getNodeByName does not scan every point.
+	 */
+	protected Map<String, PointNode> _nameIndex = new HashMap<String, PointNode>();
+	
+	/**
+	 * Coordinate index over database; answers epsilon-equal lookups
+	 * without building a PointNode or scanning every point.
+	 */
+	protected PointSpatialHash _spatialHash = new PointSpatialHash(new PointSpatialHash.Coordinates() {
+		@Override public double getX(int id) { return database.get(id).getX(); }
+		@Override public double getY(int id) { return database.get(id).getY(); }
+	});
+	
+	/**
+	 * Registered ChangeListeners; null until the first one is added so an
+	 * unobserved database pays nothing per edit.
+	 */
+	protected List<ChangeListener> _listeners = null;
 	
 	public PointNodeDatabase() {
-		database = new LinkedHashSet<PointNode>();
+		database = new ArrayList<PointNode>();
 	}
 	
 	public PointNodeDatabase(List<PointNode> pointNodeList) {
-		database = new LinkedHashSet<PointNode>(pointNodeList);
-		//TODO: ask if he wants this to call the other constructor 
+		this();
+		for (PointNode node : pointNodeList) {
+			put(node);
+		}
 	}
 	
 	public boolean put(PointNode node) {
-		if (database.contains(node)) return false;
+		if (indexOf(node.getX(), node.getY()) != PointSpatialHash.NOT_FOUND) return false;
 		database.add(node);
+		_spatialHash.insert(database.size() - 1);
+		_nameIndex.putIfAbsent(node.getName(), node);
+		firePointPut(database.size() - 1);
 		return true;
 		}
 	
+	public int size() {
+		return database.size();
+	}
+	
+	/**
+	 * Remove the stored point epsilon-equal to node. Each removal is linear in
+	 * the size of the database; prefer removeAll for several points.
+	 * @return true if a point was removed
+	 */
+	public boolean remove(PointNode node) {
+		return removeAll(Collections.singletonList(node)) == 1;
+	}
+	
+	/**
+	 * Remove every stored point epsilon-equal to one of nodes in a single pass.
+	 * The remaining points keep their relative order.
+	 * @return the number of points removed
+	 */
+	public int removeAll(Collection<PointNode> nodes) {
+		boolean[] removed = new boolean[size()];
+		int count = 0;
+		for (PointNode node : nodes) {
+			int id = indexOf(node.getX(), node.getY());
+			if (id != PointSpatialHash.NOT_FOUND && !removed[id]) {
+				removed[id] = true;
+				count++;
+			}
+		}
+		if (count == 0) return 0;
+		
+		if (_listeners != null) {
+			for (int id = 0; id < removed.length; id++) {
+				if (removed[id]) for (ChangeListener listener : _listeners) listener.pointRemoved(nodeAt(id));
+			}
+		}
+		removeMarked(removed);
+		return count;
+	}
+	
+	public void addChangeListener(ChangeListener listener) {
+		if (_listeners == null) _listeners = new ArrayList<ChangeListener>(2);
+		_listeners.add(listener);
+	}
+	
+	public void removeChangeListener(ChangeListener listener) {
+		if (_listeners != null) _listeners.remove(listener);
+	}
+	
+	protected void firePointPut(int id) {
+		if (_listeners == null) return;
+		PointNode node = nodeAt(id);
+		for (ChangeListener listener : _listeners) listener.pointPut(node);
+	}
+	
+	/**
+	 * @return the point stored under id
+	 */
+	protected PointNode nodeAt(int id) {
+		return database.get(id);
+	}
+	
+	/**
+	 * Drop the points whose ids are marked and rebuild the indexes over the
+	 * renumbered points.
+	 */
+	protected void removeMarked(boolean[] removed) {
+		List<PointNode> kept = new ArrayList<PointNode>(database.size());
+		for (int id = 0; id < database.size(); id++) {
+			if (!removed[id]) kept.add(database.get(id));
+		}
+		database = kept;
+		
+		_spatialHash.clear();
+		_nameIndex.clear();
+		for (int id = 0; id < database.size(); id++) {
+			_spatialHash.insert(id);
+			_nameIndex.putIfAbsent(database.get(id).getName(), database.get(id));
+		}
+	}
+	
 	public boolean contains(PointNode node) {
-		return database.contains(node);
-		//loop through database and use point node equals method 
+		return contains(node.getX(), node.getY());
 	}
 	
 	public boolean contains(double x, double y) {
-		return contains(new PointNode(x, y));
+		return indexOf(x, y) != PointSpatialHash.NOT_FOUND;
 	}
 	
 	public String getName(PointNode node) {
-		for (PointNode n: database) {
-			if (n.equals(node)) return n.getName();
-		}
-		return null;
+		return getName(node.getX(), node.getY());
 	}
 	
 	public String getName(double x, double y) {
-		return getName(new PointNode(x, y));
+		PointNode n = getPoint(x, y);
+		return n == null ? null : n.getName();
 	}
 	
 	public PointNode getPoint(PointNode node) {
-		for (PointNode n: database) {
-			if (n.equals(node)) return n;
-		}
-		return null;
+		return getPoint(node.getX(), node.getY());
 	}
 	
 	public PointNode getPoint(double x, double y) {
-		return getPoint(new PointNode(x, y));
+		int id = indexOf(x, y);
+		return id == PointSpatialHash.NOT_FOUND ? null : database.get(id);
+	}
+	
+	/**
+	 * @return the insertion index of the first point epsilon-equal to (x, y),
+	 *         or PointSpatialHash.NOT_FOUND
+	 */
+	protected int indexOf(double x, double y) {
+		return _spatialHash.find(x, y);
 	}
 	
 	public PointNode getNodeByName(String nodeName) {
-		for (PointNode n: database) {
-			if (n.getName().equals(nodeName)) {
-				return n;
-			}
-		}
-		return null;
+		return _nameIndex.get(nodeName);
+	}
+	
+	/**
+	 * @return the points of this database in insertion order
+	 */
+	public List<PointNode> getAllNodes() {
+		return new ArrayList<PointNode>(database);
 	}
 	
 	public List<String> getAllNodeNames() {
@@ -0,0 +1,248 @@
+package input.components.point;
+
+import java.util.Arrays;
+
+import utilities.math.MathUtilities;
+
+/**
+ * An open-addressing hash of point ids keyed on coordinates snapped to a grid
+ * whose cells are CELL_SIZE (a multiple of MathUtilities.EPSILON) wide.
+ * 
+ * Two points are equal when both coordinates differ by less than EPSILON, so a
+ * point equal to (x, y) lies in a cell overlapped by the box (x +- EPSILON, y +- EPSILON).
+ * Lookups probe just those cells -- usually only the query's own cell, and at most
+ * it and three neighbors -- and compare with MathUtilities.doubleEquals, which keeps
+ * them consistent with PointNode.equals (unlike PointNode.hashCode).
+ * 
+ * The hash stores only int ids; coordinates are read back through a Coordinates
+ * source so the same structure serves object and primitive point storage.
+ */
+public class PointSpatialHash
+{
+	/**
+	 * Supplies the coordinates of the point stored under an id.
+	 */
+	public interface Coordinates
+	{
+		double getX(int id);
+		double getY(int id);
+	}
+
+	public static final int NOT_FOUND = -1;
+
+	private static final int EMPTY = -1;
+	private static final int MIN_CAPACITY = 16;
+
+	/*
+	 * Cells several EPSILON wide mean the epsilon box of a query rarely
+	 * straddles a cell boundary: at 16 EPSILON, 7/8 of the values on each axis
+	 * need one cell, so a lookup probes 1.27 cells on average. Much wider cells
+	 * would collect many points each where points lie only a few EPSILON apart.
+	 */
+	public static final double CELL_SIZE = 16 * MathUtilities.EPSILON;
+
+	protected Coordinates _coordinates;
+	protected int[] _slots;
+	protected int _size;
+
+	public PointSpatialHash(Coordinates coordinates)
+	{
+		this(coordinates, MIN_CAPACITY / 2);
+	}
+
+	/**
+	 * @param coordinates -- source of coordinates for stored ids
+	 * @param expectedSize -- number of ids to size the table for
+	 */
+	public PointSpatialHash(Coordinates coordinates, int expectedSize)
+	{
+		_coordinates = coordinates;
+		_slots = new int[capacityFor(expectedSize)];
+		Arrays.fill(_slots, EMPTY);
+		_size = 0;
+	}
+
+	public int size() { return _size; }
+
+	/**
+	 * Cell indices saturate at Long.MIN_VALUE / Long.MAX_VALUE for very large
+	 * coordinates, so every such point shares one cell; lookups stay correct.
+	 * 
+	 * @param value -- a finite coordinate
+	 * @return the index of the grid cell containing value along one axis
+	 * @throws IllegalArgumentException if value is NaN or infinite
+	 */
+	public static long cell(double value)
+	{
+		if (!Double.isFinite(value)) throw new IllegalArgumentException("Non-finite coordinate: " + value);
+
+		return (long)Math.floor(value / CELL_SIZE);
+	}
+
+	/**
+	 * @return the first cell overlapped by the epsilon interval around value
+	 */
+	public static long firstCell(double value)
+	{
+		return cell(value - MathUtilities.EPSILON);
+	}
+
+	/**
+	 * CELL_SIZE is wider than 2 * EPSILON, so the epsilon interval around a value
+	 * overlaps one or two cells. Callers visit firstCell(value) + 0 .. span - 1,
+	 * which cannot overflow even where cell indices saturate.
+	 * 
+	 * @return the number of cells (1 or 2) overlapped by the epsilon interval around value
+	 */
+	public static int cellSpan(double value)
+	{
+		return firstCell(value) == cell(value + MathUtilities.EPSILON) ? 1 : 2;
+	}
+
+	/**
+	 * Add an id to the hash; the id's coordinates must already be readable.
+	 * Duplicates are not checked: callers are expected to find() first.
+	 */
+	public void insert(int id)
+	{
+		if ((_size + 1) * 2 > _slots.length) rehash(_slots.length * 2);
+
+		place(_slots, id);
+		_size++;
+	}
+
+	/**
+	 * Remove an id from the hash; the id's coordinates must still be readable.
+	 * @return true if the id was present
+	 */
+	public boolean remove(int id)
+	{
+		int mask = _slots.length - 1;
+		int slot = home(id, mask);
+		while (_slots[slot] != EMPTY)
+		{
+			if (_slots[slot] == id)
+			{
+				deleteSlot(slot);
+				_size--;
+				return true;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return false;
+	}
+
+	/**
+	 * @return the smallest stored id whose point is epsilon-equal to (x, y),
+	 *         or NOT_FOUND if there is none
+	 */
+	public int find(double x, double y)
+	{
+		long minX = firstCell(x), minY = firstCell(y);
+		int spanX = cellSpan(x), spanY = cellSpan(y);
+
+		int best = NOT_FOUND;
+		for (int i = 0; i < spanX; i++)
+		{
+			for (int j = 0; j < spanY; j++)
+			{
+				int id = findInCell(minX + i, minY + j, x, y);
+				if (id != NOT_FOUND && (best == NOT_FOUND || id < best)) best = id;
+			}
+		}
+		return best;
+	}
+
+	public void clear()
+	{
+		Arrays.fill(_slots, EMPTY);
+		_size = 0;
+	}
+
+	/**
+	 * Search a single cell, for callers that split the cells of an epsilon box
+	 * between several hashes.
+	 * @return the smallest id stored in cell (cx, cy) whose point is epsilon-equal
+	 *         to (x, y), or NOT_FOUND
+	 */
+	public int findInCell(long cx, long cy, double x, double y)
+	{
+		int mask = _slots.length - 1;
+		int slot = hash(cx, cy) & mask;
+
+		int best = NOT_FOUND;
+		while (_slots[slot] != EMPTY)
+		{
+			int id = _slots[slot];
+			if ((best == NOT_FOUND || id < best) &&
+				MathUtilities.doubleEquals(_coordinates.getX(id), x) &&
+				MathUtilities.doubleEquals(_coordinates.getY(id), y)) best = id;
+
+			slot = (slot + 1) & mask;
+		}
+		return best;
+	}
+
+	private int home(int id, int mask)
+	{
+		return hash(cell(_coordinates.getX(id)), cell(_coordinates.getY(id))) & mask;
+	}
+
+	private void place(int[] slots, int id)
+	{
+		int mask = slots.length - 1;
+		int slot = home(id, mask);
+		while (slots[slot] != EMPTY) slot = (slot + 1) & mask;
+		slots[slot] = id;
+	}
+
+	/*
+	 * Backward-shift deletion: pull later entries of the probe run into the
+	 * hole when their home slot does not lie between the hole and themselves.
+	 */
+	private void deleteSlot(int hole)
+	{
+		int mask = _slots.length - 1;
+		int slot = (hole + 1) & mask;
+		while (_slots[slot] != EMPTY)
+		{
+			int home = home(_slots[slot], mask);
+			boolean movable = hole <= slot ? (home <= hole || home > slot)
+					                       : (home <= hole && home > slot);
+			if (movable)
+			{
+				_slots[hole] = _slots[slot];
+				hole = slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+		_slots[hole] = EMPTY;
+	}
+
+	private void rehash(int capacity)
+	{
+		int[] slots = new int[capacity];
+		Arrays.fill(slots, EMPTY);
+		for (int id : _slots)
+		{
+			if (id != EMPTY) place(slots, id);
+		}
+		_slots = slots;
+	}
+
+	private static int hash(long cx, long cy)
+	{
+		long h = cx * 0x9E3779B97F4A7C15L + cy;
+		h ^= h >>> 32;
+		h *= 0xBF58476D1CE4E5B9L;
+		h ^= h >>> 29;
+		return (int)h;
+	}
+
+	private static int capacityFor(int expectedSize)
+	{
+		int capacity = MIN_CAPACITY;
+		while (capacity < expectedSize * 2) capacity <<= 1;
+		return capacity;
+	}
+}
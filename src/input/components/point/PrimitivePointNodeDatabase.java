@@ -0,0 +1,190 @@
+package input.components.point;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A PointNodeDatabase that stores its points as primitive columns instead of
+ * one PointNode object per point.
+ * 
+ * Coordinates live in parallel double arrays, and names are interned into a
+ * NameTable so each point holds only an int name id. A point's PointNode is
+ * created the first time a caller asks for it (getPoint, getNodeByName,
+ * getAllNodes) and then kept, so a point never has more than one PointNode and
+ * repeated lookups, such as JSONParser resolving every segment endpoint by name,
+ * neither allocate nor leave copies behind in the segment database. The savings
+ * are therefore in points that are never asked for; a figure whose segments
+ * reach every point holds a PointNode per point as the default backend does.
+ */
+public class PrimitivePointNodeDatabase extends PointNodeDatabase {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	protected double[] _xs = new double[INITIAL_CAPACITY];
+	protected double[] _ys = new double[INITIAL_CAPACITY];
+	protected int[] _nameIds = new int[INITIAL_CAPACITY];
+	protected int _size = 0;
+
+	protected NameTable _names = new NameTable();
+
+	// _firstPointOfName[nameId] is the id of the first point inserted with that name
+	protected int[] _firstPointOfName = new int[INITIAL_CAPACITY];
+
+	// _views[id] is the PointNode handed out for point id, if any; null until the first one
+	protected PointNode[] _views;
+
+	public PrimitivePointNodeDatabase() {
+		super();
+		_spatialHash = new PointSpatialHash(new PointSpatialHash.Coordinates() {
+			@Override public double getX(int id) { return _xs[id]; }
+			@Override public double getY(int id) { return _ys[id]; }
+		});
+	}
+
+	public PrimitivePointNodeDatabase(List<PointNode> pointNodeList) {
+		this();
+		for (PointNode node : pointNodeList) {
+			put(node);
+		}
+	}
+
+	@Override
+	public boolean put(PointNode node) {
+		return put(node.getName(), node.getX(), node.getY());
+	}
+
+	/**
+	 * Add a point without creating a PointNode.
+	 * @return false if an epsilon-equal point is already present
+	 */
+	public boolean put(String name, double x, double y) {
+		if (indexOf(x, y) != PointSpatialHash.NOT_FOUND) return false;
+
+		if (_size == _xs.length) grow();
+
+		int id = _size++;
+		_xs[id] = x;
+		_ys[id] = y;
+		_spatialHash.insert(id);
+
+		int nameCount = _names.size();
+		int nameId = _names.intern(name);
+		if (nameId == nameCount || _firstPointOfName[nameId] == PointSpatialHash.NOT_FOUND) {
+			if (nameId == _firstPointOfName.length) {
+				_firstPointOfName = Arrays.copyOf(_firstPointOfName, Math.max(INITIAL_CAPACITY, nameId * 2));
+			}
+			_firstPointOfName[nameId] = id;
+		}
+		_nameIds[id] = nameId;
+		firePointPut(id);
+
+		return true;
+	}
+
+	@Override
+	public int size() {
+		return _size;
+	}
+
+	@Override
+	protected void removeMarked(boolean[] removed) {
+		int kept = 0;
+		for (int id = 0; id < _size; id++) {
+			if (removed[id]) continue;
+			_xs[kept] = _xs[id];
+			_ys[kept] = _ys[id];
+			_nameIds[kept] = _nameIds[id];
+			if (_views != null) _views[kept] = _views[id];
+			kept++;
+		}
+		if (_views != null) Arrays.fill(_views, kept, _size, null);
+		_size = kept;
+
+		// names whose points were all removed stay in the table but resolve to no point
+		_spatialHash.clear();
+		Arrays.fill(_firstPointOfName, 0, _names.size(), PointSpatialHash.NOT_FOUND);
+		for (int id = 0; id < _size; id++) {
+			_spatialHash.insert(id);
+			if (_firstPointOfName[_nameIds[id]] == PointSpatialHash.NOT_FOUND) _firstPointOfName[_nameIds[id]] = id;
+		}
+	}
+
+	@Override
+	public PointNode getPoint(double x, double y) {
+		int id = indexOf(x, y);
+		return id == PointSpatialHash.NOT_FOUND ? null : view(id);
+	}
+
+	@Override
+	public String getName(double x, double y) {
+		int id = indexOf(x, y);
+		return id == PointSpatialHash.NOT_FOUND ? null : nameOf(id);
+	}
+
+	@Override
+	public PointNode getNodeByName(String nodeName) {
+		int nameId = _names.find(nodeName);
+		if (nameId == NameTable.NOT_FOUND) return null;
+
+		int id = _firstPointOfName[nameId];
+		return id == PointSpatialHash.NOT_FOUND ? null : view(id);
+	}
+
+	@Override
+	public List<PointNode> getAllNodes() {
+		List<PointNode> nodes = new ArrayList<PointNode>(_size);
+		for (int id = 0; id < _size; id++) {
+			nodes.add(view(id));
+		}
+		return nodes;
+	}
+
+	@Override
+	public List<String> getAllNodeNames() {
+		List<String> names = new ArrayList<String>(_size);
+		for (int id = 0; id < _size; id++) {
+			names.add(nameOf(id));
+		}
+		return names;
+	}
+
+	/**
+	 * Shrink the columns to the number of stored points.
+	 */
+	public void trimToSize() {
+		_xs = Arrays.copyOf(_xs, _size);
+		_ys = Arrays.copyOf(_ys, _size);
+		_nameIds = Arrays.copyOf(_nameIds, _size);
+		if (_views != null) _views = Arrays.copyOf(_views, _size);
+		_firstPointOfName = Arrays.copyOf(_firstPointOfName, _names.size());
+		_names.trimToSize();
+	}
+
+	@Override
+	protected PointNode nodeAt(int id) {
+		return view(id);
+	}
+
+	private PointNode view(int id) {
+		if (_views == null) _views = new PointNode[_xs.length];
+		if (_views[id] == null) _views[id] = new PointNode(_names.get(_nameIds[id]), _xs[id], _ys[id]);
+		return _views[id];
+	}
+
+	/*
+	 * The name of point id, taken from its PointNode when it has one rather than decoded again.
+	 */
+	private String nameOf(int id) {
+		PointNode view = _views == null ? null : _views[id];
+		return view != null ? view.getName() : _names.get(_nameIds[id]);
+	}
+
+	private void grow() {
+		int capacity = Math.max(INITIAL_CAPACITY, _xs.length * 2);
+		_xs = Arrays.copyOf(_xs, capacity);
+		_ys = Arrays.copyOf(_ys, capacity);
+		_nameIds = Arrays.copyOf(_nameIds, capacity);
+		if (_views != null) _views = Arrays.copyOf(_views, capacity);
+	}
+}
@@ -0,0 +1,581 @@
+package input.components.segments;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import input.components.point.PointNode;
+
+/**
+ * A SegmentNodeDatabase stored in compressed sparse row (CSR) form.
+ *
+ * Every PointNode that appears in an edge is given a dense int id, which it keeps
+ * for the life of the database. The neighbors of vertex v are held in the order
+ * they were added, without repeats, exactly as the LinkedHashSet adjacency lists
+ * of SegmentNodeDatabase would hold them: first the run
+ * neighbors[offsets[v]] .. neighbors[offsets[v + 1] - 1] of the CSR arrays, then
+ * the edges added to v since the arrays were last built, which are chained per
+ * vertex in a pending buffer. A removed edge leaves a dead slot behind.
+ *
+ * Reads walk both parts directly and never force a rebuild. Writes fold the
+ * pending buffer and the dead slots into new CSR arrays, in O(V + E), once they
+ * outnumber the edges already in the arrays, so any interleaving of writes and
+ * reads costs amortized O(1) per write. A repeated edge is found by scanning the
+ * neighbors of its source (a hash set for vertices of high degree) and ignored.
+ *
+ * getAdjLists returns a read-only view that, like the views of a LinkedHashMap,
+ * reflects later writes; an iterator over it or over one of its neighbor sets
+ * throws ConcurrentModificationException once the database has been modified.
+ */
+public class CompactSegmentNodeDatabase extends SegmentNodeDatabase {
+
+	private static final int INITIAL_CAPACITY = 16;
+	private static final int NONE = -1;
+	private static final int DEAD = -1;
+
+	// vertices above this degree also keep their neighbors in a hash set for repeat checks
+	private static final int HUB_DEGREE = 32;
+
+	protected Map<PointNode, Integer> _vertexIds = new HashMap<PointNode, Integer>();
+	protected PointNode[] _vertices = new PointNode[INITIAL_CAPACITY];
+	protected int _vertexCount = 0;
+
+	// live out-degree of every vertex, and the number of live directed edges
+	protected int[] _degree = new int[INITIAL_CAPACITY];
+	protected int _edgeCount = 0;
+
+	// vertices in the order they became keys (LinkedHashMap key order); slot k is live
+	// while _keyPosition[_keyOrder[k]] == k
+	protected int[] _keyOrder = new int[INITIAL_CAPACITY];
+	protected int _keySlots = 0;
+	protected int[] _keyPosition = filled(INITIAL_CAPACITY);
+	protected int _keyCount = 0;
+
+	// CSR arrays over the first _offsets.length - 1 vertices
+	protected int[] _offsets = new int[1];
+	protected int[] _neighbors = new int[0];
+
+	// edges added since the arrays were built, chained per source vertex in insertion order
+	protected int[] _pendingTo = new int[INITIAL_CAPACITY];
+	protected int[] _pendingNext = new int[INITIAL_CAPACITY];
+	protected int _pendingCount = 0;
+	protected int[] _pendingHead = filled(INITIAL_CAPACITY);
+	protected int[] _pendingTail = filled(INITIAL_CAPACITY);
+
+	protected int _deadCount = 0;
+	protected boolean _removedAny = false;
+
+	protected Map<Integer, Set<Integer>> _hubs = new HashMap<Integer, Set<Integer>>();
+
+	protected int _modCount = 0;
+
+	public CompactSegmentNodeDatabase() {
+		super();
+	}
+
+	public CompactSegmentNodeDatabase(Map<PointNode, Set<PointNode>> aList) {
+		this();
+		for (Map.Entry<PointNode, Set<PointNode>> entry : aList.entrySet()) {
+			for (PointNode neighbor : entry.getValue()) {
+				addDirectedEdge(entry.getKey(), neighbor);
+			}
+		}
+		compact();
+	}
+
+	public CompactSegmentNodeDatabase(SegmentNodeDatabase segments) {
+		this(segments.getAdjLists());
+	}
+
+	@Override
+	public void addDirectedEdge(PointNode pointNodeKey, PointNode pointNodeValue) {
+		int from = idFor(pointNodeKey);
+		int to = idFor(pointNodeValue);
+		if (contains(from, to)) return;
+
+		if (_pendingCount == _pendingTo.length) {
+			_pendingTo = Arrays.copyOf(_pendingTo, _pendingCount * 2);
+			_pendingNext = Arrays.copyOf(_pendingNext, _pendingCount * 2);
+		}
+		_pendingTo[_pendingCount] = to;
+		_pendingNext[_pendingCount] = NONE;
+		if (_pendingTail[from] == NONE) _pendingHead[from] = _pendingCount;
+		else _pendingNext[_pendingTail[from]] = _pendingCount;
+		_pendingTail[from] = _pendingCount++;
+
+		if (_degree[from]++ == 0) addKey(from);
+		_edgeCount++;
+		Set<Integer> hub = _hubs.isEmpty() ? null : _hubs.get(from);
+		if (hub != null) hub.add(to);
+		else if (_degree[from] > HUB_DEGREE) _hubs.put(from, neighborIds(from));
+		_modCount++;
+
+		fireEdgeAdded(pointNodeKey, pointNodeValue);
+		if (_pendingCount + _deadCount > Math.max(INITIAL_CAPACITY, _neighbors.length)) rebuild();
+	}
+
+	/**
+	 * The slot of a removed edge is marked dead and dropped at the next rebuild.
+	 */
+	@Override
+	public boolean removeDirectedEdge(PointNode pointNodeKey, PointNode pointNodeValue) {
+		Integer from = _vertexIds.get(pointNodeKey);
+		Integer to = _vertexIds.get(pointNodeValue);
+		if (from == null || to == null || !kill(from, to)) return false;
+
+		if (--_degree[from] == 0) {
+			_keyPosition[from] = NONE;
+			_keyCount--;
+		}
+		_edgeCount--;
+		_deadCount++;
+		_removedAny = true;
+		Set<Integer> hub = _hubs.isEmpty() ? null : _hubs.get(from);
+		if (hub != null) hub.remove(to);
+		_modCount++;
+
+		fireEdgeRemoved(pointNodeKey, pointNodeValue);
+		if (_pendingCount + _deadCount > Math.max(INITIAL_CAPACITY, _neighbors.length)) rebuild();
+		return true;
+	}
+
+	@Override
+	public int numUndirectedEdges() {
+		return _edgeCount / 2;
+	}
+
+	@Override
+	public List<SegmentNode> asSegmentList() {
+		List<SegmentNode> segmentNodeList = new ArrayList<SegmentNode>(_edgeCount);
+		for (int k = 0; k < _keySlots; k++) {
+			int v = _keyOrder[k];
+			if (_keyPosition[v] != k) continue;
+			Row row = new Row(v);
+			for (int n = row.next(); n != NONE; n = row.next()) {
+				segmentNodeList.add(new SegmentNode(_vertices[v], _vertices[n]));
+			}
+		}
+		return segmentNodeList;
+	}
+
+	@Override
+	public Spliterator<SegmentNode> uniqueSegmentSpliterator() {
+		return new UniqueEdges(0, _keySlots);
+	}
+
+	@Override
+	public void forEachUniqueEdge(BiConsumer<PointNode, PointNode> action) {
+		for (int k = 0; k < _keySlots; k++) {
+			int v = _keyOrder[k];
+			if (_keyPosition[v] != k) continue;
+			Row row = new Row(v);
+			for (int n = row.next(); n != NONE; n = row.next()) {
+				if (!reports(v, n)) continue;
+				if (UniqueEdgeSpliterator.precedes(_vertices[v], _vertices[n])) action.accept(_vertices[v], _vertices[n]);
+				else action.accept(_vertices[n], _vertices[v]);
+			}
+		}
+	}
+
+	/*
+	 * UniqueEdgeSpliterator.reports over the int rows.
+	 */
+	private boolean reports(int from, int to) {
+		return UniqueEdgeSpliterator.precedes(_vertices[from], _vertices[to]) || !contains(to, from);
+	}
+
+	@Override
+	public List<String> edgesAsList(PointNode node) {
+		List<String> names = new ArrayList<String>();
+		Integer v = _vertexIds.get(node);
+		if (v == null) return names;
+
+		Row row = new Row(v);
+		for (int n = row.next(); n != NONE; n = row.next()) {
+			names.add(_vertices[n].getName());
+		}
+		return names;
+	}
+
+	/**
+	 * @return a read-only, live view of the adjacency lists
+	 */
+	@Override
+	public Map<PointNode, Set<PointNode>> getAdjLists() {
+		return new AdjacencyView();
+	}
+
+	/*
+	 * Int-indexed access for traversals that do not want PointNode lookups.
+	 */
+	public int getVertexCount() {
+		return _vertexCount;
+	}
+
+	public PointNode getVertex(int id) {
+		return _vertices[id];
+	}
+
+	/**
+	 * @return the id of node, or -1 if it has never been part of an edge
+	 */
+	public int getVertexId(PointNode node) {
+		Integer id = _vertexIds.get(node);
+		return id == null ? -1 : id;
+	}
+
+	/**
+	 * @return true once an edge has been removed, after which a vertex may no longer
+	 *         be part of any edge
+	 */
+	public boolean hasRemovedEdges() {
+		return _removedAny;
+	}
+
+	/**
+	 * getOffsets and getNeighbors first fold all pending edges and dead slots into
+	 * the CSR arrays. The arrays are the live ones: they must not be modified, and
+	 * are only valid until the next write.
+	 */
+	public int[] getOffsets() {
+		compact();
+		return _offsets;
+	}
+
+	public int[] getNeighbors() {
+		compact();
+		return _neighbors;
+	}
+
+	/**
+	 * Fold pending edges and dead slots into new CSR arrays in O(V + E). The old
+	 * arrays are left untouched, so iterators in progress are unaffected.
+	 */
+	protected void compact() {
+		if (_pendingCount == 0 && _deadCount == 0 && _offsets.length == _vertexCount + 1) return;
+
+		int[] offsets = new int[_vertexCount + 1];
+		int[] neighbors = new int[_edgeCount];
+		int write = 0;
+		for (int v = 0; v < _vertexCount; v++) {
+			offsets[v] = write;
+			Row row = new Row(v);
+			for (int n = row.next(); n != NONE; n = row.next()) neighbors[write++] = n;
+			_pendingHead[v] = NONE;
+			_pendingTail[v] = NONE;
+		}
+		offsets[_vertexCount] = write;
+
+		_offsets = offsets;
+		_neighbors = neighbors;
+		_pendingCount = 0;
+		_deadCount = 0;
+	}
+
+	/*
+	 * Called from writes only: compact, then drop the key slots of vertices that have
+	 * since stopped being keys.
+	 */
+	private void rebuild() {
+		compact();
+
+		int live = 0;
+		for (int k = 0; k < _keySlots; k++) {
+			int v = _keyOrder[k];
+			if (_keyPosition[v] == k) {
+				_keyPosition[v] = live;
+				_keyOrder[live++] = v;
+			}
+		}
+		_keySlots = live;
+	}
+
+	private boolean contains(int from, int to) {
+		Set<Integer> hub = _hubs.isEmpty() ? null : _hubs.get(from);
+		if (hub != null) return hub.contains(to);
+
+		Row row = new Row(from);
+		for (int n = row.next(); n != NONE; n = row.next()) {
+			if (n == to) return true;
+		}
+		return false;
+	}
+
+	/*
+	 * Mark the slot of the edge from -> to dead.
+	 * @return false if there is no such edge
+	 */
+	private boolean kill(int from, int to) {
+		Set<Integer> hub = _hubs.isEmpty() ? null : _hubs.get(from);
+		if (hub != null && !hub.contains(to)) return false;
+
+		if (from < _offsets.length - 1) {
+			for (int e = _offsets[from]; e < _offsets[from + 1]; e++) {
+				if (_neighbors[e] == to) {
+					_neighbors[e] = DEAD;
+					return true;
+				}
+			}
+		}
+		for (int i = _pendingHead[from]; i != NONE; i = _pendingNext[i]) {
+			if (_pendingTo[i] == to) {
+				_pendingTo[i] = DEAD;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private Set<Integer> neighborIds(int v) {
+		Set<Integer> ids = new HashSet<Integer>();
+		Row row = new Row(v);
+		for (int n = row.next(); n != NONE; n = row.next()) ids.add(n);
+		return ids;
+	}
+
+	private void addKey(int v) {
+		if (_keySlots == _keyOrder.length) _keyOrder = Arrays.copyOf(_keyOrder, _keySlots * 2);
+		_keyPosition[v] = _keySlots;
+		_keyOrder[_keySlots++] = v;
+		_keyCount++;
+	}
+
+	private int idFor(PointNode node) {
+		Integer id = _vertexIds.get(node);
+		if (id != null) return id;
+
+		if (_vertexCount == _vertices.length) {
+			int capacity = _vertexCount * 2;
+			_vertices = Arrays.copyOf(_vertices, capacity);
+			_degree = Arrays.copyOf(_degree, capacity);
+			_keyPosition = grow(_keyPosition, capacity);
+			_pendingHead = grow(_pendingHead, capacity);
+			_pendingTail = grow(_pendingTail, capacity);
+		}
+		_vertices[_vertexCount] = node;
+		_vertexIds.put(node, _vertexCount);
+		return _vertexCount++;
+	}
+
+	private static int[] filled(int capacity) {
+		int[] array = new int[capacity];
+		Arrays.fill(array, NONE);
+		return array;
+	}
+
+	private static int[] grow(int[] array, int capacity) {
+		int length = array.length;
+		array = Arrays.copyOf(array, capacity);
+		Arrays.fill(array, length, capacity, NONE);
+		return array;
+	}
+
+	/*
+	 * The live neighbors of one vertex: its CSR run, then its pending chain. The
+	 * CSR arrays are captured up front, so a compact() meanwhile does not disturb it.
+	 */
+	private final class Row {
+		private final int[] _csr = _neighbors;
+		private int _edge;
+		private final int _end;
+		private int _pending;
+
+		Row(int v) {
+			boolean built = v < _offsets.length - 1;
+			_edge = built ? _offsets[v] : 0;
+			_end = built ? _offsets[v + 1] : 0;
+			_pending = _pendingHead[v];
+		}
+
+		/*
+		 * @return the next neighbor id, or NONE
+		 */
+		int next() {
+			while (_edge < _end) {
+				int n = _csr[_edge++];
+				if (n != DEAD) return n;
+			}
+			while (_pending != NONE) {
+				int i = _pending;
+				_pending = _pendingNext[i];
+				if (_pendingTo[i] != DEAD) return _pendingTo[i];
+			}
+			return NONE;
+		}
+	}
+
+	/*
+	 * Map<PointNode, Set<PointNode>> over the rows, iterating keys in the order
+	 * they became keys.
+	 */
+	private class AdjacencyView extends AbstractMap<PointNode, Set<PointNode>> {
+
+		@Override
+		public Set<PointNode> get(Object key) {
+			return containsKey(key) ? new NeighborView(_vertexIds.get(key)) : null;
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			Integer v = _vertexIds.get(key);
+			return v != null && _keyPosition[v] != NONE;
+		}
+
+		@Override
+		public int size() {
+			return _keyCount;
+		}
+
+		@Override
+		public Set<Map.Entry<PointNode, Set<PointNode>>> entrySet() {
+			return new AbstractSet<Map.Entry<PointNode, Set<PointNode>>>() {
+				@Override
+				public int size() { return _keyCount; }
+
+				@Override
+				public Iterator<Map.Entry<PointNode, Set<PointNode>>> iterator() {
+					return new Iterator<Map.Entry<PointNode, Set<PointNode>>>() {
+						private final int _expectedModCount = _modCount;
+						private int _slot = nextKey(0);
+
+						@Override
+						public boolean hasNext() {
+							checkForComodification(_expectedModCount);
+							return _slot < _keySlots;
+						}
+
+						@Override
+						public Map.Entry<PointNode, Set<PointNode>> next() {
+							if (!hasNext()) throw new NoSuchElementException();
+							int v = _keyOrder[_slot];
+							_slot = nextKey(_slot + 1);
+							return new AbstractMap.SimpleImmutableEntry<PointNode, Set<PointNode>>(_vertices[v], new NeighborView(v));
+						}
+					};
+				}
+			};
+		}
+	}
+
+	/*
+	 * @return the first live key slot at or after slot, or _keySlots
+	 */
+	private int nextKey(int slot) {
+		while (slot < _keySlots && _keyPosition[_keyOrder[slot]] != slot) slot++;
+		return slot;
+	}
+
+	private void checkForComodification(int expectedModCount) {
+		if (_modCount != expectedModCount) throw new ConcurrentModificationException();
+	}
+
+	/*
+	 * Unique edges of the key slots _key .. _end - 1; splits in half by slot.
+	 */
+	private class UniqueEdges implements Spliterator<SegmentNode> {
+		private final int _expectedModCount = _modCount;
+		private int _key;
+		private final int _end;
+		private Row _row = null;
+
+		UniqueEdges(int key, int end) {
+			_key = key;
+			_end = end;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super SegmentNode> action) {
+			checkForComodification(_expectedModCount);
+			for (; _key < _end; _key++) {
+				int v = _keyOrder[_key];
+				if (_keyPosition[v] != _key) continue;
+				if (_row == null) _row = new Row(v);
+				for (int n = _row.next(); n != NONE; n = _row.next()) {
+					if (reports(v, n)) {
+						action.accept(UniqueEdgeSpliterator.canonical(_vertices[v], _vertices[n]));
+						return true;
+					}
+				}
+				_row = null;
+			}
+			return false;
+		}
+
+		@Override
+		public Spliterator<SegmentNode> trySplit() {
+			int start = _row == null ? _key : _key + 1;
+			int mid = (start + _end) >>> 1;
+			if (mid <= start) return null;
+			UniqueEdges prefix = new UniqueEdges(_key, mid);
+			prefix._row = _row;
+			_key = mid;
+			_row = null;
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			return _end - _key;
+		}
+
+		@Override
+		public int characteristics() {
+			return ORDERED | DISTINCT | NONNULL;
+		}
+	}
+
+	/*
+	 * Set<PointNode> over the live neighbors of one vertex.
+	 */
+	private class NeighborView extends AbstractSet<PointNode> {
+		private final int _vertex;
+
+		NeighborView(int vertex) { _vertex = vertex; }
+
+		@Override
+		public int size() {
+			return _degree[_vertex];
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			Integer n = _vertexIds.get(o);
+			return n != null && CompactSegmentNodeDatabase.this.contains(_vertex, n);
+		}
+
+		@Override
+		public Iterator<PointNode> iterator() {
+			return new Iterator<PointNode>() {
+				private final int _expectedModCount = _modCount;
+				private final Row _row = new Row(_vertex);
+				private int _next = _row.next();
+
+				@Override
+				public boolean hasNext() {
+					checkForComodification(_expectedModCount);
+					return _next != NONE;
+				}
+
+				@Override
+				public PointNode next() {
+					if (!hasNext()) throw new NoSuchElementException();
+					int n = _next;
+					_next = _row.next();
+					return _vertices[n];
+				}
+			};
+		}
+	}
+}
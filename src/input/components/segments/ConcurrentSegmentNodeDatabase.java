@@ -0,0 +1,203 @@
+package input.components.segments;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import input.components.ChangeListener;
+import input.components.point.PointNode;
+
+/**
+ * A thread-safe SegmentNodeDatabase for parallel ingestion.
+ * 
+ * Keys live in a ConcurrentHashMap; each key's neighbors are a LinkedHashSet
+ * guarded by that key's own monitor. Adding or removing a directed edge locks
+ * only its key, so threads adding edges at different points do not contend and
+ * there is no global lock. An undirected edge is two directed adds, each atomic
+ * on its own.
+ * 
+ * Each key takes a number from a shared sequence when it is first added.
+ * getAdjLists returns a read-only snapshot with keys in that order and neighbors
+ * in the order their adds took effect. For a single thread this is exactly the
+ * insertion order of SegmentNodeDatabase. The snapshot is rebuilt only after a
+ * change, and it is weakly consistent with edits made while it is being built.
+ * 
+ * Change listeners are kept in a CopyOnWriteArrayList and called after the edit,
+ * outside the key's monitor. With several editing threads they may be called
+ * concurrently and out of order, so a listener that is not thread-safe, such as
+ * ChangeJournal or FigureStatistics, must only be attached while one thread edits.
+ */
+public class ConcurrentSegmentNodeDatabase extends SegmentNodeDatabase {
+
+	/*
+	 * The neighbors of one key. An adjacency emptied by a removal is retired and
+	 * dropped from the map; an add that finds a retired adjacency starts over.
+	 */
+	private static final class Adjacency {
+		final long _sequence;
+		final Set<PointNode> _neighbors = new LinkedHashSet<PointNode>();
+		boolean _retired = false;
+
+		Adjacency(long sequence) {
+			_sequence = sequence;
+		}
+	}
+
+	private static final class Snapshot {
+		final long _modCount;
+		final Map<PointNode, Set<PointNode>> _adjLists;
+
+		Snapshot(long modCount, Map<PointNode, Set<PointNode>> adjLists) {
+			_modCount = modCount;
+			_adjLists = adjLists;
+		}
+	}
+
+	protected final ConcurrentHashMap<PointNode, Adjacency> _edges = new ConcurrentHashMap<PointNode, Adjacency>();
+	protected final AtomicLong _sequence = new AtomicLong();
+	protected final AtomicLong _directedEdges = new AtomicLong();
+	protected final AtomicLong _modCount = new AtomicLong();
+
+	private volatile Snapshot _snapshot = null;
+
+	public ConcurrentSegmentNodeDatabase() {
+		super();
+		_listeners = new CopyOnWriteArrayList<ChangeListener>();
+	}
+
+	public ConcurrentSegmentNodeDatabase(Map<PointNode, Set<PointNode>> aList) {
+		this();
+		for (Map.Entry<PointNode, Set<PointNode>> entry : aList.entrySet()) {
+			for (PointNode neighbor : entry.getValue()) {
+				addDirectedEdge(entry.getKey(), neighbor);
+			}
+		}
+	}
+
+	@Override
+	public void addDirectedEdge(PointNode pointNodeKey, PointNode pointNodeValue) {
+		while (true) {
+			Adjacency adjacency = _edges.get(pointNodeKey);
+			if (adjacency == null) {
+				adjacency = _edges.computeIfAbsent(pointNodeKey, key -> new Adjacency(_sequence.getAndIncrement()));
+			}
+
+			synchronized (adjacency) {
+				if (adjacency._retired) continue;
+				if (!adjacency._neighbors.add(pointNodeValue)) return;
+			}
+			_directedEdges.incrementAndGet();
+			_modCount.incrementAndGet();
+			fireEdgeAdded(pointNodeKey, pointNodeValue);
+			return;
+		}
+	}
+
+	@Override
+	public boolean removeDirectedEdge(PointNode pointNodeKey, PointNode pointNodeValue) {
+		Adjacency adjacency = _edges.get(pointNodeKey);
+		if (adjacency == null) return false;
+
+		synchronized (adjacency) {
+			if (adjacency._retired || !adjacency._neighbors.remove(pointNodeValue)) return false;
+			if (adjacency._neighbors.isEmpty()) {
+				adjacency._retired = true;
+				_edges.remove(pointNodeKey, adjacency);
+			}
+		}
+		_directedEdges.decrementAndGet();
+		_modCount.incrementAndGet();
+		fireEdgeRemoved(pointNodeKey, pointNodeValue);
+		return true;
+	}
+
+	@Override
+	public int numUndirectedEdges() {
+		return (int)(_directedEdges.get() / 2);
+	}
+
+	/**
+	 * Reuses the getAdjLists snapshot when it is current, but does not rebuild a stale
+	 * one; the adjacencies are then read directly, each under its own monitor.
+	 */
+	@Override
+	public List<SegmentNode> asSegmentList() {
+		List<SegmentNode> segmentNodeList = new ArrayList<SegmentNode>();
+
+		Snapshot snapshot = _snapshot;
+		if (snapshot != null && snapshot._modCount == _modCount.get()) {
+			for (Map.Entry<PointNode, Set<PointNode>> entry : snapshot._adjLists.entrySet()) {
+				for (PointNode neighbor : entry.getValue()) {
+					segmentNodeList.add(new SegmentNode(entry.getKey(), neighbor));
+				}
+			}
+			return segmentNodeList;
+		}
+
+		for (Map.Entry<PointNode, Adjacency> key : keysInOrder()) {
+			synchronized (key.getValue()) {
+				for (PointNode neighbor : key.getValue()._neighbors) {
+					segmentNodeList.add(new SegmentNode(key.getKey(), neighbor));
+				}
+			}
+		}
+		return segmentNodeList;
+	}
+
+	/**
+	 * Reads only the adjacency of node, under its monitor, in time linear in its degree.
+	 */
+	@Override
+	public List<String> edgesAsList(PointNode node) {
+		List<String> names = new ArrayList<String>();
+		Adjacency adjacency = _edges.get(node);
+		if (adjacency == null) return names;
+
+		synchronized (adjacency) {
+			for (PointNode neighbor : adjacency._neighbors) {
+				names.add(neighbor.getName());
+			}
+		}
+		return names;
+	}
+
+	/**
+	 * @return a read-only snapshot of the adjacency lists in the order the adds took effect
+	 */
+	@Override
+	public Map<PointNode, Set<PointNode>> getAdjLists() {
+		long modCount = _modCount.get();
+		Snapshot snapshot = _snapshot;
+		if (snapshot != null && snapshot._modCount == modCount) return snapshot._adjLists;
+
+		Map<PointNode, Set<PointNode>> adjLists = new LinkedHashMap<PointNode, Set<PointNode>>();
+		for (Map.Entry<PointNode, Adjacency> key : keysInOrder()) {
+			Set<PointNode> neighbors;
+			synchronized (key.getValue()) {
+				neighbors = new LinkedHashSet<PointNode>(key.getValue()._neighbors);
+			}
+			if (!neighbors.isEmpty()) adjLists.put(key.getKey(), Collections.unmodifiableSet(neighbors));
+		}
+		adjLists = Collections.unmodifiableMap(adjLists);
+
+		_snapshot = new Snapshot(modCount, adjLists);
+		return adjLists;
+	}
+
+	/*
+	 * @return the keys and their adjacencies in the order the keys were first added
+	 */
+	private List<Map.Entry<PointNode, Adjacency>> keysInOrder() {
+		List<Map.Entry<PointNode, Adjacency>> keys = new ArrayList<Map.Entry<PointNode, Adjacency>>(_edges.entrySet());
+		keys.sort(Comparator.comparingLong(entry -> entry.getValue()._sequence));
+		return keys;
+	}
+}
@@ -1,5 +1,7 @@
 package input.components.segments;
 
+import java.util.Objects;
+
 import input.components.ComponentNode;
 import input.components.point.PointNode;
 import visitor.ComponentNodeVisitor;
@@ -25,13 +27,26 @@ public class SegmentNode implements ComponentNode
 		//TODO: figure out how to implement that both points should go both ways 
 	}
 
+	/**
+	 * Segments are undirected: AB equals BA.
+	 */
 	@Override
 	public boolean equals(Object obj)
 	{
 		if (obj == null) return false;
 		if (!(obj instanceof SegmentNode)) return false;
 		SegmentNode that = (SegmentNode)obj;
-		return (this.equals(this) && that.equals(that)) && (that.equals(this) && this.equals(that));
+		return (Objects.equals(_point1, that._point1) && Objects.equals(_point2, that._point2)) ||
+			   (Objects.equals(_point1, that._point2) && Objects.equals(_point2, that._point1));
+	}
+	
+	/**
+	 * Symmetric in the two points, to agree with equals.
+	 */
+	@Override
+	public int hashCode()
+	{
+		return Objects.hashCode(_point1) + Objects.hashCode(_point2);
 	}
 	
 	@Override
@@ -1,12 +1,19 @@
 package input.components.segments;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import input.components.ChangeListener;
 import input.components.ComponentNode;
 import input.components.point.PointNode;
 import visitor.ComponentNodeVisitor;
@@ -19,6 +26,9 @@ public class SegmentNodeDatabase implements ComponentNode {
 
 	protected Map<PointNode, Set<PointNode>> _adjLists; 
 	
+	// registered ChangeListeners; null until the first one is added
+	protected List<ChangeListener> _listeners = null;
+	
 	public SegmentNodeDatabase() {
 		_adjLists = new LinkedHashMap<PointNode, Set<PointNode>>();
 	}
@@ -46,15 +56,73 @@ public class SegmentNodeDatabase implements ComponentNode {
 	
 	public void addDirectedEdge(PointNode pointNodeKey, PointNode pointNodeValue) {
 		if (_adjLists.containsKey(pointNodeKey)) {
-			_adjLists.get(pointNodeKey).add(pointNodeValue);
+			if (_adjLists.get(pointNodeKey).add(pointNodeValue)) fireEdgeAdded(pointNodeKey, pointNodeValue);
 			return;
 		}
 		Set<PointNode> pointNodeValues = new LinkedHashSet<PointNode>();
 		pointNodeValues.add(pointNodeValue);
 		_adjLists.put(pointNodeKey, pointNodeValues);
+		fireEdgeAdded(pointNodeKey, pointNodeValue);
 		return;
 	}
 	
+	/**
+	 * @return true if either direction of the edge was present
+	 */
+	public boolean removeUndirectedEdge(PointNode pointNodeKey, PointNode pointNodeValue) {
+		boolean removed = removeDirectedEdge(pointNodeKey, pointNodeValue);
+		return removeDirectedEdge(pointNodeValue, pointNodeKey) || removed;
+	}
+	
+	/**
+	 * Remove one directed edge; a point left with no neighbors is dropped as a key,
+	 * matching the lists the parser builds.
+	 * @return true if the edge was present
+	 */
+	public boolean removeDirectedEdge(PointNode pointNodeKey, PointNode pointNodeValue) {
+		Set<PointNode> pointNodeValues = _adjLists.get(pointNodeKey);
+		if (pointNodeValues == null || !pointNodeValues.remove(pointNodeValue)) return false;
+		if (pointNodeValues.isEmpty()) _adjLists.remove(pointNodeKey);
+		fireEdgeRemoved(pointNodeKey, pointNodeValue);
+		return true;
+	}
+	
+	public void addChangeListener(ChangeListener listener) {
+		if (_listeners == null) _listeners = new ArrayList<ChangeListener>(2);
+		_listeners.add(listener);
+	}
+	
+	public void removeChangeListener(ChangeListener listener) {
+		if (_listeners != null) _listeners.remove(listener);
+	}
+	
+	protected void fireEdgeAdded(PointNode pointNodeKey, PointNode pointNodeValue) {
+		if (_listeners == null) return;
+		for (ChangeListener listener : _listeners) listener.edgeAdded(pointNodeKey, pointNodeValue);
+	}
+	
+	protected void fireEdgeRemoved(PointNode pointNodeKey, PointNode pointNodeValue) {
+		if (_listeners == null) return;
+		for (ChangeListener listener : _listeners) listener.edgeRemoved(pointNodeKey, pointNodeValue);
+	}
+	
+	/**
+	 * Add every directed edge of adjLists, in its iteration order. An empty, unobserved
+	 * SegmentNodeDatabase takes ownership of the neighbor sets instead of copying them,
+	 * so the caller must not modify them afterwards.
+	 */
+	public void addAllEdges(Map<PointNode, Set<PointNode>> adjLists) {
+		if (getClass() == SegmentNodeDatabase.class && _adjLists.isEmpty() && _listeners == null) {
+			_adjLists.putAll(adjLists);
+			return;
+		}
+		for (Map.Entry<PointNode, Set<PointNode>> entry : adjLists.entrySet()) {
+			for (PointNode neighbor : entry.getValue()) {
+				addDirectedEdge(entry.getKey(), neighbor);
+			}
+		}
+	}
+	
 	public void addAdgacencyList(PointNode pNode, List<PointNode> pNodeList) {
 		for(PointNode node: pNodeList) {
 			addUndirectedEdge(pNode, node);
@@ -72,11 +140,50 @@ public class SegmentNodeDatabase implements ComponentNode {
 		return segmentNodeList;
 	}
 	
+	/**
+	 * @return each undirected edge once, endpoints in canonical order (see uniqueSegmentSpliterator)
+	 */
 	public List<SegmentNode> asUniqueSegmentList(){
-		List<SegmentNode> segNodeArray = new ArrayList<SegmentNode>(new LinkedHashSet<SegmentNode>(asSegmentList()));
+		List<SegmentNode> segNodeArray = new ArrayList<SegmentNode>();
+		uniqueSegmentSpliterator().forEachRemaining(segNodeArray::add);
 		return segNodeArray;
 	}
 	
+	/**
+	 * Each undirected edge once, endpoints ordered by x and then y, in key order.
+	 * An edge is reported from whichever of its directed halves has the lesser
+	 * key, so nothing is collected up front and no SegmentNode is made for a
+	 * directed edge that is skipped. The spliterator splits by key for parallel
+	 * streams; the database must not be modified while it is in use.
+	 */
+	public Spliterator<SegmentNode> uniqueSegmentSpliterator() {
+		return new UniqueEdgeSpliterator(getAdjLists());
+	}
+	
+	public Iterator<SegmentNode> uniqueSegmentIterator() {
+		return Spliterators.iterator(uniqueSegmentSpliterator());
+	}
+	
+	public Stream<SegmentNode> uniqueSegments() {
+		return StreamSupport.stream(uniqueSegmentSpliterator(), false);
+	}
+	
+	/**
+	 * The same edges as uniqueSegmentSpliterator, passed as endpoints so that
+	 * nothing at all is allocated per edge.
+	 */
+	public void forEachUniqueEdge(BiConsumer<PointNode, PointNode> action) {
+		Map<PointNode, Set<PointNode>> adjLists = getAdjLists();
+		for (Map.Entry<PointNode, Set<PointNode>> entry : adjLists.entrySet()) {
+			PointNode key = entry.getKey();
+			for (PointNode neighbor : entry.getValue()) {
+				if (!UniqueEdgeSpliterator.reports(adjLists, key, neighbor)) continue;
+				if (UniqueEdgeSpliterator.precedes(key, neighbor)) action.accept(key, neighbor);
+				else action.accept(neighbor, key);
+			}
+		}
+	}
+	
 	public List<String> edgesAsList(PointNode node) {
 		List<String> segmentNodeList = new ArrayList<String>();
 		if (_adjLists.get(node) == null) {
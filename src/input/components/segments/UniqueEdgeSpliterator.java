@@ -0,0 +1,107 @@
+package input.components.segments;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import input.components.point.PointNode;
+
+/**
+ * Walks adjacency lists lazily, yielding each undirected edge once as a SegmentNode
+ * whose first point precedes its second (see precedes). A directed edge u -> v is
+ * reported unless u follows v and the reverse edge v -> u is present, in which case
+ * the reverse edge reports it; no set of visited edges is kept.
+ * 
+ * Splitting is delegated to the spliterator over the map's entries, so a parallel
+ * stream divides the work by key.
+ */
+class UniqueEdgeSpliterator implements Spliterator<SegmentNode>, Consumer<Map.Entry<PointNode, Set<PointNode>>> {
+
+	private final Map<PointNode, Set<PointNode>> _adjLists;
+	private final Spliterator<Map.Entry<PointNode, Set<PointNode>>> _entries;
+
+	private PointNode _key = null;
+	private Iterator<PointNode> _neighbors = null;
+
+	UniqueEdgeSpliterator(Map<PointNode, Set<PointNode>> adjLists) {
+		this(adjLists, adjLists.entrySet().spliterator());
+	}
+
+	private UniqueEdgeSpliterator(Map<PointNode, Set<PointNode>> adjLists, Spliterator<Map.Entry<PointNode, Set<PointNode>>> entries) {
+		_adjLists = adjLists;
+		_entries = entries;
+	}
+
+	/**
+	 * The canonical order of endpoints: by x, then by y.
+	 */
+	static boolean precedes(PointNode a, PointNode b) {
+		int byX = Double.compare(a.getX(), b.getX());
+		return byX < 0 || (byX == 0 && Double.compare(a.getY(), b.getY()) <= 0);
+	}
+
+	/**
+	 * @return true if the directed edge key -> neighbor is the one that reports its undirected edge
+	 */
+	static boolean reports(Map<PointNode, Set<PointNode>> adjLists, PointNode key, PointNode neighbor) {
+		if (precedes(key, neighbor)) return true;
+		Set<PointNode> reverse = adjLists.get(neighbor);
+		return reverse == null || !reverse.contains(key);
+	}
+
+	static SegmentNode canonical(PointNode a, PointNode b) {
+		return precedes(a, b) ? new SegmentNode(a, b) : new SegmentNode(b, a);
+	}
+
+	@Override
+	public void accept(Map.Entry<PointNode, Set<PointNode>> entry) {
+		_key = entry.getKey();
+		_neighbors = entry.getValue().iterator();
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super SegmentNode> action) {
+		while (true) {
+			while (_neighbors != null && _neighbors.hasNext()) {
+				PointNode neighbor = _neighbors.next();
+				if (reports(_adjLists, _key, neighbor)) {
+					action.accept(canonical(_key, neighbor));
+					return true;
+				}
+			}
+			_neighbors = null;
+			if (!_entries.tryAdvance(this)) return false;
+		}
+	}
+
+	@Override
+	public void forEachRemaining(Consumer<? super SegmentNode> action) {
+		while (tryAdvance(action)) { }
+	}
+
+	@Override
+	public Spliterator<SegmentNode> trySplit() {
+		Spliterator<Map.Entry<PointNode, Set<PointNode>>> prefix = _entries.trySplit();
+		if (prefix == null) return null;
+
+		// the key in progress precedes the split-off entries, so it goes with them
+		UniqueEdgeSpliterator split = new UniqueEdgeSpliterator(_adjLists, prefix);
+		split._key = _key;
+		split._neighbors = _neighbors;
+		_key = null;
+		_neighbors = null;
+		return split;
+	}
+
+	@Override
+	public long estimateSize() {
+		return _entries.estimateSize();
+	}
+
+	@Override
+	public int characteristics() {
+		return (_entries.characteristics() & ORDERED) | DISTINCT | NONNULL;
+	}
+}
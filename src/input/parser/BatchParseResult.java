@@ -0,0 +1,69 @@
+package input.parser;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Results of a batch parse, in the order the files were given, together with
+ * aggregate timing.
+ */
+public class BatchParseResult
+{
+	protected List<FileParseResult> _results;
+	protected long                  _wallNanos;
+
+	public BatchParseResult(List<FileParseResult> results, long wallNanos)
+	{
+		_results = Collections.unmodifiableList(results);
+		_wallNanos = wallNanos;
+	}
+
+	public List<FileParseResult> getResults() { return _results; }
+
+	/**
+	 * @return elapsed time of the whole batch
+	 */
+	public long getWallNanos() { return _wallNanos; }
+
+	public int getSuccessCount()
+	{
+		int count = 0;
+		for (FileParseResult result : _results)
+		{
+			if (result.isSuccess()) count++;
+		}
+		return count;
+	}
+
+	public int getFailureCount() { return _results.size() - getSuccessCount(); }
+
+	/**
+	 * @return sum of the per-file parse times; compare with getWallNanos for the parallel speedup
+	 */
+	public long getTotalParseNanos()
+	{
+		long total = 0;
+		for (FileParseResult result : _results) total += result.getNanos();
+		return total;
+	}
+
+	public long getMaxParseNanos()
+	{
+		long max = 0;
+		for (FileParseResult result : _results) max = Math.max(max, result.getNanos());
+		return max;
+	}
+
+	public double getMeanParseNanos()
+	{
+		return _results.isEmpty() ? 0 : (double)getTotalParseNanos() / _results.size();
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("%d files (%d failed) in %.1f ms; parse time total %.1f ms, mean %.3f ms, max %.3f ms",
+				             _results.size(), getFailureCount(), _wallNanos / 1e6,
+				             getTotalParseNanos() / 1e6, getMeanParseNanos() / 1e6, getMaxParseNanos() / 1e6);
+	}
+}
@@ -0,0 +1,141 @@
+package input.parser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import builder.DefaultBuilder;
+import input.components.ComponentNode;
+import input.components.FigureNode;
+import input.exception.ParseException;
+import utilities.io.MappedFileReader;
+
+/**
+ * Parses many figure files concurrently.
+ * 
+ * Each file is parsed by its own task with a fresh JSONParser and a fresh
+ * builder from the supplied factory, so no parser state is shared between
+ * threads. Tasks run on the given ExecutorService, which may use platform
+ * threads (e.g. Executors.newFixedThreadPool) or, on Java 21+, virtual threads
+ * (Executors.newVirtualThreadPerTaskExecutor). The caller owns that executor;
+ * when no executor is given a fixed pool sized to the machine is created and
+ * shut down for each batch.
+ * 
+ * Results come back in the order the paths were given, each holding either
+ * the figure or the ParseException for that file.
+ */
+public class BatchParser
+{
+	protected Supplier<? extends DefaultBuilder> _builders;
+	protected ExecutorService                    _executor;
+
+	public BatchParser(Supplier<? extends DefaultBuilder> builders)
+	{
+		this(builders, null);
+	}
+
+	/**
+	 * @param builders -- creates one builder per file
+	 * @param executor -- runs the per-file tasks; not shut down by this class
+	 */
+	public BatchParser(Supplier<? extends DefaultBuilder> builders, ExecutorService executor)
+	{
+		_builders = builders;
+		_executor = executor;
+	}
+
+	/**
+	 * Parse every figure file (Constants.INPUT_FILE_EXTENSION) directly inside
+	 * a directory, in file name order.
+	 */
+	public BatchParseResult parseDirectory(Path directory) throws IOException
+	{
+		List<Path> paths = new ArrayList<Path>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*." + global.Constants.INPUT_FILE_EXTENSION))
+		{
+			for (Path path : stream)
+			{
+				if (Files.isRegularFile(path)) paths.add(path);
+			}
+		}
+		Collections.sort(paths);
+
+		return parse(paths);
+	}
+
+	public BatchParseResult parse(List<Path> paths)
+	{
+		ExecutorService executor = _executor != null ? _executor
+				                                     : Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		long start = System.nanoTime();
+		try
+		{
+			List<Future<FileParseResult>> futures = new ArrayList<Future<FileParseResult>>(paths.size());
+			for (Path path : paths)
+			{
+				futures.add(executor.submit(() -> parseFile(path)));
+			}
+
+			List<FileParseResult> results = new ArrayList<FileParseResult>(paths.size());
+			for (Future<FileParseResult> future : futures)
+			{
+				results.add(await(future));
+			}
+			return new BatchParseResult(results, System.nanoTime() - start);
+		}
+		finally
+		{
+			if (executor != _executor) executor.shutdownNow();
+		}
+	}
+
+	/*
+	 * Runs on a worker thread; everything it touches is local to the task.
+	 */
+	private FileParseResult parseFile(Path path)
+	{
+		long start = System.nanoTime();
+		try (Reader reader = new MappedFileReader(path))
+		{
+			ComponentNode node = new JSONParser(_builders.get()).parse(reader);
+			return new FileParseResult(path, (FigureNode)node, null, System.nanoTime() - start);
+		}
+		catch (ParseException e)
+		{
+			return new FileParseResult(path, null, e, System.nanoTime() - start);
+		}
+		catch (IOException | RuntimeException e)
+		{
+			ParseException failure = new ParseException("Parse error: " + path + ": " + e.getMessage(), e);
+			return new FileParseResult(path, null, failure, System.nanoTime() - start);
+		}
+	}
+
+	private static FileParseResult await(Future<FileParseResult> future)
+	{
+		try
+		{
+			return future.get();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new ParseException("Parse error: batch interrupted", e);
+		}
+		catch (ExecutionException e)
+		{
+			if (e.getCause() instanceof Error) throw (Error)e.getCause();
+			throw new ParseException("Parse error: " + e.getCause().getMessage(), e.getCause());
+		}
+	}
+}
@@ -0,0 +1,26 @@
+package input.parser;
+
+/**
+ * Layout of the binary figure format written by visitor.ToBinaryVisitor and
+ * read by BinaryFigureReader. All fixed-width values are big-endian.
+ * 
+ *   header       MAGIC (4 bytes), VERSION (1 byte)
+ *   description  varint (length + 1, 0 for none), UTF-8 bytes
+ *   points       varint count n
+ *                n names: varint (length + 1, 0 for none), UTF-8 bytes
+ *                n coordinates: double x, double y
+ *   adjacency    varint key count k
+ *                k lists: varint key id, varint degree d, d varint neighbor ids
+ * 
+ * Vertex ids are stored as (index into the points block + 1); 0 encodes a
+ * missing (null) vertex. Adjacency is stored as directed lists so a figure
+ * reads back with exactly the adjacency it was written with.
+ */
+public class BinaryFigureFormat
+{
+	public static final byte[] MAGIC = { 'G', 'F', 'I', 'G' };
+
+	public static final int VERSION = 1;
+
+	public static final int NULL_ID = 0;
+}
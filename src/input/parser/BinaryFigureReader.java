@@ -0,0 +1,162 @@
+package input.parser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import builder.DefaultBuilder;
+import input.components.ComponentNode;
+import input.components.point.PointNode;
+import input.components.point.PointNodeDatabase;
+import input.components.segments.SegmentNodeDatabase;
+import input.exception.ParseException;
+
+/**
+ * Rebuilds a figure from the binary format described by BinaryFigureFormat,
+ * constructing every node through the builder just as JSONParser does.
+ * 
+ * Reading works directly on a ByteBuffer, so a memory-mapped file can be read
+ * without copying it first.
+ */
+public class BinaryFigureReader
+{
+	protected DefaultBuilder _builder;
+
+	private byte[] _scratch = new byte[64];
+
+	public BinaryFigureReader(DefaultBuilder builder)
+	{
+		_builder = builder;
+	}
+
+	private void error(String message)
+	{
+		throw new ParseException("Parse error: " + message);
+	}
+
+	public ComponentNode read(InputStream input) throws ParseException
+	{
+		try
+		{
+			return read(ByteBuffer.wrap(input.readAllBytes()));
+		}
+		catch (IOException e)
+		{
+			throw new ParseException("Parse error: unable to read figure", e);
+		}
+	}
+
+	public ComponentNode read(byte[] bytes) throws ParseException
+	{
+		return read(ByteBuffer.wrap(bytes));
+	}
+
+	/**
+	 * Read one figure starting at the buffer's position; the position is left
+	 * just after the figure.
+	 */
+	public ComponentNode read(ByteBuffer buffer) throws ParseException
+	{
+		try
+		{
+			readHeader(buffer);
+			String description = readString(buffer);
+
+			//points block: names, then packed coordinates
+			int count = readVarint(buffer);
+			if (count < 0 || count > buffer.remaining()) error("Invalid point count " + count + ".");
+			String[] names = new String[count];
+			for (int index = 0; index < count; index++) names[index] = readString(buffer);
+
+			List<PointNode> pointNodes = new ArrayList<PointNode>(count);
+			PointNode[] byId = new PointNode[count + 1];
+			for (int index = 0; index < count; index++)
+			{
+				double x = buffer.getDouble();
+				double y = buffer.getDouble();
+				if (!Double.isFinite(x) || !Double.isFinite(y)) error("Non-finite coordinate for point " + index + ".");
+				PointNode point = _builder.buildPointNode(names[index], x, y);
+				byId[index + 1] = point;
+				if (point != null) pointNodes.add(point);
+			}
+			PointNodeDatabase points = _builder.buildPointDatabaseNode(pointNodes);
+
+			//adjacency block
+			SegmentNodeDatabase segments = _builder.buildSegmentNodeDatabase();
+			int keys = readVarint(buffer);
+			if (keys > buffer.remaining()) error("Invalid adjacency count " + keys + ".");
+			for (int k = 0; k < keys; k++)
+			{
+				PointNode from = byId[readId(buffer, count)];
+				int degree = readVarint(buffer);
+				if (degree > buffer.remaining()) error("Invalid degree " + degree + ".");
+				for (int e = 0; e < degree; e++)
+				{
+					PointNode to = byId[readId(buffer, count)];
+					if (segments != null) segments.addDirectedEdge(from, to);
+				}
+			}
+
+			return _builder.buildFigureNode(description, points, segments);
+		}
+		catch (BufferUnderflowException e)
+		{
+			throw new ParseException("Parse error: truncated binary figure", e);
+		}
+	}
+
+	private void readHeader(ByteBuffer buffer)
+	{
+		for (byte expected : BinaryFigureFormat.MAGIC)
+		{
+			if (buffer.get() != expected) error("Not a binary figure.");
+		}
+		int version = buffer.get() & 0xFF;
+		if (version != BinaryFigureFormat.VERSION) error("Unsupported binary figure version " + version + ".");
+	}
+
+	private int readId(ByteBuffer buffer, int count)
+	{
+		int id = readVarint(buffer);
+		if (id < 0 || id > count) error("Vertex id " + id + " out of range.");
+		return id;
+	}
+
+	private String readString(ByteBuffer buffer)
+	{
+		int length = readVarint(buffer);
+		if (length == 0) return null;
+		length--;
+		if (length > buffer.remaining()) throw new BufferUnderflowException();
+
+		if (buffer.hasArray())
+		{
+			String str = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+			buffer.position(buffer.position() + length);
+			return str;
+		}
+
+		if (_scratch.length < length) _scratch = new byte[Math.max(length, _scratch.length * 2)];
+		buffer.get(_scratch, 0, length);
+		return new String(_scratch, 0, length, StandardCharsets.UTF_8);
+	}
+
+	private int readVarint(ByteBuffer buffer)
+	{
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7)
+		{
+			byte b = buffer.get();
+			// the fifth byte may only carry the top four bits of a non-negative int
+			if (shift == 28 && (b & 0xF8) != 0) error("Malformed varint.");
+			value |= (b & 0x7F) << shift;
+			if (b >= 0) return value;
+		}
+		error("Malformed varint.");
+		return 0;
+	}
+}
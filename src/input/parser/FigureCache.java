@@ -0,0 +1,324 @@
+package input.parser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+import builder.DefaultBuilder;
+import input.components.FigureNode;
+import input.exception.ParseException;
+import utilities.io.FileFingerprint;
+import utilities.io.MappedFileReader;
+
+/**
+ * A thread-safe cache of parsed figure files.
+ *
+ * Entries are keyed by the normalized absolute path and remember the
+ * FileFingerprint of the file they were parsed from. Every get re-fingerprints
+ * the file (a stat for MODIFIED_TIME, a SHA-256 of the bytes for CONTENT_HASH)
+ * and reparses when it no longer matches, so a changed file is never served
+ * from the cache.
+ *
+ * The cache is bounded by total weight. By default an entry weighs the size of
+ * its source file in bytes; a weigher can be given instead. When the bound is
+ * exceeded the least recently used entries are evicted. With soft values the
+ * figures are held through SoftReferences as well, so the collector may drop
+ * them under memory pressure before the weight bound is reached.
+ *
+ * Concurrent gets of the same uncached file share a single parse: the first
+ * caller parses while the others wait for its result. Parse failures are
+ * rethrown to every waiting caller and are not cached.
+ *
+ * Returned figures are shared by every caller and must be treated as read-only.
+ */
+public class FigureCache
+{
+	public enum Validation { MODIFIED_TIME, CONTENT_HASH }
+
+	protected Supplier<? extends DefaultBuilder> _builders;
+	protected long                               _maxWeight;
+	protected Validation                         _validation;
+	protected boolean                            _softValues;
+	protected ToLongFunction<FigureNode>         _weigher;
+
+	// access-ordered, so iteration starts at the least recently used entry; guarded by this
+	private final LinkedHashMap<Path, Entry> _entries = new LinkedHashMap<Path, Entry>(16, 0.75f, true);
+	private long _weight;
+
+	private final ConcurrentHashMap<Path, FutureTask<FigureNode>> _loading = new ConcurrentHashMap<Path, FutureTask<FigureNode>>();
+	private final ReferenceQueue<FigureNode> _collected = new ReferenceQueue<FigureNode>();
+
+	protected LongAdder _hits          = new LongAdder();
+	protected LongAdder _misses        = new LongAdder();
+	protected LongAdder _loads         = new LongAdder();
+	protected LongAdder _loadFailures  = new LongAdder();
+	protected LongAdder _loadNanos     = new LongAdder();
+	protected LongAdder _evictions     = new LongAdder();
+	protected LongAdder _invalidations = new LongAdder();
+	protected LongAdder _collections   = new LongAdder();
+
+	/**
+	 * Cache figures weighed by source file size, validated by modification time.
+	 *
+	 * @param builders  -- creates one builder per parse
+	 * @param maxWeight -- total source bytes held before evicting
+	 */
+	public FigureCache(Supplier<? extends DefaultBuilder> builders, long maxWeight)
+	{
+		this(builders, maxWeight, Validation.MODIFIED_TIME, false, null);
+	}
+
+	/**
+	 * @param builders   -- creates one builder per parse
+	 * @param maxWeight  -- total weight held before evicting
+	 * @param validation -- how a cached entry is checked against its file
+	 * @param softValues -- also let the collector reclaim cached figures
+	 * @param weigher    -- weight of a parsed figure; null weighs by source file size
+	 */
+	public FigureCache(Supplier<? extends DefaultBuilder> builders, long maxWeight, Validation validation,
+			           boolean softValues, ToLongFunction<FigureNode> weigher)
+	{
+		if (maxWeight < 0) throw new IllegalArgumentException("negative maximum weight: " + maxWeight);
+
+		_builders = builders;
+		_maxWeight = maxWeight;
+		_validation = validation;
+		_softValues = softValues;
+		_weigher = weigher;
+	}
+
+	/**
+	 * @return the figure parsed from the current contents of the file
+	 * @throws ParseException if the file cannot be read or parsed
+	 */
+	public FigureNode get(Path path)
+	{
+		Path key = path.toAbsolutePath().normalize();
+		FileFingerprint fingerprint;
+		try
+		{
+			fingerprint = fingerprint(key);
+		}
+		catch (IOException e)
+		{
+			invalidate(key);
+			throw new ParseException("Parse error: " + path + ": " + e.getMessage(), e);
+		}
+
+		FigureNode cached = lookup(key, fingerprint);
+		if (cached != null)
+		{
+			_hits.increment();
+			return cached;
+		}
+
+		_misses.increment();
+		return loadOnce(key, fingerprint);
+	}
+
+	/**
+	 * Drop the entry for a file, if any.
+	 */
+	public synchronized void invalidate(Path path)
+	{
+		Entry entry = _entries.remove(path.toAbsolutePath().normalize());
+		if (entry != null) _weight -= entry._weight;
+	}
+
+	/**
+	 * Drop every entry; the counters are kept.
+	 */
+	public synchronized void invalidateAll()
+	{
+		_entries.clear();
+		_weight = 0;
+	}
+
+	/**
+	 * @return number of entries held, including any whose figure was just collected
+	 */
+	public synchronized int size()
+	{
+		purgeCollected();
+		return _entries.size();
+	}
+
+	public synchronized long getWeight()
+	{
+		purgeCollected();
+		return _weight;
+	}
+
+	public long getMaxWeight() { return _maxWeight; }
+
+	public long getHitCount()          { return _hits.sum(); }
+	public long getMissCount()         { return _misses.sum(); }
+	public long getLoadCount()         { return _loads.sum(); }
+	public long getLoadFailureCount()  { return _loadFailures.sum(); }
+	public long getTotalLoadNanos()    { return _loadNanos.sum(); }
+	public long getEvictionCount()     { return _evictions.sum(); }
+	public long getInvalidationCount() { return _invalidations.sum(); }
+	public long getCollectedCount()    { return _collections.sum(); }
+
+	public double getHitRate()
+	{
+		long hits = getHitCount();
+		long total = hits + getMissCount();
+		return total == 0 ? 0 : (double)hits / total;
+	}
+
+	private FileFingerprint fingerprint(Path key) throws IOException
+	{
+		return _validation == Validation.CONTENT_HASH ? FileFingerprint.ofContent(key) : FileFingerprint.of(key);
+	}
+
+	/*
+	 * Returns the cached figure if it is still current; a stale or collected
+	 * entry is dropped. Counts invalidations and collections, not hits.
+	 */
+	private synchronized FigureNode lookup(Path key, FileFingerprint fingerprint)
+	{
+		purgeCollected();
+
+		Entry entry = _entries.get(key);
+		if (entry == null) return null;
+
+		FigureNode figure = entry.figure();
+		if (figure != null && entry._fingerprint.equals(fingerprint)) return figure;
+
+		if (figure == null) _collections.increment();
+		else _invalidations.increment();
+		_entries.remove(key);
+		_weight -= entry._weight;
+		return null;
+	}
+
+	/*
+	 * The first caller for a key runs the parse; callers arriving while it runs
+	 * wait on the same task.
+	 */
+	private FigureNode loadOnce(Path key, FileFingerprint fingerprint)
+	{
+		FutureTask<FigureNode> task = new FutureTask<FigureNode>(() -> load(key, fingerprint));
+		FutureTask<FigureNode> running = _loading.putIfAbsent(key, task);
+		if (running == null)
+		{
+			try { task.run(); }
+			finally { _loading.remove(key, task); }
+			running = task;
+		}
+		return await(running, key);
+	}
+
+	private FigureNode load(Path key, FileFingerprint fingerprint)
+	{
+		// another load may have finished between our lookup and claiming the key
+		FigureNode cached = lookup(key, fingerprint);
+		if (cached != null) return cached;
+
+		long start = System.nanoTime();
+		FigureNode figure;
+		try (Reader reader = new MappedFileReader(key))
+		{
+			figure = (FigureNode)new JSONParser(_builders.get()).parse(reader);
+		}
+		catch (IOException e)
+		{
+			_loadFailures.increment();
+			throw new ParseException("Parse error: " + key + ": " + e.getMessage(), e);
+		}
+		catch (RuntimeException e)
+		{
+			_loadFailures.increment();
+			throw e;
+		}
+		_loads.increment();
+		_loadNanos.add(System.nanoTime() - start);
+
+		store(key, fingerprint, figure);
+		return figure;
+	}
+
+	private synchronized void store(Path key, FileFingerprint fingerprint, FigureNode figure)
+	{
+		long weight = _weigher == null ? fingerprint.getSize() : _weigher.applyAsLong(figure);
+		Entry previous = _entries.put(key, new Entry(key, fingerprint, figure, weight, _softValues ? _collected : null));
+		if (previous != null) _weight -= previous._weight;
+		_weight += weight;
+
+		Iterator<Entry> eldest = _entries.values().iterator();
+		while (_weight > _maxWeight && eldest.hasNext())
+		{
+			_weight -= eldest.next()._weight;
+			eldest.remove();
+			_evictions.increment();
+		}
+	}
+
+	// caller holds the lock
+	private void purgeCollected()
+	{
+		for (Reference<? extends FigureNode> ref = _collected.poll(); ref != null; ref = _collected.poll())
+		{
+			Entry entry = (Entry)ref;
+			if (_entries.get(entry._path) != entry) continue;
+
+			_entries.remove(entry._path);
+			_weight -= entry._weight;
+			_collections.increment();
+		}
+	}
+
+	private static FigureNode await(FutureTask<FigureNode> task, Path key)
+	{
+		try
+		{
+			return task.get();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new ParseException("Parse error: interrupted waiting for " + key, e);
+		}
+		catch (ExecutionException e)
+		{
+			if (e.getCause() instanceof Error) throw (Error)e.getCause();
+			if (e.getCause() instanceof ParseException) throw (ParseException)e.getCause();
+			throw new ParseException("Parse error: " + key + ": " + e.getCause().getMessage(), e.getCause());
+		}
+	}
+
+	/*
+	 * Always a SoftReference so collected entries can be queued; without soft
+	 * values the figure is also held strongly and the reference never clears.
+	 */
+	private static final class Entry extends SoftReference<FigureNode>
+	{
+		private final Path            _path;
+		private final FileFingerprint _fingerprint;
+		private final long            _weight;
+		private final FigureNode      _strong;
+
+		Entry(Path path, FileFingerprint fingerprint, FigureNode figure, long weight, ReferenceQueue<FigureNode> queue)
+		{
+			super(figure, queue);
+			_path = path;
+			_fingerprint = fingerprint;
+			_weight = weight;
+			_strong = queue == null ? figure : null;
+		}
+
+		FigureNode figure() { return _strong != null ? _strong : get(); }
+	}
+}
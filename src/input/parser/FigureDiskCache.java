@@ -0,0 +1,424 @@
+package input.parser;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+import builder.DefaultBuilder;
+import input.components.FigureNode;
+import input.exception.ParseException;
+import input.parser.FigureCache.Validation;
+import utilities.io.FileFingerprint;
+import utilities.io.MappedFileReader;
+import visitor.ToBinaryVisitor;
+
+/**
+ * A persistent cache of parsed figures, one entry file per source JSON file.
+ *
+ * Each entry stores the FileFingerprint of the source it was built from,
+ * followed by the figure in the binary format of BinaryFigureFormat:
+ *
+ *   header       ENTRY_MAGIC (4 bytes), ENTRY_VERSION (1 byte)
+ *   source       int length, UTF-8 bytes of the normalized absolute path
+ *   fingerprint  long size, long modified, byte digest length, digest bytes
+ *   checksum     int CRC32 of the figure bytes
+ *   figure       BinaryFigureFormat
+ *
+ * Entries are named after a hash of the source path. load memory-maps the
+ * entry and reads the figure straight from the mapping when the stored path
+ * and fingerprint match the source and the checksum matches the figure bytes;
+ * otherwise (missing, stale, corrupt or unreadable entry) it parses the JSON on the calling thread and hands the serialized
+ * figure to a background executor that writes the new entry. rebuildStale
+ * refreshes a whole set of entries in the background without loading them.
+ *
+ * Entries are written to a temporary file and moved into place, so a reader
+ * never sees a partial entry. close waits for outstanding writes.
+ */
+public class FigureDiskCache implements Closeable
+{
+	public static final String ENTRY_EXTENSION = "gfc";
+	public static final byte[] ENTRY_MAGIC = { 'G', 'F', 'C', 'E' };
+	public static final int    ENTRY_VERSION = 2;
+
+	// hex digits of the path hash used as the entry name
+	private static final int NAME_LENGTH = 32;
+
+	protected Path                               _directory;
+	protected Supplier<? extends DefaultBuilder> _builders;
+	protected Validation                         _validation;
+	protected ExecutorService                    _executor;
+	private final boolean                        _ownsExecutor;
+
+	private final ConcurrentHashMap<Path, PendingWrite> _pending = new ConcurrentHashMap<Path, PendingWrite>();
+
+	protected LongAdder _hits          = new LongAdder();
+	protected LongAdder _misses        = new LongAdder();
+	protected LongAdder _writes        = new LongAdder();
+	protected LongAdder _writeFailures = new LongAdder();
+
+	public FigureDiskCache(Path directory, Supplier<? extends DefaultBuilder> builders) throws IOException
+	{
+		this(directory, builders, Validation.MODIFIED_TIME, null);
+	}
+
+	/**
+	 * @param directory  -- holds the entry files; created if missing
+	 * @param builders   -- creates one builder per figure read or parsed
+	 * @param validation -- how an entry is checked against its source
+	 * @param executor   -- writes entries; not shut down by this class. When null
+	 *                      a single daemon thread is created and shut down by close
+	 */
+	public FigureDiskCache(Path directory, Supplier<? extends DefaultBuilder> builders, Validation validation,
+			               ExecutorService executor) throws IOException
+	{
+		_directory = Files.createDirectories(directory);
+		_builders = builders;
+		_validation = validation;
+		_ownsExecutor = executor == null;
+		_executor = executor != null ? executor : Executors.newSingleThreadExecutor(task ->
+		{
+			Thread thread = new Thread(task, "figure-disk-cache");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * @return the figure for the current contents of the source, read from its
+	 *         entry when that is current and parsed from JSON otherwise
+	 * @throws ParseException if the source cannot be read or parsed
+	 */
+	public FigureNode load(Path source)
+	{
+		Path key = source.toAbsolutePath().normalize();
+		FileFingerprint fingerprint = fingerprint(key);
+
+		FigureNode cached = readEntry(key, fingerprint);
+		if (cached != null)
+		{
+			_hits.increment();
+			return cached;
+		}
+
+		_misses.increment();
+		FigureNode figure = parseSource(key);
+		byte[] binary = toBinary(figure);
+		schedule(key, () -> writeEntry(key, fingerprint, binary));
+		return figure;
+	}
+
+	/**
+	 * Load every source in order on the calling thread; results hold either the
+	 * figure or the ParseException for that source.
+	 */
+	public BatchParseResult loadAll(List<Path> sources)
+	{
+		long start = System.nanoTime();
+		List<FileParseResult> results = new ArrayList<FileParseResult>(sources.size());
+		for (Path source : sources)
+		{
+			long fileStart = System.nanoTime();
+			try
+			{
+				results.add(new FileParseResult(source, load(source), null, System.nanoTime() - fileStart));
+			}
+			catch (ParseException e)
+			{
+				results.add(new FileParseResult(source, null, e, System.nanoTime() - fileStart));
+			}
+		}
+		return new BatchParseResult(results, System.nanoTime() - start);
+	}
+
+	/**
+	 * Rebuild, in the background, the entry of every source whose entry is
+	 * missing or stale. Sources that fail to parse are skipped.
+	 *
+	 * @return the number of entries rewritten
+	 */
+	public Future<Integer> rebuildStale(List<Path> sources)
+	{
+		List<Path> keys = new ArrayList<Path>(sources.size());
+		for (Path source : sources) keys.add(source.toAbsolutePath().normalize());
+
+		return _executor.submit(() ->
+		{
+			int rebuilt = 0;
+			for (Path key : keys)
+			{
+				try
+				{
+					FileFingerprint fingerprint = fingerprint(key);
+					if (isCurrent(key, fingerprint) || _pending.containsKey(key)) continue;
+
+					writeEntry(key, fingerprint, toBinary(parseSource(key)));
+					rebuilt++;
+				}
+				catch (ParseException e)
+				{
+					_writeFailures.increment();
+				}
+			}
+			return rebuilt;
+		});
+	}
+
+	/**
+	 * @return true if the source has an entry matching its current contents
+	 */
+	public boolean isCurrent(Path source)
+	{
+		Path key = source.toAbsolutePath().normalize();
+		try
+		{
+			return isCurrent(key, fingerprint(key));
+		}
+		catch (ParseException e)
+		{
+			return false;
+		}
+	}
+
+	/**
+	 * @return the entry file used for a source
+	 */
+	public Path getEntryPath(Path source)
+	{
+		String path = source.toAbsolutePath().normalize().toString();
+		StringBuilder name = new StringBuilder(NAME_LENGTH + 1 + ENTRY_EXTENSION.length());
+		for (byte b : sha256(path.getBytes(StandardCharsets.UTF_8)))
+		{
+			if (name.length() == NAME_LENGTH) break;
+			name.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		return _directory.resolve(name.append('.').append(ENTRY_EXTENSION).toString());
+	}
+
+	public Path getDirectory() { return _directory; }
+
+	public long getHitCount()          { return _hits.sum(); }
+	public long getMissCount()         { return _misses.sum(); }
+	public long getWriteCount()        { return _writes.sum(); }
+	public long getWriteFailureCount() { return _writeFailures.sum(); }
+
+	/**
+	 * Wait for every scheduled entry write, then shut down the executor if this
+	 * cache created it.
+	 */
+	@Override
+	public void close()
+	{
+		try
+		{
+			for (PendingWrite write : new ArrayList<PendingWrite>(_pending.values()))
+			{
+				try { write.get(); }
+				catch (ExecutionException e)
+				{
+					// failures are already counted by writeEntry
+				}
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		finally
+		{
+			if (_ownsExecutor) _executor.shutdown();
+		}
+	}
+
+	private FileFingerprint fingerprint(Path key)
+	{
+		try
+		{
+			return _validation == Validation.CONTENT_HASH ? FileFingerprint.ofContent(key) : FileFingerprint.of(key);
+		}
+		catch (IOException e)
+		{
+			throw new ParseException("Parse error: " + key + ": " + e.getMessage(), e);
+		}
+	}
+
+	private FigureNode parseSource(Path key)
+	{
+		try (Reader reader = new MappedFileReader(key))
+		{
+			return (FigureNode)new JSONParser(_builders.get()).parse(reader);
+		}
+		catch (IOException e)
+		{
+			throw new ParseException("Parse error: " + key + ": " + e.getMessage(), e);
+		}
+	}
+
+	private static byte[] toBinary(FigureNode figure)
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new ToBinaryVisitor().visitFigureNode(figure, out);
+		return out.toByteArray();
+	}
+
+	/*
+	 * Returns null for a missing, stale or unreadable entry; any failure while
+	 * decoding also counts as unreadable, so load falls back to the JSON. The
+	 * mapping stays valid after the channel is closed, and the reader copies
+	 * everything it needs out of it.
+	 */
+	private FigureNode readEntry(Path key, FileFingerprint fingerprint)
+	{
+		try (FileChannel channel = FileChannel.open(getEntryPath(key), StandardOpenOption.READ))
+		{
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (!matches(buffer, key, fingerprint)) return null;
+
+			return (FigureNode)new BinaryFigureReader(_builders.get()).read(buffer);
+		}
+		catch (IOException | RuntimeException e)
+		{
+			return null;
+		}
+	}
+
+	private boolean isCurrent(Path key, FileFingerprint fingerprint)
+	{
+		try (FileChannel channel = FileChannel.open(getEntryPath(key), StandardOpenOption.READ))
+		{
+			return matches(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), key, fingerprint);
+		}
+		catch (IOException | BufferUnderflowException e)
+		{
+			return false;
+		}
+	}
+
+	/*
+	 * Checks the header against the source and the checksum against the figure
+	 * bytes; leaves the buffer positioned at the figure.
+	 */
+	private static boolean matches(ByteBuffer buffer, Path key, FileFingerprint fingerprint)
+	{
+		for (byte expected : ENTRY_MAGIC)
+		{
+			if (buffer.get() != expected) return false;
+		}
+		if ((buffer.get() & 0xFF) != ENTRY_VERSION) return false;
+
+		byte[] path = key.toString().getBytes(StandardCharsets.UTF_8);
+		if (buffer.getInt() != path.length) return false;
+		byte[] stored = new byte[path.length];
+		buffer.get(stored);
+		if (!Arrays.equals(path, stored)) return false;
+
+		long size = buffer.getLong();
+		long modified = buffer.getLong();
+		byte[] digest = new byte[buffer.get() & 0xFF];
+		buffer.get(digest);
+		if (!fingerprint.equals(new FileFingerprint(size, modified, digest.length == 0 ? null : digest))) return false;
+
+		int checksum = buffer.getInt();
+		CRC32 crc = new CRC32();
+		crc.update(buffer.duplicate());
+		return (int)crc.getValue() == checksum;
+	}
+
+	private void writeEntry(Path key, FileFingerprint fingerprint, byte[] binary)
+	{
+		Path entry = getEntryPath(key);
+		Path temp = null;
+		try
+		{
+			temp = Files.createTempFile(_directory, entry.getFileName().toString(), ".tmp");
+			try (OutputStream file = Files.newOutputStream(temp);
+				 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file)))
+			{
+				out.write(ENTRY_MAGIC);
+				out.writeByte(ENTRY_VERSION);
+
+				byte[] path = key.toString().getBytes(StandardCharsets.UTF_8);
+				out.writeInt(path.length);
+				out.write(path);
+
+				byte[] digest = fingerprint.hasDigest() ? fingerprint.getDigest() : new byte[0];
+				out.writeLong(fingerprint.getSize());
+				out.writeLong(fingerprint.getModified());
+				out.writeByte(digest.length);
+				out.write(digest);
+
+				CRC32 crc = new CRC32();
+				crc.update(binary);
+				out.writeInt((int)crc.getValue());
+
+				out.write(binary);
+			}
+			Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			_writes.increment();
+		}
+		catch (IOException e)
+		{
+			_writeFailures.increment();
+			try { if (temp != null) Files.deleteIfExists(temp); }
+			catch (IOException ignored) { }
+		}
+	}
+
+	/*
+	 * At most one write per source is queued; a load that finds a write already
+	 * pending leaves it to that write.
+	 */
+	private void schedule(Path key, Runnable write)
+	{
+		PendingWrite task = new PendingWrite(key, write);
+		if (_pending.putIfAbsent(key, task) == null) _executor.execute(task);
+	}
+
+	private static byte[] sha256(byte[] bytes)
+	{
+		try { return MessageDigest.getInstance(FileFingerprint.DIGEST_ALGORITHM).digest(bytes); }
+		catch (NoSuchAlgorithmException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private final class PendingWrite extends FutureTask<Void>
+	{
+		private final Path _key;
+
+		PendingWrite(Path key, Runnable write)
+		{
+			super(write, null);
+			_key = key;
+		}
+
+		@Override
+		protected void done() { _pending.remove(_key, this); }
+	}
+}
@@ -0,0 +1,33 @@
+package input.parser;
+
+import java.nio.file.Path;
+
+import input.components.FigureNode;
+import input.exception.ParseException;
+
+/**
+ * The outcome of parsing one file in a batch: either the parsed figure or
+ * the ParseException that stopped it, plus the time spent on that file.
+ */
+public class FileParseResult
+{
+	protected Path           _path;
+	protected FigureNode     _figure;
+	protected ParseException _exception;
+	protected long           _nanos;
+
+	public Path           getPath()      { return _path; }
+	public FigureNode     getFigure()    { return _figure; }
+	public ParseException getException() { return _exception; }
+	public long           getNanos()     { return _nanos; }
+
+	public boolean isSuccess() { return _exception == null; }
+
+	public FileParseResult(Path path, FigureNode figure, ParseException exception, long nanos)
+	{
+		_path = path;
+		_figure = figure;
+		_exception = exception;
+		_nanos = nanos;
+	}
+}
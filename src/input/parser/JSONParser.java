@@ -6,8 +6,12 @@
 
 package input.parser;
 
+import java.io.Reader;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -27,11 +31,22 @@ public class JSONParser
 {
 	protected ComponentNode  _astRoot;
 	protected DefaultBuilder _builder;
+	protected ForkJoinPool   _pool;
 
 	public JSONParser(DefaultBuilder builder)
+	{
+		this(builder, null);
+	}
+
+	/**
+	 * @param pool -- when not null, large Segments arrays are read in parallel on this
+	 *                pool (see readsSNDB); e.g. ForkJoinPool.commonPool()
+	 */
+	public JSONParser(DefaultBuilder builder, ForkJoinPool pool)
 	{
 		_astRoot = null;
 		_builder = builder;
+		_pool = pool;
 	}
 
 	private void error(String message)
@@ -42,7 +57,20 @@ public class JSONParser
 	public ComponentNode parse(String str) throws ParseException
 	{
 		//Parsing is accomplished via the JSONTokenizer class 
-		JSONTokener tokenizer = new JSONTokener(str);
+		return parse(new JSONTokener(str));
+	}
+
+	/**
+	 * Parse a figure read from a character stream, such as the reader returned by
+	 * FileUtilities.openMappedFileFilterComments, without first copying it into a String.
+	 */
+	public ComponentNode parse(Reader reader) throws ParseException
+	{
+		return parse(new JSONTokener(reader));
+	}
+
+	private ComponentNode parse(JSONTokener tokenizer) throws ParseException
+	{
 		JSONObject  JSONroot = (JSONObject)tokenizer.nextValue();
 
 		//Checks for validity/existence of figure
@@ -101,6 +129,8 @@ public class JSONParser
 	
 	/**
 	 * readsSNDB() method
+	 * With a ForkJoinPool, arrays of more than one leaf's worth of adjacency lists are
+	 * read by ParallelSegmentReader and produce the same graph, in the same order.
 	 * @param sndbArray contains an array of SegmentNodes
 	 * @param pndb contains the PointNodeDatabase of this FigureNode
 	 * @return a SegmentNodeDatabase as constructed with _builder
@@ -110,6 +140,13 @@ public class JSONParser
 		
 		if (sndbArray == null) return segmentNodeDB;
 		
+		if (_pool != null && segmentNodeDB != null && sndbArray.length() > ParallelSegmentReader.LEAF_SIZE) {
+			if (pndb == null) return null;
+			Map<PointNode, Set<PointNode>> adjLists = ParallelSegmentReader.read(sndbArray, pndb, _pool);
+			segmentNodeDB.addAllEdges(adjLists);
+			return segmentNodeDB;
+		}
+		
 		//loops through each adjacency list, creating PointNode objects as it goes
 		for (Object adjList : sndbArray) {
 			//get the key of an adjacency list, and get that node
@@ -0,0 +1,217 @@
+package input.parser;
+
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import input.components.point.PointNode;
+import input.components.point.PointNodeDatabase;
+
+/**
+ * Fork/join construction of the adjacency lists of a figure's Segments array,
+ * used by JSONParser.readsSNDB in parallel mode. The result has the same keys,
+ * neighbors and iteration order as the sequential loop, which adds key to neighbor
+ * and then neighbor to key for each neighbor of each list in turn.
+ * 
+ * 1. The array is cut into leaves of LEAF_SIZE adjacency lists. Each leaf resolves
+ *    its names and records its directed edges, in sequential order, in per-partition
+ *    buffers chosen by a hash of the edge's source point.
+ * 2. Each partition replays its buffers leaf by leaf into adjacency sets, noting the
+ *    position of each key's first edge, and sorts its keys by that position.
+ * 3. The partitions' sorted keys are merged into one LinkedHashMap.
+ * 
+ * Only step 3, which touches each key once, is sequential.
+ */
+class ParallelSegmentReader
+{
+	static final int LEAF_SIZE = 1024;
+
+	/*
+	 * Directed edges in the order a leaf produced them, with their position in the leaf.
+	 */
+	private static final class Edges
+	{
+		PointNode[] _from = new PointNode[16];
+		PointNode[] _to = new PointNode[16];
+		int[] _position = new int[16];
+		int _size = 0;
+
+		void add(PointNode from, PointNode to, int position)
+		{
+			if (_size == _from.length)
+			{
+				_from = Arrays.copyOf(_from, _size * 2);
+				_to = Arrays.copyOf(_to, _size * 2);
+				_position = Arrays.copyOf(_position, _size * 2);
+			}
+			_from[_size] = from;
+			_to[_size] = to;
+			_position[_size] = position;
+			_size++;
+		}
+	}
+
+	/*
+	 * A key's adjacency set and the position of its first edge (leaf, then place in leaf).
+	 */
+	private static final class Adjacency
+	{
+		final PointNode _key;
+		final Set<PointNode> _neighbors = new LinkedHashSet<PointNode>();
+		final long _first;
+
+		Adjacency(PointNode key, long first)
+		{
+			_key = key;
+			_first = first;
+		}
+	}
+
+	private final JSONArray         _segments;
+	private final PointNodeDatabase _points;
+	private final int               _partitions;
+
+	private final Edges[][]     _leafEdges;    // [leaf][partition]
+	private final Adjacency[][] _adjacencies;  // [partition], sorted by first edge
+
+	private ParallelSegmentReader(JSONArray segments, PointNodeDatabase points, int parallelism)
+	{
+		_segments = segments;
+		_points = points;
+		_partitions = Integer.highestOneBit(Math.max(1, parallelism) * 4 - 1) << 1;
+
+		_leafEdges = new Edges[(segments.length() + LEAF_SIZE - 1) / LEAF_SIZE][];
+		_adjacencies = new Adjacency[_partitions][];
+	}
+
+	static Map<PointNode, Set<PointNode>> read(JSONArray segments, PointNodeDatabase points, ForkJoinPool pool)
+	{
+		ParallelSegmentReader reader = new ParallelSegmentReader(segments, points, pool.getParallelism());
+
+		pool.invoke(new ForEach(0, reader._leafEdges.length, reader::readLeaf));
+		pool.invoke(new ForEach(0, reader._partitions, reader::buildPartition));
+
+		return reader.merge();
+	}
+
+	private void readLeaf(int leaf)
+	{
+		Edges[] edges = new Edges[_partitions];
+		for (int p = 0; p < _partitions; p++) edges[p] = new Edges();
+
+		int position = 0;
+		int end = Math.min(_segments.length(), (leaf + 1) * LEAF_SIZE);
+		for (int index = leaf * LEAF_SIZE; index < end; index++)
+		{
+			JSONObject adjList = _segments.getJSONObject(index);
+			String key = adjList.keys().next();
+			PointNode pointOne = _points.getNodeByName(key);
+
+			for (Object edge : adjList.getJSONArray(key))
+			{
+				PointNode pointTwo = _points.getNodeByName((String)edge);
+				edges[partition(pointOne)].add(pointOne, pointTwo, position++);
+				edges[partition(pointTwo)].add(pointTwo, pointOne, position++);
+			}
+		}
+		_leafEdges[leaf] = edges;
+	}
+
+	private void buildPartition(int partition)
+	{
+		Map<PointNode, Adjacency> adjacencies = new HashMap<PointNode, Adjacency>();
+		List<Adjacency> order = new ArrayList<Adjacency>();
+		for (int leaf = 0; leaf < _leafEdges.length; leaf++)
+		{
+			Edges edges = _leafEdges[leaf][partition];
+			for (int e = 0; e < edges._size; e++)
+			{
+				Adjacency adjacency = adjacencies.get(edges._from[e]);
+				if (adjacency == null)
+				{
+					adjacency = new Adjacency(edges._from[e], ((long)leaf << 32) | edges._position[e]);
+					adjacencies.put(edges._from[e], adjacency);
+					order.add(adjacency);
+				}
+				adjacency._neighbors.add(edges._to[e]);
+			}
+			_leafEdges[leaf][partition] = null;
+		}
+
+		// keys were created in edge order, so order is already sorted by first edge
+		_adjacencies[partition] = order.toArray(new Adjacency[0]);
+	}
+
+	private Map<PointNode, Set<PointNode>> merge()
+	{
+		int[] next = new int[_partitions];
+		PriorityQueue<Integer> heads = new PriorityQueue<Integer>(Math.max(1, _partitions),
+				Comparator.comparingLong(p -> _adjacencies[p][next[p]]._first));
+		for (int p = 0; p < _partitions; p++)
+		{
+			if (_adjacencies[p].length > 0) heads.add(p);
+		}
+
+		Map<PointNode, Set<PointNode>> adjLists = new LinkedHashMap<PointNode, Set<PointNode>>();
+		while (!heads.isEmpty())
+		{
+			int p = heads.poll();
+			Adjacency adjacency = _adjacencies[p][next[p]++];
+			adjLists.put(adjacency._key, adjacency._neighbors);
+			if (next[p] < _adjacencies[p].length) heads.add(p);
+		}
+		return adjLists;
+	}
+
+	private int partition(PointNode key)
+	{
+		int h = key == null ? 0 : key.hashCode();
+		return (h ^ (h >>> 16)) & (_partitions - 1);
+	}
+
+	/*
+	 * Runs body for every index of a range, splitting the range across the pool.
+	 */
+	private static class ForEach extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final int _from;
+		private final int _to;
+		private final IntConsumer _body;
+
+		ForEach(int from, int to, IntConsumer body)
+		{
+			_from = from;
+			_to = to;
+			_body = body;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if (_to - _from <= 0) return;
+			if (_to - _from == 1)
+			{
+				_body.accept(_from);
+				return;
+			}
+
+			int middle = (_from + _to) >>> 1;
+			invokeAll(new ForEach(_from, middle, _body), new ForEach(middle, _to, _body));
+		}
+	}
+}
@@ -0,0 +1,440 @@
+package input.parser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import builder.DefaultBuilder;
+import input.components.ComponentNode;
+import input.components.point.PointNode;
+import input.components.point.PointNodeDatabase;
+import input.components.segments.SegmentNodeDatabase;
+import input.exception.ParseException;
+
+/**
+ * Parses a figure straight from a character stream.
+ * 
+ * Unlike JSONParser, no String holding the whole file and no org.json tree
+ * are built: the input is tokenized incrementally and each point and each
+ * adjacency entry is handed to the builder as soon as it has been read.
+ * '//' comments outside of strings are skipped while tokenizing, as
+ * FileUtilities.readFileFilterComments would remove them.
+ * 
+ * Segments are resolved against the points database, so they are normally
+ * expected after "Points"; if "Segments" comes first its name pairs are held
+ * until the points have been read.
+ */
+public class StreamingJSONParser
+{
+	private static final int BUFFER_SIZE = 8192;
+
+	protected DefaultBuilder _builder;
+
+	private Reader _reader;
+	private char[] _buffer = new char[BUFFER_SIZE];
+	private int _position;
+	private int _limit;
+	private int _line;
+	private int _column;
+	private StringBuilder _token = new StringBuilder();
+
+	public StreamingJSONParser(DefaultBuilder builder)
+	{
+		_builder = builder;
+	}
+
+	private void error(String message)
+	{
+		throw new ParseException("Parse error: " + message + " (line " + _line + ", column " + _column + ")");
+	}
+
+	/**
+	 * @param input -- UTF-8 encoded figure
+	 */
+	public ComponentNode parse(InputStream input) throws ParseException
+	{
+		return parse(new InputStreamReader(input, StandardCharsets.UTF_8));
+	}
+
+	public ComponentNode parse(Reader reader) throws ParseException
+	{
+		_reader = reader instanceof BufferedReader ? reader : new BufferedReader(reader, BUFFER_SIZE);
+		_position = 0;
+		_limit = 0;
+		_line = 1;
+		_column = 0;
+
+		try
+		{
+			ComponentNode root = null;
+			boolean foundFigure = false;
+
+			expect('{');
+			if (!consumeIf('}'))
+			{
+				do
+				{
+					String key = readString();
+					expect(':');
+					if (key.equals(JSON_Constants.JSON_FIGURE))
+					{
+						root = readFigure();
+						foundFigure = true;
+					}
+					else skipValue();
+				}
+				while (consumeIf(','));
+				expect('}');
+			}
+
+			if (!foundFigure) error("No figure found.");
+			return root;
+		}
+		catch (IOException e)
+		{
+			throw new ParseException("Parse error: unable to read figure", e);
+		}
+	}
+
+	private ComponentNode readFigure() throws IOException
+	{
+		String description = null;
+		PointNodeDatabase points = null;
+		SegmentNodeDatabase segments = null;
+		boolean readPoints = false;
+		List<String[]> heldSegments = null;
+
+		expect('{');
+		if (!consumeIf('}'))
+		{
+			do
+			{
+				String key = readString();
+				expect(':');
+				if (key.equals(JSON_Constants.JSON_DESCRIPTION))
+				{
+					description = readString();
+				}
+				else if (key.equals(JSON_Constants.JSON_POINT_S))
+				{
+					points = readPoints();
+					readPoints = true;
+				}
+				else if (key.equals(JSON_Constants.JSON_SEGMENTS))
+				{
+					segments = _builder.buildSegmentNodeDatabase();
+					if (!readPoints) heldSegments = new ArrayList<String[]>();
+					readSegments(segments, points, heldSegments);
+				}
+				else skipValue();
+			}
+			while (consumeIf(','));
+			expect('}');
+		}
+
+		if (!readPoints) points = _builder.buildPointDatabaseNode(new ArrayList<PointNode>());
+		if (segments == null) segments = _builder.buildSegmentNodeDatabase();
+
+		if (heldSegments != null && points != null)
+		{
+			for (String[] pair : heldSegments)
+			{
+				_builder.addSegmentToDatabase(segments, points.getNodeByName(pair[0]), points.getNodeByName(pair[1]));
+			}
+		}
+
+		return _builder.buildFigureNode(description, points, segments);
+	}
+
+	/*
+	 * [ { "name" : ..., "x" : ..., "y" : ... }, ... ]
+	 */
+	private PointNodeDatabase readPoints() throws IOException
+	{
+		List<PointNode> pointNodes = new ArrayList<PointNode>();
+
+		expect('[');
+		if (!consumeIf(']'))
+		{
+			do
+			{
+				PointNode point = readPoint();
+				if (point != null) pointNodes.add(point);
+			}
+			while (consumeIf(','));
+			expect(']');
+		}
+
+		return _builder.buildPointDatabaseNode(pointNodes);
+	}
+
+	private PointNode readPoint() throws IOException
+	{
+		String name = null;
+		double x = Double.NaN;
+		double y = Double.NaN;
+
+		expect('{');
+		if (!consumeIf('}'))
+		{
+			do
+			{
+				String key = readString();
+				expect(':');
+				if (key.equals(JSON_Constants.JSON_NAME)) name = readString();
+				else if (key.equals(JSON_Constants.JSON_X)) x = readNumber();
+				else if (key.equals(JSON_Constants.JSON_Y)) y = readNumber();
+				else skipValue();
+			}
+			while (consumeIf(','));
+			expect('}');
+		}
+
+		if (name == null || Double.isNaN(x) || Double.isNaN(y)) error("Point requires name, x and y.");
+
+		return _builder.buildPointNode(name, x, y);
+	}
+
+	/*
+	 * [ { "A" : [ "B", "C" ] }, ... ]
+	 * 
+	 * With a points database each edge is added as soon as it is read;
+	 * otherwise the name pairs are collected into held.
+	 */
+	private void readSegments(SegmentNodeDatabase segments, PointNodeDatabase points, List<String[]> held) throws IOException
+	{
+		expect('[');
+		if (consumeIf(']')) return;
+
+		do
+		{
+			expect('{');
+			if (!consumeIf('}'))
+			{
+				do
+				{
+					String key = readString();
+					expect(':');
+					PointNode from = points == null ? null : points.getNodeByName(key);
+
+					expect('[');
+					if (!consumeIf(']'))
+					{
+						do
+						{
+							String name = readString();
+							if (held != null) held.add(new String[] { key, name });
+							else if (points != null) _builder.addSegmentToDatabase(segments, from, points.getNodeByName(name));
+						}
+						while (consumeIf(','));
+						expect(']');
+					}
+				}
+				while (consumeIf(','));
+				expect('}');
+			}
+		}
+		while (consumeIf(','));
+		expect(']');
+	}
+
+	private void skipValue() throws IOException
+	{
+		int c = peek();
+		switch (c)
+		{
+			case '{':
+				expect('{');
+				if (consumeIf('}')) return;
+				do
+				{
+					readString();
+					expect(':');
+					skipValue();
+				}
+				while (consumeIf(','));
+				expect('}');
+				return;
+
+			case '[':
+				expect('[');
+				if (consumeIf(']')) return;
+				do skipValue(); while (consumeIf(','));
+				expect(']');
+				return;
+
+			case '"':
+				readString();
+				return;
+
+			default:
+				readLiteral();
+		}
+	}
+
+	private String readString() throws IOException
+	{
+		expect('"');
+		_token.setLength(0);
+		while (true)
+		{
+			int c = next();
+			if (c == -1) error("Unterminated string.");
+			if (c == '"') return _token.toString();
+			if (c != '\\')
+			{
+				_token.append((char)c);
+				continue;
+			}
+
+			c = next();
+			switch (c)
+			{
+				case '"':  _token.append('"');  break;
+				case '\\': _token.append('\\'); break;
+				case '/':  _token.append('/');  break;
+				case 'b':  _token.append('\b'); break;
+				case 'f':  _token.append('\f'); break;
+				case 'n':  _token.append('\n'); break;
+				case 'r':  _token.append('\r'); break;
+				case 't':  _token.append('\t'); break;
+				case 'u':
+					int code = 0;
+					for (int i = 0; i < 4; i++)
+					{
+						int digit = Character.digit(next(), 16);
+						if (digit < 0) error("Invalid unicode escape.");
+						code = code * 16 + digit;
+					}
+					_token.append((char)code);
+					break;
+				default:
+					error("Invalid escape sequence.");
+			}
+		}
+	}
+
+	private double readNumber() throws IOException
+	{
+		String literal = readLiteral();
+		try
+		{
+			return Double.parseDouble(literal);
+		}
+		catch (NumberFormatException e)
+		{
+			error("Expected a number but found '" + literal + "'.");
+			return Double.NaN;
+		}
+	}
+
+	/*
+	 * Numbers, true, false and null: everything up to the next delimiter.
+	 */
+	private String readLiteral() throws IOException
+	{
+		skipWhitespace();
+		_token.setLength(0);
+		while (true)
+		{
+			int c = peekRaw();
+			if (c == -1 || c == ',' || c == '}' || c == ']' || c == ':' || c == '"' ||
+				Character.isWhitespace(c) || c == '/') break;
+			_token.append((char)next());
+		}
+		if (_token.length() == 0) error("Expected a value.");
+		return _token.toString();
+	}
+
+	private void expect(char expected) throws IOException
+	{
+		skipWhitespace();
+		int c = next();
+		if (c != expected)
+		{
+			error("Expected '" + expected + "' but found " + (c == -1 ? "end of input" : "'" + (char)c + "'") + ".");
+		}
+	}
+
+	private boolean consumeIf(char expected) throws IOException
+	{
+		if (peek() != expected) return false;
+		next();
+		return true;
+	}
+
+	private int peek() throws IOException
+	{
+		skipWhitespace();
+		return peekRaw();
+	}
+
+	/*
+	 * Skip whitespace and '//' comments running to the end of the line.
+	 */
+	private void skipWhitespace() throws IOException
+	{
+		while (true)
+		{
+			int c = peekRaw();
+			if (c != -1 && Character.isWhitespace(c))
+			{
+				next();
+			}
+			else if (c == '/' && peekRaw(1) == '/')
+			{
+				while (c != -1 && c != '\n') c = next();
+			}
+			else return;
+		}
+	}
+
+	private int next() throws IOException
+	{
+		if (_position == _limit && !fill(1)) return -1;
+		char c = _buffer[_position++];
+		if (c == '\n')
+		{
+			_line++;
+			_column = 0;
+		}
+		else _column++;
+		return c;
+	}
+
+	private int peekRaw() throws IOException
+	{
+		return peekRaw(0);
+	}
+
+	private int peekRaw(int ahead) throws IOException
+	{
+		if (_position + ahead >= _limit && !fill(ahead + 1)) return -1;
+		return _buffer[_position + ahead];
+	}
+
+	/*
+	 * Ensure at least count unread chars are buffered, compacting the buffer first.
+	 */
+	private boolean fill(int count) throws IOException
+	{
+		if (_position > 0)
+		{
+			System.arraycopy(_buffer, _position, _buffer, 0, _limit - _position);
+			_limit -= _position;
+			_position = 0;
+		}
+		while (_limit < count)
+		{
+			int read = _reader.read(_buffer, _limit, _buffer.length - _limit);
+			if (read == -1) return false;
+			_limit += read;
+		}
+		return true;
+	}
+}
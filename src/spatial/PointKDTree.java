@@ -0,0 +1,423 @@
+package spatial;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+import input.components.ChangeListener;
+import input.components.point.PointNode;
+import input.components.point.PointNodeDatabase;
+import utilities.math.MathUtilities;
+
+/**
+ * A 2D k-d tree over PointNodes answering rectangle, radius and k-nearest queries.
+ * 
+ * The tree is stored implicitly in parallel arrays: the point at the middle index
+ * of a range splits the rest of the range on x at even depths and on y at odd depths,
+ * so there are no node objects. A bulk build partitions around medians in
+ * O(n log n).
+ * 
+ * Points added after the build go to a small pending list that every query also
+ * scans; removed points are marked and skipped. The tree is rebuilt once the pending
+ * or removed points reach a fixed fraction of it, so updates cost amortized
+ * O(log n) and queries stay O(sqrt(n) + k) for a rectangle or O(log n) for a
+ * nearest point on typical data.
+ * 
+ * attach(PointNodeDatabase) builds a tree from a database and registers it as a
+ * ChangeListener, keeping it current as points are put and removed.
+ * A tree is not thread-safe.
+ */
+public class PointKDTree implements ChangeListener
+{
+	private static final int MIN_PENDING = 64;
+
+	protected PointNode[] _nodes = new PointNode[0];
+	protected double[]    _xs = new double[0];
+	protected double[]    _ys = new double[0];
+	protected boolean[]   _removed = new boolean[0];
+	protected int         _removedCount = 0;
+
+	protected List<PointNode> _pending = new ArrayList<PointNode>();
+
+	private final Random _random = new Random(0);
+
+	public PointKDTree()
+	{
+	}
+
+	/**
+	 * Build a tree over points in bulk.
+	 */
+	public PointKDTree(Collection<PointNode> points)
+	{
+		build(new ArrayList<PointNode>(points));
+	}
+
+	/**
+	 * Build a tree over the points of database and keep it current as points are put
+	 * into or removed from the database.
+	 */
+	public static PointKDTree attach(PointNodeDatabase database)
+	{
+		PointKDTree tree = new PointKDTree(database.getAllNodes());
+		database.addChangeListener(tree);
+		return tree;
+	}
+
+	/**
+	 * Stop following database's changes.
+	 */
+	public void detach(PointNodeDatabase database)
+	{
+		database.removeChangeListener(this);
+	}
+
+	/**
+	 * @return the number of points indexed
+	 */
+	public int size()
+	{
+		return _nodes.length - _removedCount + _pending.size();
+	}
+
+	@Override
+	public void pointPut(PointNode point) { add(point); }
+
+	@Override
+	public void pointRemoved(PointNode point) { remove(point); }
+
+	public void add(PointNode point)
+	{
+		_pending.add(point);
+		if (_pending.size() > Math.max(MIN_PENDING, _nodes.length / 8)) rebuild();
+	}
+
+	/**
+	 * Remove one point epsilon-equal to point.
+	 * @return true if a point was removed
+	 */
+	public boolean remove(PointNode point)
+	{
+		for (int i = 0; i < _pending.size(); i++)
+		{
+			if (_pending.get(i).equals(point))
+			{
+				_pending.remove(i);
+				return true;
+			}
+		}
+
+		int index = find(0, _nodes.length, 0, point.getX(), point.getY());
+		if (index < 0) return false;
+
+		_removed[index] = true;
+		_removedCount++;
+		if (_removedCount > Math.max(MIN_PENDING, _nodes.length / 4)) rebuild();
+		return true;
+	}
+
+	/**
+	 * @return the points with minX <= x <= maxX and minY <= y <= maxY
+	 */
+	public List<PointNode> range(double minX, double minY, double maxX, double maxY)
+	{
+		List<PointNode> found = new ArrayList<PointNode>();
+		range(0, _nodes.length, 0, minX, minY, maxX, maxY, found);
+
+		for (PointNode point : _pending)
+		{
+			if (point.getX() >= minX && point.getX() <= maxX && point.getY() >= minY && point.getY() <= maxY) found.add(point);
+		}
+		return found;
+	}
+
+	/**
+	 * @return the points no farther than radius from (x, y)
+	 */
+	public List<PointNode> withinRadius(double x, double y, double radius)
+	{
+		List<PointNode> found = new ArrayList<PointNode>();
+		radius(0, _nodes.length, 0, x, y, radius * radius, found);
+
+		for (PointNode point : _pending)
+		{
+			if (distanceSquared(point.getX(), point.getY(), x, y) <= radius * radius) found.add(point);
+		}
+		return found;
+	}
+
+	/**
+	 * @return the point closest to (x, y), or null if the tree is empty
+	 */
+	public PointNode nearest(double x, double y)
+	{
+		List<PointNode> nearest = nearest(x, y, 1);
+		return nearest.isEmpty() ? null : nearest.get(0);
+	}
+
+	/**
+	 * @return the k points closest to (x, y), closest first; empty for k = 0
+	 * @throws IllegalArgumentException if k is negative
+	 */
+	public List<PointNode> nearest(double x, double y, int k)
+	{
+		if (k < 0) throw new IllegalArgumentException("negative neighbor count: " + k);
+		if (k == 0) return new ArrayList<PointNode>();
+
+		Neighbors neighbors = new Neighbors(k);
+		nearest(0, _nodes.length, 0, x, y, neighbors);
+
+		for (PointNode point : _pending)
+		{
+			neighbors.offer(point, distanceSquared(point.getX(), point.getY(), x, y));
+		}
+		return neighbors.sorted();
+	}
+
+	/*
+	 * Bulk build: points at the middle of each range are medians of the range on its axis.
+	 */
+	private void build(List<PointNode> points)
+	{
+		int n = points.size();
+		_nodes = points.toArray(new PointNode[n]);
+		_xs = new double[n];
+		_ys = new double[n];
+		for (int i = 0; i < n; i++)
+		{
+			_xs[i] = _nodes[i].getX();
+			_ys[i] = _nodes[i].getY();
+		}
+		_removed = new boolean[n];
+		_removedCount = 0;
+		_pending.clear();
+
+		build(0, n, 0);
+	}
+
+	private void build(int lo, int hi, int depth)
+	{
+		while (hi - lo > 1)
+		{
+			int mid = (lo + hi) >>> 1;
+			select(lo, hi, mid, depth & 1);
+			build(lo, mid, depth + 1);
+			lo = mid + 1;
+			depth++;
+		}
+	}
+
+	private void rebuild()
+	{
+		List<PointNode> live = new ArrayList<PointNode>(size());
+		for (int i = 0; i < _nodes.length; i++)
+		{
+			if (!_removed[i]) live.add(_nodes[i]);
+		}
+		live.addAll(_pending);
+		build(live);
+	}
+
+	/*
+	 * Quickselect with a random pivot and three-way partitioning, so runs of equal
+	 * coordinates (common on grid figures) do not degrade it.
+	 */
+	private void select(int lo, int hi, int target, int axis)
+	{
+		double[] keys = axis == 0 ? _xs : _ys;
+		while (hi - lo > 1)
+		{
+			double pivot = keys[lo + _random.nextInt(hi - lo)];
+			int lt = lo;
+			int gt = hi;
+			int i = lo;
+			while (i < gt)
+			{
+				if (keys[i] < pivot) swap(lt++, i++);
+				else if (keys[i] > pivot) swap(i, --gt);
+				else i++;
+			}
+			if (target < lt) hi = lt;
+			else if (target >= gt) lo = gt;
+			else return;
+		}
+	}
+
+	private void swap(int i, int j)
+	{
+		double x = _xs[i]; _xs[i] = _xs[j]; _xs[j] = x;
+		double y = _ys[i]; _ys[i] = _ys[j]; _ys[j] = y;
+		PointNode node = _nodes[i]; _nodes[i] = _nodes[j]; _nodes[j] = node;
+	}
+
+	private int find(int lo, int hi, int depth, double x, double y)
+	{
+		if (lo >= hi) return -1;
+
+		int mid = (lo + hi) >>> 1;
+		if (!_removed[mid] && MathUtilities.doubleEquals(_xs[mid], x) && MathUtilities.doubleEquals(_ys[mid], y)) return mid;
+
+		double value = (depth & 1) == 0 ? x : y;
+		double split = (depth & 1) == 0 ? _xs[mid] : _ys[mid];
+		int found = -1;
+		if (value - MathUtilities.EPSILON <= split) found = find(lo, mid, depth + 1, x, y);
+		if (found < 0 && value + MathUtilities.EPSILON >= split) found = find(mid + 1, hi, depth + 1, x, y);
+		return found;
+	}
+
+	private void range(int lo, int hi, int depth, double minX, double minY, double maxX, double maxY, List<PointNode> found)
+	{
+		while (lo < hi)
+		{
+			int mid = (lo + hi) >>> 1;
+			double x = _xs[mid];
+			double y = _ys[mid];
+			if (!_removed[mid] && x >= minX && x <= maxX && y >= minY && y <= maxY) found.add(_nodes[mid]);
+
+			boolean onX = (depth & 1) == 0;
+			double split = onX ? x : y;
+			boolean left = (onX ? minX : minY) <= split;
+			boolean right = (onX ? maxX : maxY) >= split;
+
+			if (left && right) range(lo, mid, depth + 1, minX, minY, maxX, maxY, found);
+			if (right) lo = mid + 1;
+			else hi = mid;
+			depth++;
+		}
+	}
+
+	private void radius(int lo, int hi, int depth, double x, double y, double radiusSquared, List<PointNode> found)
+	{
+		while (lo < hi)
+		{
+			int mid = (lo + hi) >>> 1;
+			if (!_removed[mid] && distanceSquared(_xs[mid], _ys[mid], x, y) <= radiusSquared) found.add(_nodes[mid]);
+
+			double offset = (depth & 1) == 0 ? x - _xs[mid] : y - _ys[mid];
+			boolean far = offset * offset <= radiusSquared;
+
+			// continue on the query's side; descend into the other side only if the circle crosses the split
+			if (offset <= 0)
+			{
+				if (far) radius(mid + 1, hi, depth + 1, x, y, radiusSquared, found);
+				hi = mid;
+			}
+			else
+			{
+				if (far) radius(lo, mid, depth + 1, x, y, radiusSquared, found);
+				lo = mid + 1;
+			}
+			depth++;
+		}
+	}
+
+	private void nearest(int lo, int hi, int depth, double x, double y, Neighbors neighbors)
+	{
+		if (lo >= hi) return;
+
+		int mid = (lo + hi) >>> 1;
+		if (!_removed[mid]) neighbors.offer(_nodes[mid], distanceSquared(_xs[mid], _ys[mid], x, y));
+
+		double offset = (depth & 1) == 0 ? x - _xs[mid] : y - _ys[mid];
+		if (offset <= 0)
+		{
+			nearest(lo, mid, depth + 1, x, y, neighbors);
+			if (offset * offset < neighbors.worst()) nearest(mid + 1, hi, depth + 1, x, y, neighbors);
+		}
+		else
+		{
+			nearest(mid + 1, hi, depth + 1, x, y, neighbors);
+			if (offset * offset < neighbors.worst()) nearest(lo, mid, depth + 1, x, y, neighbors);
+		}
+	}
+
+	private static double distanceSquared(double x1, double y1, double x2, double y2)
+	{
+		double dx = x1 - x2;
+		double dy = y1 - y2;
+		return dx * dx + dy * dy;
+	}
+
+	/*
+	 * The k closest candidates seen so far, as a max-heap on squared distance; k > 0.
+	 */
+	private static final class Neighbors
+	{
+		private final int _k;
+		private final PointNode[] _points;
+		private final double[] _distances;
+		private int _size = 0;
+
+		Neighbors(int k)
+		{
+			_k = k;
+			_points = new PointNode[_k];
+			_distances = new double[_k];
+		}
+
+		/*
+		 * @return the squared distance a candidate must beat to be kept
+		 */
+		double worst()
+		{
+			return _size < _k ? Double.POSITIVE_INFINITY : _distances[0];
+		}
+
+		void offer(PointNode point, double distance)
+		{
+			if (_size < _k)
+			{
+				int i = _size++;
+				while (i > 0 && _distances[(i - 1) / 2] < distance)
+				{
+					_points[i] = _points[(i - 1) / 2];
+					_distances[i] = _distances[(i - 1) / 2];
+					i = (i - 1) / 2;
+				}
+				_points[i] = point;
+				_distances[i] = distance;
+			}
+			else if (distance < _distances[0])
+			{
+				siftDown(point, distance, _size);
+			}
+		}
+
+		private void siftDown(PointNode point, double distance, int size)
+		{
+			int i = 0;
+			while (true)
+			{
+				int child = 2 * i + 1;
+				if (child >= size) break;
+				if (child + 1 < size && _distances[child + 1] > _distances[child]) child++;
+				if (_distances[child] <= distance) break;
+
+				_points[i] = _points[child];
+				_distances[i] = _distances[child];
+				i = child;
+			}
+			_points[i] = point;
+			_distances[i] = distance;
+		}
+
+		/*
+		 * Empties the heap, closest first.
+		 */
+		List<PointNode> sorted()
+		{
+			PointNode[] ordered = new PointNode[_size];
+			while (_size > 0)
+			{
+				ordered[_size - 1] = _points[0];
+				_size--;
+				if (_size > 0) siftDown(_points[_size], _distances[_size], _size);
+			}
+
+			List<PointNode> list = new ArrayList<PointNode>(ordered.length);
+			for (PointNode point : ordered) list.add(point);
+			return list;
+		}
+	}
+}
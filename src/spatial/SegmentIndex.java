@@ -0,0 +1,246 @@
+package spatial;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+import input.components.point.PointNode;
+import input.components.segments.SegmentNode;
+import input.components.segments.SegmentNodeDatabase;
+import utilities.math.GeometryUtilities;
+import utilities.math.MathUtilities;
+
+/**
+ * A bounding-box index over the undirected segments of a SegmentNodeDatabase,
+ * stored as an STR-packed R-tree.
+ * 
+ * Each undirected edge is indexed once. Segments are sorted Sort-Tile-Recursive
+ * style (into vertical slabs by center x, then by center y within each slab) and
+ * packed NODE_CAPACITY to a leaf; each level above packs NODE_CAPACITY consecutive
+ * nodes of the level below. Boxes are held in flat arrays per level, so the tree has
+ * no node objects.
+ * 
+ * Rectangle and segment queries descend only into boxes that overlap the query and
+ * confirm candidates with exact, EPSILON-tolerant GeometryUtilities tests.
+ * crossingPairs finds every pair of crossing segments with a sort-and-sweep over
+ * the boxes' x extents. Boxes are compared with the same EPSILON slack as those
+ * tests, so segments that only touch within EPSILON, such as a T-junction that
+ * SegmentSplitter would split, are not pruned.
+ * 
+ * The index is a snapshot: rebuild it after editing the database.
+ */
+public class SegmentIndex
+{
+	private static final int NODE_CAPACITY = 16;
+
+	protected PointNode[] _from;
+	protected PointNode[] _to;
+
+	// per level: boxes (level 0 holds the segments themselves)
+	protected double[][] _minX;
+	protected double[][] _minY;
+	protected double[][] _maxX;
+	protected double[][] _maxY;
+
+	public SegmentIndex(SegmentNodeDatabase segments)
+	{
+		List<PointNode[]> edges = uniqueEdges(segments);
+		int n = edges.size();
+
+		double[] centerX = new double[n];
+		double[] centerY = new double[n];
+		for (int i = 0; i < n; i++)
+		{
+			centerX[i] = (edges.get(i)[0].getX() + edges.get(i)[1].getX()) / 2;
+			centerY[i] = (edges.get(i)[0].getY() + edges.get(i)[1].getY()) / 2;
+		}
+		Integer[] order = strOrder(centerX, centerY);
+
+		_from = new PointNode[n];
+		_to = new PointNode[n];
+		List<double[]> minX = new ArrayList<double[]>(), minY = new ArrayList<double[]>();
+		List<double[]> maxX = new ArrayList<double[]>(), maxY = new ArrayList<double[]>();
+		double[] x0 = new double[n], y0 = new double[n], x1 = new double[n], y1 = new double[n];
+		for (int i = 0; i < n; i++)
+		{
+			PointNode[] edge = edges.get(order[i]);
+			_from[i] = edge[0];
+			_to[i] = edge[1];
+			x0[i] = Math.min(edge[0].getX(), edge[1].getX());
+			y0[i] = Math.min(edge[0].getY(), edge[1].getY());
+			x1[i] = Math.max(edge[0].getX(), edge[1].getX());
+			y1[i] = Math.max(edge[0].getY(), edge[1].getY());
+		}
+		minX.add(x0); minY.add(y0); maxX.add(x1); maxY.add(y1);
+
+		// pack levels until a single root box remains
+		while (minX.get(minX.size() - 1).length > 1)
+		{
+			double[] cMinX = minX.get(minX.size() - 1), cMinY = minY.get(minY.size() - 1);
+			double[] cMaxX = maxX.get(maxX.size() - 1), cMaxY = maxY.get(maxY.size() - 1);
+			int parents = (cMinX.length + NODE_CAPACITY - 1) / NODE_CAPACITY;
+
+			double[] pMinX = new double[parents], pMinY = new double[parents], pMaxX = new double[parents], pMaxY = new double[parents];
+			for (int p = 0; p < parents; p++)
+			{
+				pMinX[p] = pMinY[p] = Double.POSITIVE_INFINITY;
+				pMaxX[p] = pMaxY[p] = Double.NEGATIVE_INFINITY;
+				for (int c = p * NODE_CAPACITY; c < Math.min(cMinX.length, (p + 1) * NODE_CAPACITY); c++)
+				{
+					pMinX[p] = Math.min(pMinX[p], cMinX[c]);
+					pMinY[p] = Math.min(pMinY[p], cMinY[c]);
+					pMaxX[p] = Math.max(pMaxX[p], cMaxX[c]);
+					pMaxY[p] = Math.max(pMaxY[p], cMaxY[c]);
+				}
+			}
+			minX.add(pMinX); minY.add(pMinY); maxX.add(pMaxX); maxY.add(pMaxY);
+		}
+
+		_minX = minX.toArray(new double[0][]);
+		_minY = minY.toArray(new double[0][]);
+		_maxX = maxX.toArray(new double[0][]);
+		_maxY = maxY.toArray(new double[0][]);
+	}
+
+	/**
+	 * @return the number of undirected segments indexed
+	 */
+	public int size()
+	{
+		return _from.length;
+	}
+
+	/**
+	 * @return the segments sharing at least one point with the rectangle
+	 */
+	public List<SegmentNode> intersecting(double minX, double minY, double maxX, double maxY)
+	{
+		List<SegmentNode> found = new ArrayList<SegmentNode>();
+		if (size() == 0) return found;
+
+		search(_minX.length - 1, 0, minX, minY, maxX, maxY, (i) -> {
+			if (GeometryUtilities.segmentIntersectsRectangle(_from[i].getX(), _from[i].getY(), _to[i].getX(), _to[i].getY(),
+					                                         minX, minY, maxX, maxY)) found.add(new SegmentNode(_from[i], _to[i]));
+		});
+		return found;
+	}
+
+	/**
+	 * @return the indexed segments sharing at least one point with segment ab,
+	 *         including segments that merely share an endpoint with it
+	 */
+	public List<SegmentNode> intersecting(PointNode a, PointNode b)
+	{
+		List<SegmentNode> found = new ArrayList<SegmentNode>();
+		if (size() == 0) return found;
+
+		double ax = a.getX(), ay = a.getY(), bx = b.getX(), by = b.getY();
+		search(_minX.length - 1, 0, Math.min(ax, bx), Math.min(ay, by), Math.max(ax, bx), Math.max(ay, by), (i) -> {
+			if (GeometryUtilities.segmentsIntersect(ax, ay, bx, by, _from[i].getX(), _from[i].getY(), _to[i].getX(), _to[i].getY()))
+				found.add(new SegmentNode(_from[i], _to[i]));
+		});
+		return found;
+	}
+
+	/**
+	 * Every pair of indexed segments that intersect without sharing an endpoint
+	 * PointNode. Segments are swept in order of their left x; each is tested only
+	 * against the active segments whose x extent comes within EPSILON of its own,
+	 * and then only if their y extents do too.
+	 * @return the crossing pairs, each as a two-element array
+	 */
+	public List<SegmentNode[]> crossingPairs()
+	{
+		int n = size();
+		double[] minX = _minX[0], minY = _minY[0], maxX = _maxX[0], maxY = _maxY[0];
+
+		Integer[] byLeft = new Integer[n];
+		for (int i = 0; i < n; i++) byLeft[i] = i;
+		Arrays.sort(byLeft, (i, j) -> Double.compare(minX[i], minX[j]));
+
+		List<SegmentNode[]> pairs = new ArrayList<SegmentNode[]>();
+		int[] active = new int[16];
+		int activeCount = 0;
+		for (int s : byLeft)
+		{
+			// drop segments that end more than EPSILON left of this one, then test the rest
+			double left = minX[s] - MathUtilities.EPSILON;
+			int kept = 0;
+			for (int a = 0; a < activeCount; a++)
+			{
+				int t = active[a];
+				if (maxX[t] < left) continue;
+				active[kept++] = t;
+
+				if (maxY[t] < minY[s] - MathUtilities.EPSILON || minY[t] > maxY[s] + MathUtilities.EPSILON || sharesEndpoint(s, t)) continue;
+				if (GeometryUtilities.segmentsIntersect(_from[s].getX(), _from[s].getY(), _to[s].getX(), _to[s].getY(),
+						                               _from[t].getX(), _from[t].getY(), _to[t].getX(), _to[t].getY()))
+				{
+					pairs.add(new SegmentNode[] { new SegmentNode(_from[t], _to[t]), new SegmentNode(_from[s], _to[s]) });
+				}
+			}
+			activeCount = kept;
+
+			if (activeCount == active.length) active = Arrays.copyOf(active, activeCount * 2);
+			active[activeCount++] = s;
+		}
+		return pairs;
+	}
+
+	private boolean sharesEndpoint(int s, int t)
+	{
+		return _from[s].equals(_from[t]) || _from[s].equals(_to[t]) || _to[s].equals(_from[t]) || _to[s].equals(_to[t]);
+	}
+
+	/*
+	 * Visit the segments under node whose boxes overlap the query box widened by EPSILON.
+	 */
+	private void search(int level, int node, double minX, double minY, double maxX, double maxY, IntConsumer visit)
+	{
+		if (_maxX[level][node] < minX - MathUtilities.EPSILON || _minX[level][node] > maxX + MathUtilities.EPSILON ||
+			_maxY[level][node] < minY - MathUtilities.EPSILON || _minY[level][node] > maxY + MathUtilities.EPSILON) return;
+
+		if (level == 0)
+		{
+			visit.accept(node);
+			return;
+		}
+
+		int end = Math.min(_minX[level - 1].length, (node + 1) * NODE_CAPACITY);
+		for (int child = node * NODE_CAPACITY; child < end; child++)
+		{
+			search(level - 1, child, minX, minY, maxX, maxY, visit);
+		}
+	}
+
+	/*
+	 * Sort-Tile-Recursive order: ceil(sqrt(leaves)) vertical slabs by center x,
+	 * each sorted by center y.
+	 */
+	private static Integer[] strOrder(double[] centerX, double[] centerY)
+	{
+		int n = centerX.length;
+		Integer[] order = new Integer[n];
+		for (int i = 0; i < n; i++) order[i] = i;
+		Arrays.sort(order, (i, j) -> Double.compare(centerX[i], centerX[j]));
+
+		int leaves = (n + NODE_CAPACITY - 1) / NODE_CAPACITY;
+		int slabSize = (int)Math.ceil(Math.sqrt(leaves)) * NODE_CAPACITY;
+		for (int start = 0; start < n; start += slabSize)
+		{
+			Arrays.sort(order, start, Math.min(n, start + slabSize), (i, j) -> Double.compare(centerY[i], centerY[j]));
+		}
+		return order;
+	}
+
+	/*
+	 * Each undirected edge once, as { first endpoint, second endpoint } in canonical order.
+	 */
+	private static List<PointNode[]> uniqueEdges(SegmentNodeDatabase segments)
+	{
+		List<PointNode[]> edges = new ArrayList<PointNode[]>();
+		segments.forEachUniqueEdge((a, b) -> edges.add(new PointNode[] { a, b }));
+		return edges;
+	}
+}
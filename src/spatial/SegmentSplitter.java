@@ -0,0 +1,434 @@
+package spatial;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+
+import input.components.point.PointNode;
+import input.components.point.PointNodeDatabase;
+import input.components.segments.SegmentNodeDatabase;
+import utilities.math.GeometryUtilities;
+import utilities.math.MathUtilities;
+
+/**
+ * Finds every point where segments of a figure meet other than at a shared
+ * endpoint, with a Bentley-Ottmann sweep, and splits the segments there.
+ * Crossings, T-junctions (an endpoint lying on another segment) and collinear
+ * overlaps are all handled. After apply(), segments meet only at endpoints, as
+ * PlanarFaces requires.
+ * 
+ * The sweep moves left to right over event points ordered by x and then y. The
+ * status is a TreeSet of the segments crossing the sweep line, ordered by their y
+ * there; segments through the same point are ordered by slope, as they lie just
+ * before the point when they are removed and just after it when they are put back.
+ * Only segments that become neighbors in the status are tested against each
+ * other, so the sweep is O((n + k) log n) for n segments meeting at k points.
+ * 
+ * Points are compared with MathUtilities.EPSILON throughout: a computed
+ * intersection within EPSILON of an existing point (or of one found earlier) is
+ * that point, so event points are unique and every segment through a point is
+ * split at the same PointNode. New points are named SPLIT_PREFIX followed by a
+ * number, assigned in sweep order and skipping names already in use, so the
+ * names depend only on the figure's geometry.
+ */
+public class SegmentSplitter
+{
+	public static final String SPLIT_PREFIX = "X";
+
+	private static final int PROBE = -1;
+
+	/*
+	 * An event point: the segments that start there, and those that end there.
+	 */
+	private static class Event
+	{
+		final PointNode _point;
+		final double _x, _y;
+		final List<Integer> _starting = new ArrayList<Integer>(2);
+		final List<Integer> _ending = new ArrayList<Integer>(2);
+
+		// true for an intersection that is not yet a point of the figure
+		boolean _created = false;
+
+		Event(PointNode point)
+		{
+			_point = point;
+			_x = point.getX();
+			_y = point.getY();
+		}
+
+		int compareTo(Event that)
+		{
+			int byX = Double.compare(_x, that._x);
+			return byX != 0 ? byX : Double.compare(_y, that._y);
+		}
+	}
+
+	protected final PointNodeDatabase   _points;
+	protected final SegmentNodeDatabase _segments;
+
+	// segments with left endpoint before right endpoint in (x, y) order
+	protected final List<PointNode> _left = new ArrayList<PointNode>();
+	protected final List<PointNode> _right = new ArrayList<PointNode>();
+	protected double[] _lx, _ly, _rx, _ry;
+
+	// points met in the sweep that are not in _points, so that intersections snap to them too
+	protected final PointNodeDatabase _others = new PointNodeDatabase();
+
+	// per segment, the points where it is to be split; null if none
+	protected List<List<PointNode>> _splits;
+
+	protected final List<PointNode> _meetings = new ArrayList<PointNode>();
+	protected final List<PointNode> _created = new ArrayList<PointNode>();
+
+	// removals that had to scan the status for their segment
+	private int _scannedRemovals = 0;
+
+	// sweep state read by the status comparator
+	private double _sweepX, _sweepY, _probeY;
+	private boolean _after;
+
+	private static final Comparator<PointNode> SWEEP_ORDER = new Comparator<PointNode>() {
+		@Override
+		public int compare(PointNode p, PointNode q)
+		{
+			int byX = Double.compare(p.getX(), q.getX());
+			return byX != 0 ? byX : Double.compare(p.getY(), q.getY());
+		}
+	};
+
+	/*
+	 * Events by their (snapped, so unique) point. The endpoint events are sorted
+	 * once into _endpoints; intersections found during the sweep go into _crossings.
+	 */
+	private final Map<PointNode, Event> _events = new IdentityHashMap<PointNode, Event>();
+	private Event[] _endpoints;
+	private int _nextEndpoint = 0;
+	private final PriorityQueue<Event> _crossings = new PriorityQueue<Event>(Event::compareTo);
+
+	private final TreeSet<Integer> _status = new TreeSet<Integer>(this::compareStatus);
+
+	/**
+	 * Run the sweep over the unique segments. The databases are not changed until apply.
+	 */
+	public SegmentSplitter(PointNodeDatabase points, SegmentNodeDatabase segments)
+	{
+		_points = points;
+		_segments = segments;
+
+		segments.forEachUniqueEdge((a, b) -> {
+			if (a.equals(b)) return;
+			_left.add(a);
+			_right.add(b);
+		});
+
+		int n = _left.size();
+		_lx = new double[n];
+		_ly = new double[n];
+		_rx = new double[n];
+		_ry = new double[n];
+		_splits = new ArrayList<List<PointNode>>(n);
+		for (int s = 0; s < n; s++)
+		{
+			_lx[s] = _left.get(s).getX();
+			_ly[s] = _left.get(s).getY();
+			_rx[s] = _right.get(s).getX();
+			_ry[s] = _right.get(s).getY();
+			_splits.add(null);
+			event(snap(_left.get(s)))._starting.add(s);
+			event(snap(_right.get(s)))._ending.add(s);
+		}
+		_endpoints = _events.values().toArray(new Event[_events.size()]);
+		Arrays.sort(_endpoints, Event::compareTo);
+
+		sweep();
+	}
+
+	/*
+	 * @return how many status removals fell back to a linear scan
+	 */
+	int getScannedRemovals()
+	{
+		return _scannedRemovals;
+	}
+
+	/**
+	 * @return every point where a segment is to be split, in sweep order
+	 */
+	public List<PointNode> getSplitPoints() { return _meetings; }
+
+	/**
+	 * @return the split points that are not yet points of the figure, in sweep order
+	 */
+	public List<PointNode> getNewPoints() { return _created; }
+
+	/**
+	 * Put the new points into the PointNodeDatabase and replace each split segment
+	 * by the chain of segments between its split points, keeping the directions in
+	 * which it was stored.
+	 * @return the number of segments split
+	 */
+	public int apply()
+	{
+		for (PointNode point : _created) _points.put(point);
+
+		int split = 0;
+		List<List<PointNode>> chains = new ArrayList<List<PointNode>>();
+		List<boolean[]> directions = new ArrayList<boolean[]>();
+		for (int s = 0; s < _left.size(); s++)
+		{
+			List<PointNode> points = _splits.get(s);
+			if (points == null) continue;
+
+			PointNode a = _left.get(s), b = _right.get(s);
+			boolean forward = _segments.removeDirectedEdge(a, b);
+			boolean backward = _segments.removeDirectedEdge(b, a);
+
+			// order the split points along the segment
+			int segment = s;
+			points.sort(Comparator.comparingDouble(p -> (p.getX() - _lx[segment]) * (_rx[segment] - _lx[segment]) + (p.getY() - _ly[segment]) * (_ry[segment] - _ly[segment])));
+			List<PointNode> chain = new ArrayList<PointNode>(points.size() + 2);
+			chain.add(a);
+			for (PointNode point : points) if (!point.equals(chain.get(chain.size() - 1))) chain.add(point);
+			if (chain.get(chain.size() - 1).equals(b)) chain.remove(chain.size() - 1);
+			chain.add(b);
+
+			chains.add(chain);
+			directions.add(new boolean[] { forward, backward });
+			split++;
+		}
+
+		// every split segment is removed before any piece is added, so a piece shared by overlapping segments survives
+		for (int c = 0; c < chains.size(); c++)
+		{
+			List<PointNode> chain = chains.get(c);
+			for (int i = 0; i + 1 < chain.size(); i++)
+			{
+				if (directions.get(c)[0]) _segments.addDirectedEdge(chain.get(i), chain.get(i + 1));
+				if (directions.get(c)[1]) _segments.addDirectedEdge(chain.get(i + 1), chain.get(i));
+			}
+		}
+		return split;
+	}
+
+	private void sweep()
+	{
+		int[] counter = { 0 };
+		List<Integer> through = new ArrayList<Integer>();
+		List<Integer> reinserted = new ArrayList<Integer>();
+
+		while (_nextEndpoint < _endpoints.length || !_crossings.isEmpty())
+		{
+			Event event = nextEvent();
+			PointNode p = event._point;
+			_sweepX = p.getX();
+			_sweepY = p.getY();
+			_after = false;
+
+			// segments passing through p are within EPSILON of it on the sweep line
+			through.clear();
+			_probeY = _sweepY - MathUtilities.EPSILON;
+			for (Integer s : _status.tailSet(PROBE, false))
+			{
+				if (yAt(s) > _sweepY + 2 * MathUtilities.EPSILON) break;
+				if (!event._ending.contains(s) && passesThrough(s, p)) through.add(s);
+			}
+
+			if (event._created && !through.isEmpty())
+			{
+				p = new PointNode(nextName(counter), p.getX(), p.getY());
+				_created.add(p);
+			}
+			if (!through.isEmpty())
+			{
+				_meetings.add(p);
+				for (int s : through)
+				{
+					if (_splits.get(s) == null) _splits.set(s, new ArrayList<PointNode>(2));
+					_splits.get(s).add(p);
+				}
+			}
+
+			for (int s : event._ending) remove(s);
+			for (int s : through) remove(s);
+
+			_after = true;
+			reinserted.clear();
+			reinserted.addAll(event._starting);
+			reinserted.addAll(through);
+			for (int s : reinserted) _status.add(s);
+
+			if (reinserted.isEmpty())
+			{
+				_probeY = _sweepY;
+				check(_status.lower(PROBE), _status.higher(PROBE), event._point);
+			}
+			else
+			{
+				int lowest = reinserted.get(0), highest = reinserted.get(0);
+				for (int s : reinserted)
+				{
+					if (compareStatus(s, lowest) < 0) lowest = s;
+					if (compareStatus(s, highest) > 0) highest = s;
+				}
+				check(_status.lower(lowest), lowest, event._point);
+				check(highest, _status.higher(highest), event._point);
+			}
+		}
+	}
+
+	/*
+	 * Remove s from the status; if rounding has left the tree out of order around s,
+	 * find it by identity instead, in O(n). Tests check the fallback is never taken.
+	 */
+	private void remove(int s)
+	{
+		if (_status.remove(s)) return;
+		_scannedRemovals++;
+		for (Iterator<Integer> it = _status.iterator(); it.hasNext(); )
+		{
+			if (it.next() == s)
+			{
+				it.remove();
+				return;
+			}
+		}
+	}
+
+	/*
+	 * Queue the point where neighbors a and b cross, if they cross properly beyond p.
+	 * Touching and overlapping segments need no new event: the point where they
+	 * meet is an endpoint of one of them and so already an event.
+	 */
+	private void check(Integer a, Integer b, PointNode p)
+	{
+		if (a == null || b == null) return;
+		if (!GeometryUtilities.segmentsIntersect(_lx[a], _ly[a], _rx[a], _ry[a], _lx[b], _ly[b], _rx[b], _ry[b])) return;
+		if (touches(a, b) || touches(b, a)) return;
+
+		double dxA = _rx[a] - _lx[a], dyA = _ry[a] - _ly[a];
+		double dxB = _rx[b] - _lx[b], dyB = _ry[b] - _ly[b];
+		double denominator = dxA * dyB - dyA * dxB;
+		if (denominator == 0) return;
+		double t = ((_lx[b] - _lx[a]) * dyB - (_ly[b] - _ly[a]) * dxB) / denominator;
+		PointNode q = snap(new PointNode(_lx[a] + t * dxA, _ly[a] + t * dyA));
+
+		if (SWEEP_ORDER.compare(q, p) <= 0 || _events.containsKey(q)) return;
+		Event event = event(q);
+		event._created = !_points.contains(q);
+		_crossings.add(event);
+	}
+
+	private Event nextEvent()
+	{
+		if (_crossings.isEmpty()) return _endpoints[_nextEndpoint++];
+		if (_nextEndpoint == _endpoints.length) return _crossings.poll();
+		return _crossings.peek().compareTo(_endpoints[_nextEndpoint]) < 0 ? _crossings.poll() : _endpoints[_nextEndpoint++];
+	}
+
+	/*
+	 * @return true if an endpoint of a lies on b
+	 */
+	private boolean touches(int a, int b)
+	{
+		return passesThrough(b, _left.get(a)) || passesThrough(b, _right.get(a)) ||
+		       _left.get(a).equals(_left.get(b)) || _left.get(a).equals(_right.get(b)) ||
+		       _right.get(a).equals(_left.get(b)) || _right.get(a).equals(_right.get(b));
+	}
+
+	/*
+	 * @return true if p lies on s within EPSILON but is not one of its endpoints
+	 */
+	private boolean passesThrough(int s, PointNode p)
+	{
+		if (p.equals(_left.get(s)) || p.equals(_right.get(s))) return false;
+		return GeometryUtilities.orientation(_lx[s], _ly[s], _rx[s], _ry[s], p.getX(), p.getY()) == 0 &&
+		       GeometryUtilities.inBox(_lx[s], _ly[s], _rx[s], _ry[s], p.getX(), p.getY());
+	}
+
+	/*
+	 * @return the known point within EPSILON of p, after making p known if there is none
+	 */
+	private PointNode snap(PointNode p)
+	{
+		PointNode known = _points.getPoint(p);
+		if (known == null) known = _others.getPoint(p);
+		if (known != null) return known;
+		_others.put(p);
+		return p;
+	}
+
+	private Event event(PointNode point)
+	{
+		Event event = _events.get(point);
+		if (event == null)
+		{
+			event = new Event(point);
+			_events.put(point, event);
+		}
+		return event;
+	}
+
+	private String nextName(int[] counter)
+	{
+		String name;
+		do
+		{
+			name = SPLIT_PREFIX + ++counter[0];
+		}
+		while (_points.getNodeByName(name) != null || _others.getNodeByName(name) != null);
+		return name;
+	}
+
+	private double yAt(int s)
+	{
+		if (_lx[s] == _rx[s]) return Math.max(_ly[s], Math.min(_ry[s], _sweepY));
+		if (_sweepX <= _lx[s]) return _ly[s];
+		if (_sweepX >= _rx[s]) return _ry[s];
+		return _ly[s] + (_sweepX - _lx[s]) * (_ry[s] - _ly[s]) / (_rx[s] - _lx[s]);
+	}
+
+	private double slope(int s)
+	{
+		return _lx[s] == _rx[s] ? Double.POSITIVE_INFINITY : (_ry[s] - _ly[s]) / (_rx[s] - _lx[s]);
+	}
+
+	/*
+	 * Order on the sweep line. Segments within EPSILON of each other meet here and
+	 * are ordered as they lie just after the sweep point, or just before it while
+	 * segments are being removed. Collinear segments lie on each other on both
+	 * sides, so they are ordered by id, whatever rounding does to their slopes.
+	 * The probe is placed just above _probeY.
+	 */
+	private int compareStatus(Integer a, Integer b)
+	{
+		if (a.intValue() == b.intValue()) return 0;
+		if (a == PROBE) return _probeY < yAt(b) ? -1 : 1;
+		if (b == PROBE) return _probeY < yAt(a) ? 1 : -1;
+
+		double ya = yAt(a), yb = yAt(b);
+		if (Math.abs(ya - yb) > MathUtilities.EPSILON) return ya < yb ? -1 : 1;
+
+		if (collinear(a, b)) return Integer.compare(a, b);
+		int bySlope = Double.compare(slope(a), slope(b));
+		if (bySlope != 0) return _after ? bySlope : -bySlope;
+		return Integer.compare(a, b);
+	}
+
+	/*
+	 * @return true if both endpoints of the higher-numbered segment lie on the
+	 *         other's line, within EPSILON
+	 */
+	private boolean collinear(int a, int b)
+	{
+		if (a > b) return collinear(b, a);
+		return GeometryUtilities.orientation(_lx[a], _ly[a], _rx[a], _ry[a], _lx[b], _ly[b]) == 0 &&
+		       GeometryUtilities.orientation(_lx[a], _ly[a], _rx[a], _ry[a], _rx[b], _ry[b]) == 0;
+	}
+}
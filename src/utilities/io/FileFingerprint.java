@@ -0,0 +1,111 @@
+package utilities.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Identifies one version of a file's contents.
+ *
+ * A stat fingerprint (of) records the size and last-modified time and costs a
+ * single stat call. A content fingerprint (ofContent) records the size and a
+ * SHA-256 digest of the bytes; it survives touch and copy but reads the whole
+ * file. Two fingerprints are equal only if they were taken the same way and
+ * describe the same version.
+ */
+public final class FileFingerprint
+{
+	public static final String DIGEST_ALGORITHM = "SHA-256";
+
+	private static final int READ_BUFFER_SIZE = 1 << 16;
+
+	private final long   _size;
+	private final long   _modified;
+	private final byte[] _digest;
+
+	/**
+	 * @param size     -- file size in bytes
+	 * @param modified -- last-modified time in milliseconds; ignored when digest is given
+	 * @param digest   -- content digest, or null for a stat fingerprint
+	 */
+	public FileFingerprint(long size, long modified, byte[] digest)
+	{
+		_size = size;
+		_modified = digest == null ? modified : 0;
+		_digest = digest == null ? null : digest.clone();
+	}
+
+	public static FileFingerprint of(Path path) throws IOException
+	{
+		BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+		return new FileFingerprint(attributes.size(), attributes.lastModifiedTime().toMillis(), null);
+	}
+
+	public static FileFingerprint ofContent(Path path) throws IOException
+	{
+		MessageDigest digest = newDigest();
+		long size = 0;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+		{
+			ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+			while (channel.read(buffer) >= 0)
+			{
+				buffer.flip();
+				size += buffer.remaining();
+				digest.update(buffer);
+				buffer.clear();
+			}
+		}
+		return new FileFingerprint(size, 0, digest.digest());
+	}
+
+	public long    getSize()      { return _size; }
+	public long    getModified()  { return _modified; }
+	public boolean hasDigest()    { return _digest != null; }
+
+	/**
+	 * @return a copy of the content digest, or null for a stat fingerprint
+	 */
+	public byte[] getDigest() { return _digest == null ? null : _digest.clone(); }
+
+	@Override
+	public boolean equals(Object obj)
+	{
+		if (!(obj instanceof FileFingerprint)) return false;
+		FileFingerprint that = (FileFingerprint)obj;
+		return _size == that._size && _modified == that._modified && Arrays.equals(_digest, that._digest);
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return 31 * (31 * Long.hashCode(_size) + Long.hashCode(_modified)) + Arrays.hashCode(_digest);
+	}
+
+	@Override
+	public String toString()
+	{
+		if (_digest == null) return "size=" + _size + " modified=" + _modified;
+
+		StringBuilder hex = new StringBuilder("size=" + _size + " " + DIGEST_ALGORITHM + "=");
+		for (byte b : _digest) hex.append(String.format("%02x", b));
+		return hex.toString();
+	}
+
+	private static MessageDigest newDigest()
+	{
+		try { return MessageDigest.getInstance(DIGEST_ALGORITHM); }
+		catch (NoSuchAlgorithmException e)
+		{
+			// every Java platform is required to provide SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+}
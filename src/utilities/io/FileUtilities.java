@@ -3,6 +3,7 @@ package utilities.io;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.Reader;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
@@ -55,4 +56,22 @@ public class FileUtilities
 
 		return builder.toString();
 	}
+	
+	/**
+	 * Open a file through a memory mapping, filtering all comments using    // ...
+	 * The contents are decoded as they are read; no String copy of the file is made.
+	 * 
+	 * @param filepath -- path to a specific file
+	 * @return reader over the contents of the file (minus comments)
+	 */
+	public static Reader openMappedFileFilterComments(String filepath)
+	{
+		try { return new MappedFileReader(Path.of(filepath)); }
+		catch (IOException e)
+		{
+			System.err.println("Error mapping file: " + filepath);
+		}
+
+		return Reader.nullReader();
+	}
 }
\ No newline at end of file
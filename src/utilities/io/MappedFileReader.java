@@ -0,0 +1,127 @@
+package utilities.io;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A Reader over a memory-mapped UTF-8 file that drops '//' comments as it reads.
+ * 
+ * The file is mapped in windows of at most MAX_WINDOW bytes and decoded in place
+ * into a small reusable char buffer, so no String or byte[] copy of the file is
+ * ever made. Comment handling matches FileUtilities.readFileFilterComments:
+ * everything from Constants.INPUT_FILE_COMMENT_PREFIX to the end of the line is
+ * removed, and the line break itself is kept.
+ */
+public class MappedFileReader extends Reader
+{
+	private static final long MAX_WINDOW = 1L << 30;
+	private static final int CHAR_BUFFER_SIZE = 8192;
+
+	// a UTF-8 sequence is at most 4 bytes; remap before a window runs that low
+	private static final int MAX_SEQUENCE = 4;
+
+	private final FileChannel _channel;
+	private final long _fileSize;
+	private long _windowStart;
+	private ByteBuffer _bytes;
+
+	private final CharsetDecoder _decoder = StandardCharsets.UTF_8.newDecoder()
+			                                .onMalformedInput(CodingErrorAction.REPLACE)
+			                                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+	private final CharBuffer _chars = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+	private boolean _decoderFlushed;
+	private boolean _inComment;
+
+	private final char _commentStart = global.Constants.INPUT_FILE_COMMENT_PREFIX.charAt(0);
+	private final char _commentNext = global.Constants.INPUT_FILE_COMMENT_PREFIX.charAt(1);
+
+	public MappedFileReader(Path path) throws IOException
+	{
+		_channel = FileChannel.open(path, StandardOpenOption.READ);
+		_fileSize = _channel.size();
+		_windowStart = 0;
+		_bytes = map(0);
+		_chars.flip();
+	}
+
+	@Override
+	public int read(char[] cbuf, int off, int len) throws IOException
+	{
+		int written = 0;
+		while (written < len)
+		{
+			if (!_chars.hasRemaining() && !refill()) break;
+
+			char c = _chars.get();
+			if (_inComment)
+			{
+				if (c == '\n')
+				{
+					_inComment = false;
+					cbuf[off + written++] = c;
+				}
+				continue;
+			}
+
+			if (c == _commentStart)
+			{
+				if (!_chars.hasRemaining()) refill();
+				if (_chars.hasRemaining() && _chars.get(_chars.position()) == _commentNext)
+				{
+					_chars.get();
+					_inComment = true;
+					continue;
+				}
+			}
+			cbuf[off + written++] = c;
+		}
+
+		return written == 0 && len > 0 ? -1 : written;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		_channel.close();
+	}
+
+	/*
+	 * Decode the next run of bytes into _chars; false at end of file.
+	 */
+	private boolean refill() throws IOException
+	{
+		if (_decoderFlushed) return _chars.hasRemaining();
+
+		if (_bytes.remaining() < MAX_SEQUENCE && _windowStart + _bytes.limit() < _fileSize)
+		{
+			_windowStart += _bytes.position();
+			_bytes = map(_windowStart);
+		}
+
+		boolean endOfInput = _windowStart + _bytes.limit() >= _fileSize;
+
+		_chars.compact();
+		_decoder.decode(_bytes, _chars, endOfInput);
+		if (endOfInput && !_bytes.hasRemaining() && !_decoderFlushed)
+		{
+			_decoder.flush(_chars);
+			_decoderFlushed = true;
+		}
+		_chars.flip();
+
+		return _chars.hasRemaining();
+	}
+
+	private ByteBuffer map(long start) throws IOException
+	{
+		return _channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(MAX_WINDOW, _fileSize - start));
+	}
+}
@@ -2,12 +2,25 @@ package utilities.io;
 
 public class StringUtilities
 {
+	private static final String INDENT = "    ";
+
+	/*
+	 * Indent strings are requested once per unparsed line; the common levels are built once.
+	 */
+	private static final String[] CACHED_INDENTS = new String[16];
+	static
+	{
+		for (int level = 0; level < CACHED_INDENTS.length; level++) CACHED_INDENTS[level] = INDENT.repeat(level);
+	}
+
 	/**
 	 * @param level -- levels to which we indent
 	 * @return a string containg the corresponding number of spaces requested
 	 */
 	public static String indent(int level)
 	{
-		return "    ".repeat(level);
+		if (level >= 0 && level < CACHED_INDENTS.length) return CACHED_INDENTS[level];
+
+		return INDENT.repeat(level);
 	}
 }
@@ -0,0 +1,74 @@
+package utilities.math;
+
+/**
+ * Segment and point predicates shared by the spatial and planar algorithms.
+ * 
+ * Tests are made robust with MathUtilities.EPSILON: a point is treated as lying
+ * on a line when it is within EPSILON of it, so nearly collinear or nearly
+ * touching segments are classified consistently.
+ */
+public class GeometryUtilities
+{
+    /**
+     * @return 1 if c lies to the left of the directed line a->b, -1 if to the right,
+     *         0 if c is within EPSILON of the line (or of a, when a and b coincide)
+     */
+    public static int orientation(double ax, double ay, double bx, double by, double cx, double cy)
+    {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double cross = dx * (cy - ay) - dy * (cx - ax);
+        double length = Math.sqrt(dx * dx + dy * dy);
+
+        double distance = length > 0 ? cross / length : Math.hypot(cx - ax, cy - ay);
+        if (Math.abs(distance) < MathUtilities.EPSILON) return 0;
+        if (length == 0) return 1;
+        return distance > 0 ? 1 : -1;
+    }
+
+    /**
+     * @return true if p lies within the bounding box of segment ab, expanded by EPSILON
+     */
+    public static boolean inBox(double ax, double ay, double bx, double by, double px, double py)
+    {
+        return px >= Math.min(ax, bx) - MathUtilities.EPSILON && px <= Math.max(ax, bx) + MathUtilities.EPSILON &&
+               py >= Math.min(ay, by) - MathUtilities.EPSILON && py <= Math.max(ay, by) + MathUtilities.EPSILON;
+    }
+
+    /**
+     * @return true if the closed segments ab and cd share at least one point
+     */
+    public static boolean segmentsIntersect(double ax, double ay, double bx, double by,
+                                            double cx, double cy, double dx, double dy)
+    {
+        int o1 = orientation(ax, ay, bx, by, cx, cy);
+        int o2 = orientation(ax, ay, bx, by, dx, dy);
+        int o3 = orientation(cx, cy, dx, dy, ax, ay);
+        int o4 = orientation(cx, cy, dx, dy, bx, by);
+
+        if (o1 * o2 < 0 && o3 * o4 < 0) return true;
+
+        return (o1 == 0 && inBox(ax, ay, bx, by, cx, cy)) ||
+               (o2 == 0 && inBox(ax, ay, bx, by, dx, dy)) ||
+               (o3 == 0 && inBox(cx, cy, dx, dy, ax, ay)) ||
+               (o4 == 0 && inBox(cx, cy, dx, dy, bx, by));
+    }
+
+    /**
+     * @return true if the closed segment ab shares a point with the rectangle
+     *         [minX, maxX] x [minY, maxY]
+     */
+    public static boolean segmentIntersectsRectangle(double ax, double ay, double bx, double by,
+                                                     double minX, double minY, double maxX, double maxY)
+    {
+        if (Math.max(ax, bx) < minX || Math.min(ax, bx) > maxX || Math.max(ay, by) < minY || Math.min(ay, by) > maxY) return false;
+
+        if (ax >= minX && ax <= maxX && ay >= minY && ay <= maxY) return true;
+        if (bx >= minX && bx <= maxX && by >= minY && by <= maxY) return true;
+
+        return segmentsIntersect(ax, ay, bx, by, minX, minY, maxX, minY) ||
+               segmentsIntersect(ax, ay, bx, by, maxX, minY, maxX, maxY) ||
+               segmentsIntersect(ax, ay, bx, by, maxX, maxY, minX, maxY) ||
+               segmentsIntersect(ax, ay, bx, by, minX, maxY, minX, minY);
+    }
+}
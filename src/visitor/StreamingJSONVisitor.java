@@ -0,0 +1,276 @@
+package visitor;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import input.components.FigureNode;
+import input.components.point.PointNode;
+import input.components.point.PointNodeDatabase;
+import input.components.segments.SegmentNode;
+import input.components.segments.SegmentNodeDatabase;
+import input.parser.JSON_Constants;
+
+/**
+ * This visitor writes a figure as JSON directly to a Writer, in the same schema
+ * JSONParser reads ("Figure" with "Description", "Points" and "Segments" as
+ * adjacency lists), without building JSONObjects first.
+ * 
+ * The Object passed to each visit method is the Writer (or an OutputStream,
+ * which is written as UTF-8). Each undirected segment is written once: a
+ * neighbor is left out of a list when its own list, already written, names
+ * the key, since JSONParser adds both directions of every listed segment.
+ * I/O errors are rethrown as UncheckedIOException. JSON has no NaN or
+ * infinity, so a point with such a coordinate is rejected with an
+ * IllegalArgumentException before any of it is written. A point without a name
+ * could not be read back, as points and segments refer to points by name, so it
+ * is rejected the same way. A point or segment database is checked in full
+ * before any of it is written.
+ */
+public class StreamingJSONVisitor implements ComponentNodeVisitor
+{
+	private static final String INDENT = "    ";
+
+	@Override
+	public Object visitFigureNode(FigureNode node, Object o)
+	{
+		Writer out = toWriter(o);
+		try
+		{
+			out.write("{\n");
+			writeString(out, JSON_Constants.JSON_FIGURE);
+			out.write(" :\n{\n");
+
+			out.write(INDENT);
+			writeString(out, JSON_Constants.JSON_DESCRIPTION);
+			out.write(" : ");
+			writeString(out, node.getDescription());
+			out.write(",\n");
+
+			visitPointNodeDatabase(node.getPointsDatabase(), out);
+			out.write(",\n");
+			visitSegmentDatabaseNode(node.getSegments(), out);
+			out.write("\n}\n}\n");
+			out.flush();
+		}
+		catch (IOException e) { throw new UncheckedIOException(e); }
+
+		flushIfWrapped(out, o);
+		return o;
+	}
+
+	@Override
+	public Object visitPointNodeDatabase(PointNodeDatabase node, Object o)
+	{
+		List<PointNode> nodes = node.getAllNodes();
+		for (PointNode point : nodes) checkPoint(point);
+
+		Writer out = toWriter(o);
+		try
+		{
+			out.write(INDENT);
+			writeString(out, JSON_Constants.JSON_POINT_S);
+			out.write(" :\n" + INDENT + "[\n");
+
+			Iterator<PointNode> points = nodes.iterator();
+			while (points.hasNext())
+			{
+				out.write(INDENT + INDENT);
+				visitPointNode(points.next(), out);
+				out.write(points.hasNext() ? ",\n" : "\n");
+			}
+
+			out.write(INDENT + "]");
+		}
+		catch (IOException e) { throw new UncheckedIOException(e); }
+
+		flushIfWrapped(out, o);
+		return o;
+	}
+
+	@Override
+	public Object visitPointNode(PointNode node, Object o)
+	{
+		checkPoint(node);
+
+		Writer out = toWriter(o);
+		try
+		{
+			out.write("{ ");
+			writeString(out, JSON_Constants.JSON_NAME);
+			out.write(" : ");
+			writeString(out, node.getName());
+			out.write(", ");
+			writeString(out, JSON_Constants.JSON_X);
+			out.write(" : ");
+			out.write(Double.toString(node.getX()));
+			out.write(", ");
+			writeString(out, JSON_Constants.JSON_Y);
+			out.write(" : ");
+			out.write(Double.toString(node.getY()));
+			out.write(" }");
+		}
+		catch (IOException e) { throw new UncheckedIOException(e); }
+
+		flushIfWrapped(out, o);
+		return o;
+	}
+
+	@Override
+	public Object visitSegmentDatabaseNode(SegmentNodeDatabase node, Object o)
+	{
+		Writer out = toWriter(o);
+		Map<PointNode, Set<PointNode>> adjLists = node.getAdjLists();
+		for (Map.Entry<PointNode, Set<PointNode>> entry : adjLists.entrySet())
+		{
+			if (entry.getKey() == null) continue;
+			requireName(entry.getKey());
+			for (PointNode neighbor : entry.getValue())
+			{
+				if (neighbor != null) requireName(neighbor);
+			}
+		}
+
+		Set<PointNode> written = new HashSet<PointNode>();
+		try
+		{
+			out.write(INDENT);
+			writeString(out, JSON_Constants.JSON_SEGMENTS);
+			out.write(" :\n" + INDENT + "[");
+
+			boolean firstList = true;
+			for (Map.Entry<PointNode, Set<PointNode>> entry : adjLists.entrySet())
+			{
+				PointNode key = entry.getKey();
+				if (key == null) continue;
+				written.add(key);
+
+				boolean firstNeighbor = true;
+				for (PointNode neighbor : entry.getValue())
+				{
+					if (neighbor == null) continue;
+					if (neighbor != key && written.contains(neighbor) && adjLists.get(neighbor).contains(key)) continue;
+
+					if (firstNeighbor)
+					{
+						out.write(firstList ? "\n" : ",\n");
+						out.write(INDENT + INDENT + "{ ");
+						writeString(out, key.getName());
+						out.write(" : [");
+						firstList = false;
+						firstNeighbor = false;
+					}
+					else out.write(", ");
+					writeString(out, neighbor.getName());
+				}
+				if (!firstNeighbor) out.write("] }");
+			}
+
+			out.write("\n" + INDENT + "]");
+		}
+		catch (IOException e) { throw new UncheckedIOException(e); }
+
+		flushIfWrapped(out, o);
+		return o;
+	}
+
+	/**
+	 * Writes a single segment as a one-entry adjacency list.
+	 */
+	@Override
+	public Object visitSegmentNode(SegmentNode node, Object o)
+	{
+		requireName(node.getPoint1());
+		requireName(node.getPoint2());
+
+		Writer out = toWriter(o);
+		try
+		{
+			out.write("{ ");
+			writeString(out, node.getPoint1().getName());
+			out.write(" : [");
+			writeString(out, node.getPoint2().getName());
+			out.write("] }");
+		}
+		catch (IOException e) { throw new UncheckedIOException(e); }
+
+		flushIfWrapped(out, o);
+		return o;
+	}
+
+	/*
+	 * Reject a point that cannot be written as JSON the parsers read back.
+	 */
+	private static void checkPoint(PointNode point)
+	{
+		if (!Double.isFinite(point.getX()) || !Double.isFinite(point.getY()))
+		{
+			throw new IllegalArgumentException("Non-finite coordinate for point " + point.getName() + ": (" + point.getX() + ", " + point.getY() + ")");
+		}
+		requireName(point);
+	}
+
+	private static void requireName(PointNode point)
+	{
+		if (point.getName() == null)
+		{
+			throw new IllegalArgumentException("Point (" + point.getX() + ", " + point.getY() + ") has no name");
+		}
+	}
+
+	private static Writer toWriter(Object o)
+	{
+		if (o instanceof Writer) return (Writer)o;
+		return new BufferedWriter(new OutputStreamWriter((OutputStream)o, StandardCharsets.UTF_8));
+	}
+
+	/*
+	 * A Writer created here around an OutputStream is flushed before returning.
+	 */
+	private static void flushIfWrapped(Writer out, Object o)
+	{
+		if (out == o) return;
+		try { out.flush(); }
+		catch (IOException e) { throw new UncheckedIOException(e); }
+	}
+
+	private static void writeString(Writer out, String str) throws IOException
+	{
+		if (str == null)
+		{
+			out.write("null");
+			return;
+		}
+
+		out.write('"');
+		int start = 0;
+		for (int i = 0; i < str.length(); i++)
+		{
+			char c = str.charAt(i);
+			if (c != '"' && c != '\\' && c >= 0x20) continue;
+
+			out.write(str, start, i - start);
+			switch (c)
+			{
+				case '"':  out.write("\\\""); break;
+				case '\\': out.write("\\\\"); break;
+				case '\n': out.write("\\n");  break;
+				case '\r': out.write("\\r");  break;
+				case '\t': out.write("\\t");  break;
+				default:   out.write(String.format("\\u%04x", (int)c));
+			}
+			start = i + 1;
+		}
+		out.write(str, start, str.length() - start);
+		out.write('"');
+	}
+}
@@ -0,0 +1,184 @@
+package visitor;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import input.components.FigureNode;
+import input.components.point.PointNode;
+import input.components.point.PointNodeDatabase;
+import input.components.segments.SegmentNode;
+import input.components.segments.SegmentNodeDatabase;
+import input.parser.BinaryFigureFormat;
+
+/**
+ * This visitor writes a figure in the binary format described by
+ * input.parser.BinaryFigureFormat.
+ * 
+ * The Object passed to visitFigureNode is the OutputStream to write to
+ * (wrap it in a BufferedOutputStream for files). Point ids are assigned while
+ * the points block is written and used by the adjacency block, so a visitor
+ * instance must not write two figures at the same time.
+ * I/O errors are rethrown as UncheckedIOException.
+ */
+public class ToBinaryVisitor implements ComponentNodeVisitor
+{
+	private Map<PointNode, Integer> _ids = new HashMap<PointNode, Integer>();
+
+	@Override
+	public Object visitFigureNode(FigureNode node, Object o)
+	{
+		DataOutputStream out = toData(o);
+		try
+		{
+			out.write(BinaryFigureFormat.MAGIC);
+			out.writeByte(BinaryFigureFormat.VERSION);
+			writeString(out, node.getDescription());
+
+			// vertices that only appear in segments are appended so every adjacency id has a point
+			List<PointNode> points = register(node.getPointsDatabase().getAllNodes());
+			for (Map.Entry<PointNode, Set<PointNode>> entry : node.getSegments().getAdjLists().entrySet())
+			{
+				registerExtra(points, entry.getKey());
+				for (PointNode neighbor : entry.getValue()) registerExtra(points, neighbor);
+			}
+			writePoints(out, points);
+
+			visitSegmentDatabaseNode(node.getSegments(), out);
+			out.flush();
+		}
+		catch (IOException e) { throw new UncheckedIOException(e); }
+
+		_ids.clear();
+		return o;
+	}
+
+	@Override
+	public Object visitPointNodeDatabase(PointNodeDatabase node, Object o)
+	{
+		try
+		{
+			writePoints(toData(o), register(node.getAllNodes()));
+		}
+		catch (IOException e) { throw new UncheckedIOException(e); }
+
+		return o;
+	}
+
+	@Override
+	public Object visitSegmentDatabaseNode(SegmentNodeDatabase node, Object o)
+	{
+		DataOutputStream out = toData(o);
+		Map<PointNode, Set<PointNode>> adjLists = node.getAdjLists();
+		try
+		{
+			writeVarint(out, adjLists.size());
+			for (Map.Entry<PointNode, Set<PointNode>> entry : adjLists.entrySet())
+			{
+				writeVarint(out, idOf(entry.getKey()));
+				writeVarint(out, entry.getValue().size());
+				for (PointNode neighbor : entry.getValue()) writeVarint(out, idOf(neighbor));
+			}
+		}
+		catch (IOException e) { throw new UncheckedIOException(e); }
+
+		return o;
+	}
+
+	@Override
+	public Object visitSegmentNode(SegmentNode node, Object o)
+	{
+		DataOutputStream out = toData(o);
+		try
+		{
+			writeVarint(out, idOf(node.getPoint1()));
+			writeVarint(out, idOf(node.getPoint2()));
+		}
+		catch (IOException e) { throw new UncheckedIOException(e); }
+
+		return o;
+	}
+
+	@Override
+	public Object visitPointNode(PointNode node, Object o)
+	{
+		DataOutputStream out = toData(o);
+		try
+		{
+			writeString(out, node.getName());
+			out.writeDouble(node.getX());
+			out.writeDouble(node.getY());
+		}
+		catch (IOException e) { throw new UncheckedIOException(e); }
+
+		return o;
+	}
+
+	private List<PointNode> register(List<PointNode> points)
+	{
+		_ids.clear();
+		for (int index = 0; index < points.size(); index++) _ids.putIfAbsent(points.get(index), index + 1);
+		return points;
+	}
+
+	private void registerExtra(List<PointNode> points, PointNode point)
+	{
+		if (point == null || _ids.containsKey(point)) return;
+		points.add(point);
+		_ids.put(point, points.size());
+	}
+
+	private static void writePoints(DataOutputStream out, List<PointNode> points) throws IOException
+	{
+		writeVarint(out, points.size());
+		for (PointNode point : points) writeString(out, point.getName());
+		for (PointNode point : points)
+		{
+			out.writeDouble(point.getX());
+			out.writeDouble(point.getY());
+		}
+	}
+
+	private int idOf(PointNode point)
+	{
+		if (point == null) return BinaryFigureFormat.NULL_ID;
+		return _ids.get(point);
+	}
+
+	private static DataOutputStream toData(Object o)
+	{
+		if (o instanceof DataOutputStream) return (DataOutputStream)o;
+		return new DataOutputStream((OutputStream)o);
+	}
+
+	private static void writeString(DataOutputStream out, String str) throws IOException
+	{
+		if (str == null)
+		{
+			writeVarint(out, 0);
+			return;
+		}
+		byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+		writeVarint(out, bytes.length + 1);
+		out.write(bytes);
+	}
+
+	/*
+	 * Unsigned LEB128: seven bits per byte, high bit set on all but the last byte.
+	 */
+	private static void writeVarint(DataOutputStream out, int value) throws IOException
+	{
+		while ((value & ~0x7F) != 0)
+		{
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+}
@@ -1,6 +1,11 @@
 package visitor;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.AbstractMap;
+import java.util.Map;
+import java.util.Set;
+
 import input.components.*;
 import input.components.point.*;
 import input.components.segments.SegmentNode;
@@ -11,82 +16,106 @@ import utilities.io.StringUtilities;
  * This file implements a Visitor (design pattern) with 
  * the intent of building an unparsed, String representation
  * of a geometry figure.
+ *
+ * The sink in the pair may be any Appendable (a StringBuilder, a buffered Writer, ...);
+ * text is appended piece by piece rather than concatenated into temporary Strings.
+ * The sink is returned from each visit method.
  */
 public class UnparseVisitor implements ComponentNodeVisitor
 {
+	/*
+	 * Reused to format coordinates that are not whole numbers when the sink is not
+	 * itself a StringBuilder; one visitor should not be shared between threads.
+	 */
+	private final StringBuilder _number = new StringBuilder(32);
+
 	@Override
 	public Object visitFigureNode(FigureNode node, Object o)
 	{
-		@SuppressWarnings("unchecked")
-		AbstractMap.SimpleEntry<StringBuilder, Integer> pair = (AbstractMap.SimpleEntry<StringBuilder, Integer>)(o);
-		StringBuilder sb = pair.getKey();
+		AbstractMap.SimpleEntry<? extends Appendable, Integer> pair = toPair(o);
+		Appendable sb = pair.getKey();
 		int level = pair.getValue();
 
 		level = 0;
-		sb.append(StringUtilities.indent(level) + "Figure" + "\n");
-		sb.append(StringUtilities.indent(level) + "{" + "\n");
-		sb.append(StringUtilities.indent(level+1) + "Description: " + node.getDescription() + "\n");
-		visitPointNodeDatabase(node.getPointsDatabase(), pair);
-		visitSegmentDatabaseNode(node.getSegments(), pair);
-		sb.append(StringUtilities.indent(level) + "}" + "\n");
-
-		sb.append("\n\n---------------------------------------------");
+		try
+		{
+			sb.append(StringUtilities.indent(level)).append("Figure").append('\n');
+			sb.append(StringUtilities.indent(level)).append('{').append('\n');
+			sb.append(StringUtilities.indent(level+1)).append("Description: ").append(node.getDescription()).append('\n');
+			visitPointNodeDatabase(node.getPointsDatabase(), pair);
+			visitSegmentDatabaseNode(node.getSegments(), pair);
+			sb.append(StringUtilities.indent(level)).append('}').append('\n');
+
+			sb.append("\n\n---------------------------------------------");
+		}
+		catch (IOException e) { throw new UncheckedIOException(e); }
+
 		return sb;
 	}
 
 	@Override
 	public Object visitSegmentDatabaseNode(SegmentNodeDatabase node, Object o)
 	{
-		@SuppressWarnings("unchecked")
-		AbstractMap.SimpleEntry<StringBuilder, Integer> pair = (AbstractMap.SimpleEntry<StringBuilder, Integer>)(o);
-		StringBuilder sb = pair.getKey();
+		AbstractMap.SimpleEntry<? extends Appendable, Integer> pair = toPair(o);
+		Appendable sb = pair.getKey();
 		int level = pair.getValue();
 
-		sb.append(StringUtilities.indent(level + 1) + "Segments: " + "\n");
-		sb.append(StringUtilities.indent(level + 1) + "{" + "\n");
-
-
-		for (PointNode adjList : node.getAdjLists().keySet()) {
-			sb.append(StringUtilities.indent(level+2) + adjList.getName() + " : ");
-			for (PointNode adjListNameNode : node.getAdjLists().get(adjList)) {
-				visitSegmentNode(new SegmentNode(adjList, adjListNameNode), o);
-			}			
-			sb.append("\n");
+		try
+		{
+			sb.append(StringUtilities.indent(level + 1)).append("Segments: ").append('\n');
+			sb.append(StringUtilities.indent(level + 1)).append('{').append('\n');
+
+			// Neighbors are written directly rather than wrapped in a SegmentNode per pair
+			String indent = StringUtilities.indent(level + 2);
+			for (Map.Entry<PointNode, Set<PointNode>> adjList : node.getAdjLists().entrySet()) {
+				sb.append(indent).append(adjList.getKey().getName()).append(" : ");
+				for (PointNode neighbor : adjList.getValue()) {
+					sb.append(neighbor.getName()).append(", ");
+				}
+				sb.append('\n');
+			}
+			sb.append(StringUtilities.indent(level + 1)).append('}').append('\n');
 		}
-		sb.append(StringUtilities.indent(level + 1) + "}" + "\n");
+		catch (IOException e) { throw new UncheckedIOException(e); }
+
 		return sb;
 	}
 
 	@Override
 	public Object visitSegmentNode(SegmentNode node, Object o)
 	{
-		@SuppressWarnings("unchecked")
-		AbstractMap.SimpleEntry<StringBuilder, Integer> pair = (AbstractMap.SimpleEntry<StringBuilder, Integer>)(o);
-		StringBuilder sb = pair.getKey();
-		int level = pair.getValue();
-
-		if (node.getPoint2() != null) {
-			sb.append(node.getPoint2().getName() + ", ");
+		AbstractMap.SimpleEntry<? extends Appendable, Integer> pair = toPair(o);
+		Appendable sb = pair.getKey();
+
+		try
+		{
+			if (node.getPoint2() != null) {
+				sb.append(node.getPoint2().getName()).append(", ");
+			}
 		}
+		catch (IOException e) { throw new UncheckedIOException(e); }
+
 		return sb;
 	}
 
 	@Override
 	public Object visitPointNodeDatabase(PointNodeDatabase node, Object o)
 	{
-		@SuppressWarnings("unchecked")
-		AbstractMap.SimpleEntry<StringBuilder, Integer> pair = (AbstractMap.SimpleEntry<StringBuilder, Integer>)(o);
-		StringBuilder sb = pair.getKey();
+		AbstractMap.SimpleEntry<? extends Appendable, Integer> pair = toPair(o);
+		Appendable sb = pair.getKey();
 		int level = pair.getValue();
-		// TODO
-		sb.append(StringUtilities.indent(level + 1) + "Points: " + "\n");
-		sb.append(StringUtilities.indent(level + 1) + "{" + "\n");
-		for (String pointNodeName : node.getAllNodeNames()) {
-			PointNode pn = node.getNodeByName(pointNodeName);
-			visitPointNode(pn, o);	
-		}
 
-		sb.append(StringUtilities.indent(level + 1) + "}" + "\n");
+		try
+		{
+			sb.append(StringUtilities.indent(level + 1)).append("Points: ").append('\n');
+			sb.append(StringUtilities.indent(level + 1)).append('{').append('\n');
+			for (PointNode pn : node.getAllNodes()) {
+				visitPointNode(pn, o);
+			}
+
+			sb.append(StringUtilities.indent(level + 1)).append('}').append('\n');
+		}
+		catch (IOException e) { throw new UncheckedIOException(e); }
 
 		return sb;
 	}
@@ -94,14 +123,64 @@ public class UnparseVisitor implements ComponentNodeVisitor
 	@Override
 	public Object visitPointNode(PointNode node, Object o)
 	{
-		@SuppressWarnings("unchecked")
-		AbstractMap.SimpleEntry<StringBuilder, Integer> pair = (AbstractMap.SimpleEntry<StringBuilder, Integer>)(o);
-		StringBuilder sb = pair.getKey();
+		AbstractMap.SimpleEntry<? extends Appendable, Integer> pair = toPair(o);
+		Appendable sb = pair.getKey();
 		int level = pair.getValue();
 
-		sb.append(StringUtilities.indent(level + 2) + "Point(" + node.getName() + 
-				  ")(" + node.getX() + ", " + node.getY() + ")" + "\n");
+		try
+		{
+			sb.append(StringUtilities.indent(level + 2)).append("Point(").append(node.getName()).append(")(");
+			appendDouble(sb, node.getX());
+			sb.append(", ");
+			appendDouble(sb, node.getY());
+			sb.append(')').append('\n');
+		}
+		catch (IOException e) { throw new UncheckedIOException(e); }
 
 		return sb;
 	}
+
+	@SuppressWarnings("unchecked")
+	private static AbstractMap.SimpleEntry<? extends Appendable, Integer> toPair(Object o)
+	{
+		return (AbstractMap.SimpleEntry<? extends Appendable, Integer>)(o);
+	}
+
+	/*
+	 * Appends d exactly as Double.toString would print it. Whole numbers below 10^7
+	 * (the common case for figure coordinates) are written digit by digit; anything else
+	 * goes through StringBuilder.append(double), which formats without boxing.
+	 */
+	private void appendDouble(Appendable sb, double d) throws IOException
+	{
+		if (d == Math.rint(d) && Math.abs(d) < 1e7 && !(d == 0 && 1 / d < 0))
+		{
+			long whole = (long)d;
+			if (whole < 0) { sb.append('-'); whole = -whole; }
+			appendDigits(sb, whole);
+			sb.append(".0");
+			return;
+		}
+
+		if (sb instanceof StringBuilder)
+		{
+			((StringBuilder)sb).append(d);
+			return;
+		}
+
+		_number.setLength(0);
+		_number.append(d);
+		sb.append(_number);
+	}
+
+	private static void appendDigits(Appendable sb, long value) throws IOException
+	{
+		long divisor = 1;
+		while (divisor * 10 <= value) divisor *= 10;
+
+		for ( ; divisor > 0; divisor /= 10)
+		{
+			sb.append((char)('0' + (value / divisor) % 10));
+		}
+	}
 }
\ No newline at end of file
@@ -0,0 +1,66 @@
+package builder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import input.components.FigureNode;
+import input.components.point.PointNode;
+import input.parser.JSONParser;
+import utilities.math.MathUtilities;
+
+class InterningBuilderTest {
+
+	@Test
+	void canonicalizes_by_name_and_epsilon_coordinates()
+	{
+		PointNodePool pool = new PointNodePool(16);
+
+		PointNode a = pool.intern("A", 1, 1);
+		assertSame(a, pool.intern("A", 1 + MathUtilities.EPSILON / 2, 1));
+		assertNotSame(a, pool.intern("B", 1, 1));
+		assertNotSame(a, pool.intern("A", 1 + 2 * MathUtilities.EPSILON, 1));
+
+		assertEquals(1, pool.getHitCount());
+		assertEquals(3, pool.getMissCount());
+	}
+
+	@Test
+	void huge_coordinates_are_pooled_and_non_finite_rejected()
+	{
+		PointNodePool pool = new PointNodePool(16);
+
+		PointNode far = pool.intern("F", 1e15, -Double.MAX_VALUE);
+		assertSame(far, pool.intern("F", 1e15, -Double.MAX_VALUE));
+		assertThrows(IllegalArgumentException.class, () -> pool.intern("I", Double.NEGATIVE_INFINITY, 0));
+	}
+
+	@Test
+	void stops_admitting_when_full()
+	{
+		PointNodePool pool = new PointNodePool(1);
+
+		PointNode a = pool.intern("A", 0, 0);
+		PointNode b = pool.intern("B", 5, 5);
+
+		assertSame(a, pool.intern("A", 0, 0));
+		assertNotSame(b, pool.intern("B", 5, 5));
+		assertEquals(1, pool.size());
+	}
+
+	@Test
+	void figures_share_points()
+	{
+		InterningBuilder builder = new InterningBuilder(new PointNodePool(PointNodePool.DEFAULT_CAPACITY));
+		String json = utilities.io.FileUtilities.readFileFilterComments("crossing_symmetric_triangle.json");
+
+		FigureNode first = (FigureNode)new JSONParser(builder).parse(json);
+		FigureNode second = (FigureNode)new JSONParser(builder).parse(json);
+
+		for (String name : first.getPointsDatabase().getAllNodeNames())
+		{
+			assertSame(first.getPointsDatabase().getNodeByName(name), second.getPointsDatabase().getNodeByName(name));
+		}
+		assertEquals(first.getPointsDatabase().size(), builder.getPool().getHitCount());
+	}
+}
@@ -0,0 +1,123 @@
+package diff;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import builder.GeometryBuilder;
+import input.components.FigureNode;
+import input.components.point.PointNode;
+import input.components.point.PointNodeDatabase;
+import input.components.segments.CompactSegmentNodeDatabase;
+import input.components.segments.SegmentNodeDatabase;
+import input.parser.JSONParser;
+import utilities.io.FileUtilities;
+import visitor.UnparseVisitor;
+
+class ChangeJournalTest {
+
+	private static FigureNode parse(String file)
+	{
+		return (FigureNode)new JSONParser(new GeometryBuilder()).parse(FileUtilities.readFileFilterComments(file));
+	}
+
+	@Test
+	void records_only_edits_after_it_is_enabled()
+	{
+		FigureNode figure = parse("single_triangle.json");
+		figure.getPointsDatabase().put(new PointNode("before", -10, -10));
+
+		ChangeJournal journal = ChangeJournal.attach(figure);
+		assertEquals(0, journal.getVersion());
+
+		PointNodeDatabase points = figure.getPointsDatabase();
+		points.put(new PointNode("D", 10, 10));
+		figure.getSegments().addUndirectedEdge(points.getNodeByName("A"), points.getNodeByName("D"));
+		// an edge that is already present is not an edit
+		figure.getSegments().addUndirectedEdge(points.getNodeByName("A"), points.getNodeByName("D"));
+
+		assertEquals(3, journal.getVersion());
+		assertEquals(ChangeJournal.Operation.PUT_POINT, journal.entriesSince(0).get(0).getOperation());
+		assertEquals(2, journal.entriesSince(1).size());
+
+		journal.detach(figure);
+		points.put(new PointNode("after", 20, 20));
+		assertEquals(3, journal.getVersion());
+	}
+
+	@Test
+	void repeated_edges_in_a_compact_figure_are_not_edits()
+	{
+		FigureNode figure = (FigureNode)new JSONParser(new GeometryBuilder(false, true)).parse(FileUtilities.readFileFilterComments("single_triangle.json"));
+		assertTrue(figure.getSegments() instanceof CompactSegmentNodeDatabase);
+		ChangeJournal journal = ChangeJournal.attach(figure);
+
+		PointNodeDatabase points = figure.getPointsDatabase();
+		PointNode a = points.getNodeByName("A"), b = points.getNodeByName("B");
+		figure.getSegments().addUndirectedEdge(a, b);
+		assertEquals(0, journal.getVersion());
+
+		points.put(new PointNode("D", 10, 10));
+		figure.getSegments().addUndirectedEdge(a, points.getNodeByName("D"));
+		figure.getSegments().addUndirectedEdge(a, points.getNodeByName("D"));
+		assertEquals(3, journal.getVersion());
+		assertEquals(1, journal.addedSegmentsSince(0).numUndirectedEdges());
+	}
+
+	@Test
+	void segments_since_a_version_are_netted()
+	{
+		FigureNode figure = parse("single_triangle.json");
+		ChangeJournal journal = ChangeJournal.attach(figure);
+		PointNodeDatabase points = figure.getPointsDatabase();
+		SegmentNodeDatabase segments = figure.getSegments();
+		PointNode a = points.getNodeByName("A");
+		PointNode b = points.getNodeByName("B");
+		PointNode c = points.getNodeByName("C");
+
+		points.put(new PointNode("D", 10, 10));
+		PointNode d = points.getNodeByName("D");
+		long version = journal.getVersion();
+
+		segments.addUndirectedEdge(a, d);
+		segments.addUndirectedEdge(b, d);
+		segments.removeUndirectedEdge(b, d);
+		segments.removeUndirectedEdge(a, c);
+
+		SegmentNodeDatabase added = journal.addedSegmentsSince(version);
+		assertEquals(1, added.numUndirectedEdges());
+		assertEquals(Arrays.asList("D"), added.edgesAsList(a));
+
+		SegmentNodeDatabase removed = journal.removedSegmentsSince(version);
+		assertEquals(1, removed.numUndirectedEdges());
+		assertEquals(Arrays.asList("C"), removed.edgesAsList(a));
+
+		// the changed segments go through the existing serializers
+		StringBuilder sb = new StringBuilder();
+		new UnparseVisitor().visitSegmentDatabaseNode(added, new AbstractMap.SimpleEntry<StringBuilder, Integer>(sb, 0));
+		assertTrue(sb.toString().contains("A : D, "));
+
+		journal.discardThrough(version);
+		assertThrows(IllegalArgumentException.class, () -> journal.entriesSince(version - 1));
+		assertEquals(1, journal.addedSegmentsSince(version).numUndirectedEdges());
+	}
+
+	@Test
+	void patch_since_a_version_brings_a_copy_up_to_date()
+	{
+		FigureNode edited = parse("crossing_symmetric_triangle.json");
+		FigureNode copy = parse("crossing_symmetric_triangle.json");
+		ChangeJournal journal = ChangeJournal.attach(edited);
+
+		FigureNode target = parse("fully_connected_irregular_polygon.json");
+		FigureDiff.diff(edited, target).apply(edited);
+
+		FigurePatch patch = journal.patchSince(0);
+		patch.apply(copy);
+
+		assertTrue(FigureDiff.diff(copy, edited).isEmpty());
+	}
+}
@@ -0,0 +1,138 @@
+package diff;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import builder.GeometryBuilder;
+import input.components.FigureNode;
+import input.components.point.PointNode;
+import input.components.segments.CompactSegmentNodeDatabase;
+import input.components.segments.SegmentNode;
+import input.components.segments.SegmentNodeDatabase;
+import input.parser.JSONParser;
+import utilities.io.FileUtilities;
+
+class FigureDiffTest {
+
+	/*
+	 * Builds a figure from "name x y" points and "a-b" edges.
+	 */
+	private static FigureNode figure(String[] points, String... edges)
+	{
+		GeometryBuilder builder = new GeometryBuilder();
+		FigureNode figure = builder.buildFigureNode("", builder.buildPointDatabaseNode(new ArrayList<PointNode>()),
+				                                    builder.buildSegmentNodeDatabase());
+		for (String point : points)
+		{
+			String[] parts = point.split(" ");
+			figure.getPointsDatabase().put(new PointNode(parts[0], Double.parseDouble(parts[1]), Double.parseDouble(parts[2])));
+		}
+		SegmentNodeDatabase segments = figure.getSegments();
+		for (String edge : edges)
+		{
+			String[] names = edge.split("-");
+			segments.addUndirectedEdge(figure.getPointsDatabase().getNodeByName(names[0]),
+					                   figure.getPointsDatabase().getNodeByName(names[1]));
+		}
+		return figure;
+	}
+
+	@Test
+	void identical_figures_have_an_empty_patch()
+	{
+		FigureNode a = (FigureNode)new JSONParser(new GeometryBuilder()).parse(FileUtilities.readFileFilterComments("pacmanGhost.json"));
+		FigureNode b = (FigureNode)new JSONParser(new GeometryBuilder()).parse(FileUtilities.readFileFilterComments("pacmanGhost.json"));
+
+		assertTrue(FigureDiff.diff(a, b).isEmpty());
+	}
+
+	@Test
+	void reports_added_removed_and_moved()
+	{
+		FigureNode before = figure(new String[] { "A 0 0", "B 1 0", "C 0 1" }, "A-B", "B-C");
+		FigureNode after = figure(new String[] { "A 0 0", "B 2 0", "D 5 5" }, "A-B", "A-D");
+
+		FigurePatch patch = FigureDiff.diff(before, after);
+
+		assertEquals(1, patch.getAddedPoints().size());
+		assertEquals("D", patch.getAddedPoints().get(0).getName());
+		assertEquals(1, patch.getRemovedPoints().size());
+		assertEquals("C", patch.getRemovedPoints().get(0).getName());
+		assertEquals(1, patch.getMovedPoints().size());
+		assertEquals(new PointNode(2, 0), patch.getMovedPoints().get(0).getTo());
+		assertEquals(1, patch.getAddedEdges().size());
+		assertEquals(1, patch.getRemovedEdges().size());
+		assertEquals(5, patch.size());
+	}
+
+	@Test
+	void applied_patch_reproduces_the_target()
+	{
+		FigureNode before = figure(new String[] { "A 0 0", "B 1 0", "C 0 1", "E 3 3" }, "A-B", "B-C", "C-E", "A-E");
+		// A and B swap places, C is removed and D added
+		FigureNode after = figure(new String[] { "A 1 0", "B 0 0", "D 5 5", "E 3 3" }, "A-B", "A-E", "D-E", "B-D");
+
+		FigureDiff.diff(before, after).apply(before);
+
+		assertTrue(FigureDiff.diff(before, after).isEmpty());
+		assertEquals(Arrays.asList("E", "A", "B", "D"), before.getPointsDatabase().getAllNodeNames());
+		assertEquals(4, before.getSegments().numUndirectedEdges());
+	}
+
+	@Test
+	void failing_patch_leaves_the_figure_unchanged()
+	{
+		FigurePatch patch = FigureDiff.diff(figure(new String[] { "A 0 0", "B 1 0", "C 0 1" }, "A-B", "B-C"),
+				                            figure(new String[] { "A 0 0", "B 2 0" }, "A-B"));
+
+		// D already sits where B is moving
+		FigureNode occupied = figure(new String[] { "A 0 0", "B 1 0", "C 0 1", "D 2 0" }, "A-B", "B-C");
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> patch.apply(occupied));
+		assertTrue(e.getMessage().contains("B"));
+		assertEquals(Arrays.asList("A", "B", "C", "D"), occupied.getPointsDatabase().getAllNodeNames());
+		assertEquals(2, occupied.getSegments().numUndirectedEdges());
+
+		// the edge B-C the patch removes is missing, and so is its endpoint C
+		FigureNode unknown = figure(new String[] { "A 0 0", "B 1 0" }, "A-B");
+		e = assertThrows(IllegalArgumentException.class, () -> patch.apply(unknown));
+		assertTrue(e.getMessage().contains("unknown point C"));
+		assertEquals(Arrays.asList("A", "B"), unknown.getPointsDatabase().getAllNodeNames());
+		assertEquals(1, unknown.getSegments().numUndirectedEdges());
+
+		// a point the patch leaves in place is the only thing D is missing for
+		FigurePatch addsEdge = FigureDiff.diff(figure(new String[] { "A 0 0", "D 2 0" }),
+				                               figure(new String[] { "A 5 5", "D 2 0" }, "A-D"));
+		FigureNode noD = figure(new String[] { "A 0 0", "B 1 0" }, "A-B");
+		e = assertThrows(IllegalArgumentException.class, () -> addsEdge.apply(noD));
+		assertTrue(e.getMessage().contains("unknown point D"));
+		assertEquals(new PointNode(0, 0), noD.getPointsDatabase().getNodeByName("A"));
+		assertEquals(1, noD.getSegments().numUndirectedEdges());
+
+		patch.apply(figure(new String[] { "A 0 0", "B 1 0", "C 0 1" }, "A-B", "B-C"));
+	}
+
+	@Test
+	void patch_applies_to_a_compact_figure()
+	{
+		String json = FileUtilities.readFileFilterComments("catWithTriangles.json");
+		FigureNode compact = (FigureNode)new JSONParser(new GeometryBuilder(false, true)).parse(json);
+		assertTrue(compact.getSegments() instanceof CompactSegmentNodeDatabase);
+
+		FigureNode target = (FigureNode)new JSONParser(new GeometryBuilder()).parse(json);
+		SegmentNodeDatabase segments = target.getSegments();
+		for (SegmentNode segment : segments.asUniqueSegmentList().subList(0, 5)) segments.removeUndirectedEdge(segment.getPoint1(), segment.getPoint2());
+		PointNode added = new PointNode("ZZ", 100, 100);
+		target.getPointsDatabase().put(added);
+		segments.addUndirectedEdge(target.getPointsDatabase().getAllNodes().get(0), added);
+
+		FigurePatch patch = FigureDiff.diff(compact, target);
+		assertEquals(7, patch.size());
+		patch.apply(compact);
+		assertTrue(FigureDiff.diff(compact, target).isEmpty());
+		assertEquals(segments.numUndirectedEdges(), compact.getSegments().numUndirectedEdges());
+	}
+}
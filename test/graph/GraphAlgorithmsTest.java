@@ -0,0 +1,125 @@
+package graph;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import builder.GeometryBuilder;
+import input.components.FigureNode;
+import input.components.point.PointNode;
+import input.components.segments.CompactSegmentNodeDatabase;
+import input.components.segments.SegmentNodeDatabase;
+import input.parser.JSONParser;
+import utilities.io.FileUtilities;
+
+class GraphAlgorithmsTest {
+
+	private static final PointNode A = new PointNode("A", 0, 0);
+	private static final PointNode B = new PointNode("B", 3, 0);
+	private static final PointNode C = new PointNode("C", 3, 4);
+	private static final PointNode D = new PointNode("D", 10, 10);
+	private static final PointNode E = new PointNode("E", 11, 10);
+
+	/*
+	 * A - B - C - A (a triangle) and D - E, a separate edge.
+	 */
+	private static SegmentNodeDatabase triangleAndEdge()
+	{
+		SegmentNodeDatabase segments = new SegmentNodeDatabase();
+		segments.addUndirectedEdge(A, B);
+		segments.addUndirectedEdge(B, C);
+		segments.addUndirectedEdge(C, A);
+		segments.addUndirectedEdge(D, E);
+		return segments;
+	}
+
+	@Test
+	void indexed_graph_stores_each_edge_both_ways()
+	{
+		IndexedGraph graph = new IndexedGraph(triangleAndEdge());
+		assertEquals(5, graph.getVertexCount());
+		assertEquals(4, graph.getEdgeCount());
+		assertEquals(8, graph.getNeighbors().length);
+		assertEquals(2, graph.degree(graph.getId(A)));
+		assertEquals(-1, graph.getId(new PointNode("F", 50, 50)));
+		assertEquals(5.0, graph.weight(graph.getId(A), graph.getId(C)));
+
+		FigureNode figure = (FigureNode)new JSONParser(new GeometryBuilder()).parse(FileUtilities.readFileFilterComments("catWithTriangles.json"));
+		IndexedGraph plain = new IndexedGraph(figure.getSegments());
+		IndexedGraph compact = new IndexedGraph(new CompactSegmentNodeDatabase(figure.getSegments()));
+		assertEquals(figure.getSegments().numUndirectedEdges(), plain.getEdgeCount());
+		assertEquals(plain.getEdgeCount(), compact.getEdgeCount());
+		for (int v = 0; v < plain.getVertexCount(); v++)
+		{
+			assertEquals(plain.degree(v), compact.degree(compact.getId(plain.getVertex(v))));
+		}
+	}
+
+	@Test
+	void searches_reach_only_the_source_component()
+	{
+		IndexedGraph graph = new IndexedGraph(triangleAndEdge());
+		int a = graph.getId(A), b = graph.getId(B), c = graph.getId(C);
+
+		Traversal bfs = GraphSearch.breadthFirst(graph, a);
+		assertEquals(3, bfs.size());
+		assertEquals(1, bfs.getDepth(b));
+		assertEquals(1, bfs.getDepth(c));
+		assertFalse(bfs.isReached(graph.getId(D)));
+
+		Traversal dfs = GraphSearch.depthFirst(graph, a);
+		assertEquals(3, dfs.size());
+		assertEquals(a, dfs.getOrder()[0]);
+		assertEquals(2, dfs.getDepth(dfs.getOrder()[2]));
+		assertEquals(List.of(A), dfs.pathTo(a));
+
+		ConnectedComponents components = new ConnectedComponents(graph);
+		assertEquals(2, components.getCount());
+		assertTrue(components.connected(a, c));
+		assertFalse(components.connected(a, graph.getId(E)));
+		assertEquals(3, components.size(components.componentOf(b)));
+	}
+
+	@Test
+	void shortest_paths_use_euclidean_lengths()
+	{
+		SegmentNodeDatabase segments = triangleAndEdge();
+		PointNode far = new PointNode("F", 0, 4);
+		segments.addUndirectedEdge(A, far);
+		segments.addUndirectedEdge(far, C);
+		IndexedGraph graph = new IndexedGraph(segments);
+
+		ShortestPaths paths = ShortestPaths.from(graph, graph.getId(A));
+		assertEquals(5.0, paths.getDistance(graph.getId(C)));
+		assertEquals(List.of(A, C), paths.pathTo(graph.getId(C)));
+		assertEquals(3.0, paths.getDistance(graph.getId(B)));
+		assertEquals(4.0, paths.getDistance(graph.getId(far)));
+		assertEquals(Double.POSITIVE_INFINITY, paths.getDistance(graph.getId(D)));
+		assertTrue(paths.pathTo(graph.getId(E)).isEmpty());
+
+		ShortestPaths between = ShortestPaths.between(graph, graph.getId(B), graph.getId(far));
+		assertEquals(7.0, between.getDistance(graph.getId(far)));
+	}
+
+	@Test
+	void cycles_are_found_only_when_present()
+	{
+		SegmentNodeDatabase tree = new SegmentNodeDatabase();
+		tree.addUndirectedEdge(A, B);
+		tree.addUndirectedEdge(B, C);
+		tree.addUndirectedEdge(B, D);
+		IndexedGraph acyclic = new IndexedGraph(tree);
+		assertFalse(CycleDetection.hasCycle(acyclic));
+		assertNull(CycleDetection.findCycle(acyclic));
+
+		IndexedGraph graph = new IndexedGraph(triangleAndEdge());
+		assertTrue(CycleDetection.hasCycle(graph));
+		int[] cycle = CycleDetection.findCycle(graph);
+		assertEquals(3, cycle.length);
+
+		tree.addDirectedEdge(D, D);
+		assertArrayEquals(new int[] { new IndexedGraph(tree).getId(D) }, CycleDetection.findCycle(new IndexedGraph(tree)));
+	}
+}
@@ -0,0 +1,101 @@
+package graph;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import builder.GeometryBuilder;
+import input.components.FigureNode;
+import input.components.point.PointNode;
+import input.components.segments.SegmentNodeDatabase;
+import input.parser.JSONParser;
+import utilities.io.FileUtilities;
+
+class PlanarFacesTest {
+
+	private static PlanarFaces faces(String file)
+	{
+		FigureNode figure = (FigureNode)new JSONParser(new GeometryBuilder()).parse(FileUtilities.readFileFilterComments(file));
+		return new PlanarFaces(new IndexedGraph(figure.getSegments()));
+	}
+
+	private static int bounded(PlanarFaces faces)
+	{
+		return faces.boundedFaces().size();
+	}
+
+	@Test
+	void square_with_diagonal_has_two_triangles()
+	{
+		PointNode a = new PointNode("A", 0, 0), b = new PointNode("B", 2, 0);
+		PointNode c = new PointNode("C", 2, 2), d = new PointNode("D", 0, 2);
+		SegmentNodeDatabase segments = new SegmentNodeDatabase();
+		segments.addUndirectedEdge(a, b);
+		segments.addUndirectedEdge(b, c);
+		segments.addUndirectedEdge(c, d);
+		segments.addUndirectedEdge(d, a);
+		segments.addUndirectedEdge(a, c);
+
+		PlanarFaces faces = new PlanarFaces(new IndexedGraph(segments));
+		assertEquals(3, faces.getFaceCount());
+		List<List<PointNode>> triangles = faces.triangles();
+		assertEquals(2, triangles.size());
+		for (int f = 0; f < faces.getFaceCount(); f++)
+		{
+			if (faces.isBounded(f)) assertEquals(2.0, faces.getSignedArea(f));
+			else assertEquals(-4.0, faces.getSignedArea(f));
+		}
+		assertTrue(triangles.get(0).contains(a) && triangles.get(0).contains(c));
+	}
+
+	@Test
+	void figures_have_the_faces_euler_predicts()
+	{
+		PlanarFaces triangle = faces("single_triangle.json");
+		assertEquals(2, triangle.getFaceCount());
+		assertEquals(1, triangle.triangles().size());
+
+		// bounded faces = E - V + C for a plane graph
+		assertEquals(7, bounded(faces("catWithTriangles.json")));
+		assertEquals(5, bounded(faces("octogonSnowman.json")));
+		assertEquals(0, bounded(faces("collinear_line_segments.json")));
+	}
+
+	@Test
+	void random_triangulated_grid()
+	{
+		int side = 30;
+		Random random = new Random(22);
+		PointNode[] points = new PointNode[side * side];
+		for (int i = 0; i < points.length; i++) points[i] = new PointNode("p" + i, i % side, i / side);
+
+		SegmentNodeDatabase segments = new SegmentNodeDatabase();
+		int diagonals = 0;
+		for (int y = 0; y < side; y++)
+		{
+			for (int x = 0; x < side; x++)
+			{
+				PointNode p = points[y * side + x];
+				if (x + 1 < side) segments.addUndirectedEdge(p, points[y * side + x + 1]);
+				if (y + 1 < side) segments.addUndirectedEdge(p, points[(y + 1) * side + x]);
+				if (x + 1 < side && y + 1 < side && random.nextBoolean())
+				{
+					segments.addUndirectedEdge(p, points[(y + 1) * side + x + 1]);
+					diagonals++;
+				}
+			}
+		}
+
+		PlanarFaces faces = new PlanarFaces(new IndexedGraph(segments));
+		int cells = (side - 1) * (side - 1);
+		assertEquals(cells + diagonals, bounded(faces));
+		assertEquals(2 * diagonals, faces.triangles().size());
+
+		double total = 0;
+		for (int f = 0; f < faces.getFaceCount(); f++) if (faces.isBounded(f)) total += faces.getSignedArea(f);
+		assertEquals(cells, total, 1e-9);
+	}
+}
@@ -0,0 +1,109 @@
+package input.components;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import builder.GeometryBuilder;
+import input.components.point.PointNode;
+import input.components.point.PointNodeDatabase;
+import input.components.segments.CompactSegmentNodeDatabase;
+import input.components.segments.SegmentNodeDatabase;
+import input.parser.JSONParser;
+import utilities.io.FileUtilities;
+
+class FigureStatisticsTest {
+
+	private static FigureNode parse(String file)
+	{
+		return (FigureNode)new JSONParser(new GeometryBuilder()).parse(FileUtilities.readFileFilterComments(file));
+	}
+
+	private static void assertSameStatistics(FigureStatistics expected, FigureStatistics actual)
+	{
+		assertEquals(expected.getEdgeCount(), actual.getEdgeCount());
+		assertEquals(expected.getVertexCount(), actual.getVertexCount());
+		assertEquals(expected.getComponentCount(), actual.getComponentCount());
+		assertArrayEquals(expected.getDegreeHistogram(), actual.getDegreeHistogram());
+		assertEquals(expected.getMinX(), actual.getMinX());
+		assertEquals(expected.getMaxY(), actual.getMaxY());
+		assertEquals(expected.getCentroidX(), actual.getCentroidX(), 1e-9);
+		assertEquals(expected.getCentroidY(), actual.getCentroidY(), 1e-9);
+	}
+
+	@Test
+	void triangle_statistics_follow_edits()
+	{
+		FigureNode figure = parse("single_triangle.json");
+		assertNull(figure.getStatistics());
+		FigureStatistics statistics = figure.enableStatistics();
+		assertSame(statistics, figure.enableStatistics());
+
+		assertEquals(figure.getSegments().numUndirectedEdges(), statistics.getEdgeCount());
+		assertEquals(1, statistics.getComponentCount());
+		assertEquals(3, statistics.getDegreeCount(2));
+
+		PointNodeDatabase points = figure.getPointsDatabase();
+		points.put(new PointNode("D", 100, -100));
+		assertEquals(2, statistics.getComponentCount());
+		assertEquals(1, statistics.getDegreeCount(0));
+		assertEquals(100.0, statistics.getMaxX());
+
+		figure.getSegments().addUndirectedEdge(points.getNodeByName("A"), points.getNodeByName("D"));
+		assertEquals(1, statistics.getComponentCount());
+		assertEquals(3, statistics.getMaxDegree());
+		assertSameStatistics(new FigureStatistics(points, figure.getSegments()), statistics);
+
+		figure.getSegments().removeUndirectedEdge(points.getNodeByName("A"), points.getNodeByName("D"));
+		points.remove(points.getNodeByName("D"));
+		assertEquals(1, statistics.getComponentCount());
+		assertSameStatistics(new FigureStatistics(points, figure.getSegments()), statistics);
+	}
+
+	@Test
+	void compact_figures_are_counted_incrementally()
+	{
+		FigureNode figure = (FigureNode)new JSONParser(new GeometryBuilder(false, true)).parse(FileUtilities.readFileFilterComments("catWithTriangles.json"));
+		assertTrue(figure.getSegments() instanceof CompactSegmentNodeDatabase);
+		FigureStatistics statistics = figure.enableStatistics();
+		assertEquals(figure.getSegments().numUndirectedEdges(), statistics.getEdgeCount());
+		PointNodeDatabase points = figure.getPointsDatabase();
+		Random random = new Random(20);
+
+		for (int i = 0; i < 500; i++)
+		{
+			// many of these edges already exist and must not be counted again
+			List<PointNode> all = points.getAllNodes();
+			figure.getSegments().addUndirectedEdge(all.get(random.nextInt(all.size())), all.get(random.nextInt(all.size())));
+			assertFalse(statistics._graphStale);
+			if (i % 50 == 0) assertSameStatistics(new FigureStatistics(points, figure.getSegments()), statistics);
+		}
+		assertSameStatistics(new FigureStatistics(points, figure.getSegments()), statistics);
+	}
+
+	@Test
+	void random_edits_match_recomputation()
+	{
+		FigureNode figure = new FigureNode("random", new PointNodeDatabase(), new SegmentNodeDatabase());
+		FigureStatistics statistics = figure.enableStatistics();
+		PointNodeDatabase points = figure.getPointsDatabase();
+		SegmentNodeDatabase segments = figure.getSegments();
+		Random random = new Random(20);
+
+		for (int i = 0; i < 2000; i++)
+		{
+			List<PointNode> all = points.getAllNodes();
+			int choice = random.nextInt(10);
+			if (choice < 4 || all.size() < 2) points.put(new PointNode("p" + i, random.nextInt(50), random.nextInt(50)));
+			else if (choice < 8) segments.addUndirectedEdge(all.get(random.nextInt(all.size())), all.get(random.nextInt(all.size())));
+			else if (choice == 8) points.remove(all.get(random.nextInt(all.size())));
+			else segments.removeDirectedEdge(all.get(random.nextInt(all.size())), all.get(random.nextInt(all.size())));
+
+			if (i % 50 == 0) assertSameStatistics(new FigureStatistics(points, segments), statistics);
+		}
+		assertSameStatistics(new FigureStatistics(points, segments), statistics);
+	}
+}
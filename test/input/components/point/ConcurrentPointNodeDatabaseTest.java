@@ -0,0 +1,92 @@
+package input.components.point;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class ConcurrentPointNodeDatabaseTest {
+
+	@Test
+	void removing_a_name_owner_passes_the_name_on()
+	{
+		for (PointNodeDatabase db : new PointNodeDatabase[] { new PointNodeDatabase(), new ConcurrentPointNodeDatabase() })
+		{
+			db.put(new PointNode("P", 0, 0));
+			db.put(new PointNode("P", 5, 5));
+
+			assertTrue(db.remove(new PointNode(0, 0)));
+
+			assertEquals(1, db.size());
+			assertEquals(new PointNode(5, 5), db.getNodeByName("P"));
+
+			assertTrue(db.remove(new PointNode(5, 5)));
+			assertNull(db.getNodeByName("P"));
+		}
+	}
+
+	@Test
+	void removeAll_matches_PointNodeDatabase()
+	{
+		Random random = new Random(7);
+		PointNodeDatabase expected = new PointNodeDatabase();
+		ConcurrentPointNodeDatabase concurrent = new ConcurrentPointNodeDatabase();
+
+		// few names over many points, so most names are shared
+		for (int i = 0; i < 400; i++)
+		{
+			PointNode node = new PointNode("N" + random.nextInt(20), random.nextInt(30), random.nextInt(30));
+			assertEquals(expected.put(node), concurrent.put(node));
+		}
+
+		for (int round = 0; round < 10; round++)
+		{
+			List<PointNode> removals = new ArrayList<PointNode>();
+			for (int i = 0; i < 15; i++) removals.add(new PointNode(random.nextInt(30), random.nextInt(30)));
+
+			assertEquals(expected.removeAll(removals), concurrent.removeAll(removals));
+			assertEquals(expected.getAllNodes(), concurrent.getAllNodes());
+			for (int n = 0; n < 20; n++)
+			{
+				assertEquals(expected.getNodeByName("N" + n), concurrent.getNodeByName("N" + n));
+			}
+		}
+	}
+
+	@Test
+	void parallel_removes_leave_every_name_on_a_surviving_point() throws InterruptedException
+	{
+		ConcurrentPointNodeDatabase db = new ConcurrentPointNodeDatabase();
+		int names = 50;
+		for (int i = 0; i < 4000; i++) db.put(new PointNode("N" + i % names, i % 100, i / 100));
+
+		// each thread removes its own rows; every name also lives on the last row
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int t = 0; t < 8; t++)
+		{
+			int row = t * 4;
+			threads.add(new Thread(() -> {
+				for (int y = row; y < row + 4; y++)
+				{
+					for (int x = 0; x < 100; x++) db.remove(new PointNode(x, y));
+				}
+			}));
+		}
+		for (Thread thread : threads) thread.start();
+		for (Thread thread : threads) thread.join();
+
+		assertEquals(4000 - 32 * 100, db.size());
+		for (int n = 0; n < names; n++)
+		{
+			PointNode owner = db.getNodeByName("N" + n);
+			assertNotNull(owner);
+			assertTrue(owner.getY() >= 32);
+			assertSame(owner, db.getPoint(owner.getX(), owner.getY()));
+		}
+		assertEquals(Arrays.asList(new PointNode(0, 32), new PointNode(1, 32)), db.getAllNodes().subList(0, 2));
+	}
+}
@@ -0,0 +1,185 @@
+package input.components.point;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import utilities.math.MathUtilities;
+
+class PointNodeDatabaseTest {
+
+	@Test
+	void put_rejects_epsilon_equal_points()
+	{
+		PointNodeDatabase db = new PointNodeDatabase();
+
+		assertTrue(db.put(new PointNode("A", 1, 1)));
+		assertFalse(db.put(new PointNode("B", 1 + MathUtilities.EPSILON / 2, 1)));
+		assertTrue(db.put(new PointNode("C", 1 + 2 * MathUtilities.EPSILON, 1)));
+
+		assertEquals(Arrays.asList("A", "C"), db.getAllNodeNames());
+	}
+
+	@Test
+	void coordinate_lookups_match_across_cell_boundaries()
+	{
+		PointNodeDatabase db = new PointNodeDatabase();
+		// just below the boundary between cells 2 and 3, so nearX is in the next cell
+		double x = 3 * PointSpatialHash.CELL_SIZE - MathUtilities.EPSILON / 10;
+		db.put(new PointNode("A", x, -x));
+		assertEquals(PointSpatialHash.cell(x) + 1, PointSpatialHash.cell(x + MathUtilities.EPSILON / 5));
+
+		double nearX = x + MathUtilities.EPSILON / 5;
+		assertTrue(db.contains(nearX, -nearX));
+		assertEquals("A", db.getName(nearX, -nearX));
+		assertEquals("A", db.getPoint(new PointNode(nearX, -x)).getName());
+		assertFalse(db.contains(x + 2 * MathUtilities.EPSILON, -x));
+	}
+
+	@Test
+	void most_lookups_probe_a_single_cell()
+	{
+		// cellSpan and the find loops rely on the epsilon interval overlapping at most two cells
+		assertTrue(PointSpatialHash.CELL_SIZE >= 2 * MathUtilities.EPSILON);
+
+		// a cell of 16 EPSILON leaves 14 EPSILON of it where the interval fits: 7/8 of values
+		Random random = new Random(2);
+		int single = 0;
+		for (int i = 0; i < 100_000; i++)
+		{
+			double value = (random.nextDouble() - 0.5) * 1000;
+			int span = PointSpatialHash.cellSpan(value);
+			if (span == 1) single++;
+			assertEquals(PointSpatialHash.cell(value + MathUtilities.EPSILON), PointSpatialHash.firstCell(value) + span - 1);
+		}
+		assertEquals(0.875, single / 100_000.0, 0.01);
+	}
+
+	@Test
+	void huge_coordinates_are_found_and_non_finite_rejected()
+	{
+		for (PointNodeDatabase db : new PointNodeDatabase[] { new PointNodeDatabase(), new PrimitivePointNodeDatabase(),
+				                                                        new ConcurrentPointNodeDatabase() })
+		{
+			assertTrue(db.put(new PointNode("A", 1e15, 0)));
+			assertTrue(db.put(new PointNode("B", -1e300, Double.MAX_VALUE)));
+			assertFalse(db.put(new PointNode("C", 1e15, 0)));
+
+			assertTrue(db.contains(1e15, 0));
+			assertFalse(db.contains(1e15, 1));
+			assertEquals("B", db.getName(-1e300, Double.MAX_VALUE));
+
+			assertThrows(IllegalArgumentException.class, () -> db.put(new PointNode("D", Double.POSITIVE_INFINITY, 0)));
+			assertThrows(IllegalArgumentException.class, () -> db.contains(0, Double.NaN));
+			assertEquals(2, db.size());
+		}
+	}
+
+	@Test
+	void lookups_by_name_and_coordinates()
+	{
+		PointNodeDatabase db = new PointNodeDatabase(Arrays.asList(new PointNode("A", 0, 0),
+				                                                   new PointNode("B", 0, 1),
+				                                                   new PointNode("C", 1, 0)));
+
+		assertEquals("B", db.getName(0, 1));
+		assertEquals(new PointNode(1, 0), db.getNodeByName("C"));
+		assertNull(db.getNodeByName("D"));
+		assertNull(db.getPoint(1, 1));
+	}
+
+	@Test
+	void primitive_database_matches_object_database()
+	{
+		PrimitivePointNodeDatabase db = new PrimitivePointNodeDatabase();
+
+		assertTrue(db.put("A", 0, 0));
+		assertTrue(db.put(new PointNode("\u00C5ngstr\u00F6m", 2.5, -1)));
+		assertFalse(db.put("B", MathUtilities.EPSILON / 3, 0));
+		assertTrue(db.put("A", 4, 4));
+
+		assertEquals(3, db.size());
+		assertEquals(Arrays.asList("A", "\u00C5ngstr\u00F6m", "A"), db.getAllNodeNames());
+		assertEquals(new PointNode(0, 0), db.getNodeByName("A"));
+		assertEquals("\u00C5ngstr\u00F6m", db.getName(2.5, -1));
+		assertEquals(2.5, db.getNodeByName("\u00C5ngstr\u00F6m").getX(), MathUtilities.EPSILON);
+		assertNull(db.getNodeByName("\u00C5ngstrom"));
+		assertTrue(db.contains(new PointNode(4, 4)));
+	}
+
+	@Test
+	void primitive_database_hands_out_one_PointNode_per_point()
+	{
+		PrimitivePointNodeDatabase db = new PrimitivePointNodeDatabase();
+		for (int i = 0; i < 40; i++) db.put("P" + i, i, -i);
+
+		PointNode p7 = db.getNodeByName("P7");
+		assertSame(p7, db.getPoint(7, -7));
+		assertSame(p7, db.getAllNodes().get(7));
+
+		db.trimToSize();
+		assertTrue(db.remove(new PointNode(3, -3)));
+		assertSame(p7, db.getNodeByName("P7"));
+		assertEquals("P7", db.getName(7, -7));
+		assertEquals(new PointNode("P39", 39, -39), db.getAllNodes().get(38));
+
+		assertTrue(db.put("Q", 100, 100));
+		assertSame(db.getNodeByName("Q"), db.getPoint(100, 100));
+	}
+
+	@Test
+	void removeAll_keeps_order_and_indexes()
+	{
+		for (PointNodeDatabase db : new PointNodeDatabase[] { new PointNodeDatabase(), new PrimitivePointNodeDatabase() })
+		{
+			db.put(new PointNode("A", 0, 0));
+			db.put(new PointNode("B", 1, 0));
+			db.put(new PointNode("C", 2, 0));
+			db.put(new PointNode("D", 3, 0));
+
+			assertEquals(2, db.removeAll(Arrays.asList(new PointNode(1, 0), new PointNode("X", 3, 0), new PointNode(9, 9))));
+
+			assertEquals(Arrays.asList("A", "C"), db.getAllNodeNames());
+			assertEquals("C", db.getName(2, 0));
+			assertFalse(db.contains(1, 0));
+			assertNull(db.getNodeByName("B"));
+
+			assertTrue(db.put(new PointNode("B", 5, 5)));
+			assertEquals(new PointNode(5, 5), db.getNodeByName("B"));
+		}
+	}
+
+	@Test
+	void concurrent_puts_keep_one_point_per_location() throws InterruptedException
+	{
+		ConcurrentPointNodeDatabase db = new ConcurrentPointNodeDatabase();
+		int locations = 2000;
+
+		// every thread puts every location, nudged by less than epsilon
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int t = 0; t < 8; t++)
+		{
+			double nudge = t * MathUtilities.EPSILON / 10;
+			threads.add(new Thread(() -> {
+				for (int i = 0; i < locations; i++) db.put(new PointNode("P" + i, i % 50 + nudge, i / 50 - nudge));
+			}));
+		}
+		for (Thread thread : threads) thread.start();
+		for (Thread thread : threads) thread.join();
+
+		assertEquals(locations, db.size());
+		assertEquals(locations, db.getAllNodes().size());
+		assertEquals(locations, new HashSet<String>(db.getAllNodeNames()).size());
+		assertEquals("P77", db.getName(27, 1));
+
+		assertTrue(db.remove(new PointNode(27, 1)));
+		assertFalse(db.contains(27, 1));
+		assertEquals(locations - 1, db.getAllNodes().size());
+	}
+}
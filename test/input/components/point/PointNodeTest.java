@@ -0,0 +1,39 @@
+package input.components.point;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class PointNodeTest {
+
+	@Test
+	void equal_coordinates_hash_alike()
+	{
+		assertEquals(new PointNode("A", 3, 4).hashCode(), new PointNode("B", 3, 4).hashCode());
+		assertEquals(new PointNode(0.0, -0.0).hashCode(), new PointNode(-0.0, 0.0).hashCode());
+		assertNotEquals(new PointNode(3, 4).hashCode(), new PointNode(4, 3).hashCode());
+	}
+
+	@Test
+	void grid_coordinates_do_not_collide()
+	{
+		// 31 * Double.hashCode(x) + Double.hashCode(y) gave 107719 distinct hashes for this grid
+		Set<Integer> hashes = new HashSet<Integer>();
+		for (int i = 0; i < 1000; i++)
+		{
+			for (int j = 0; j < 1000; j++) hashes.add(new PointNode(i, j).hashCode());
+		}
+		// random 32-bit hashes would have about 116 collisions
+		assertTrue(hashes.size() > 999_500, "distinct hashes: " + hashes.size());
+
+		hashes.clear();
+		for (int i = 0; i < 300; i++)
+		{
+			for (int j = 0; j < 300; j++) hashes.add(new PointNode(i * 0.5, j * 0.01).hashCode());
+		}
+		assertTrue(hashes.size() > 89_900, "distinct hashes: " + hashes.size());
+	}
+}
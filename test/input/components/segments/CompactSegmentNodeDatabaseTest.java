@@ -0,0 +1,118 @@
+package input.components.segments;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import builder.GeometryBuilder;
+import input.components.FigureNode;
+import input.components.point.PointNode;
+import input.parser.JSONParser;
+import utilities.io.FileUtilities;
+
+class CompactSegmentNodeDatabaseTest {
+
+	private static void assertSameAdjacency(SegmentNodeDatabase expected, CompactSegmentNodeDatabase actual)
+	{
+		assertEquals(expected.getAdjLists(), actual.getAdjLists());
+		assertEquals(new ArrayList<PointNode>(expected.getAdjLists().keySet()), new ArrayList<PointNode>(actual.getAdjLists().keySet()));
+		for (PointNode key : expected.getAdjLists().keySet())
+		{
+			assertEquals(expected.edgesAsList(key), actual.edgesAsList(key));
+		}
+		assertEquals(expected.numUndirectedEdges(), actual.numUndirectedEdges());
+		assertEquals(expected.asSegmentList(), actual.asSegmentList());
+		assertEquals(expected.asUniqueSegmentList(), actual.asUniqueSegmentList());
+	}
+
+	@Test
+	void parsed_figures_match_SegmentNodeDatabase()
+	{
+		for (String file : new String[] { "single_triangle.json", "catWithTriangles.json", "pacmanGhost.json" })
+		{
+			String json = FileUtilities.readFileFilterComments(file);
+			FigureNode plain = (FigureNode)new JSONParser(new GeometryBuilder()).parse(json);
+			FigureNode compact = (FigureNode)new JSONParser(new GeometryBuilder(false, true)).parse(json);
+
+			assertTrue(compact.getSegments() instanceof CompactSegmentNodeDatabase);
+			assertSameAdjacency(plain.getSegments(), (CompactSegmentNodeDatabase)compact.getSegments());
+		}
+	}
+
+	@Test
+	void duplicates_and_interleaved_reads_match_SegmentNodeDatabase()
+	{
+		PointNode[] points = new PointNode[300];
+		for (int i = 0; i < points.length; i++) points[i] = new PointNode("P" + i, i % 17, i / 17);
+
+		SegmentNodeDatabase plain = new SegmentNodeDatabase();
+		CompactSegmentNodeDatabase compact = new CompactSegmentNodeDatabase();
+		Random random = new Random(223);
+		for (int i = 0; i < 5000; i++)
+		{
+			// a skewed choice of sources gives some vertices a degree above the hub threshold
+			PointNode from = points[random.nextInt(random.nextBoolean() ? 5 : points.length)];
+			PointNode to = points[random.nextInt(points.length)];
+			if (random.nextInt(4) == 0)
+			{
+				plain.addUndirectedEdge(from, to);
+				compact.addUndirectedEdge(from, to);
+			}
+			else
+			{
+				plain.addDirectedEdge(from, to);
+				compact.addDirectedEdge(from, to);
+			}
+
+			// reads between writes see every write so far
+			assertEquals(plain.edgesAsList(from), compact.edgesAsList(from));
+			assertEquals(plain.numUndirectedEdges(), compact.numUndirectedEdges());
+			if (i % 500 == 0) assertSameAdjacency(plain, compact);
+		}
+		assertSameAdjacency(plain, compact);
+
+		int[] offsets = compact.getOffsets();
+		assertEquals(compact.getVertexCount() + 1, offsets.length);
+		assertEquals(offsets[offsets.length - 1], compact.getNeighbors().length);
+		assertSameAdjacency(plain, compact);
+	}
+
+	@Test
+	void views_are_live_and_iterators_fail_fast()
+	{
+		PointNode a = new PointNode("A", 0, 0), b = new PointNode("B", 1, 0), c = new PointNode("C", 0, 1);
+		CompactSegmentNodeDatabase compact = new CompactSegmentNodeDatabase();
+		compact.addUndirectedEdge(a, b);
+
+		Map<PointNode, Set<PointNode>> view = compact.getAdjLists();
+		Set<PointNode> neighborsOfA = view.get(a);
+		compact.addUndirectedEdge(a, c);
+
+		assertEquals(3, view.size());
+		assertEquals(List.of(b, c), new ArrayList<PointNode>(neighborsOfA));
+		assertTrue(neighborsOfA.contains(c));
+
+		Iterator<PointNode> neighbors = neighborsOfA.iterator();
+		Iterator<PointNode> keys = view.keySet().iterator();
+		neighbors.next();
+		keys.next();
+		compact.addDirectedEdge(b, c);
+		assertThrows(ConcurrentModificationException.class, () -> neighbors.next());
+		assertThrows(ConcurrentModificationException.class, () -> keys.hasNext());
+
+		// reading the raw arrays rebuilds them without disturbing an iteration in progress
+		Iterator<PointNode> again = view.get(a).iterator();
+		again.next();
+		compact.getNeighbors();
+		assertEquals(c, again.next());
+		assertFalse(again.hasNext());
+	}
+}
@@ -0,0 +1,179 @@
+package input.components.segments;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import builder.GeometryBuilder;
+import diff.ChangeJournal;
+import input.components.ChangeListener;
+import input.components.FigureNode;
+import input.components.FigureStatistics;
+import input.components.point.ConcurrentPointNodeDatabase;
+import input.components.point.PointNode;
+import input.components.point.PointNodeDatabase;
+import input.parser.JSONParser;
+import utilities.io.FileUtilities;
+
+class ConcurrentSegmentNodeDatabaseTest {
+
+	@Test
+	void single_threaded_order_matches_SegmentNodeDatabase()
+	{
+		FigureNode figure = (FigureNode)new JSONParser(new GeometryBuilder()).parse(FileUtilities.readFileFilterComments("catWithTriangles.json"));
+		SegmentNodeDatabase segments = figure.getSegments();
+
+		ConcurrentSegmentNodeDatabase concurrent = new ConcurrentSegmentNodeDatabase(segments.getAdjLists());
+
+		assertEquals(segments.getAdjLists(), concurrent.getAdjLists());
+		assertEquals(new ArrayList<PointNode>(segments.getAdjLists().keySet()), new ArrayList<PointNode>(concurrent.getAdjLists().keySet()));
+		for (PointNode key : segments.getAdjLists().keySet())
+		{
+			assertEquals(segments.edgesAsList(key), concurrent.edgesAsList(key));
+		}
+		assertEquals(segments.numUndirectedEdges(), concurrent.numUndirectedEdges());
+	}
+
+	@Test
+	void parallel_adds_and_removes() throws InterruptedException
+	{
+		ConcurrentSegmentNodeDatabase segments = new ConcurrentSegmentNodeDatabase();
+		PointNode hub = new PointNode("hub", -1, -1);
+		int perThread = 500;
+
+		// all threads share the hub, so its adjacency list is contended
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int t = 0; t < 8; t++)
+		{
+			int base = t * perThread;
+			threads.add(new Thread(() -> {
+				for (int i = base; i < base + perThread; i++)
+				{
+					PointNode point = new PointNode("P" + i, i, 0);
+					segments.addUndirectedEdge(hub, point);
+					segments.addUndirectedEdge(hub, point);
+					if (i % 2 == 0) segments.removeUndirectedEdge(point, hub);
+				}
+			}));
+		}
+		for (Thread thread : threads) thread.start();
+		for (Thread thread : threads) thread.join();
+
+		assertEquals(8 * perThread / 2, segments.numUndirectedEdges());
+		assertEquals(8 * perThread / 2, segments.getAdjLists().get(hub).size());
+		assertEquals(8 * perThread / 2 + 1, segments.getAdjLists().size());
+		assertThrows(UnsupportedOperationException.class, () -> segments.getAdjLists().clear());
+	}
+
+	@Test
+	void per_key_reads_during_ingestion_do_not_rebuild_the_snapshot()
+	{
+		AtomicInteger snapshots = new AtomicInteger();
+		ConcurrentSegmentNodeDatabase concurrent = new ConcurrentSegmentNodeDatabase() {
+			@Override
+			public Map<PointNode, Set<PointNode>> getAdjLists()
+			{
+				snapshots.incrementAndGet();
+				return super.getAdjLists();
+			}
+		};
+		SegmentNodeDatabase plain = new SegmentNodeDatabase();
+
+		// a new endpoint is checked, as JSONParser ingestion would, between every add
+		PointNode previous = new PointNode("P0", 0, 0);
+		for (int i = 1; i < 200; i++)
+		{
+			PointNode point = new PointNode("P" + i, i, i % 7);
+			assertEquals(plain.edgesAsList(point), concurrent.edgesAsList(point));
+			plain.addUndirectedEdge(previous, point);
+			concurrent.addUndirectedEdge(previous, point);
+			assertEquals(plain.edgesAsList(previous), concurrent.edgesAsList(previous));
+			previous = point;
+		}
+		assertEquals(plain.asSegmentList(), concurrent.asSegmentList());
+		assertEquals(0, snapshots.get());
+
+		Map<PointNode, Set<PointNode>> snapshot = concurrent.getAdjLists();
+		assertEquals(plain.asSegmentList(), concurrent.asSegmentList());
+		assertSame(snapshot, concurrent.getAdjLists());
+	}
+
+	@Test
+	void journal_and_statistics_attach_to_concurrent_databases()
+	{
+		FigureNode parsed = (FigureNode)new JSONParser(new GeometryBuilder()).parse(FileUtilities.readFileFilterComments("catWithTriangles.json"));
+		FigureNode figure = new FigureNode("concurrent", new ConcurrentPointNodeDatabase(parsed.getPointsDatabase().getAllNodes()),
+				                           new ConcurrentSegmentNodeDatabase(parsed.getSegments().getAdjLists()));
+		ChangeJournal journal = ChangeJournal.attach(figure);
+		FigureStatistics statistics = figure.enableStatistics();
+		assertEquals(figure.getSegments().numUndirectedEdges(), statistics.getEdgeCount());
+
+		PointNodeDatabase points = figure.getPointsDatabase();
+		PointNode added = new PointNode("new", 100, 100);
+		assertTrue(points.put(added));
+		figure.getSegments().addUndirectedEdge(points.getNodeByName("A"), added);
+		figure.getSegments().addUndirectedEdge(points.getNodeByName("A"), added);
+		figure.getSegments().removeUndirectedEdge(points.getNodeByName("A"), points.getNodeByName("B"));
+		assertTrue(points.remove(points.getNodeByName("Z")));
+
+		assertEquals(6, journal.getVersion());
+		assertEquals(1, journal.addedSegmentsSince(0).numUndirectedEdges());
+		assertEquals(1, journal.removedSegmentsSince(0).numUndirectedEdges());
+		FigureStatistics expected = new FigureStatistics(points, figure.getSegments());
+		assertEquals(expected.getEdgeCount(), statistics.getEdgeCount());
+		assertEquals(expected.getComponentCount(), statistics.getComponentCount());
+		assertEquals(expected.getMaxX(), statistics.getMaxX());
+	}
+
+	@Test
+	void listeners_see_every_parallel_edit() throws InterruptedException
+	{
+		ConcurrentPointNodeDatabase points = new ConcurrentPointNodeDatabase();
+		ConcurrentSegmentNodeDatabase segments = new ConcurrentSegmentNodeDatabase();
+		AtomicInteger puts = new AtomicInteger(), removals = new AtomicInteger(), edges = new AtomicInteger();
+		ChangeListener counter = new ChangeListener() {
+			@Override public void pointPut(PointNode point)                 { puts.incrementAndGet(); }
+			@Override public void pointRemoved(PointNode point)             { removals.incrementAndGet(); }
+			@Override public void edgeAdded(PointNode from, PointNode to)   { edges.incrementAndGet(); }
+			@Override public void edgeRemoved(PointNode from, PointNode to) { edges.decrementAndGet(); }
+		};
+		points.addChangeListener(counter);
+		segments.addChangeListener(counter);
+		PointNode hub = new PointNode("hub", -1, -1);
+		int perThread = 500;
+
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int t = 0; t < 8; t++)
+		{
+			int base = t * perThread;
+			threads.add(new Thread(() -> {
+				for (int i = base; i < base + perThread; i++)
+				{
+					// every coordinate is put twice, by this thread and the previous one
+					PointNode point = new PointNode("P" + i, i, 0);
+					points.put(point);
+					points.put(new PointNode("Q" + i, (i + perThread) % (8 * perThread), 0));
+					segments.addUndirectedEdge(hub, point);
+					segments.addUndirectedEdge(hub, point);
+					if (i % 2 == 0)
+					{
+						segments.removeUndirectedEdge(point, hub);
+						points.remove(point);
+					}
+				}
+			}));
+		}
+		for (Thread thread : threads) thread.start();
+		for (Thread thread : threads) thread.join();
+
+		assertEquals(puts.get() - removals.get(), points.size());
+		assertEquals(8 * perThread / 2, removals.get());
+		assertEquals(2 * segments.numUndirectedEdges(), edges.get());
+	}
+}
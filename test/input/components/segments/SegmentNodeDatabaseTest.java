@@ -0,0 +1,131 @@
+package input.components.segments;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import builder.GeometryBuilder;
+import graph.IndexedGraph;
+import input.components.ChangeListener;
+import input.components.FigureNode;
+import input.components.point.PointNode;
+import input.parser.JSONParser;
+import utilities.io.FileUtilities;
+
+class SegmentNodeDatabaseTest {
+
+	@Test
+	void segment_equality_is_undirected()
+	{
+		PointNode a = new PointNode("A", 0, 0);
+		PointNode b = new PointNode("B", 1, 0);
+
+		assertEquals(new SegmentNode(a, b), new SegmentNode(b, a));
+		assertEquals(new SegmentNode(a, b).hashCode(), new SegmentNode(b, a).hashCode());
+		assertNotEquals(new SegmentNode(a, b), new SegmentNode(a, new PointNode("C", 0, 1)));
+	}
+
+	@Test
+	void unique_segments_each_edge_once_in_canonical_order()
+	{
+		PointNode a = new PointNode("A", 0, 0);
+		PointNode b = new PointNode("B", 1, 0);
+		PointNode c = new PointNode("C", 0, 1);
+		PointNode d = new PointNode("D", -1, 5);
+
+		SegmentNodeDatabase segments = new SegmentNodeDatabase();
+		segments.addUndirectedEdge(b, a);
+		segments.addUndirectedEdge(a, c);
+		segments.addDirectedEdge(c, d);
+
+		List<SegmentNode> unique = segments.asUniqueSegmentList();
+		assertEquals(3, unique.size());
+		for (SegmentNode segment : unique)
+		{
+			assertTrue(segment.getPoint1().getX() < segment.getPoint2().getX() ||
+					   (segment.getPoint1().getX() == segment.getPoint2().getX() && segment.getPoint1().getY() < segment.getPoint2().getY()));
+		}
+		assertEquals(new HashSet<SegmentNode>(List.of(new SegmentNode(a, b), new SegmentNode(a, c), new SegmentNode(c, d))), new HashSet<SegmentNode>(unique));
+
+		List<String> visited = new ArrayList<String>();
+		segments.forEachUniqueEdge((p, q) -> visited.add(p.getName() + q.getName()));
+		assertEquals(List.of("AB", "AC", "DC"), visited);
+	}
+
+	@Test
+	void parallel_and_compact_iteration_match()
+	{
+		FigureNode figure = (FigureNode)new JSONParser(new GeometryBuilder()).parse(FileUtilities.readFileFilterComments("catWithTriangles.json"));
+		SegmentNodeDatabase segments = figure.getSegments();
+		List<SegmentNode> unique = segments.asUniqueSegmentList();
+
+		assertEquals(segments.numUndirectedEdges(), unique.size());
+		assertEquals(unique.size(), new HashSet<SegmentNode>(unique).size());
+
+		Set<SegmentNode> parallel = segments.uniqueSegments().parallel().collect(Collectors.toSet());
+		assertEquals(new HashSet<SegmentNode>(unique), parallel);
+
+		CompactSegmentNodeDatabase compact = new CompactSegmentNodeDatabase(segments);
+		assertEquals(unique, compact.asUniqueSegmentList());
+		assertEquals(unique, compact.uniqueSegments().parallel().collect(Collectors.toList()));
+	}
+
+	@Test
+	void removal_from_a_compact_database_matches()
+	{
+		PointNode[] points = new PointNode[60];
+		for (int i = 0; i < points.length; i++) points[i] = new PointNode("P" + i, i % 7, i / 7);
+
+		SegmentNodeDatabase plain = new SegmentNodeDatabase();
+		CompactSegmentNodeDatabase compact = new CompactSegmentNodeDatabase();
+		List<String> plainEvents = new ArrayList<String>(), compactEvents = new ArrayList<String>();
+		plain.addChangeListener(new ChangeListener() {
+			@Override public void edgeAdded(PointNode from, PointNode to)   { plainEvents.add("+" + from.getName() + to.getName()); }
+			@Override public void edgeRemoved(PointNode from, PointNode to) { plainEvents.add("-" + from.getName() + to.getName()); }
+		});
+		compact.addChangeListener(new ChangeListener() {
+			@Override public void edgeAdded(PointNode from, PointNode to)   { compactEvents.add("+" + from.getName() + to.getName()); }
+			@Override public void edgeRemoved(PointNode from, PointNode to) { compactEvents.add("-" + from.getName() + to.getName()); }
+		});
+
+		Random random = new Random(13);
+		for (int i = 0; i < 20000; i++)
+		{
+			// a skewed choice of sources covers vertices of high degree too
+			PointNode from = points[random.nextInt(random.nextBoolean() ? 3 : points.length)];
+			PointNode to = points[random.nextInt(points.length)];
+			switch (random.nextInt(4))
+			{
+				case 0:  plain.addUndirectedEdge(from, to); compact.addUndirectedEdge(from, to); break;
+				case 1:  plain.addDirectedEdge(from, to); compact.addDirectedEdge(from, to); break;
+				case 2:  assertEquals(plain.removeUndirectedEdge(from, to), compact.removeUndirectedEdge(from, to)); break;
+				default: assertEquals(plain.removeDirectedEdge(from, to), compact.removeDirectedEdge(from, to));
+			}
+
+			assertEquals(plain.edgesAsList(from), compact.edgesAsList(from));
+			if (i % 1000 == 0)
+			{
+				assertEquals(plain.getAdjLists(), compact.getAdjLists());
+				assertEquals(new ArrayList<PointNode>(plain.getAdjLists().keySet()), new ArrayList<PointNode>(compact.getAdjLists().keySet()));
+				assertEquals(plain.numUndirectedEdges(), compact.numUndirectedEdges());
+				assertEquals(plain.asUniqueSegmentList(), compact.asUniqueSegmentList());
+			}
+		}
+		assertEquals(plainEvents, compactEvents);
+		assertTrue(compact.hasRemovedEdges());
+
+		// the CSR arrays hold exactly the remaining edges
+		int[] offsets = compact.getOffsets();
+		assertEquals(plain.asSegmentList().size(), offsets[offsets.length - 1]);
+		assertEquals(plain.asSegmentList(), compact.asSegmentList());
+		assertEquals(new IndexedGraph(plain).getVertexCount(), new IndexedGraph(compact).getVertexCount());
+		assertEquals(new IndexedGraph(plain).getEdgeCount(), new IndexedGraph(compact).getEdgeCount());
+	}
+}
@@ -0,0 +1,70 @@
+package input.parser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+
+import builder.GeometryBuilder;
+
+class BatchParserTest {
+
+	@Test
+	void results_keep_input_order_and_capture_failures()
+	{
+		List<Path> paths = Arrays.asList(Path.of("octogonSnowman.json"), Path.of("no_such_figure.json"),
+				                         Path.of("single_triangle.json"), Path.of("catWithTriangles.json"));
+
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try
+		{
+			BatchParseResult batch = new BatchParser(GeometryBuilder::new, executor).parse(paths);
+
+			assertEquals(paths.size(), batch.getResults().size());
+			for (int i = 0; i < paths.size(); i++)
+			{
+				assertEquals(paths.get(i), batch.getResults().get(i).getPath());
+			}
+
+			assertEquals(3, batch.getSuccessCount());
+			assertFalse(batch.getResults().get(1).isSuccess());
+			assertNotNull(batch.getResults().get(1).getException());
+			assertEquals("Right Triangle in the first quadrant.", batch.getResults().get(2).getFigure().getDescription());
+			assertTrue(batch.getTotalParseNanos() >= batch.getMaxParseNanos());
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	void parses_directory_in_name_order() throws Exception
+	{
+		Path directory = Files.createTempDirectory("figures");
+		for (String figure : new String[] { "single_triangle.json", "catWithTriangles.json", "pacmanGhost.json" })
+		{
+			Files.copy(Path.of(figure), directory.resolve(figure));
+		}
+		// neither is a figure file directly inside the directory
+		Files.writeString(directory.resolve("notes.txt"), "not a figure");
+		Files.createDirectory(directory.resolve("nested.json"));
+
+		BatchParseResult batch = new BatchParser(GeometryBuilder::new).parseDirectory(directory);
+
+		List<Path> expected = Arrays.asList(directory.resolve("catWithTriangles.json"), directory.resolve("pacmanGhost.json"),
+				                            directory.resolve("single_triangle.json"));
+		assertEquals(expected.size(), batch.getResults().size());
+		for (int i = 0; i < expected.size(); i++)
+		{
+			assertEquals(expected.get(i), batch.getResults().get(i).getPath());
+		}
+		assertEquals(expected.size(), batch.getSuccessCount());
+	}
+}
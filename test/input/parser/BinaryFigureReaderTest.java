@@ -0,0 +1,99 @@
+package input.parser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import builder.DefaultBuilder;
+import builder.GeometryBuilder;
+import input.components.ComponentNode;
+import input.components.FigureNode;
+import input.exception.ParseException;
+import visitor.ToBinaryVisitor;
+
+class BinaryFigureReaderTest {
+
+	private static byte[] write(ComponentNode node)
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		new ToBinaryVisitor().visitFigureNode((FigureNode)node, bytes);
+		return bytes.toByteArray();
+	}
+
+	@Test
+	void round_trip_sample_figures()
+	{
+		for (String figure : SampleFigures.FIGURES)
+		{
+			ComponentNode parsed = new JSONParser(new GeometryBuilder()).parse(utilities.io.FileUtilities.readFileFilterComments(figure));
+			ComponentNode reloaded = new BinaryFigureReader(new GeometryBuilder()).read(write(parsed));
+
+			assertTrue(reloaded instanceof FigureNode);
+			assertEquals(SampleFigures.unparse(parsed), SampleFigures.unparse(reloaded), figure);
+		}
+	}
+
+	@Test
+	void default_builder_test()
+	{
+		ComponentNode parsed = new JSONParser(new GeometryBuilder()).parse(utilities.io.FileUtilities.readFileFilterComments("single_triangle.json"));
+
+		assertNull(new BinaryFigureReader(new DefaultBuilder()).read(write(parsed)));
+	}
+
+	@Test
+	void rejects_bad_input()
+	{
+		ComponentNode parsed = new JSONParser(new GeometryBuilder()).parse(utilities.io.FileUtilities.readFileFilterComments("single_triangle.json"));
+		byte[] bytes = write(parsed);
+		BinaryFigureReader reader = new BinaryFigureReader(new GeometryBuilder());
+
+		byte[] badMagic = bytes.clone();
+		badMagic[0] = 'X';
+		assertThrows(ParseException.class, () -> { reader.read(badMagic); });
+
+		byte[] badVersion = bytes.clone();
+		badVersion[BinaryFigureFormat.MAGIC.length] = (byte)(BinaryFigureFormat.VERSION + 1);
+		assertThrows(ParseException.class, () -> { reader.read(badVersion); });
+
+		assertThrows(ParseException.class, () -> { reader.read(Arrays.copyOf(bytes, bytes.length - 3)); });
+	}
+
+	@Test
+	void rejects_out_of_range_ids_and_non_finite_coordinates() throws Exception
+	{
+		BinaryFigureReader reader = new BinaryFigureReader(new GeometryBuilder());
+
+		// no description, no points, one adjacency list whose key id is a five-byte varint above Integer.MAX_VALUE
+		ByteArrayOutputStream hugeId = new ByteArrayOutputStream();
+		hugeId.write(BinaryFigureFormat.MAGIC);
+		hugeId.write(new byte[] { BinaryFigureFormat.VERSION, 0, 0, 1, (byte)0xFF, (byte)0xFF, (byte)0xFF, (byte)0xFF, 0x0F, 0 });
+		assertThrows(ParseException.class, () -> { reader.read(hugeId.toByteArray()); });
+
+		// one unnamed point at (Infinity, 0)
+		ByteArrayOutputStream infinite = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(infinite);
+		out.write(BinaryFigureFormat.MAGIC);
+		out.write(new byte[] { BinaryFigureFormat.VERSION, 0, 1, 0 });
+		out.writeDouble(Double.POSITIVE_INFINITY);
+		out.writeDouble(0);
+		out.writeByte(0);
+		assertThrows(ParseException.class, () -> { reader.read(infinite.toByteArray()); });
+
+		// corrupted figures either read or fail with ParseException
+		byte[] bytes = write(new JSONParser(new GeometryBuilder()).parse(utilities.io.FileUtilities.readFileFilterComments("pacmanGhost.json")));
+		Random random = new Random(223);
+		for (int trial = 0; trial < 2000; trial++)
+		{
+			byte[] corrupt = bytes.clone();
+			for (int k = 0; k < 3; k++) corrupt[random.nextInt(corrupt.length)] ^= (byte)(1 + random.nextInt(255));
+			try { reader.read(corrupt); }
+			catch (ParseException e) { }
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package input.parser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import builder.GeometryBuilder;
+import input.components.FigureNode;
+import input.exception.ParseException;
+
+class FigureCacheTest {
+
+	private static Path copy(String figure) throws Exception
+	{
+		Path path = Files.createTempFile("figure", ".json");
+		path.toFile().deleteOnExit();
+		Files.copy(Path.of(figure), path, StandardCopyOption.REPLACE_EXISTING);
+		return path;
+	}
+
+	@Test
+	void hits_until_the_file_changes() throws Exception
+	{
+		Path path = copy("single_triangle.json");
+		FigureCache cache = new FigureCache(GeometryBuilder::new, 1 << 20);
+
+		FigureNode first = cache.get(path);
+		assertSame(first, cache.get(path));
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, cache.getLoadCount());
+		assertEquals((double)Files.size(path), (double)cache.getWeight());
+
+		Files.copy(Path.of("collinear_line_segments.json"), path, StandardCopyOption.REPLACE_EXISTING);
+		Files.setLastModifiedTime(path, FileTime.fromMillis(Files.getLastModifiedTime(path).toMillis() + 5000));
+
+		FigureNode second = cache.get(path);
+		assertNotSame(first, second);
+		assertNotEquals(first.getDescription(), second.getDescription());
+		assertEquals(1, cache.getInvalidationCount());
+		assertEquals(1, cache.size());
+
+		assertThrows(ParseException.class, () -> cache.get(Path.of("no_such_figure.json")));
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	void content_hash_ignores_touch_and_lru_evicts_by_weight() throws Exception
+	{
+		Path a = copy("single_triangle.json"), b = copy("octogonSnowman.json"), c = copy("pacmanGhost.json");
+		FigureCache cache = new FigureCache(GeometryBuilder::new, 2, FigureCache.Validation.CONTENT_HASH, true, figure -> 1);
+
+		FigureNode figureA = cache.get(a);
+		Files.setLastModifiedTime(a, FileTime.fromMillis(Files.getLastModifiedTime(a).toMillis() + 5000));
+		assertSame(figureA, cache.get(a));
+
+		cache.get(b);
+		cache.get(a);
+		cache.get(c);
+
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getEvictionCount());
+		assertSame(figureA, cache.get(a));
+		assertEquals(3, cache.getLoadCount());
+
+		cache.get(b);
+		assertEquals(4, cache.getLoadCount());
+	}
+
+	@Test
+	void concurrent_misses_share_one_parse() throws Exception
+	{
+		Path path = copy("catWithTriangles.json");
+		AtomicInteger parses = new AtomicInteger();
+		FigureCache cache = new FigureCache(() -> { parses.incrementAndGet(); return new GeometryBuilder(); }, 1 << 20);
+
+		int threads = 8;
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try
+		{
+			List<Future<FigureNode>> futures = new ArrayList<Future<FigureNode>>();
+			for (int i = 0; i < threads; i++)
+			{
+				futures.add(executor.submit(() -> { start.await(); return cache.get(path); }));
+			}
+			start.countDown();
+
+			FigureNode figure = futures.get(0).get();
+			for (Future<FigureNode> future : futures) assertSame(figure, future.get());
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+
+		assertEquals(1, parses.get());
+		assertEquals(1, cache.getLoadCount());
+		assertEquals((double)threads, (double)(cache.getHitCount() + cache.getMissCount()));
+	}
+}
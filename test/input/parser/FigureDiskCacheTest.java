@@ -0,0 +1,107 @@
+package input.parser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import builder.GeometryBuilder;
+import diff.FigureDiff;
+import input.components.FigureNode;
+import utilities.io.FileUtilities;
+
+class FigureDiskCacheTest {
+
+	private static Path copy(Path directory, String figure) throws Exception
+	{
+		Path path = directory.resolve(figure);
+		Files.copy(Path.of(figure), path, StandardCopyOption.REPLACE_EXISTING);
+		return path;
+	}
+
+	private static FigureNode parse(Path path)
+	{
+		return (FigureNode)new JSONParser(new GeometryBuilder()).parse(FileUtilities.readFileFilterComments(path.toString()));
+	}
+
+	@Test
+	void second_process_reads_entries_instead_of_parsing() throws Exception
+	{
+		Path sources = Files.createTempDirectory("figures");
+		Path entries = sources.resolve("cache");
+		List<Path> paths = Arrays.asList(copy(sources, "octogonSnowman.json"), copy(sources, "catWithTriangles.json"),
+				                         sources.resolve("no_such_figure.json"));
+
+		try (FigureDiskCache cold = new FigureDiskCache(entries, GeometryBuilder::new))
+		{
+			BatchParseResult batch = cold.loadAll(paths);
+			assertEquals(2, batch.getSuccessCount());
+			assertEquals(2, cold.getMissCount());
+		}
+
+		try (FigureDiskCache warm = new FigureDiskCache(entries, GeometryBuilder::new))
+		{
+			assertTrue(warm.isCurrent(paths.get(0)));
+			assertTrue(Files.exists(warm.getEntryPath(paths.get(1))));
+
+			for (Path path : paths.subList(0, 2))
+			{
+				FigureNode figure = warm.load(path);
+				assertEquals(parse(path).getDescription(), figure.getDescription());
+				assertTrue(FigureDiff.diff(parse(path), figure).isEmpty());
+			}
+			assertEquals(2, warm.getHitCount());
+			assertEquals(0, warm.getMissCount());
+		}
+	}
+
+	@Test
+	void stale_and_corrupt_entries_are_rebuilt() throws Exception
+	{
+		Path sources = Files.createTempDirectory("figures");
+		Path entries = sources.resolve("cache");
+		Path changed = copy(sources, "single_triangle.json"), corrupt = copy(sources, "pacmanGhost.json");
+
+		try (FigureDiskCache cache = new FigureDiskCache(entries, GeometryBuilder::new))
+		{
+			assertEquals(2, (int)cache.rebuildStale(Arrays.asList(changed, corrupt)).get());
+			assertEquals(0, (int)cache.rebuildStale(Arrays.asList(changed, corrupt)).get());
+
+			// flipping any three bytes of a valid entry must be caught by the header or the checksum
+			byte[] valid = Files.readAllBytes(cache.getEntryPath(corrupt));
+			Random random = new Random(223);
+			for (int trial = 0; trial < 200; trial++)
+			{
+				byte[] bytes = valid.clone();
+				for (int k = 0; k < 3; k++) bytes[random.nextInt(bytes.length)] ^= (byte)(1 + random.nextInt(255));
+				Files.write(cache.getEntryPath(corrupt), bytes);
+				assertFalse(cache.isCurrent(corrupt));
+			}
+			Files.write(cache.getEntryPath(corrupt), valid);
+			assertTrue(cache.isCurrent(corrupt));
+
+			Files.copy(Path.of("collinear_line_segments.json"), changed, StandardCopyOption.REPLACE_EXISTING);
+			Files.setLastModifiedTime(changed, FileTime.fromMillis(Files.getLastModifiedTime(changed).toMillis() + 5000));
+			Files.write(cache.getEntryPath(corrupt), Arrays.copyOf(valid, valid.length - 7));
+			assertFalse(cache.isCurrent(changed));
+			assertFalse(cache.isCurrent(corrupt));
+
+			assertEquals(parse(changed).getDescription(), cache.load(changed).getDescription());
+			assertTrue(FigureDiff.diff(parse(corrupt), cache.load(corrupt)).isEmpty());
+			assertEquals(2, cache.getMissCount());
+		}
+
+		try (FigureDiskCache cache = new FigureDiskCache(entries, GeometryBuilder::new))
+		{
+			assertTrue(cache.isCurrent(changed));
+			assertTrue(cache.isCurrent(corrupt));
+		}
+	}
+}
@@ -9,9 +9,15 @@ import builder.DefaultBuilder;
 import builder.GeometryBuilder;
 import static org.junit.jupiter.api.Assertions.*;
 import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import org.junit.jupiter.api.Test;
 import input.components.ComponentNode;
 import input.components.FigureNode;
+import input.components.point.PointNode;
 import input.exception.ParseException;
 import visitor.UnparseVisitor;
 
@@ -244,4 +250,54 @@ class JSONParserTest {
 		sb = (StringBuilder) unparser.visitFigureNode((FigureNode) node, new AbstractMap.SimpleEntry<StringBuilder, Integer>(sb, 0));
 		System.out.println(sb.toString());
 	}
-}
\ No newline at end of file
+
+	/*
+	 * A random figure whose Segments array repeats edges in both directions,
+	 * lists some neighbors twice and names some points that do not exist.
+	 */
+	private static String randomFigure(int points, int lists, long seed)
+	{
+		Random random = new Random(seed);
+		StringBuilder json = new StringBuilder("{ \"Figure\" : { \"Description\" : \"random\", \"Points\" : [");
+		for (int i = 0; i < points; i++)
+		{
+			json.append(i == 0 ? "" : ",").append("{ \"name\" : \"P").append(i).append("\", \"x\" : ").append(i % 100).append(", \"y\" : ").append(i / 100).append(" }");
+		}
+		json.append("], \"Segments\" : [");
+		for (int i = 0; i < lists; i++)
+		{
+			json.append(i == 0 ? "" : ",").append("{ \"P").append(random.nextInt(points)).append("\" : [");
+			int degree = random.nextInt(6);
+			for (int j = 0; j < degree; j++)
+			{
+				int neighbor = random.nextInt(points + points / 50);
+				json.append(j == 0 ? "" : ",").append("\"P").append(neighbor).append("\"");
+			}
+			json.append("] }");
+		}
+		return json.append("] } }").toString();
+	}
+
+	@Test
+	void parallel_segments_match_sequential_order()
+	{
+		String json = randomFigure(3000, 20000, 42);
+		ForkJoinPool pool = new ForkJoinPool(4);
+
+		for (GeometryBuilder builder : new GeometryBuilder[] { new GeometryBuilder(), new GeometryBuilder(true, true) })
+		{
+			FigureNode sequential = (FigureNode)new JSONParser(builder).parse(json);
+			FigureNode parallel = (FigureNode)new JSONParser(builder, pool).parse(json);
+
+			Map<PointNode, Set<PointNode>> expected = sequential.getSegments().getAdjLists();
+			Map<PointNode, Set<PointNode>> actual = parallel.getSegments().getAdjLists();
+			assertEquals(new ArrayList<PointNode>(expected.keySet()), new ArrayList<PointNode>(actual.keySet()));
+			for (PointNode key : expected.keySet())
+			{
+				assertEquals(new ArrayList<PointNode>(expected.get(key)), new ArrayList<PointNode>(actual.get(key)));
+			}
+			assertEquals(sequential.getSegments().numUndirectedEdges(), parallel.getSegments().numUndirectedEdges());
+		}
+		pool.shutdown();
+	}
+}
@@ -0,0 +1,30 @@
+package input.parser;
+
+import java.util.AbstractMap;
+
+import input.components.ComponentNode;
+import input.components.FigureNode;
+import visitor.UnparseVisitor;
+
+/**
+ * The figure files checked in at the top level of the project, shared by the
+ * parser and serializer tests.
+ */
+final class SampleFigures {
+
+	static final String[] FIGURES = { "single_triangle.json", "collinear_line_segments.json",
+			                          "crossing_symmetric_triangle.json", "fully_connected_irregular_polygon.json",
+			                          "catWithTriangles.json", "octogonSnowman.json", "pacmanGhost.json" };
+
+	private SampleFigures() {}
+
+	/**
+	 * @return the UnparseVisitor text of a parsed figure, for comparing figures read different ways
+	 */
+	static String unparse(ComponentNode node)
+	{
+		StringBuilder sb = new StringBuilder();
+		new UnparseVisitor().visitFigureNode((FigureNode)node, new AbstractMap.SimpleEntry<StringBuilder, Integer>(sb, 0));
+		return sb.toString();
+	}
+}
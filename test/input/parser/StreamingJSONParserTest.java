@@ -0,0 +1,88 @@
+package input.parser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+
+import builder.DefaultBuilder;
+import builder.GeometryBuilder;
+import input.components.ComponentNode;
+import input.components.FigureNode;
+import input.exception.ParseException;
+
+class StreamingJSONParserTest {
+
+	@Test
+	void empty_json_string_test()
+	{
+		StreamingJSONParser parser = new StreamingJSONParser(new DefaultBuilder());
+
+		assertThrows(ParseException.class, () -> { parser.parse(new StringReader("{}")); });
+	}
+
+	@Test
+	void truncated_input_test()
+	{
+		StreamingJSONParser parser = new StreamingJSONParser(new GeometryBuilder());
+
+		assertThrows(ParseException.class, () -> { parser.parse(new StringReader("{ \"Figure\" : { \"Points\" : [")); });
+	}
+
+	@Test
+	void default_builder_test() throws IOException
+	{
+		try (Reader reader = Files.newBufferedReader(Path.of("single_triangle.json")))
+		{
+			assertNull(new StreamingJSONParser(new DefaultBuilder()).parse(reader));
+		}
+	}
+
+	@Test
+	void matches_json_parser_on_sample_figures() throws IOException
+	{
+		for (String figure : SampleFigures.FIGURES)
+		{
+			ComponentNode expected = new JSONParser(new GeometryBuilder()).parse(utilities.io.FileUtilities.readFileFilterComments(figure));
+
+			try (Reader reader = Files.newBufferedReader(Path.of(figure)))
+			{
+				ComponentNode actual = new StreamingJSONParser(new GeometryBuilder()).parse(reader);
+
+				assertTrue(actual instanceof FigureNode);
+				assertEquals(SampleFigures.unparse(expected), SampleFigures.unparse(actual), figure);
+			}
+		}
+	}
+
+	@Test
+	void mapped_reader_matches_filtered_file()
+	{
+		for (String figure : SampleFigures.FIGURES)
+		{
+			ComponentNode expected = new JSONParser(new GeometryBuilder()).parse(utilities.io.FileUtilities.readFileFilterComments(figure));
+			ComponentNode viaTokener = new JSONParser(new GeometryBuilder()).parse(utilities.io.FileUtilities.openMappedFileFilterComments(figure));
+			ComponentNode streamed = new StreamingJSONParser(new GeometryBuilder()).parse(utilities.io.FileUtilities.openMappedFileFilterComments(figure));
+
+			assertEquals(SampleFigures.unparse(expected), SampleFigures.unparse(viaTokener), figure);
+			assertEquals(SampleFigures.unparse(expected), SampleFigures.unparse(streamed), figure);
+		}
+	}
+
+	@Test
+	void segments_before_points_test()
+	{
+		String json = "{ \"Figure\" : { \"Segments\" : [ { \"A\" : [\"B\"] } ], \"Description\" : \"d\", " +
+				      "\"Points\" : [ { \"name\" : \"A\", \"x\" : 0, \"y\" : 0 }, { \"name\" : \"B\", \"x\" : 1, \"y\" : 0 } ] } }";
+
+		FigureNode node = (FigureNode)new StreamingJSONParser(new GeometryBuilder()).parse(new StringReader(json));
+
+		assertEquals("d", node.getDescription());
+		assertEquals(1, node.getSegments().numUndirectedEdges());
+	}
+}
@@ -0,0 +1,106 @@
+package input.parser;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.StringWriter;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import builder.GeometryBuilder;
+import input.components.FigureNode;
+import input.components.point.PointNode;
+import input.components.point.PointNodeDatabase;
+import input.components.segments.SegmentNode;
+import input.components.segments.SegmentNodeDatabase;
+import visitor.StreamingJSONVisitor;
+
+class StreamingJSONVisitorTest {
+
+	private static Set<String> undirectedEdges(SegmentNodeDatabase segments)
+	{
+		Set<String> edges = new HashSet<String>();
+		for (Map.Entry<PointNode, Set<PointNode>> entry : segments.getAdjLists().entrySet())
+		{
+			for (PointNode neighbor : entry.getValue())
+			{
+				String a = entry.getKey().getName();
+				String b = neighbor.getName();
+				edges.add(a.compareTo(b) < 0 ? a + "-" + b : b + "-" + a);
+			}
+		}
+		return edges;
+	}
+
+	@Test
+	void output_parses_back_to_the_same_figure()
+	{
+		for (String figure : SampleFigures.FIGURES)
+		{
+			FigureNode original = (FigureNode)new JSONParser(new GeometryBuilder()).parse(utilities.io.FileUtilities.readFileFilterComments(figure));
+
+			StringWriter out = new StringWriter();
+			new StreamingJSONVisitor().visitFigureNode(original, out);
+			FigureNode reparsed = (FigureNode)new JSONParser(new GeometryBuilder()).parse(out.toString());
+
+			assertEquals(original.getDescription(), reparsed.getDescription(), figure);
+			assertEquals(original.getPointsDatabase().getAllNodeNames(), reparsed.getPointsDatabase().getAllNodeNames(), figure);
+			for (PointNode point : original.getPointsDatabase().getAllNodes())
+			{
+				assertEquals(point, reparsed.getPointsDatabase().getNodeByName(point.getName()), figure);
+			}
+			assertEquals(undirectedEdges(original.getSegments()), undirectedEdges(reparsed.getSegments()), figure);
+			assertEquals(original.getSegments().numUndirectedEdges(), reparsed.getSegments().numUndirectedEdges(), figure);
+		}
+	}
+
+	@Test
+	void escapes_strings()
+	{
+		GeometryBuilder builder = new GeometryBuilder();
+		FigureNode figure = builder.buildFigureNode("a \"quoted\"\\ line\n", builder.buildPointDatabaseNode(new java.util.ArrayList<PointNode>()),
+				                                    builder.buildSegmentNodeDatabase());
+
+		StringWriter out = new StringWriter();
+		new StreamingJSONVisitor().visitFigureNode(figure, out);
+
+		assertEquals(figure.getDescription(), ((FigureNode)new JSONParser(builder).parse(out.toString())).getDescription());
+	}
+
+	@Test
+	void non_finite_coordinates_are_rejected()
+	{
+		for (double bad : new double[] { Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY })
+		{
+			StringWriter out = new StringWriter();
+			assertThrows(IllegalArgumentException.class, () -> new StreamingJSONVisitor().visitPointNode(new PointNode("A", 0, bad), out));
+			assertThrows(IllegalArgumentException.class, () -> new StreamingJSONVisitor().visitPointNode(new PointNode("A", bad, 0), out));
+			assertEquals("", out.toString());
+		}
+	}
+
+	@Test
+	void points_without_names_are_rejected()
+	{
+		PointNode unnamed = new PointNode(null, 1, 2);
+		PointNode named = new PointNode("A", 0, 0);
+		StringWriter out = new StringWriter();
+
+		assertThrows(IllegalArgumentException.class, () -> new StreamingJSONVisitor().visitPointNode(unnamed, out));
+		assertThrows(IllegalArgumentException.class, () -> new StreamingJSONVisitor().visitSegmentNode(new SegmentNode(named, unnamed), out));
+
+		// the unnamed point is only reached after a list that could already have been written
+		SegmentNodeDatabase segments = new SegmentNodeDatabase();
+		segments.addUndirectedEdge(named, new PointNode("B", 1, 0));
+		segments.addUndirectedEdge(new PointNode("C", 0, 1), unnamed);
+		assertThrows(IllegalArgumentException.class, () -> new StreamingJSONVisitor().visitSegmentDatabaseNode(segments, out));
+
+		GeometryBuilder builder = new GeometryBuilder();
+		PointNodeDatabase points = builder.buildPointDatabaseNode(List.of(named, unnamed));
+		assertThrows(IllegalArgumentException.class, () -> new StreamingJSONVisitor().visitPointNodeDatabase(points, out));
+		assertEquals("", out.toString());
+	}
+}
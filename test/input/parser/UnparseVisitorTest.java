@@ -8,10 +8,17 @@ package input.parser;
 import builder.DefaultBuilder;
 import builder.GeometryBuilder;
 import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.AbstractMap;
 import org.junit.jupiter.api.Test;
 import input.components.ComponentNode;
 import input.components.FigureNode;
+import input.components.point.PointNode;
+import input.components.point.PointNodeDatabase;
 import input.exception.ParseException;
 import visitor.UnparseVisitor;
 public class UnparseVisitorTest {
@@ -241,4 +248,63 @@ public class UnparseVisitorTest {
 				new AbstractMap.SimpleEntry<StringBuilder, Integer>(sb, 0));
 		System.out.println(sb.toString());
 	}
-}
\ No newline at end of file
+
+	@Test
+	void writer_sink_matches_string_builder()
+	{
+		ComponentNode node = JSONParserTest.runFigureParseTestGeometry("catWithTriangles.json");
+
+		StringBuilder sb = new StringBuilder();
+		new UnparseVisitor().visitFigureNode((FigureNode)node, new AbstractMap.SimpleEntry<StringBuilder, Integer>(sb, 0));
+
+		StringWriter writer = new StringWriter();
+		new UnparseVisitor().visitFigureNode((FigureNode)node, new AbstractMap.SimpleEntry<Writer, Integer>(writer, 0));
+
+		assertEquals(sb.toString(), writer.toString());
+	}
+
+	@Test
+	void coordinates_print_as_Double_toString()
+	{
+		double[] values = { 0, -0.0, 3, -12, 0.5, -2.25, 1e-4, 123456789.0, 1.0 / 3 };
+
+		UnparseVisitor unparser = new UnparseVisitor();
+		for (double value : values)
+		{
+			StringWriter writer = new StringWriter();
+			unparser.visitPointNode(new PointNode("A", value, value), new AbstractMap.SimpleEntry<Writer, Integer>(writer, 0));
+
+			assertEquals("        Point(A)(" + value + ", " + value + ")\n", writer.toString());
+		}
+	}
+
+	/*
+	 * The golden files were written by the UnparseVisitor this one replaced.
+	 */
+	@Test
+	void output_matches_the_golden_files() throws IOException
+	{
+		for (String figure : SampleFigures.FIGURES)
+		{
+			ComponentNode node = JSONParserTest.runFigureParseTestGeometry(figure);
+			Path golden = Path.of("test/input/parser/golden/" + figure.replace(".json", ".txt"));
+
+			assertEquals(Files.readString(golden), SampleFigures.unparse(node), figure);
+		}
+	}
+
+	@Test
+	void points_sharing_a_name_are_each_written()
+	{
+		PointNodeDatabase points = new PointNodeDatabase();
+		points.put(new PointNode("A", 0, 0));
+		points.put(new PointNode("A", 1, 1));
+		points.put(new PointNode("B", 2, 2));
+
+		StringBuilder sb = new StringBuilder();
+		new UnparseVisitor().visitPointNodeDatabase(points, new AbstractMap.SimpleEntry<StringBuilder, Integer>(sb, 0));
+
+		// the previous visitor looked points up by name and wrote Point(A)(0.0, 0.0) twice
+		assertTrue(sb.toString().contains("Point(A)(0.0, 0.0)\n        Point(A)(1.0, 1.0)\n        Point(B)(2.0, 2.0)\n"));
+	}
+}
@@ -0,0 +1,106 @@
+package spatial;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import input.components.point.PointNode;
+import input.components.point.PointNodeDatabase;
+
+class PointKDTreeTest {
+
+	private static List<PointNode> randomPoints(Random random, int count)
+	{
+		List<PointNode> points = new ArrayList<PointNode>();
+		for (int i = 0; i < count; i++)
+		{
+			// a coarse grid for repeated coordinates along each axis, plus noise
+			double x = random.nextInt(50) + (random.nextBoolean() ? 0 : random.nextDouble());
+			double y = random.nextInt(50) + (random.nextBoolean() ? 0 : random.nextDouble());
+			points.add(new PointNode("P" + i, x, y));
+		}
+		return points;
+	}
+
+	private static void assertMatchesScan(PointKDTree tree, List<PointNode> points, Random random)
+	{
+		assertEquals(points.size(), tree.size());
+		for (int q = 0; q < 200; q++)
+		{
+			double x = random.nextDouble() * 60 - 5;
+			double y = random.nextDouble() * 60 - 5;
+			double w = random.nextDouble() * 10;
+			double h = random.nextDouble() * 10;
+
+			List<PointNode> inRange = new ArrayList<PointNode>();
+			List<PointNode> inRadius = new ArrayList<PointNode>();
+			for (PointNode p : points)
+			{
+				if (p.getX() >= x && p.getX() <= x + w && p.getY() >= y && p.getY() <= y + h) inRange.add(p);
+				if (Math.hypot(p.getX() - x, p.getY() - y) <= w) inRadius.add(p);
+			}
+			assertEquals(names(inRange), names(tree.range(x, y, x + w, y + h)));
+			assertEquals(names(inRadius), names(tree.withinRadius(x, y, w)));
+
+			List<PointNode> byDistance = new ArrayList<PointNode>(points);
+			byDistance.sort(Comparator.comparingDouble(p -> Math.hypot(p.getX() - x, p.getY() - y)));
+			List<PointNode> nearest = tree.nearest(x, y, 5);
+			assertEquals(Math.min(5, points.size()), nearest.size());
+			for (int i = 0; i < nearest.size(); i++)
+			{
+				assertEquals(Math.hypot(byDistance.get(i).getX() - x, byDistance.get(i).getY() - y),
+						     Math.hypot(nearest.get(i).getX() - x, nearest.get(i).getY() - y), 1e-12);
+			}
+		}
+	}
+
+	private static HashSet<String> names(List<PointNode> points)
+	{
+		HashSet<String> names = new HashSet<String>();
+		for (PointNode p : points) names.add(p.getName());
+		assertEquals(points.size(), names.size());
+		return names;
+	}
+
+	@Test
+	void bulk_built_queries_match_a_linear_scan()
+	{
+		Random random = new Random(7);
+		PointNodeDatabase db = new PointNodeDatabase(randomPoints(random, 3000));
+		List<PointNode> points = db.getAllNodes();
+
+		assertMatchesScan(new PointKDTree(points), points, random);
+		assertNull(new PointKDTree().nearest(0, 0));
+		assertTrue(new PointKDTree(points).nearest(0, 0, 0).isEmpty());
+		assertTrue(new PointKDTree().nearest(0, 0, 0).isEmpty());
+		assertThrows(IllegalArgumentException.class, () -> new PointKDTree(points).nearest(0, 0, -1));
+	}
+
+	@Test
+	void attached_tree_follows_puts_and_removes()
+	{
+		Random random = new Random(11);
+		PointNodeDatabase db = new PointNodeDatabase(randomPoints(random, 500));
+		PointKDTree tree = PointKDTree.attach(db);
+
+		// enough puts and removals to trigger rebuilds
+		for (PointNode point : randomPoints(random, 2000))
+		{
+			db.put(new PointNode("N" + point.getName(), point.getX() + 100, point.getY()));
+		}
+		List<PointNode> all = db.getAllNodes();
+		for (int i = 0; i < all.size(); i += 3) db.remove(all.get(i));
+
+		assertMatchesScan(tree, db.getAllNodes(), random);
+
+		tree.detach(db);
+		db.put(new PointNode("detached", -50, -50));
+		assertNotEquals("detached", tree.nearest(-50, -50).getName());
+	}
+}
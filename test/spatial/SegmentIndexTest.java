@@ -0,0 +1,140 @@
+package spatial;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import builder.GeometryBuilder;
+import input.components.FigureNode;
+import input.components.point.PointNode;
+import input.components.segments.SegmentNode;
+import input.components.segments.SegmentNodeDatabase;
+import input.parser.JSONParser;
+import utilities.io.FileUtilities;
+import utilities.math.GeometryUtilities;
+import utilities.math.MathUtilities;
+
+class SegmentIndexTest {
+
+	private static String key(SegmentNode segment)
+	{
+		String a = segment.getPoint1().getName();
+		String b = segment.getPoint2().getName();
+		return a.compareTo(b) < 0 ? a + "-" + b : b + "-" + a;
+	}
+
+	private static Set<String> keys(List<SegmentNode> segments)
+	{
+		Set<String> keys = new HashSet<String>();
+		for (SegmentNode segment : segments) keys.add(key(segment));
+		assertEquals(segments.size(), keys.size());
+		return keys;
+	}
+
+	@Test
+	void crossing_symmetric_triangle_has_one_crossing()
+	{
+		FigureNode figure = (FigureNode)new JSONParser(new GeometryBuilder()).parse(FileUtilities.readFileFilterComments("crossing_symmetric_triangle.json"));
+		SegmentIndex index = new SegmentIndex(figure.getSegments());
+
+		assertEquals(figure.getSegments().numUndirectedEdges(), index.size());
+
+		List<SegmentNode[]> pairs = index.crossingPairs();
+		assertEquals(1, pairs.size());
+		assertEquals(new HashSet<String>(List.of("B-E", "C-D")), new HashSet<String>(List.of(key(pairs.get(0)[0]), key(pairs.get(0)[1]))));
+
+		// only the bottom edge reaches below y = 0.5
+		assertEquals(Set.of("B-D", "C-D", "B-E", "C-E", "D-E"), keys(index.intersecting(-1, -1, 7, 0.5)));
+		assertEquals(Set.of("D-E"), keys(index.intersecting(2.5, -1, 3.5, 0.5)));
+	}
+
+	@Test
+	void segments_touching_within_epsilon_are_not_pruned()
+	{
+		double near = 1 + MathUtilities.EPSILON / 2;
+		PointNode bottom = new PointNode("B", near, 0), top = new PointNode("T", near, 2);
+		PointNode left = new PointNode("L", 0, 1), right = new PointNode("R", 1, 1);
+		// a ledge from just above the top of the vertical segment
+		PointNode ledge = new PointNode("E", 0.5, 2 + MathUtilities.EPSILON / 2), ledgeEnd = new PointNode("F", 3, 2 + MathUtilities.EPSILON / 2);
+
+		assertTrue(GeometryUtilities.segmentsIntersect(left.getX(), left.getY(), right.getX(), right.getY(),
+				                                       bottom.getX(), bottom.getY(), top.getX(), top.getY()));
+
+		SegmentNodeDatabase segments = new SegmentNodeDatabase();
+		segments.addUndirectedEdge(bottom, top);
+		SegmentIndex index = new SegmentIndex(segments);
+		assertEquals(Set.of("B-T"), keys(index.intersecting(left, right)));
+		assertEquals(Set.of("B-T"), keys(index.intersecting(ledge, ledgeEnd)));
+
+		segments.addUndirectedEdge(left, right);
+		segments.addUndirectedEdge(ledge, ledgeEnd);
+		Set<String> pairs = new HashSet<String>();
+		for (SegmentNode[] pair : new SegmentIndex(segments).crossingPairs())
+		{
+			String first = key(pair[0]), second = key(pair[1]);
+			pairs.add(first.compareTo(second) < 0 ? first + " " + second : second + " " + first);
+		}
+		assertEquals(Set.of("B-T L-R", "B-T E-F"), pairs);
+	}
+
+	@Test
+	void queries_match_brute_force_on_random_segments()
+	{
+		Random random = new Random(3);
+		SegmentNodeDatabase segments = new SegmentNodeDatabase();
+		PointNode[] points = new PointNode[400];
+		for (int i = 0; i < points.length; i++) points[i] = new PointNode("P" + i, random.nextDouble() * 100, random.nextDouble() * 100);
+		for (int i = 0; i < 600; i++)
+		{
+			PointNode a = points[random.nextInt(points.length)];
+			PointNode b = points[random.nextInt(points.length)];
+			// short segments, as in real figures
+			if (a != b && Math.hypot(a.getX() - b.getX(), a.getY() - b.getY()) < 20) segments.addUndirectedEdge(a, b);
+		}
+		SegmentIndex index = new SegmentIndex(segments);
+		List<SegmentNode> all = new ArrayList<SegmentNode>();
+		Set<String> seen = new HashSet<String>();
+		for (SegmentNode segment : segments.asSegmentList())
+		{
+			if (seen.add(key(segment))) all.add(segment);
+		}
+		assertEquals(all.size(), index.size());
+
+		int crossings = 0;
+		for (int i = 0; i < all.size(); i++)
+		{
+			for (int j = 0; j < all.size(); j++)
+			{
+				SegmentNode s = all.get(i), t = all.get(j);
+				if (key(s).compareTo(key(t)) >= 0) continue;
+				boolean shared = s.getPoint1().equals(t.getPoint1()) || s.getPoint1().equals(t.getPoint2()) ||
+						         s.getPoint2().equals(t.getPoint1()) || s.getPoint2().equals(t.getPoint2());
+				if (!shared && GeometryUtilities.segmentsIntersect(s.getPoint1().getX(), s.getPoint1().getY(), s.getPoint2().getX(), s.getPoint2().getY(),
+						                                           t.getPoint1().getX(), t.getPoint1().getY(), t.getPoint2().getX(), t.getPoint2().getY())) crossings++;
+			}
+		}
+		assertEquals(crossings, index.crossingPairs().size());
+
+		for (int q = 0; q < 50; q++)
+		{
+			double x = random.nextDouble() * 100, y = random.nextDouble() * 100;
+			Set<String> inRectangle = new HashSet<String>();
+			Set<String> crossingQuery = new HashSet<String>();
+			PointNode a = new PointNode("qa", x, y), b = new PointNode("qb", x + 15, y - 5);
+			for (SegmentNode s : all)
+			{
+				double ax = s.getPoint1().getX(), ay = s.getPoint1().getY(), bx = s.getPoint2().getX(), by = s.getPoint2().getY();
+				if (GeometryUtilities.segmentIntersectsRectangle(ax, ay, bx, by, x, y, x + 10, y + 10)) inRectangle.add(key(s));
+				if (GeometryUtilities.segmentsIntersect(ax, ay, bx, by, a.getX(), a.getY(), b.getX(), b.getY())) crossingQuery.add(key(s));
+			}
+			assertEquals(inRectangle, keys(index.intersecting(x, y, x + 10, y + 10)));
+			assertEquals(crossingQuery, keys(index.intersecting(a, b)));
+		}
+	}
+}
@@ -0,0 +1,142 @@
+package spatial;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import builder.GeometryBuilder;
+import graph.ConnectedComponents;
+import graph.IndexedGraph;
+import graph.PlanarFaces;
+import input.components.FigureNode;
+import input.components.point.PointNode;
+import input.components.point.PointNodeDatabase;
+import input.components.segments.CompactSegmentNodeDatabase;
+import input.components.segments.SegmentNodeDatabase;
+import input.parser.JSONParser;
+import utilities.io.FileUtilities;
+
+class SegmentSplitterTest {
+
+	private static FigureNode parse(String file)
+	{
+		return (FigureNode)new JSONParser(new GeometryBuilder()).parse(FileUtilities.readFileFilterComments(file));
+	}
+
+	/*
+	 * A plane graph has E - V + C bounded faces.
+	 */
+	private static void assertPlane(SegmentNodeDatabase segments)
+	{
+		IndexedGraph graph = new IndexedGraph(segments);
+		int expected = graph.getEdgeCount() - graph.getVertexCount() + new ConnectedComponents(graph).getCount();
+		assertEquals(expected, new PlanarFaces(graph).boundedFaces().size());
+	}
+
+	@Test
+	void crossing_symmetric_triangle_is_split_at_its_crossing()
+	{
+		FigureNode figure = parse("crossing_symmetric_triangle.json");
+		PointNodeDatabase points = figure.getPointsDatabase();
+		SegmentNodeDatabase segments = figure.getSegments();
+		int edges = segments.numUndirectedEdges();
+
+		SegmentSplitter splitter = new SegmentSplitter(points, segments);
+		assertEquals(0, splitter.getScannedRemovals());
+		assertEquals(1, splitter.getNewPoints().size());
+		PointNode crossing = splitter.getNewPoints().get(0);
+		assertEquals(SegmentSplitter.SPLIT_PREFIX + "1", crossing.getName());
+
+		assertEquals(2, splitter.apply());
+		assertSame(crossing, points.getNodeByName(crossing.getName()));
+		assertEquals(edges + 2, segments.numUndirectedEdges());
+		assertTrue(segments.edgesAsList(points.getNodeByName("B")).contains(crossing.getName()));
+		assertFalse(segments.edgesAsList(points.getNodeByName("B")).contains("E"));
+		assertTrue(new SegmentSplitter(points, segments).getSplitPoints().isEmpty());
+		assertPlane(segments);
+	}
+
+	@Test
+	void overlaps_and_touching_endpoints_are_split()
+	{
+		PointNode a = new PointNode("A", 0, 0), b = new PointNode("B", 2, 0);
+		PointNode c = new PointNode("C", 4, 0), d = new PointNode("D", 6, 0);
+		PointNode top = new PointNode("T", 3, 5), u = new PointNode("U", 3, 0);
+		PointNodeDatabase points = new PointNodeDatabase(List.of(a, b, c, d, top));
+		SegmentNodeDatabase segments = new SegmentNodeDatabase();
+		segments.addUndirectedEdge(a, c);
+		segments.addUndirectedEdge(b, d);
+		// a vertical segment ending on the overlap
+		segments.addUndirectedEdge(top, u);
+
+		SegmentSplitter splitter = new SegmentSplitter(points, segments);
+		assertEquals(0, splitter.getScannedRemovals());
+		assertTrue(splitter.getNewPoints().isEmpty());
+		assertEquals(3, splitter.getSplitPoints().size());
+		splitter.apply();
+
+		assertEquals(Set.of("B"), new HashSet<String>(segments.edgesAsList(a)));
+		assertEquals(Set.of("A", "U"), new HashSet<String>(segments.edgesAsList(b)));
+		assertEquals(Set.of("D", "U"), new HashSet<String>(segments.edgesAsList(c)));
+		assertEquals(Set.of("B", "C", "T"), new HashSet<String>(segments.edgesAsList(u)));
+		assertTrue(new SegmentSplitter(points, segments).getSplitPoints().isEmpty());
+	}
+
+	@Test
+	void figures_and_random_grids_become_plane()
+	{
+		for (String file : new String[] { "fully_connected_irregular_polygon.json", "pacmanGhost.json" })
+		{
+			FigureNode figure = parse(file);
+			SegmentSplitter splitter = new SegmentSplitter(figure.getPointsDatabase(), figure.getSegments());
+			assertEquals(0, splitter.getScannedRemovals());
+			splitter.apply();
+			assertTrue(new SegmentSplitter(figure.getPointsDatabase(), figure.getSegments()).getSplitPoints().isEmpty());
+			assertPlane(figure.getSegments());
+		}
+
+		Random random = new Random(23);
+		for (int trial = 0; trial < 20; trial++)
+		{
+			PointNodeDatabase points = new PointNodeDatabase();
+			SegmentNodeDatabase segments = new SegmentNodeDatabase();
+			for (int i = 0; i < 30; i++)
+			{
+				PointNode p = new PointNode("p" + i, random.nextInt(8), random.nextInt(8));
+				PointNode q = new PointNode("q" + i, random.nextInt(8), random.nextInt(8));
+				if (!p.equals(q)) segments.addUndirectedEdge(p, q);
+			}
+			SegmentSplitter splitter = new SegmentSplitter(points, segments);
+			assertEquals(0, splitter.getScannedRemovals());
+			splitter.apply();
+			assertTrue(new SegmentSplitter(points, segments).getSplitPoints().isEmpty());
+			assertPlane(segments);
+		}
+	}
+
+	@Test
+	void collinear_segments_keep_the_status_in_order()
+	{
+		// the first two overlap, and rounding gives them slopes of -5.999999999999998 and -6.000000000000001
+		double[][] ends = { { 0.2, 0.0, 0.05, 0.8999999999999999 }, { 0.2, 0.0, 0.15000000000000002, 0.3 },
+				            { 0.0, 0.6, 0.25, 0.0 }, { 0.2, 0.3, 0.15000000000000002, 0.6 }, { 0.2, 0.6, 0.05, 0.3 },
+				            { 0.0, 0.8999999999999999, 0.35000000000000003, 0.6 } };
+		PointNodeDatabase points = new PointNodeDatabase();
+		SegmentNodeDatabase segments = new SegmentNodeDatabase();
+		for (int i = 0; i < ends.length; i++)
+		{
+			segments.addUndirectedEdge(new PointNode("p" + i, ends[i][0], ends[i][1]), new PointNode("q" + i, ends[i][2], ends[i][3]));
+		}
+
+		SegmentSplitter splitter = new SegmentSplitter(points, segments);
+		assertEquals(0, splitter.getScannedRemovals());
+		splitter.apply();
+		assertTrue(new SegmentSplitter(points, segments).getSplitPoints().isEmpty());
+		assertPlane(segments);
+	}
+}